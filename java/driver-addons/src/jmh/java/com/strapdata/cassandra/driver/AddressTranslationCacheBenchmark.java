@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.cassandra.driver;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measure the address translation cost when cached, compared to a resolver taking a simulated DNS round trip.
+ * Run with: ./gradlew :java:driver-addons:jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AddressTranslationCacheBenchmark {
+
+    @Param({"16", "256"})
+    int peers;
+
+    // simulated DNS round trip
+    @Param({"100"})
+    long dnsLatencyMicros;
+
+    InetSocketAddress[] addresses;
+    AddressTranslationCache cache;
+    Function<InetAddress, InetAddress> resolver;
+    int next;
+
+    @Setup
+    public void setup() throws UnknownHostException {
+        addresses = new InetSocketAddress[peers];
+        for (int i = 0; i < peers; i++)
+            addresses[i] = new InetSocketAddress(InetAddress.getByName("35.1." + (i / 256) + "." + (i % 256)), 9042);
+        resolver = address -> {
+            long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(dnsLatencyMicros);
+            while (System.nanoTime() < deadline) {
+                // busy wait
+            }
+            byte[] bytes = address.getAddress();
+            bytes[0] = 10;
+            try {
+                return InetAddress.getByAddress(bytes);
+            } catch (UnknownHostException e) {
+                return null;
+            }
+        };
+        cache = new AddressTranslationCache(300, 30, 1024);
+    }
+
+    private InetSocketAddress nextAddress() {
+        next = (next + 1) % peers;
+        return addresses[next];
+    }
+
+    @Benchmark
+    public void cachedTranslation(Blackhole bh) {
+        InetSocketAddress socketAddress = nextAddress();
+        bh.consume(new InetSocketAddress(cache.get(socketAddress.getAddress(), resolver, Runnable::run), socketAddress.getPort()));
+    }
+
+    @Benchmark
+    public void uncachedTranslation(Blackhole bh) {
+        InetSocketAddress socketAddress = nextAddress();
+        bh.consume(new InetSocketAddress(resolver.apply(socketAddress.getAddress()), socketAddress.getPort()));
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.cassandra.driver;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of address translations, with distinct TTLs for resolved (positive) and unresolved (negative) addresses.
+ * Expired entries are still served while they are refreshed in background, so that a translation is a map lookup
+ * except for the first one.
+ */
+public class AddressTranslationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(AddressTranslationCache.class);
+
+    public static final long DEFAULT_POSITIVE_TTL_SECONDS = 300;
+    public static final long DEFAULT_NEGATIVE_TTL_SECONDS = 30;
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    static final class Entry {
+        final InetAddress translated;   // null when the address cannot be translated
+        final long expireAtNanos;
+        final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+        Entry(InetAddress translated, long expireAtNanos) {
+            this.translated = translated;
+            this.expireAtNanos = expireAtNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expireAtNanos >= 0;
+        }
+    }
+
+    private final Map<InetAddress, Entry> entries = new ConcurrentHashMap<>();
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+    private final int maxEntries;
+
+    public AddressTranslationCache(long positiveTtlSeconds, long negativeTtlSeconds, int maxEntries) {
+        this.positiveTtlNanos = TimeUnit.SECONDS.toNanos(positiveTtlSeconds);
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Get the cached translation, or load it on the first call.
+     * When the entry is expired, the stale translation is returned and a refresh is submitted to the refreshExecutor.
+     *
+     * @param address the address to translate
+     * @param loader resolve the address, returning null if not translated
+     * @param refreshExecutor executor for background refresh
+     * @return the translated address, or null if the address is not translated
+     */
+    public InetAddress get(InetAddress address, Function<InetAddress, InetAddress> loader, Executor refreshExecutor) {
+        Entry entry = entries.get(address);
+        if (entry == null)
+            return put(address, loader.apply(address)).translated;
+
+        if (entry.isExpired(System.nanoTime()) && entry.refreshing.compareAndSet(false, true)) {
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        put(address, loader.apply(address));
+                    } catch (Throwable t) {
+                        logger.debug("Failed to refresh translation of " + address, t);
+                        entry.refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                entry.refreshing.set(false);
+            }
+        }
+        return entry.translated;
+    }
+
+    /**
+     * Get the cached translation from an asynchronous loader.
+     * On the first call, wait at most firstLoadTimeoutMillis for the translation, the result is cached when available.
+     * When the entry is expired, the stale translation is returned while the refresh is in flight.
+     *
+     * @param address the address to translate
+     * @param loader resolve the address asynchronously, completing with null if not translated
+     * @param firstLoadTimeoutMillis max wait on the first call, 0 to never wait
+     * @return the translated address, or null if the address is not (yet) translated
+     */
+    public InetAddress getAsync(InetAddress address, Function<InetAddress, CompletableFuture<InetAddress>> loader, long firstLoadTimeoutMillis) {
+        Entry entry = entries.get(address);
+        if (entry == null) {
+            CompletableFuture<InetAddress> future = loader.apply(address).whenComplete((translated, error) -> {
+                if (error == null)
+                    put(address, translated);
+            });
+            if (firstLoadTimeoutMillis <= 0)
+                return null;
+            try {
+                return future.get(firstLoadTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (ExecutionException | TimeoutException e) {
+                logger.debug("Failed to translate " + address, e);
+                return null;
+            }
+        }
+
+        if (entry.isExpired(System.nanoTime()) && entry.refreshing.compareAndSet(false, true)) {
+            loader.apply(address).whenComplete((translated, error) -> {
+                if (error == null) {
+                    put(address, translated);
+                } else {
+                    logger.debug("Failed to refresh translation of " + address, error);
+                    entry.refreshing.set(false);
+                }
+            });
+        }
+        return entry.translated;
+    }
+
+    /**
+     * Add or replace a translation.
+     *
+     * @param address
+     * @param translated the translated address, or null when not translated
+     * @return the cache entry
+     */
+    Entry put(InetAddress address, InetAddress translated) {
+        long now = System.nanoTime();
+        Entry entry = new Entry(translated, now + (translated == null ? negativeTtlNanos : positiveTtlNanos));
+        entries.put(address, entry);
+        if (entries.size() > maxEntries)
+            evict(now);
+        return entry;
+    }
+
+    // remove expired entries first, then any entries until the cache fits
+    private void evict(long nowNanos) {
+        entries.values().removeIf(e -> e.isExpired(nowNanos));
+        for (Iterator<InetAddress> it = entries.keySet().iterator(); entries.size() > maxEntries && it.hasNext(); ) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    /**
+     * @return true if a translation, possibly expired, is cached for this address.
+     */
+    public boolean contains(InetAddress address) {
+        return entries.containsKey(address);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+}
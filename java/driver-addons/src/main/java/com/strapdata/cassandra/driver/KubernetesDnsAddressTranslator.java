@@ -36,6 +36,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * {@link AddressTranslator} implementation for a multi-region kubernetes deployment <b>where clients are
@@ -49,6 +51,9 @@ import java.util.Hashtable;
  * <p>Implementation note: this class performs a reverse DNS lookup of the origin address, to find
  * the domain name of the target instance. Then it performs a forward DNS lookup of the hostname (not the domain name);
  * The hostname is then resolved to the kubernetes node IP address by the internal kubernetes DNS service.
+ *
+ * <p>Translations are cached, with TTLs defined by the env variables ADDRESS_TRANSLATOR_POSITIVE_TTL and
+ * ADDRESS_TRANSLATOR_NEGATIVE_TTL (in seconds), and refreshed in background when expired.
  */
 public class KubernetesDnsAddressTranslator implements AddressTranslator {
 
@@ -60,7 +65,16 @@ public class KubernetesDnsAddressTranslator implements AddressTranslator {
 
     private final String dnsDomain;
 
+    private final AddressTranslationCache cache;
+
+    // background refresh of expired translations
+    private final ExecutorService refreshExecutor;
+
     public KubernetesDnsAddressTranslator() {
+        this(positiveTtlFromEnv(), negativeTtlFromEnv(), AddressTranslationCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    public KubernetesDnsAddressTranslator(long positiveTtlSeconds, long negativeTtlSeconds, int maxEntries) {
         Hashtable<Object, Object> env = new Hashtable<Object, Object>();
         env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
         try {
@@ -69,12 +83,34 @@ public class KubernetesDnsAddressTranslator implements AddressTranslator {
             throw new DriverException("Could not create translator", e);
         }
         this.dnsDomain = System.getenv("ADDRESS_TRANSLATOR_DNS_DOMAIN");
+        this.cache = new AddressTranslationCache(positiveTtlSeconds, negativeTtlSeconds, maxEntries);
+        this.refreshExecutor = newRefreshExecutor();
     }
 
     @VisibleForTesting
     KubernetesDnsAddressTranslator(DirContext ctx) {
         this.ctx = ctx;
         this.dnsDomain = System.getenv("ADDRESS_TRANSLATOR_DNS_DOMAIN");
+        this.cache = new AddressTranslationCache(positiveTtlFromEnv(), negativeTtlFromEnv(), AddressTranslationCache.DEFAULT_MAX_ENTRIES);
+        this.refreshExecutor = newRefreshExecutor();
+    }
+
+    static long positiveTtlFromEnv() {
+        String ttl = System.getenv("ADDRESS_TRANSLATOR_POSITIVE_TTL");
+        return ttl == null ? AddressTranslationCache.DEFAULT_POSITIVE_TTL_SECONDS : Long.parseLong(ttl);
+    }
+
+    static long negativeTtlFromEnv() {
+        String ttl = System.getenv("ADDRESS_TRANSLATOR_NEGATIVE_TTL");
+        return ttl == null ? AddressTranslationCache.DEFAULT_NEGATIVE_TTL_SECONDS : Long.parseLong(ttl);
+    }
+
+    private static ExecutorService newRefreshExecutor() {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "address-translator-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
@@ -90,17 +126,27 @@ public class KubernetesDnsAddressTranslator implements AddressTranslator {
         if (address.isSiteLocalAddress())
             return socketAddress;
 
+        InetAddress translatedAddress = cache.get(address, this::resolve, refreshExecutor);
+        return translatedAddress == null ? socketAddress : new InetSocketAddress(translatedAddress, socketAddress.getPort());
+    }
+
+    /**
+     * Resolve the internal address.
+     *
+     * @param address public address
+     * @return the internal address, or null if the address cannot be translated.
+     */
+    InetAddress resolve(InetAddress address) {
         if (dnsDomain != null && address instanceof Inet4Address) {
             // try to resolv internal IPv4 address by resolving the external address to X-X-X-X.$ADDRESS_TRANSLATOR_DNS_DOMAIN
             String dnsName = address.getHostAddress().replace(".","-") + "." + dnsDomain;
             try {
-                InetAddress translatedAddress = InetAddress.getByName(dnsName);
-                return new InetSocketAddress(translatedAddress, socketAddress.getPort());
+                return InetAddress.getByName(dnsName);
             } catch(java.net.UnknownHostException e) {
                 logger.warn("Cannot resolv " + dnsName + ", fallback to revers resolution");
             } catch (Exception e) {
                 logger.warn("Error resolving " + address + ", returning it as-is", e);
-                return socketAddress;
+                return null;
             }
         }
 
@@ -112,19 +158,19 @@ public class KubernetesDnsAddressTranslator implements AddressTranslator {
             String domainName = lookupPtrRecord(reverse(address));
             if (domainName == null) {
                 logger.warn("Found no domain name for {}, returning it as-is", address);
-                return socketAddress;
+                return null;
             }
 
             String hostname = domainName.substring(0, domainName.indexOf("."));
             InetAddress translatedAddress = InetAddress.getByName(hostname);
             logger.debug("Resolved {} to {}", address, translatedAddress);
-            return new InetSocketAddress(translatedAddress, socketAddress.getPort());
+            return translatedAddress;
         } catch(javax.naming.NameNotFoundException e) {
             logger.warn("Cannot resolv " + address + ", returning it as-is");
-            return socketAddress;
+            return null;
         } catch (Exception e) {
             logger.warn("Error resolving " + address + ", returning it as-is", e);
-            return socketAddress;
+            return null;
         }
     }
 
@@ -140,6 +186,8 @@ public class KubernetesDnsAddressTranslator implements AddressTranslator {
 
     @Override
     public void close() {
+        refreshExecutor.shutdownNow();
+        cache.clear();
         try {
             ctx.close();
         } catch (NamingException e) {
@@ -18,6 +18,7 @@
 package com.strapdata.cassandra.driver;
 
 import com.datastax.driver.core.policies.AddressTranslator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonTypeName;
 
 import systems.composable.dropwizard.cassandra.network.AddressTranslatorFactory;
@@ -28,8 +29,44 @@ import systems.composable.dropwizard.cassandra.network.AddressTranslatorFactory;
  */
 @JsonTypeName("kubernetesDnsTranslator")
 public class KubernetesDnsAddressTranslatorFactory implements AddressTranslatorFactory {
+
+    public static final String RESOLVER_JNDI = "jndi";
+    public static final String RESOLVER_NETTY = "netty";
+
+    /**
+     * DNS resolver implementation, jndi (blocking) or netty (non-blocking).
+     */
+    @JsonProperty
+    private String resolver = System.getenv().getOrDefault("ADDRESS_TRANSLATOR_RESOLVER", RESOLVER_JNDI);
+
+    /**
+     * TTL in seconds of resolved translations.
+     */
+    @JsonProperty
+    private long positiveTtl = KubernetesDnsAddressTranslator.positiveTtlFromEnv();
+
+    /**
+     * TTL in seconds of unresolved translations.
+     */
+    @JsonProperty
+    private long negativeTtl = KubernetesDnsAddressTranslator.negativeTtlFromEnv();
+
+    /**
+     * Max number of cached translations.
+     */
+    @JsonProperty
+    private int maxEntries = AddressTranslationCache.DEFAULT_MAX_ENTRIES;
+
+    /**
+     * DNS query timeout in milliseconds of the netty resolver.
+     */
+    @JsonProperty
+    private long queryTimeout = NettyDnsAddressTranslator.DEFAULT_QUERY_TIMEOUT_MS;
+
     @Override
     public AddressTranslator build() {
-        return new KubernetesDnsAddressTranslator();
+        if (RESOLVER_NETTY.equalsIgnoreCase(resolver))
+            return new NettyDnsAddressTranslator(positiveTtl, negativeTtl, maxEntries, queryTimeout);
+        return new KubernetesDnsAddressTranslator(positiveTtl, negativeTtl, maxEntries);
     }
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.cassandra.driver;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.NettyOptions;
+import com.datastax.driver.core.policies.AddressTranslator;
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DefaultDnsQuestion;
+import io.netty.handler.codec.dns.DnsPtrRecord;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponse;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.NoopDnsCache;
+import io.netty.resolver.dns.NoopDnsCnameCache;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.Future;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.Inet4Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Non-blocking alternative to the {@link KubernetesDnsAddressTranslator}, based on the Netty {@link DnsNameResolver}.
+ *
+ * <p>When ADDRESS_TRANSLATOR_DNS_DOMAIN is defined, the A query of X-X-X-X.$ADDRESS_TRANSLATOR_DNS_DOMAIN and the PTR query
+ * of the public address are sent in parallel, and the A result is preferred. Translations are cached like in the
+ * {@link KubernetesDnsAddressTranslator}, and stale translations are served while a refresh is in flight.
+ *
+ * <p>DNS queries are sent from the driver event loop when the cluster is built with {@link SharedEventLoopNettyOptions},
+ * otherwise from a dedicated event loop. Because a DNS query cannot complete while its event loop waits for it, the first
+ * translation of an address requested from that event loop is resolved with blocking JDK lookups.
+ */
+public class NettyDnsAddressTranslator implements AddressTranslator {
+
+    private static final Logger logger = LoggerFactory.getLogger(NettyDnsAddressTranslator.class);
+
+    public static final long DEFAULT_QUERY_TIMEOUT_MS = 2000;
+
+    private final String dnsDomain;
+    private final AddressTranslationCache cache;
+    private final long queryTimeoutMs;
+
+    // blocking resolution of cache misses on the DNS event loop
+    private final KubernetesDnsAddressTranslator blockingTranslator;
+    private final Function<InetAddress, InetAddress> blockingResolver;
+
+    private volatile EventLoopGroup ownEventLoopGroup;
+    private volatile EventLoop eventLoop;
+    private volatile DnsNameResolver resolver;
+
+    public NettyDnsAddressTranslator() {
+        this(KubernetesDnsAddressTranslator.positiveTtlFromEnv(), KubernetesDnsAddressTranslator.negativeTtlFromEnv(),
+                AddressTranslationCache.DEFAULT_MAX_ENTRIES, DEFAULT_QUERY_TIMEOUT_MS);
+    }
+
+    public NettyDnsAddressTranslator(long positiveTtlSeconds, long negativeTtlSeconds, int maxEntries, long queryTimeoutMs) {
+        this(positiveTtlSeconds, negativeTtlSeconds, maxEntries, queryTimeoutMs, new KubernetesDnsAddressTranslator(positiveTtlSeconds, negativeTtlSeconds, maxEntries));
+    }
+
+    private NettyDnsAddressTranslator(long positiveTtlSeconds, long negativeTtlSeconds, int maxEntries, long queryTimeoutMs, KubernetesDnsAddressTranslator blockingTranslator) {
+        this(positiveTtlSeconds, negativeTtlSeconds, maxEntries, queryTimeoutMs, blockingTranslator, blockingTranslator::resolve);
+    }
+
+    @VisibleForTesting
+    NettyDnsAddressTranslator(long positiveTtlSeconds, long negativeTtlSeconds, int maxEntries, long queryTimeoutMs,
+                              KubernetesDnsAddressTranslator blockingTranslator, Function<InetAddress, InetAddress> blockingResolver) {
+        this.dnsDomain = System.getenv("ADDRESS_TRANSLATOR_DNS_DOMAIN");
+        this.cache = new AddressTranslationCache(positiveTtlSeconds, negativeTtlSeconds, maxEntries);
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.blockingTranslator = blockingTranslator;
+        this.blockingResolver = blockingResolver;
+    }
+
+    @Override
+    public void init(Cluster cluster) {
+        NettyOptions nettyOptions = cluster.getConfiguration().getNettyOptions();
+        EventLoopGroup group = (nettyOptions instanceof SharedEventLoopNettyOptions)
+                ? ((SharedEventLoopNettyOptions) nettyOptions).getEventLoopGroup()
+                : null;
+        if (group == null) {
+            ownEventLoopGroup = new NioEventLoopGroup(1, new DefaultThreadFactory("address-translator-dns", true));
+            group = ownEventLoopGroup;
+        }
+        init(group.next());
+    }
+
+    @VisibleForTesting
+    void init(EventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+        this.resolver = buildResolver(eventLoop);
+    }
+
+    private DnsNameResolver buildResolver(EventLoop eventLoop) {
+        return new DnsNameResolverBuilder(eventLoop)
+                .channelType(datagramChannelType(eventLoop))
+                .queryTimeoutMillis(queryTimeoutMs)
+                // translations are cached by the AddressTranslationCache (a zero TTL is rejected by the default CNAME cache)
+                .resolveCache(NoopDnsCache.INSTANCE)
+                .cnameCache(NoopDnsCnameCache.INSTANCE)
+                .build();
+    }
+
+    // the datagram channel must match the event loop transport (the driver uses epoll when available)
+    @SuppressWarnings("unchecked")
+    private static Class<? extends DatagramChannel> datagramChannelType(EventLoop eventLoop) {
+        if (eventLoop.getClass().getName().startsWith("io.netty.channel.epoll.")) {
+            try {
+                return (Class<? extends DatagramChannel>) Class.forName("io.netty.channel.epoll.EpollDatagramChannel");
+            } catch (ClassNotFoundException e) {
+                // fallback to NIO
+            }
+        }
+        return NioDatagramChannel.class;
+    }
+
+    @Override
+    public InetSocketAddress translate(InetSocketAddress socketAddress) {
+        InetAddress address = socketAddress.getAddress();
+
+        // do not translate RFC1918 addresses
+        if (address.isSiteLocalAddress())
+            return socketAddress;
+
+        DnsNameResolver dnsNameResolver = this.resolver;
+        if (dnsNameResolver == null) {
+            logger.warn("Translator not initialized, returning {} as-is", address);
+            return socketAddress;
+        }
+
+        InetAddress translatedAddress;
+        if (eventLoop.inEventLoop() && !cache.contains(address)) {
+            // the DNS queries of this event loop cannot complete while it waits for them
+            translatedAddress = blockingResolver.apply(address);
+            cache.put(address, translatedAddress);
+        } else {
+            translatedAddress = cache.getAsync(address, this::resolve, 2 * queryTimeoutMs);
+        }
+        return translatedAddress == null ? socketAddress : new InetSocketAddress(translatedAddress, socketAddress.getPort());
+    }
+
+    /**
+     * Resolve the internal address with parallel A and PTR queries.
+     *
+     * @param address public address
+     * @return a future completed with the internal address, or null if the address cannot be translated.
+     */
+    CompletableFuture<InetAddress> resolve(InetAddress address) {
+        CompletableFuture<InetAddress> ptrFuture = resolveByPtr(address);
+        if (dnsDomain == null || !(address instanceof Inet4Address))
+            return ptrFuture;
+
+        String dnsName = address.getHostAddress().replace(".", "-") + "." + dnsDomain;
+        return toCompletableFuture(resolver.resolve(dnsName))
+                .handle((translated, error) -> {
+                    if (error != null)
+                        logger.debug("Cannot resolv {}, fallback to reverse resolution", dnsName);
+                    return translated;
+                })
+                .thenCompose(translated -> translated != null ? CompletableFuture.completedFuture(translated) : ptrFuture);
+    }
+
+    private CompletableFuture<InetAddress> resolveByPtr(InetAddress address) {
+        return toCompletableFuture(resolver.query(new DefaultDnsQuestion(KubernetesDnsAddressTranslator.reverse(address), DnsRecordType.PTR)))
+                .thenApply(envelope -> {
+                    try {
+                        return ptrHostname(envelope.content());
+                    } finally {
+                        envelope.release();
+                    }
+                })
+                .thenCompose(domainName -> {
+                    if (domainName == null) {
+                        logger.warn("Found no domain name for {}, returning it as-is", address);
+                        return CompletableFuture.completedFuture((InetAddress) null);
+                    }
+                    String hostname = domainName.substring(0, domainName.indexOf("."));
+                    return toCompletableFuture(resolver.resolve(hostname));
+                })
+                .handle((translated, error) -> {
+                    if (error != null) {
+                        logger.warn("Cannot resolv " + address + ", returning it as-is");
+                        return null;
+                    }
+                    logger.debug("Resolved {} to {}", address, translated);
+                    return translated;
+                });
+    }
+
+    private static String ptrHostname(DnsResponse response) {
+        for (int i = 0; i < response.count(DnsSection.ANSWER); i++) {
+            DnsRecord record = response.recordAt(DnsSection.ANSWER, i);
+            if (record instanceof DnsPtrRecord)
+                return ((DnsPtrRecord) record).hostname();
+        }
+        return null;
+    }
+
+    private static <T> CompletableFuture<T> toCompletableFuture(Future<T> future) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        future.addListener(f -> {
+            if (f.isSuccess()) {
+                completableFuture.complete(future.getNow());
+            } else {
+                completableFuture.completeExceptionally(f.cause());
+            }
+        });
+        return completableFuture;
+    }
+
+    @Override
+    public void close() {
+        cache.clear();
+        if (resolver != null)
+            resolver.close();
+        if (blockingTranslator != null)
+            blockingTranslator.close();
+        if (ownEventLoopGroup != null)
+            ownEventLoopGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.cassandra.driver;
+
+import com.datastax.driver.core.NettyOptions;
+import io.netty.channel.EventLoopGroup;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link NettyOptions} exposing the driver event loop group, so that the {@link NettyDnsAddressTranslator}
+ * sends its DNS queries from the driver event loop rather than from its own threads.
+ */
+public class SharedEventLoopNettyOptions extends NettyOptions {
+
+    private volatile EventLoopGroup eventLoopGroup;
+
+    @Override
+    public EventLoopGroup eventLoopGroup(ThreadFactory threadFactory) {
+        EventLoopGroup group = super.eventLoopGroup(threadFactory);
+        this.eventLoopGroup = group;
+        return group;
+    }
+
+    @Override
+    public void onClusterClose(EventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = null;
+        super.onClusterClose(eventLoopGroup);
+    }
+
+    /**
+     * @return the driver event loop group, or null if the cluster is not initialized.
+     */
+    public EventLoopGroup getEventLoopGroup() {
+        return eventLoopGroup;
+    }
+}
@@ -17,6 +17,112 @@
 
 package com.strapdata.cassandra.driver;
 
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class ElassandraOperatorAddressTransaltorTests {
 
+    @Test
+    public void testReverse() throws Exception {
+        assertEquals("4.3.2.1.in-addr.arpa", KubernetesDnsAddressTranslator.reverse(InetAddress.getByName("1.2.3.4")));
+    }
+
+    @Test
+    public void testCachedTranslation() throws Exception {
+        final InetAddress publicIp = InetAddress.getByName("35.1.2.3");
+        final InetAddress internalIp = InetAddress.getByName("10.0.0.3");
+        final AtomicInteger calls = new AtomicInteger();
+        Function<InetAddress, InetAddress> loader = a -> {
+            calls.incrementAndGet();
+            return internalIp;
+        };
+
+        AddressTranslationCache cache = new AddressTranslationCache(300, 30, 16);
+        assertEquals(internalIp, cache.get(publicIp, loader, Runnable::run));
+        assertEquals(internalIp, cache.get(publicIp, loader, Runnable::run));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testNegativeTranslationRefresh() throws Exception {
+        final InetAddress publicIp = InetAddress.getByName("35.1.2.4");
+        final InetAddress internalIp = InetAddress.getByName("10.0.0.4");
+        final AtomicInteger calls = new AtomicInteger();
+        Function<InetAddress, InetAddress> loader = a -> calls.incrementAndGet() == 1 ? null : internalIp;
+
+        // negative entries expire immediately, the stale result is returned while refreshing
+        AddressTranslationCache cache = new AddressTranslationCache(300, 0, 16);
+        assertNull(cache.get(publicIp, loader, Runnable::run));
+        assertNull(cache.get(publicIp, loader, Runnable::run));
+        assertEquals(internalIp, cache.get(publicIp, loader, Runnable::run));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testBoundedCache() throws Exception {
+        AddressTranslationCache cache = new AddressTranslationCache(300, 30, 4);
+        for (int i = 0; i < 10; i++)
+            cache.get(InetAddress.getByName("35.1.2." + i), a -> a, Runnable::run);
+        assertTrue(cache.size() <= 4);
+    }
+
+    @Test
+    public void testAsyncStaleWhileRefresh() throws Exception {
+        final InetAddress publicIp = InetAddress.getByName("35.1.2.5");
+        final InetAddress internalIp1 = InetAddress.getByName("10.0.0.5");
+        final InetAddress internalIp2 = InetAddress.getByName("10.0.0.6");
+        final CompletableFuture<InetAddress> refresh = new CompletableFuture<>();
+        final AtomicInteger calls = new AtomicInteger();
+        Function<InetAddress, CompletableFuture<InetAddress>> loader = a ->
+                calls.incrementAndGet() == 1 ? CompletableFuture.completedFuture(internalIp1) : refresh;
+
+        // positive entries expire immediately
+        AddressTranslationCache cache = new AddressTranslationCache(0, 0, 16);
+        assertEquals(internalIp1, cache.getAsync(publicIp, loader, 1000));
+        // stale result while the refresh is in flight, only one refresh
+        assertEquals(internalIp1, cache.getAsync(publicIp, loader, 1000));
+        assertEquals(internalIp1, cache.getAsync(publicIp, loader, 1000));
+        assertEquals(2, calls.get());
+        refresh.complete(internalIp2);
+        assertEquals(internalIp2, cache.getAsync(publicIp, loader, 1000));
+    }
+
+    @Test
+    public void testNettyTranslationOnEventLoop() throws Exception {
+        final InetAddress publicIp = InetAddress.getByName("35.1.2.7");
+        final InetAddress internalIp = InetAddress.getByName("10.0.0.7");
+        final AtomicInteger calls = new AtomicInteger();
+        Function<InetAddress, InetAddress> blockingResolver = a -> {
+            calls.incrementAndGet();
+            return internalIp;
+        };
+
+        NettyDnsAddressTranslator translator = new NettyDnsAddressTranslator(300, 30, 16, 100, null, blockingResolver);
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            translator.init(group.next());
+            // a cache miss on the DNS event loop is resolved synchronously
+            assertEquals(new InetSocketAddress(internalIp, 9042),
+                    group.submit(() -> translator.translate(new InetSocketAddress(publicIp, 9042))).get(10, TimeUnit.SECONDS));
+            // then served from the cache
+            assertEquals(new InetSocketAddress(internalIp, 9042), translator.translate(new InetSocketAddress(publicIp, 9042)));
+            assertEquals(1, calls.get());
+            // private addresses are not translated
+            assertEquals(new InetSocketAddress(internalIp, 9042), translator.translate(new InetSocketAddress(internalIp, 9042)));
+            assertEquals(1, calls.get());
+        } finally {
+            translator.close();
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+        }
+    }
 }
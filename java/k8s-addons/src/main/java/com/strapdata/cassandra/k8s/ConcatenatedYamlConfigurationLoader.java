@@ -2,7 +2,6 @@ package com.strapdata.cassandra.k8s;
 
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
 
 import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.ConfigurationLoader;
@@ -10,101 +9,103 @@ import org.apache.cassandra.exceptions.ConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.Tag;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.Reader;
 
 import org.yaml.snakeyaml.error.YAMLException;
 
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 /**
  * A ConfigurationLoader that reads from one or more specified YAML-formatted configuration files, including files
- * contained within any specified directories. The contents of these configuration files will be concatenated
- * together and then read as if they were a single file. Files are concatenated in the order specified, and files
- * in any specified directories will be concatenated in lexicographical order.
+ * contained within any specified directories. Files are loaded in the order specified, and files in any specified
+ * directories are loaded in lexicographical order.
+ * <p>
+ * Each file is parsed separately and must contain a YAML mapping. The top-level keys of the files are then merged,
+ * a key defined in a later file replacing the same key of a previous file, as if the files were concatenated.
+ * Parsed files are cached by modification time and size, so that unchanged files are not parsed again on reload.
  */
 public class ConcatenatedYamlConfigurationLoader implements ConfigurationLoader {
     private static final Logger logger = LoggerFactory.getLogger(ConcatenatedYamlConfigurationLoader.class);
 
     private static final PathMatcher YAML_PATH_MATCHER = FileSystems.getDefault().getPathMatcher("glob:**/*.{yaml,yml}");
 
-    static class ConcatenatedReader extends Reader {
-        private final Queue<Reader> readers;
-
-        ConcatenatedReader(final Collection<? extends Reader> readers) {
-            this.readers = new LinkedList<>(readers);
+    /**
+     * A parsed configuration file.
+     */
+    static final class ConfigFragment {
+        final Path path;
+        final FileTime lastModifiedTime;
+        final long size;
+        final Map<String, Object> tree;
+
+        ConfigFragment(Path path, FileTime lastModifiedTime, long size, Map<String, Object> tree) {
+            this.path = path;
+            this.lastModifiedTime = lastModifiedTime;
+            this.size = size;
+            this.tree = tree;
         }
 
-        @Override
-        public int read(final char[] cbuf, final int off, final int len) throws IOException {
-            if (readers.isEmpty()) {
-                return -1;
-            }
-
-            final Reader currentReader = readers.peek();
-
-            final int bytesRead = currentReader.read(cbuf, off, len);
-
-            if (bytesRead != -1) {
-                return bytesRead;
-            }
+        boolean isUpToDate(BasicFileAttributes attributes) {
+            return lastModifiedTime.equals(attributes.lastModifiedTime()) && size == attributes.size();
+        }
+    }
 
-            currentReader.close();
-            readers.remove();
+    // parsed configuration files, by absolute path
+    private static final ConcurrentMap<Path, ConfigFragment> FRAGMENTS = new ConcurrentHashMap<>();
 
-            // return new-lines between files
-            cbuf[off] = '\n';
-            return 1;
+    /**
+     * Build a Config bean from an already parsed YAML tree.
+     */
+    static final class ConfigConstructor extends Constructor {
+        ConfigConstructor() {
+            super(Config.class);
         }
 
-        @Override
-        public void close() throws IOException {
-            for (final Reader reader : readers) {
-                reader.close();
-            }
+        Config construct(Node node) {
+            node.setTag(new Tag(Config.class));
+            return (Config) constructDocument(node);
         }
     }
 
+    static List<Path> configPaths(String configProperty) {
+        final Iterable<String> configValues = Splitter.on(':').split(configProperty);
 
-    static final class ConfigSupplier implements Supplier<Config> {
-        @Override
-        public Config get() {
-            final String configProperty = System.getProperty("cassandra.config");
-            logger.info("Loading config from {}", configProperty);
-
-            final Iterable<String> configValues = Splitter.on(':').split(configProperty);
-
-            final List<BufferedReader> readers = StreamSupport.stream(configValues.spliterator(), false)
-                    .map(Paths::get)
-
-                    // recurse into any specified directories and load any config files within
-                    .flatMap(path -> {
-                        if (!Files.exists(path)) {
-                            logger.warn("Specified configuration file/directory {} does not exist.", path);
-                            return Stream.empty();
-                        }
+        return StreamSupport.stream(configValues.spliterator(), false)
+                .map(Paths::get)
 
-                        if (Files.isDirectory(path)) {
-                            try {
-                                return Files.list(path)
-                                        .sorted();
+                // recurse into any specified directories and load any config files within
+                .flatMap(path -> {
+                    if (!Files.exists(path)) {
+                        logger.warn("Specified configuration file/directory {} does not exist.", path);
+                        return Stream.empty();
+                    }
 
-                            } catch (final IOException e) {
-                                throw new ConfigurationException(String.format("Failed to open directory \"%s\".", path), e);
-                            }
+                    if (Files.isDirectory(path)) {
+                        try {
+                            return Files.list(path)
+                                    .sorted();
 
-                        } else {
-                            return Stream.of(path);
+                        } catch (final IOException e) {
+                            throw new ConfigurationException(String.format("Failed to open directory \"%s\".", path), e);
                         }
-                    })
 
+                    } else {
+                        return Stream.of(path);
+                    }
+                })
 
                 // only load regular yaml files
                 .filter(path -> {
@@ -120,38 +121,121 @@ public class ConcatenatedYamlConfigurationLoader implements ConfigurationLoader
                         logger.warn("Configuration file \"{}\" is not a YAML file and will not be loaded.", path);
                         return false;
                     }
-                    logger.info("Loading configuration file \"{}\"", path);
                     return true;
                 })
+                .collect(Collectors.toList());
+    }
 
-                .map(path -> {
-                    try {
-                        return Files.newBufferedReader(path, StandardCharsets.UTF_8);
+    /**
+     * Parse a configuration file, or return the cached fragment if the file is unchanged.
+     */
+    @SuppressWarnings("unchecked")
+    static ConfigFragment loadFragment(Path path) {
+        final Path absolutePath = path.toAbsolutePath();
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(absolutePath, BasicFileAttributes.class);
+        } catch (final IOException e) {
+            throw new ConfigurationException(String.format("Failed to read attributes of configuration file \"%s\".", path), e);
+        }
 
-                    } catch (final IOException e) {
-                        throw new ConfigurationException(String.format("Failed to open configuration file \"%s\" for reading.", path), e);
-                    }
-                })
-                .collect(Collectors.toList());
+        ConfigFragment fragment = FRAGMENTS.get(absolutePath);
+        if (fragment != null && fragment.isUpToDate(attributes)) {
+            logger.debug("Configuration file \"{}\" unchanged", path);
+            return fragment;
+        }
+
+        logger.info("Loading configuration file \"{}\"", path);
+        final Object tree;
+        try {
+            tree = new Yaml().load(new String(Files.readAllBytes(absolutePath), StandardCharsets.UTF_8));
+        } catch (final IOException e) {
+            throw new ConfigurationException(String.format("Failed to open configuration file \"%s\" for reading.", path), e);
+        } catch (final YAMLException e) {
+            throw new ConfigurationException(String.format("Invalid YAML in configuration file \"%s\": %s", path, e.getMessage()), e);
+        }
+
+        if (tree != null && !(tree instanceof Map))
+            throw new ConfigurationException(String.format("Configuration file \"%s\" does not contain a YAML mapping.", path));
 
-            try (final Reader reader = new ConcatenatedReader(readers)) {
-                final Yaml yaml = new Yaml();
+        fragment = new ConfigFragment(absolutePath, attributes.lastModifiedTime(), attributes.size(),
+                tree == null ? Collections.emptyMap() : Collections.unmodifiableMap((Map<String, Object>) tree));
+        FRAGMENTS.put(absolutePath, fragment);
+        return fragment;
+    }
 
-                final Config config = yaml.loadAs(reader, Config.class);
+    /**
+     * Merge the top-level keys of the fragments, the last fragment having the highest precedence.
+     *
+     * @param fragments configuration fragments in loading order
+     * @param sources filled with the file defining each merged key
+     * @return the merged tree
+     */
+    static Map<String, Object> merge(List<ConfigFragment> fragments, Map<String, Path> sources) {
+        final Map<String, Object> merged = new LinkedHashMap<>();
+        for (ConfigFragment fragment : fragments) {
+            for (Map.Entry<String, Object> entry : fragment.tree.entrySet()) {
+                Path previous = sources.put(entry.getKey(), fragment.path);
+                if (previous != null)
+                    logger.debug("Configuration key \"{}\" of file \"{}\" overridden by file \"{}\"", entry.getKey(), previous, fragment.path);
+                merged.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return merged;
+    }
 
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Active configuration: {}", yaml.dump(config));
+    /**
+     * Build the Cassandra configuration from a merged tree, a binding error points to the file defining the invalid key.
+     */
+    static Config toConfig(Map<String, Object> tree, Map<String, Path> sources) {
+        final Yaml yaml = new Yaml();
+        try {
+            return new ConfigConstructor().construct(yaml.represent(tree));
+        } catch (final YAMLException e) {
+            // find the first invalid key
+            for (Map.Entry<String, Object> entry : tree.entrySet()) {
+                try {
+                    new ConfigConstructor().construct(yaml.represent(Collections.singletonMap(entry.getKey(), entry.getValue())));
+                } catch (final YAMLException e2) {
+                    throw new ConfigurationException(String.format("Invalid configuration key \"%s\" in file \"%s\": %s",
+                            entry.getKey(), sources.get(entry.getKey()), e2.getMessage()), e2);
                 }
+            }
+            throw new ConfigurationException("Exception while loading configuration files.", e);
+        }
+    }
 
-                return config == null ? new Config() : config;
+    static final class ConfigSupplier implements Supplier<Config> {
+        // fragments of the last loaded config
+        private List<ConfigFragment> fragments = null;
+        private Config config = null;
 
-            } catch (final IOException | YAMLException e) {
-                throw new ConfigurationException("Exception while loading configuration files.", e);
+        @Override
+        public synchronized Config get() {
+            final String configProperty = System.getProperty("cassandra.config");
+            logger.info("Loading config from {}", configProperty);
+
+            final List<ConfigFragment> loadedFragments = configPaths(configProperty).stream()
+                    .map(ConcatenatedYamlConfigurationLoader::loadFragment)
+                    .collect(Collectors.toList());
+
+            // same files, none of them changed
+            if (config != null && loadedFragments.equals(fragments))
+                return config;
+
+            final Map<String, Path> sources = new HashMap<>();
+            final Config loadedConfig = toConfig(merge(loadedFragments, sources), sources);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Active configuration: {}", new Yaml().dump(loadedConfig));
             }
+
+            this.fragments = loadedFragments;
+            this.config = loadedConfig;
+            return loadedConfig;
         }
     }
 
-    private static final Supplier<Config> CONFIG_SUPPLIER = Suppliers.memoize(new ConfigSupplier());
+    private static final Supplier<Config> CONFIG_SUPPLIER = new ConfigSupplier();
 
     @Override
     public Config loadConfig() throws ConfigurationException {
@@ -1,5 +1,6 @@
 package com.strapdata.cassandra.k8s;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.net.InetAddresses;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.EncryptionOptions;
@@ -14,15 +15,17 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
-import java.io.DataInputStream;
-import java.io.FilterInputStream;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -45,10 +48,55 @@ public class ElassandraOperatorSeedProvider implements org.apache.cassandra.loca
 
     private EncryptionOptions encryptionOptions;
 
+    /**
+     * Connect and read timeout of remote seeder calls, seeds resolution is bounded to 3 times this timeout.
+     */
+    private final int timeoutMs;
+
+    /**
+     * How long the last known seeds of a remote seeder are used when it is down.
+     */
+    private final long lastKnownSeedsTtlMs;
+
+    // seeder url -> last successful response
+    private final Map<String, LastKnownSeeds> lastKnownSeeds = new ConcurrentHashMap<>();
+
+    /**
+     * Watch remote seeders to get seeds as soon as they change.
+     */
+    private final boolean watchRemoteSeeders;
+
+    // seeder url -> seeds pushed on the watch stream, only present while connected
+    private final Map<String, List<InetAddress>> watchedSeeds = new ConcurrentHashMap<>();
+
+    private volatile SSLSocketFactory sslSocketFactory;
+
+    // resolve seeds in parallel, threads are created on demand
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "seed-provider");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static class LastKnownSeeds {
+        final List<InetAddress> seeds;
+        final String etag;
+        final long timestamp;
+
+        LastKnownSeeds(List<InetAddress> seeds, String etag, long timestamp) {
+            this.seeds = seeds;
+            this.etag = etag;
+            this.timestamp = timestamp;
+        }
+    }
+
     public ElassandraOperatorSeedProvider(final Map<String, String> args) {
         seeds = getParameter(args, "seeds", "SEEDS");
         remoteSeeds = getParameter(args, "remote_seeds", "REMOTE_SEEDS");
         remoteSeeders = getParameter(args, "remote_seeders", "REMOTE_SEEDERS");
+        timeoutMs = Integer.parseInt(getSingleParameter(args, "timeout_ms", "SEEDER_TIMEOUT_MS", "5000"));
+        lastKnownSeedsTtlMs = TimeUnit.SECONDS.toMillis(Long.parseLong(getSingleParameter(args, "last_known_seeds_ttl", "SEEDER_LAST_KNOWN_SEEDS_TTL", "600")));
+        watchRemoteSeeders = Boolean.parseBoolean(getSingleParameter(args, "watch_remote_seeders", "SEEDER_WATCH", "true"));
 
         this.encryptionOptions = new EncryptionOptions.ClientEncryptionOptions();
         EncryptionOptions.ClientEncryptionOptions cassandraEncryptionOptions = DatabaseDescriptor.getClientEncryptionOptions();
@@ -66,6 +114,13 @@ public class ElassandraOperatorSeedProvider implements org.apache.cassandra.loca
         } catch(SecurityException e) {
             logger.warn("Failed to disable DNS negative caching", e);
         }
+
+        if (watchRemoteSeeders) {
+            for (String url : remoteSeeders) {
+                if (!url.trim().isEmpty())
+                    executor.submit(new SeederWatcher(url.trim()));
+            }
+        }
     }
 
     public String[] getParameter(final Map<String, String> args, String paramName, String envVarName) {
@@ -94,42 +149,56 @@ public class ElassandraOperatorSeedProvider implements org.apache.cassandra.loca
     @Override
     public List<InetAddress> getSeeds() {
 
-        final List<InetAddress> seedAddresses = new ArrayList<>();
-
         logger.info("seeds={} remote_seeds={} remote_seeders={}", Arrays.toString(seeds), Arrays.toString(remoteSeeds), Arrays.toString(remoteSeeders));
 
+        // resolve all seeds and call remote seeders in parallel
+        final List<Future<List<InetAddress>>> futures = new ArrayList<>();
+        // seeder url of each future, null for DNS resolutions
+        final List<String> futureSeeders = new ArrayList<>();
+
         // remove seed nodes is replaced
         String replacePodName = System.getenv("REPLACE_POD_NAME");
         for (String s : seeds) {
             // filter out seed that are replaced (required with cassandra.replace_address_first_boot)
             if (replacePodName == null || !s.startsWith(replacePodName)) {
-                try {
-                    Collections.addAll(seedAddresses, InetAddress.getAllByName(s.trim()));
-                } catch (final UnknownHostException e) {
-                    logger.warn("Unable to resolve k8s service {}.", s, e);
-                }
+                futures.add(executor.submit(() -> resolve(s.trim())));
+                futureSeeders.add(null);
             }
         }
 
         for (String s : remoteSeeds) {
-            try {
-                Collections.addAll(seedAddresses, InetAddress.getAllByName(s.trim()));
-            } catch (final UnknownHostException e) {
-                logger.warn("Unable to resolve k8s service {}.", s, e);
-            }
+            futures.add(executor.submit(() -> resolve(s.trim())));
+            futureSeeders.add(null);
         }
 
         for (String url : remoteSeeders) {
             if (!url.trim().isEmpty()) {
-                try {
-                    String remoteSeeder = url.trim();
-                    logger.debug("remoteSeeder=[{}]", remoteSeeder);
-                    seedAddresses.addAll(seederCall(url.trim(), this.encryptionOptions));
-                } catch (final UnknownHostException e) {
-                    logger.warn("Unable to resolve k8s service=[" + url + "]", e);
-                } catch (final Exception e) {
-                    logger.warn("Unable to fetch seeds from url=[" + url + "]", e);
-                }
+                futures.add(executor.submit(() -> remoteSeeds(url.trim())));
+                futureSeeders.add(url.trim());
+            }
+        }
+
+        // a seeder call may last up to the connect timeout plus the read timeout, keep a margin above both.
+        final long deadlineMs = 3L * timeoutMs;
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMs);
+        final List<InetAddress> seedAddresses = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            Future<List<InetAddress>> future = futures.get(i);
+            String url = futureSeeders.get(i);
+            try {
+                seedAddresses.addAll(future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException | CancellationException e) {
+                future.cancel(true);
+                logger.warn("Seed resolution timeout after {}ms", deadlineMs);
+                if (url != null)
+                    seedAddresses.addAll(lastKnownSeeds(url));
+            } catch (ExecutionException e) {
+                logger.warn("Seed resolution failed", e.getCause());
+                if (url != null)
+                    seedAddresses.addAll(lastKnownSeeds(url));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
         }
 
@@ -144,39 +213,131 @@ public class ElassandraOperatorSeedProvider implements org.apache.cassandra.loca
         return seedAddresses;
     }
 
+    private List<InetAddress> resolve(String hostname) {
+        try {
+            return Arrays.asList(InetAddress.getAllByName(hostname));
+        } catch (final UnknownHostException e) {
+            logger.warn("Unable to resolve k8s service {}.", hostname, e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Call a remote seeder, or return its last known seeds when the call fails.
+     */
+    private List<InetAddress> remoteSeeds(String url) {
+        logger.debug("remoteSeeder=[{}]", url);
+        List<InetAddress> watched = watchedSeeds.get(url);
+        if (watched != null) {
+            logger.debug("Using watched seeds={} from url=[{}]", watched, url);
+            return watched;
+        }
+        try {
+            LastKnownSeeds remoteSeeds = seederCall(url, sslSocketFactory(), timeoutMs, lastKnownSeeds.get(url));
+            lastKnownSeeds.put(url, remoteSeeds);
+            return remoteSeeds.seeds;
+        } catch (final UnknownHostException e) {
+            logger.warn("Unable to resolve k8s service=[" + url + "]", e);
+        } catch (final Exception e) {
+            logger.warn("Unable to fetch seeds from url=[" + url + "]", e);
+        }
+        return lastKnownSeeds(url);
+    }
+
+    /**
+     * Last known seeds of a remote seeder if not expired, or an empty list.
+     */
+    private List<InetAddress> lastKnownSeeds(String url) {
+        LastKnownSeeds last = lastKnownSeeds.get(url);
+        if (last != null && System.currentTimeMillis() - last.timestamp < lastKnownSeedsTtlMs) {
+            logger.info("Using last known seeds={} from url=[{}]", last.seeds, url);
+            return last.seeds;
+        }
+        return Collections.emptyList();
+    }
+
+    // build the seeder SSLContext once
+    private SSLSocketFactory sslSocketFactory() {
+        if (sslSocketFactory == null && encryptionOptions != null) {
+            synchronized (this) {
+                if (sslSocketFactory == null) {
+                    try {
+                        sslSocketFactory = SSLFactory.createSSLContext(encryptionOptions, true).getSocketFactory();
+                    } catch (Exception e) {
+                        logger.error("Failed to build seeder SSLContext:", e);
+                    }
+                }
+            }
+        }
+        return sslSocketFactory;
+    }
+
     public static List<InetAddress> seederCall(String url, EncryptionOptions encryptionOptions) throws IOException, ConfigurationException
     {
-        // Populate the region and zone by introspection, fail if 404 on metadata
-        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
-        if(conn instanceof HttpsURLConnection && encryptionOptions != null) {
+        SSLSocketFactory sslSF = null;
+        if (encryptionOptions != null) {
             try {
                 SSLContext sslCtx = SSLFactory.createSSLContext(encryptionOptions, true);
-                SSLSocketFactory sslSF = sslCtx.getSocketFactory();
-                ((HttpsURLConnection) conn).setSSLSocketFactory(sslSF);
+                sslSF = sslCtx.getSocketFactory();
             } catch(Exception e) {
                 logger.error("Failed to build seeder SSLContext:", e);
             }
         }
-        DataInputStream d = null;
+        return seederCall(url, sslSF, 0);
+    }
+
+    /**
+     * Get seeds from a remote seeder.
+     *
+     * @param url seeder url
+     * @param sslSocketFactory socket factory used for https urls, may be null
+     * @param timeoutMs connect and read timeout, 0 for no timeout
+     * @return seed addresses
+     */
+    public static List<InetAddress> seederCall(String url, SSLSocketFactory sslSocketFactory, int timeoutMs) throws IOException, ConfigurationException
+    {
+        return seederCall(url, sslSocketFactory, timeoutMs, null).seeds;
+    }
+
+    /**
+     * Conditional get of seeds from a remote seeder, the last seeds are returned if not modified.
+     */
+    static LastKnownSeeds seederCall(String url, SSLSocketFactory sslSocketFactory, int timeoutMs, LastKnownSeeds last) throws IOException, ConfigurationException
+    {
+        // Populate the region and zone by introspection, fail if 404 on metadata
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        if(conn instanceof HttpsURLConnection && sslSocketFactory != null) {
+            ((HttpsURLConnection) conn).setSSLSocketFactory(sslSocketFactory);
+        }
+        conn.setConnectTimeout(timeoutMs);
+        conn.setReadTimeout(timeoutMs);
+        InputStream d = null;
         try
         {
             conn.setRequestMethod("GET");
             conn.addRequestProperty("Metadata-Flavor", "elassandra-operator-seed-provider");
+            if (last != null && last.etag != null)
+                conn.addRequestProperty("If-None-Match", last.etag);
+
+            if (last != null && conn.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                logger.debug("seeds not modified url={}", url);
+                return new LastKnownSeeds(last.seeds, last.etag, System.currentTimeMillis());
+            }
 
             if (conn.getResponseCode() != 200)
                 throw new ConfigurationException("ElassandraOperatorSeedProvider was unable to execute the API call code="+conn.getResponseCode()+" reason="+conn.getResponseMessage());
 
             // Read the information.
-            int cl = conn.getContentLength();
-            byte[] b = new byte[cl];
-            d = new DataInputStream((FilterInputStream) conn.getContent());
-            d.readFully(b);
-            String response = new String(b, StandardCharsets.UTF_8);
+            d = conn.getInputStream();
+            String response = new String(ByteStreams.toByteArray(d), StandardCharsets.UTF_8);
             logger.debug("response={}", response);
 
             ObjectMapper mapper = new ObjectMapper();
             List<String> seeds = mapper.readValue(response, new TypeReference<ArrayList<String>>() {});
-            return seeds.stream().map(InetAddresses::forString).collect(Collectors.toList());
+            return new LastKnownSeeds(
+                    seeds.stream().map(InetAddresses::forString).collect(Collectors.toList()),
+                    conn.getHeaderField("ETag"),
+                    System.currentTimeMillis());
         }
         finally
         {
@@ -184,4 +345,101 @@ public class ElassandraOperatorSeedProvider implements org.apache.cassandra.loca
             conn.disconnect();
         }
     }
+
+    /**
+     * Keep a server-sent events stream open on the remote seeder to receive seeds when they change.
+     * The operator sends the current seeds on connect and periodically as a heartbeat,
+     * so the stream is reopened with an exponential backoff when nothing is received.
+     */
+    class SeederWatcher implements Runnable {
+        static final long MIN_BACKOFF_MS = 1000;
+        static final long MAX_BACKOFF_MS = 60000;
+        static final int READ_TIMEOUT_MS = 90000;   // 3 operator heartbeats
+
+        final String url;
+
+        SeederWatcher(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public void run() {
+            long backoffMs = MIN_BACKOFF_MS;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    if (watch() > 0)
+                        backoffMs = MIN_BACKOFF_MS;
+                } catch (Exception e) {
+                    logger.debug("Seeds watch failed url=[" + url + "]", e);
+                } finally {
+                    watchedSeeds.remove(url);
+                }
+                try {
+                    Thread.sleep(backoffMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                backoffMs = Math.min(MAX_BACKOFF_MS, backoffMs * 2);
+            }
+        }
+
+        /**
+         * @return the number of received seeds events before the stream was closed.
+         */
+        int watch() throws IOException, ConfigurationException {
+            HttpURLConnection conn = (HttpURLConnection) new URL(url + "/watch").openConnection();
+            if (conn instanceof HttpsURLConnection && sslSocketFactory() != null) {
+                ((HttpsURLConnection) conn).setSSLSocketFactory(sslSocketFactory());
+            }
+            conn.setConnectTimeout(timeoutMs);
+            conn.setReadTimeout(READ_TIMEOUT_MS);
+            int events = 0;
+            try {
+                conn.setRequestMethod("GET");
+                conn.addRequestProperty("Metadata-Flavor", "elassandra-operator-seed-provider");
+                conn.addRequestProperty("Accept", "text/event-stream");
+                if (conn.getResponseCode() != 200)
+                    throw new ConfigurationException("ElassandraOperatorSeedProvider was unable to watch seeds code="+conn.getResponseCode()+" reason="+conn.getResponseMessage());
+
+                logger.info("Watching seeds url=[{}]", url);
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+                    String event = null, id = null;
+                    StringBuilder data = new StringBuilder();
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) {
+                            // dispatch the event
+                            if ("seeds".equals(event) && data.length() > 0) {
+                                onSeeds(data.toString(), id);
+                                events++;
+                            }
+                            event = null;
+                            id = null;
+                            data.setLength(0);
+                        } else if (line.startsWith("event:")) {
+                            event = line.substring(6).trim();
+                        } else if (line.startsWith("id:")) {
+                            id = line.substring(3).trim();
+                        } else if (line.startsWith("data:")) {
+                            if (data.length() > 0)
+                                data.append('\n');
+                            data.append(line.substring(5).trim());
+                        }
+                    }
+                }
+            } finally {
+                conn.disconnect();
+            }
+            return events;
+        }
+
+        void onSeeds(String json, String etag) throws IOException {
+            List<String> seeds = new ObjectMapper().readValue(json, new TypeReference<ArrayList<String>>() {});
+            List<InetAddress> addresses = seeds.stream().map(InetAddresses::forString).collect(Collectors.toList());
+            List<InetAddress> previous = watchedSeeds.put(url, addresses);
+            lastKnownSeeds.put(url, new LastKnownSeeds(addresses, etag, System.currentTimeMillis()));
+            if (!addresses.equals(previous))
+                logger.info("Received seeds={} from url=[{}]", addresses, url);
+        }
+    }
 }
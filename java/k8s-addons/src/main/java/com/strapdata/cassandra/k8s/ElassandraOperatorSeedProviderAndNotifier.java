@@ -1,5 +1,6 @@
 package com.strapdata.cassandra.k8s;
 
+import com.google.common.io.ByteStreams;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.gms.*;
@@ -9,8 +10,8 @@ import org.jctools.queues.MpscArrayQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.InetAddress;
 import java.net.URL;
@@ -21,6 +22,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Catch gossip events and push it asynchronously to the Elassandra operator.
@@ -31,6 +34,7 @@ public class ElassandraOperatorSeedProviderAndNotifier extends ElassandraOperato
 
     public static final String STATUS_NOTIFIER_URL = "cassandra.status_notifier_url";
     public static final String STATUS_NOTIFIER_URL_PROPERTY = "cassandra.status_notifier_url";
+    static final long POLL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
     public static int MAX_QUEUE_SIZE = 64;
 
     String urlFormat;
@@ -167,6 +171,10 @@ public class ElassandraOperatorSeedProviderAndNotifier extends ElassandraOperato
             while(true) {
                 try {
                     InetAddress inetAddress = queue.poll();
+                    if (inetAddress == null) {
+                        LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+                        continue;
+                    }
                     sendStatus(inetAddress, endpointStatus.get(inetAddress));
                 } catch (IOException | ConfigurationException e) {
                     logger.warn("Failed to notify status", e);
@@ -186,19 +194,21 @@ public class ElassandraOperatorSeedProviderAndNotifier extends ElassandraOperato
 
             // Populate the region and zone by introspection, fail if 404 on metadata
             HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            DataInputStream d = null;
+            InputStream d = null;
             try
             {
                 conn.setRequestMethod("POST");
                 conn.setRequestProperty("Metadata-Flavor", "elassandra-operator-notifier");
                 if (conn.getResponseCode() != 200)
                     throw new ConfigurationException("ElassandraOperatorStatusNotifier was unable to execute the API call code="+conn.getResponseCode()+" reason="+conn.getResponseMessage());
+                // consume the response so that the keep-alive connection is reused for the next status
+                d = conn.getInputStream();
+                ByteStreams.toByteArray(d);
                 logger.debug("Status sent for endpoint={} status={}", endpoint, status);
             }
             finally
             {
                 FileUtils.close(d);
-                conn.disconnect();
             }
         }
     }
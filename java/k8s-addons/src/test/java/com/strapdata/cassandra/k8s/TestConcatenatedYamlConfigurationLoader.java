@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.cassandra.k8s;
+
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.exceptions.ConfigurationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestConcatenatedYamlConfigurationLoader {
+
+    private Path configDir;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        configDir = Files.createTempDirectory("cassandra-config");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(configDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.write(configDir.resolve(name), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private List<ConcatenatedYamlConfigurationLoader.ConfigFragment> load(String configProperty) {
+        return ConcatenatedYamlConfigurationLoader.configPaths(configProperty).stream()
+                .map(ConcatenatedYamlConfigurationLoader::loadFragment)
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testLaterFileOverrides() throws IOException {
+        write("0000-cassandra.yaml", "cluster_name: base\nnum_tokens: 16\nconcurrent_reads: 32\n");
+        final Path override = write("0001-override.yaml", "cluster_name: override\nnum_tokens: 8\n");
+        write("0002-ignored.txt", "cluster_name: ignored\n");
+
+        final Map<String, Path> sources = new HashMap<>();
+        final Map<String, Object> tree = ConcatenatedYamlConfigurationLoader.merge(load(configDir.toString()), sources);
+        assertEquals("override", tree.get("cluster_name"));
+        assertEquals(8, tree.get("num_tokens"));
+        assertEquals(32, tree.get("concurrent_reads"));
+        assertEquals(override.toAbsolutePath(), sources.get("cluster_name"));
+
+        final Config config = ConcatenatedYamlConfigurationLoader.toConfig(tree, sources);
+        assertEquals("override", config.cluster_name);
+        assertEquals(8, config.num_tokens);
+        assertEquals(32, config.concurrent_reads);
+    }
+
+    @Test
+    public void testExplicitFileOrder() throws IOException {
+        final Path first = write("b.yaml", "cluster_name: first\n");
+        final Path second = write("a.yaml", "cluster_name: second\n");
+
+        final Map<String, Object> tree = ConcatenatedYamlConfigurationLoader.merge(load(first + ":" + second), new HashMap<>());
+        assertEquals("second", tree.get("cluster_name"));
+    }
+
+    @Test
+    public void testCacheInvalidation() throws IOException {
+        final Path path = write("cassandra.yaml", "num_tokens: 16\n");
+        final FileTime mtime = FileTime.fromMillis(Files.getLastModifiedTime(path).toMillis() - 60000);
+        Files.setLastModifiedTime(path, mtime);
+
+        final ConcatenatedYamlConfigurationLoader.ConfigFragment fragment = ConcatenatedYamlConfigurationLoader.loadFragment(path);
+        assertSame(fragment, ConcatenatedYamlConfigurationLoader.loadFragment(path));
+
+        // same size, new modification time
+        write("cassandra.yaml", "num_tokens: 32\n");
+        Files.setLastModifiedTime(path, FileTime.fromMillis(mtime.toMillis() + 1000));
+        final ConcatenatedYamlConfigurationLoader.ConfigFragment modified = ConcatenatedYamlConfigurationLoader.loadFragment(path);
+        assertNotSame(fragment, modified);
+        assertEquals(32, modified.tree.get("num_tokens"));
+
+        // new size, same modification time
+        write("cassandra.yaml", "num_tokens: 256\n");
+        Files.setLastModifiedTime(path, FileTime.fromMillis(mtime.toMillis() + 1000));
+        final ConcatenatedYamlConfigurationLoader.ConfigFragment resized = ConcatenatedYamlConfigurationLoader.loadFragment(path);
+        assertNotSame(modified, resized);
+        assertEquals(256, resized.tree.get("num_tokens"));
+        assertSame(resized, ConcatenatedYamlConfigurationLoader.loadFragment(path));
+    }
+
+    @Test
+    public void testInvalidKeyNamesFile() throws IOException {
+        write("0000-cassandra.yaml", "cluster_name: base\nnum_tokens: 16\n");
+        final Path bad = write("0001-bad.yaml", "num_tokens: many\n");
+
+        final Map<String, Path> sources = new HashMap<>();
+        final Map<String, Object> tree = ConcatenatedYamlConfigurationLoader.merge(load(configDir.toString()), sources);
+        final ConfigurationException e = assertThrows(ConfigurationException.class,
+                () -> ConcatenatedYamlConfigurationLoader.toConfig(tree, sources));
+        assertTrue(e.getMessage().contains("\"num_tokens\""), e.getMessage());
+        assertTrue(e.getMessage().contains(bad.toAbsolutePath().toString()), e.getMessage());
+    }
+
+    @Test
+    public void testInvalidYamlNamesFile() throws IOException {
+        final Path bad = write("cassandra.yaml", "cluster_name: [unclosed\n");
+        final ConfigurationException e = assertThrows(ConfigurationException.class,
+                () -> ConcatenatedYamlConfigurationLoader.loadFragment(bad));
+        assertTrue(e.getMessage().contains(bad.toString()), e.getMessage());
+
+        final Path notMapping = write("list.yaml", "- a\n- b\n");
+        final ConfigurationException e2 = assertThrows(ConfigurationException.class,
+                () -> ConcatenatedYamlConfigurationLoader.loadFragment(notMapping));
+        assertTrue(e2.getMessage().contains(notMapping.toString()), e2.getMessage());
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model;
+
+import com.google.gson.Gson;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenterSpec;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the datacenter spec and configmap fingerprints computed from a JSON string to the streaming hasher.
+ * Allocations are reported by the gc profiler (gc.alloc.rate.norm).
+ * Run with: ./gradlew :java:model:jmh
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FingerprintBenchmark {
+
+    // size of the configmap data in lines
+    @Param({"100", "10000"})
+    int lines;
+
+    Gson gson;
+    DataCenterSpec spec;
+    Map<String, Object> configMap;
+
+    @Setup
+    public void setup() {
+        gson = new Gson();
+        spec = new DataCenterSpec();
+        Map<String, String> data = new TreeMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++)
+            sb.append("setting_").append(i).append(": ").append(i).append('\n');
+        data.put("cassandra_yaml_d_009_user_config_overrides_yaml", sb.toString());
+        data.put("logback_xml", "<configuration><root level=\"INFO\"/></configuration>");
+        configMap = new HashMap<>();
+        configMap.put("data", data);
+    }
+
+    @Benchmark
+    public String specJsonString() {
+        return DigestUtils.sha1Hex(gson.toJson(spec)).substring(0, 7);
+    }
+
+    @Benchmark
+    public String specStreaming() {
+        return FingerprintHasher.sha1Hex(gson, spec).substring(0, 7);
+    }
+
+    @Benchmark
+    public String configMapJsonString() {
+        return DigestUtils.sha1Hex(gson.toJson(configMap)).substring(0, 7);
+    }
+
+    @Benchmark
+    public String configMapStreaming() {
+        return FingerprintHasher.sha1Hex(gson, configMap).substring(0, 7);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model;
+
+import com.google.gson.Gson;
+
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Compute the SHA-1 of the JSON serialization of an object by streaming the JSON writer output
+ * into a MessageDigest, without building the intermediate JSON string and its UTF-8 bytes.
+ * The digest is the same as DigestUtils.sha1Hex(gson.toJson(object)), so fingerprints are unchanged.
+ */
+public final class FingerprintHasher extends Writer {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<FingerprintHasher> HASHERS = ThreadLocal.withInitial(FingerprintHasher::new);
+
+    private final MessageDigest digest;
+    private final byte[] buffer = new byte[1024];
+    private int position = 0;
+    private char highSurrogate = 0;
+
+    private FingerprintHasher() {
+        try {
+            this.digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @return the lowercase hexadecimal SHA-1 of the JSON serialization of the object.
+     */
+    public static String sha1Hex(Gson gson, Object object) {
+        FingerprintHasher hasher = HASHERS.get();
+        hasher.reset();
+        gson.toJson(object, hasher);
+        return hasher.hexDigest();
+    }
+
+    private void reset() {
+        digest.reset();
+        position = 0;
+        highSurrogate = 0;
+    }
+
+    private String hexDigest() {
+        if (highSurrogate != 0) {
+            put((byte) '?');
+            highSurrogate = 0;
+        }
+        flush();
+        byte[] sha1 = digest.digest();
+        char[] hex = new char[sha1.length * 2];
+        for (int i = 0; i < sha1.length; i++) {
+            hex[2 * i] = HEX[(sha1[i] >> 4) & 0x0f];
+            hex[2 * i + 1] = HEX[sha1[i] & 0x0f];
+        }
+        return new String(hex);
+    }
+
+    private void put(byte b) {
+        if (position == buffer.length)
+            flush();
+        buffer[position++] = b;
+    }
+
+    // UTF-8 encoding, unpaired surrogates are replaced by '?' like String.getBytes()
+    private void encode(char c) {
+        if (highSurrogate != 0) {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                put((byte) (0xf0 | (codePoint >> 18)));
+                put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+                put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+                put((byte) (0x80 | (codePoint & 0x3f)));
+                return;
+            }
+            put((byte) '?');
+        }
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xc0 | (c >> 6)));
+            put((byte) (0x80 | (c & 0x3f)));
+        } else if (Character.isHighSurrogate(c)) {
+            highSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            put((byte) '?');
+        } else {
+            put((byte) (0xe0 | (c >> 12)));
+            put((byte) (0x80 | ((c >> 6) & 0x3f)));
+            put((byte) (0x80 | (c & 0x3f)));
+        }
+    }
+
+    @Override
+    public void write(int c) {
+        encode((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; i++)
+            encode(cbuf[i]);
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < off + len; i++)
+            encode(str.charAt(i));
+    }
+
+    @Override
+    public void flush() {
+        digest.update(buffer, 0, position);
+        position = 0;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -25,4 +25,11 @@ public class GsonUtils {
     public static String toJson(Object o) {
         return GSON.toJson(o);
     }
+
+    /**
+     * @return the SHA-1 hexadecimal digest of the JSON serialization.
+     */
+    public static String sha1Hex(Object o) {
+        return FingerprintHasher.sha1Hex(GSON, o);
+    }
 }
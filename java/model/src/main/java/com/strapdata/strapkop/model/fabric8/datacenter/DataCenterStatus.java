@@ -49,6 +49,8 @@ public class DataCenterStatus implements KubernetesResource {
     CqlStatus cqlStatus;
     String cqlStatusMessage;
     String configMapFingerPrint;
+    String liveConfigFingerPrint;
+    Set<String> liveElasticsearchSettings;
     String currentTask;
     List<String> zones;
     Integer readyReplicas;
@@ -56,6 +56,7 @@ public final class OperatorLabels {
 
     public static final String DATACENTER_GENERATION = labelPrefix + "datacenter-generation";
     public static final String DATACENTER_FINGERPRINT = labelPrefix + "datacenter-fingerprint";
+    public static final String ROLLBACK_TEMPLATE = labelPrefix + "rollback-template";
 
     public static final String REAPER_FINGERPRINT = labelPrefix + "reaper-fingerprint";
 
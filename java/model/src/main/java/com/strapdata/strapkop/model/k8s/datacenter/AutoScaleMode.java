@@ -22,5 +22,6 @@ package com.strapdata.strapkop.model.k8s.datacenter;
  */
 public enum AutoScaleMode {
     MANUAL,           // datacenter scale manually by updating the repliacs number
-    NODEPOOL          // datacenter auomatically scale with one Elassandra node per Kubernetes node
+    NODEPOOL,         // datacenter auomatically scale with one Elassandra node per Kubernetes node
+    METRICS           // datacenter automatically scale according to the autoscaling metrics thresholds
 }
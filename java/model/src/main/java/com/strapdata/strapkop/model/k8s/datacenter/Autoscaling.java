@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model.k8s.datacenter;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+
+/**
+ * Metrics autoscaling settings, used when autoScaleMode is METRICS.
+ * A threshold set to null is ignored.
+ */
+@Data
+@With
+@AllArgsConstructor
+@NoArgsConstructor
+public class Autoscaling {
+
+    /**
+     * Min number of nodes, default to the datacenter replicas.
+     */
+    @JsonPropertyDescription("Min number of Elassandra nodes, default to replicas")
+    @SerializedName("minReplicas")
+    @Expose
+    private Integer minReplicas;
+
+    /**
+     * Max number of nodes, default to minReplicas (no scale up).
+     */
+    @JsonPropertyDescription("Max number of Elassandra nodes, default to minReplicas")
+    @SerializedName("maxReplicas")
+    @Expose
+    private Integer maxReplicas;
+
+    /**
+     * Max ratio between the node data size and its data volume capacity.
+     */
+    @JsonPropertyDescription("Max ratio between the node data size and its data volume capacity")
+    @SerializedName("maxDiskUsage")
+    @Expose
+    private Double maxDiskUsage = 0.7;
+
+    /**
+     * Max 99th percentile coordinator read latency in milliseconds.
+     */
+    @JsonPropertyDescription("Max 99th percentile read latency in milliseconds")
+    @SerializedName("maxReadLatencyP99Ms")
+    @Expose
+    private Double maxReadLatencyP99Ms;
+
+    /**
+     * Max 99th percentile coordinator write latency in milliseconds.
+     */
+    @JsonPropertyDescription("Max 99th percentile write latency in milliseconds")
+    @SerializedName("maxWriteLatencyP99Ms")
+    @Expose
+    private Double maxWriteLatencyP99Ms;
+
+    /**
+     * Max pending compactions on a node.
+     */
+    @JsonPropertyDescription("Max pending compactions on a node")
+    @SerializedName("maxPendingCompactions")
+    @Expose
+    private Integer maxPendingCompactions;
+
+    /**
+     * Max queued requests in the Elasticsearch search thread pool of a node.
+     */
+    @JsonPropertyDescription("Max queued requests in the Elasticsearch search thread pool of a node")
+    @SerializedName("maxSearchQueue")
+    @Expose
+    private Integer maxSearchQueue;
+
+    /**
+     * Scale down when all metrics are below this ratio of their threshold.
+     * Metrics between this ratio and the threshold neither scale up nor down.
+     */
+    @JsonPropertyDescription("Scale down when all metrics are below this ratio of their threshold")
+    @SerializedName("scaleDownRatio")
+    @Expose
+    private Double scaleDownRatio = 0.5;
+
+    /**
+     * Min delay between the last scale event and a scale up.
+     */
+    @JsonPropertyDescription("Min delay in seconds between the last scale event and a scale up")
+    @SerializedName("scaleUpCooldownSeconds")
+    @Expose
+    private Integer scaleUpCooldownSeconds = 600;
+
+    /**
+     * Min delay between the last scale event and a scale down.
+     */
+    @JsonPropertyDescription("Min delay in seconds between the last scale event and a scale down")
+    @SerializedName("scaleDownCooldownSeconds")
+    @Expose
+    private Integer scaleDownCooldownSeconds = 3600;
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model.k8s.datacenter;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+
+/**
+ * Canary rolling update settings
+ */
+@Data
+@With
+@AllArgsConstructor
+@NoArgsConstructor
+public class Canary {
+
+    /**
+     * Update some pods of the first rack, then check their health before updating the whole datacenter.
+     */
+    @JsonPropertyDescription("Enable canary rolling updates")
+    @SerializedName("enabled")
+    @Expose
+    private Boolean enabled = false;
+
+    /**
+     * Number of canary pods in the first updated rack.
+     */
+    @JsonPropertyDescription("Number of canary pods")
+    @SerializedName("pods")
+    @Expose
+    private Integer pods = 1;
+
+    /**
+     * Max delay for the canary pods to become ready, otherwise the update is rolled back.
+     */
+    @JsonPropertyDescription("Max delay in seconds for the canary pods to become ready")
+    @SerializedName("readyTimeoutSeconds")
+    @Expose
+    private Integer readyTimeoutSeconds = 600;
+
+    /**
+     * Delay between the canary pods readiness and the health check.
+     */
+    @JsonPropertyDescription("Observation delay in seconds before checking the canary pods health")
+    @SerializedName("observationSeconds")
+    @Expose
+    private Integer observationSeconds = 120;
+
+    /**
+     * Max pending compactions on a canary pod.
+     */
+    @JsonPropertyDescription("Max pending compactions on a canary pod")
+    @SerializedName("maxPendingCompactions")
+    @Expose
+    private Integer maxPendingCompactions = 100;
+
+    /**
+     * Max ratio between the canary and the other pods 99th percentile read latency.
+     */
+    @JsonPropertyDescription("Max ratio between the canary and the other pods 99th percentile read latency")
+    @SerializedName("maxReadLatencyRatio")
+    @Expose
+    private Double maxReadLatencyRatio = 2.0;
+}
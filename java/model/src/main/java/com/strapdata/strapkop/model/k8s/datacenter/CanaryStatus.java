@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model.k8s.datacenter;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.strapdata.strapkop.model.GsonIsoDateAdapter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+
+import java.util.Date;
+
+/**
+ * Canary rolling update status
+ */
+@Data
+@With
+@AllArgsConstructor
+@NoArgsConstructor
+public class CanaryStatus {
+
+    /**
+     * Datacenter fingerprint deployed on the canary pods.
+     */
+    @JsonPropertyDescription("Datacenter fingerprint deployed on the canary pods")
+    @SerializedName("fingerprint")
+    @Expose
+    private String fingerprint;
+
+    /**
+     * Rack of the canary pods.
+     */
+    @JsonPropertyDescription("Rack of the canary pods")
+    @SerializedName("rack")
+    @Expose
+    private String rack;
+
+    @JsonPropertyDescription("Canary phase")
+    @SerializedName("phase")
+    @Expose
+    private CanaryPhase phase = CanaryPhase.DEPLOYING;
+
+    @JsonPropertyDescription("Canary deployment start time")
+    @SerializedName("startTime")
+    @Expose
+    @JsonAdapter(GsonIsoDateAdapter.class)
+    private Date startTime;
+
+    @JsonPropertyDescription("Canary pods ready time")
+    @SerializedName("readyTime")
+    @Expose
+    @JsonAdapter(GsonIsoDateAdapter.class)
+    private Date readyTime;
+
+    @JsonPropertyDescription("Last canary health check message")
+    @SerializedName("message")
+    @Expose
+    private String message;
+}
@@ -43,6 +43,21 @@ public class Cassandra {
     @Expose
     private Workload workload = Workload.READ_WRITE;
 
+    /**
+     * Type of disk of the data volume, detected from the storage class name when not set.
+     */
+    @SerializedName("diskType")
+    @Expose
+    private DiskType diskType = null;
+
+    /**
+     * Derive Cassandra, JVM and Elasticsearch settings from the workload, the pod resources and the data volume.
+     * Null means false, and keeps the datacenter fingerprint of specs created before this setting.
+     */
+    @SerializedName("autoTuning")
+    @Expose
+    private Boolean autoTuning = null;
+
     /**
      * Enable cassandra/ldap authentication and authorization
      */
@@ -26,7 +26,6 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.With;
-import org.apache.commons.codec.digest.DigestUtils;
 
 import java.util.*;
 
@@ -56,16 +55,68 @@ public class DataCenterSpec {
     @Expose
     private boolean parked = false;
 
+    /**
+     * Flush and drain all nodes in parallel before parking, so that nodes do not replay their commitlogs when unparking.
+     */
+    @JsonPropertyDescription("Drain all nodes in parallel before parking the datacenter, default is false")
+    @SerializedName("drainBeforePark")
+    @Expose
+    private Boolean drainBeforePark = false;
+
+    /**
+     * Start all pods of a rack at the same time when unparking, if the topology did not change while parked.
+     */
+    @JsonPropertyDescription("Start all pods of a rack in parallel when unparking an unchanged topology, default is false")
+    @SerializedName("parallelUnpark")
+    @Expose
+    private Boolean parallelUnpark = false;
+
     /**
      * How the operator decide to spawn a new E* node
      * MANUAL : based on the rplicas value
      * N : based on the Number of nodes
+     * METRICS : based on the autoscaling thresholds
      */
     @JsonPropertyDescription("How the operator decide to spawn a new Elassandra node")
     @SerializedName("autoScaleMode")
     @Expose
     private AutoScaleMode autoScaleMode = AutoScaleMode.MANUAL;
 
+    /**
+     * Metrics autoscaling settings.
+     */
+    @JsonPropertyDescription("Metrics autoscaling settings, used when autoScaleMode is METRICS")
+    @SerializedName("autoscaling")
+    @Expose
+    private Autoscaling autoscaling = new Autoscaling();
+
+    /**
+     * Max number of nodes bootstrapping at the same time when scaling up, at most one per rack.
+     * Concurrent bootstraps require cassandra.consistent.rangemovement=false and are only done when
+     * the replication factor of all keyspaces is lower or equals to the number of racks.
+     */
+    @JsonPropertyDescription("Max number of Elassandra nodes bootstrapping at the same time when scaling up, at most one per rack")
+    @SerializedName("maxConcurrentBootstraps")
+    @Expose
+    private Integer maxConcurrentBootstraps = 1;
+
+    /**
+     * Max projected disk usage of the remaining nodes when scaling down, the data of the decommissioned node being
+     * streamed to the remaining ones. A scale down exceeding this ratio in all racks is refused, null disables the check.
+     */
+    @JsonPropertyDescription("Max projected ratio between the data size and the data volume capacity of the remaining nodes when scaling down, default is null (disabled)")
+    @SerializedName("scaleDownMaxDiskUsage")
+    @Expose
+    private Double scaleDownMaxDiskUsage = null;
+
+    /**
+     * Vertical autoscaling settings.
+     */
+    @JsonPropertyDescription("Vertical autoscaling settings, resizing the pods cpu and memory requests")
+    @SerializedName("verticalAutoscaling")
+    @Expose
+    private VerticalAutoscaling verticalAutoscaling = new VerticalAutoscaling();
+
     @JsonPropertyDescription("Elassandra pods affinity policy with respect to the failure-domain.beta.kubernetes.io/zone label")
     @SerializedName("podAffinityPolicy")
     @Expose
@@ -91,6 +142,38 @@ public class DataCenterSpec {
     @Expose
     private Integer maxPodUnavailable = 1;
 
+    /**
+     * How StatefulSets are updated when the datacenter spec or configuration changes.
+     */
+    @JsonPropertyDescription("Rolling update strategy, SEQUENTIAL_RACK or PARALLEL_RACK_ONE_POD")
+    @SerializedName("rollingUpdateStrategy")
+    @Expose
+    private RollingUpdateStrategy rollingUpdateStrategy = RollingUpdateStrategy.SEQUENTIAL_RACK;
+
+    /**
+     * Max unavailable pods in the datacenter during a parallel rolling update, bounded by maxPodUnavailable.
+     */
+    @JsonPropertyDescription("Max unavailable Elassandra pods during a parallel rolling update, bounded by maxPodUnavailable")
+    @SerializedName("maxUnavailablePerDc")
+    @Expose
+    private Integer maxUnavailablePerDc = null;
+
+    /**
+     * Drain and flush each node before restarting it during a rolling update, to avoid the commitlog replay at startup.
+     */
+    @JsonPropertyDescription("Drain nodes before restarting them during a rolling update, default is false")
+    @SerializedName("drainBeforeRestart")
+    @Expose
+    private Boolean drainBeforeRestart = false;
+
+    /**
+     * Canary rolling update settings.
+     */
+    @JsonPropertyDescription("Canary rolling update settings")
+    @SerializedName("canary")
+    @Expose
+    private Canary canary = new Canary();
+
     /**
      * ServiceAccount used by the operator to deploy pods (Elassandra, Reaper, kibana...)
      */
@@ -257,9 +340,6 @@ public class DataCenterSpec {
             acc.add(userConfigMapVolumeSource);
         }
 
-        String json = GsonUtils.toJson(acc);
-        String digest = DigestUtils.sha1Hex(json).substring(0,7);
-        ///System.out.println(json+"="+digest);
-        return digest;
+        return GsonUtils.sha1Hex(acc).substring(0,7);
     }
 }
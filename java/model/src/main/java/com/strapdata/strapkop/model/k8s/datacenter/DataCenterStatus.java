@@ -120,6 +120,54 @@ public class DataCenterStatus {
     @Expose
     private String configMapFingerPrint = null;
 
+    /**
+     * Fingerprint of the live settings applied without restart.
+     */
+    @JsonPropertyDescription("Fingerprint of the live settings applied without restart")
+    @SerializedName("liveConfigFingerPrint")
+    @Expose
+    private String liveConfigFingerPrint = null;
+
+    /**
+     * Elasticsearch live settings applied from the user config map, reset when removed from it.
+     */
+    @JsonPropertyDescription("Elasticsearch live settings applied from the user config map")
+    @SerializedName("liveElasticsearchSettings")
+    @Expose
+    private Set<String> liveElasticsearchSettings = new HashSet<>();
+
+    /**
+     * Canary rolling update status.
+     */
+    @JsonPropertyDescription("Canary rolling update status")
+    @SerializedName("canary")
+    @Expose
+    private CanaryStatus canary = null;
+
+    /**
+     * Metrics autoscaling status.
+     */
+    @JsonPropertyDescription("Metrics autoscaling status")
+    @SerializedName("autoscaling")
+    @Expose
+    private AutoscalingStatus autoscaling = null;
+
+    /**
+     * Vertical autoscaling status.
+     */
+    @JsonPropertyDescription("Vertical autoscaling status")
+    @SerializedName("verticalAutoscaling")
+    @Expose
+    private VerticalAutoscalingStatus verticalAutoscaling = null;
+
+    /**
+     * Topology recorded when parking the datacenter.
+     */
+    @JsonPropertyDescription("Topology recorded when parking the datacenter")
+    @SerializedName("parkedTopology")
+    @Expose
+    private ParkedTopology parkedTopology = null;
+
     @SerializedName("currentTask")
     @Expose
     private String currentTask = null;
@@ -166,6 +214,19 @@ public class DataCenterStatus {
     @SerializedName("reaperRegistred")
     private Boolean reaperRegistred = false;
 
+    /**
+     * Add an operation at the head of the history, keeping the last historyDepth operations.
+     * As the status is shared by the datacenter reconciliations and the tasks, the history is copied on write
+     * so that a concurrent status update never iterates a list being modified.
+     */
+    public synchronized void addOperation(Operation operation, int historyDepth) {
+        List<Operation> history = new ArrayList<>();
+        history.add(operation);
+        if (operationHistory != null)
+            history.addAll(operationHistory.subList(0, Math.max(0, Math.min(operationHistory.size(), historyDepth - 1))));
+        operationHistory = history;
+    }
+
     public Health health() {
         if (DataCenterPhase.PARKED.equals(this.phase))
             return Health.RED;
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model.k8s.datacenter;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.strapdata.strapkop.model.GsonIsoDateAdapter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Topology of a datacenter recorded when parking it.
+ */
+@Data
+@With
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParkedTopology {
+
+    @JsonPropertyDescription("Datacenter park time")
+    @SerializedName("parkTime")
+    @Expose
+    @JsonAdapter(GsonIsoDateAdapter.class)
+    private Date parkTime;
+
+    /**
+     * Number of Elassandra nodes by rack name when the datacenter was parked.
+     */
+    @JsonPropertyDescription("Number of Elassandra nodes by rack when the datacenter was parked")
+    @SerializedName("rackReplicas")
+    @Expose
+    private SortedMap<String, Integer> rackReplicas = new TreeMap<>();
+
+    /**
+     * Pods successfully flushed and drained before stopping, they do not replay their commitlogs at startup.
+     */
+    @JsonPropertyDescription("Pods flushed and drained before parking")
+    @SerializedName("drainedPods")
+    @Expose
+    private List<String> drainedPods = new ArrayList<>();
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model.k8s.datacenter;
+
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+
+/**
+ * Vertical autoscaling settings, resizing the Elassandra pods cpu and memory requests from GC and CPU metrics.
+ * The JVM heap follows the memory request when jvm.computeJvmMemorySettings is true.
+ * Resources stay within the min/max bounds, defaulting to the datacenter resources requests.
+ */
+@Data
+@With
+@AllArgsConstructor
+@NoArgsConstructor
+public class VerticalAutoscaling {
+
+    @JsonPropertyDescription("Vertical autoscaling mode")
+    @SerializedName("mode")
+    @Expose
+    private VerticalAutoscalingMode mode = VerticalAutoscalingMode.OFF;
+
+    @JsonPropertyDescription("Min memory request, default to the datacenter memory request")
+    @SerializedName("minMemory")
+    @Expose
+    private String minMemory;
+
+    @JsonPropertyDescription("Max memory request, default to the datacenter memory request")
+    @SerializedName("maxMemory")
+    @Expose
+    private String maxMemory;
+
+    @JsonPropertyDescription("Min cpu request, default to the datacenter cpu request")
+    @SerializedName("minCpu")
+    @Expose
+    private String minCpu;
+
+    @JsonPropertyDescription("Max cpu request, default to the datacenter cpu request")
+    @SerializedName("maxCpu")
+    @Expose
+    private String maxCpu;
+
+    /**
+     * Max GC pause, above which the memory is increased.
+     */
+    @JsonPropertyDescription("Max GC pause in milliseconds")
+    @SerializedName("maxGcPauseMs")
+    @Expose
+    private Double maxGcPauseMs = 500.0;
+
+    @JsonPropertyDescription("Max ratio between the heap used after GC and the max heap size")
+    @SerializedName("maxHeapUsageAfterGc")
+    @Expose
+    private Double maxHeapUsageAfterGc = 0.75;
+
+    @JsonPropertyDescription("Min ratio between the heap used after GC and the max heap size, below which the memory is decreased")
+    @SerializedName("minHeapUsageAfterGc")
+    @Expose
+    private Double minHeapUsageAfterGc = 0.3;
+
+    @JsonPropertyDescription("Max ratio between the heap plus off-heap memory and the memory request")
+    @SerializedName("maxMemoryUsage")
+    @Expose
+    private Double maxMemoryUsage = 0.9;
+
+    @JsonPropertyDescription("Max process cpu load, relative to the available processors")
+    @SerializedName("maxCpuUsage")
+    @Expose
+    private Double maxCpuUsage = 0.8;
+
+    @JsonPropertyDescription("Min process cpu load, relative to the available processors, below which the cpu is decreased")
+    @SerializedName("minCpuUsage")
+    @Expose
+    private Double minCpuUsage = 0.2;
+
+    @JsonPropertyDescription("Relative resources increase or decrease step")
+    @SerializedName("step")
+    @Expose
+    private Double step = 0.25;
+
+    @JsonPropertyDescription("Min delay in seconds between two resources updates")
+    @SerializedName("cooldownSeconds")
+    @Expose
+    private Integer cooldownSeconds = 3600;
+}
@@ -59,6 +59,11 @@ public class OperatorConfig {
      */
     Duration taskRetention = Duration.ofDays(8);
 
+    /**
+     * Metrics autoscaling evaluation period
+     */
+    Duration autoscalePeriod = Duration.ofSeconds(60);
+
     /**
      * operation history depth.
      */
@@ -68,4 +73,54 @@ public class OperatorConfig {
      * CQL schema agreement wait in seconds
      */
     int maxSchemaAgreementWaitSeconds = 30;
+
+    /**
+     * Max concurrent CQL statements when reconciling roles and grants
+     */
+    int maxInFlightCqlStatements = 16;
+
+    /**
+     * Exclude slow nodes from the operator CQL query plans
+     */
+    boolean cqlLatencyAware = true;
+
+    /**
+     * Latency ratio to the fastest node above which a node is excluded from query plans
+     */
+    double cqlLatencyAwareExclusionThreshold = 2.0;
+
+    /**
+     * Delay before a speculative execution of idempotent CQL reads, 0 to disable
+     */
+    long cqlSpeculativeExecutionDelayMs = 500;
+
+    /**
+     * Max executions (including the first one) of idempotent CQL reads
+     */
+    int cqlSpeculativeExecutionMaxExecutions = 2;
+
+    /**
+     * Max retries on the next host for CQL statements, 0 to keep the driver default retry policy
+     */
+    int cqlMaxRetriesOnNextHost = 0;
+
+    /**
+     * Max concurrent topology tasks per datacenter
+     */
+    int maxConcurrentTopologyTasks = 1;
+
+    /**
+     * Max concurrent schema tasks per datacenter
+     */
+    int maxConcurrentSchemaTasks = 1;
+
+    /**
+     * Max concurrent maintenance tasks per datacenter
+     */
+    int maxConcurrentMaintenanceTasks = 2;
+
+    /**
+     * Max concurrent read-only tasks per datacenter
+     */
+    int maxConcurrentReadOnlyTasks = 4;
 }
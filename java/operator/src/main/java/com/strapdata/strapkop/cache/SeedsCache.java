@@ -0,0 +1,207 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.strapdata.strapkop.k8s.OperatorNames;
+import com.strapdata.strapkop.model.Key;
+import com.strapdata.strapkop.model.k8s.OperatorLabels;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenter;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.openapi.models.V1Node;
+import io.kubernetes.client.openapi.models.V1NodeAddress;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1StatefulSet;
+import io.micrometer.core.instrument.ImmutableTag;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.Observable;
+import io.reactivex.subjects.PublishSubject;
+import io.reactivex.subjects.Subject;
+import lombok.Getter;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Per datacenter seeds, precomputed from the node, pod, statefulset and datacenter informer events,
+ * and served as pre-serialized JSON with an ETag.
+ */
+@Singleton
+public class SeedsCache extends Cache<Key, SeedsCache.Seeds> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeedsCache.class);
+
+    private static final Gson GSON = new Gson();
+
+    @Getter
+    public static class Seeds {
+        final List<String> seeds;
+        final byte[] json;
+        final String etag;
+
+        Seeds(List<String> seeds) {
+            this.seeds = Collections.unmodifiableList(seeds);
+            this.json = GSON.toJson(seeds).getBytes(StandardCharsets.UTF_8);
+            this.etag = "\"" + DigestUtils.sha1Hex(json) + "\"";
+        }
+    }
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    SharedInformerFactory sharedInformerFactory;
+
+    @Inject
+    StatefulsetCache statefulsetCache;
+
+    // k8s node internal IP -> external or public IP
+    final Map<String, String> hostIpToExternalIp = new ConcurrentHashMap<>();
+
+    // keys of datacenters whose seeds changed
+    final Subject<Key> updates = PublishSubject.<Key>create().toSerialized();
+
+    @PostConstruct
+    public void initGauge() {
+        meterRegistry.gaugeMapSize("cache.size", ImmutableList.of(new ImmutableTag("type", "seeds")), this);
+    }
+
+    /**
+     * Get the seeds of a datacenter, computing them if not yet cached.
+     *
+     * @param dcKey datacenter key
+     * @return the seeds, or null if the datacenter or its statefulsets are not found.
+     */
+    public Seeds getOrCompute(Key dcKey) {
+        Seeds seeds = get(dcKey);
+        return seeds != null ? seeds : update(dcKey);
+    }
+
+    /**
+     * Recompute the seeds of a datacenter.
+     *
+     * @param dcKey datacenter key
+     * @return the seeds, or null if the datacenter or its statefulsets are not found.
+     */
+    public Seeds update(Key dcKey) {
+        // seeds are computed under the key lock, so that concurrent informer events cannot publish stale seeds
+        final AtomicBoolean changed = new AtomicBoolean(false);
+        Seeds updated = compute(dcKey, (key, previous) -> {
+            DataCenter dataCenter = sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class).getIndexer().getByKey(key.id());
+            TreeMap<String, V1StatefulSet> stsMap = statefulsetCache.get(key);
+            if (dataCenter == null || stsMap == null)
+                return null;
+
+            List<String> seeds = seeds(dataCenter, stsMap.values());
+            if (previous != null && previous.seeds.equals(seeds))
+                return previous;
+
+            logger.info("datacenter={} seeds={}", dataCenter.id(), seeds);
+            changed.set(true);
+            return new Seeds(seeds);
+        });
+        if (changed.get())
+            updates.onNext(dcKey);
+        return updated;
+    }
+
+    List<String> seeds(DataCenter dataCenter, Collection<V1StatefulSet> statefulSets) {
+        List<String> seeds = new ArrayList<>();
+        for(V1StatefulSet statefulSet : statefulSets) {
+            if (statefulSet.getStatus() != null && statefulSet.getStatus().getCurrentReplicas() != null && statefulSet.getStatus().getCurrentReplicas() > 0) {
+                String podName = OperatorNames.podName(dataCenter, Integer.parseInt(statefulSet.getMetadata().getLabels().get(OperatorLabels.RACKINDEX)), 0);
+                V1Pod pod = sharedInformerFactory.getExistingSharedIndexInformer(V1Pod.class).getIndexer().getByKey(dataCenter.getMetadata().getNamespace() + "/" + podName);
+                if (pod != null && pod.getStatus() != null && pod.getStatus().getHostIP() != null) {
+                    String hostIp = pod.getStatus().getHostIP();
+                    String externalIp = hostIpToExternalIp.get(hostIp);
+                    if (dataCenter.getSpec().getNetworking().getHostNetworkEnabled() || dataCenter.getSpec().getNetworking().getHostPortEnabled()) {
+                        seeds.add(externalIp == null ? hostIp : externalIp);
+                    } else if (pod.getStatus().getPodIP() != null) {
+                        seeds.add(pod.getStatus().getPodIP());
+                    }
+                }
+            }
+        }
+        return seeds;
+    }
+
+    /**
+     * @return keys of datacenters whose seeds changed.
+     */
+    public Observable<Key> updates() {
+        return updates;
+    }
+
+    public void onPod(V1Pod pod) {
+        // only the first pod of each rack is a seed
+        if (pod.getMetadata().getLabels() != null && pod.getMetadata().getName().endsWith("-0")) {
+            String parent = pod.getMetadata().getLabels().get(OperatorLabels.PARENT);
+            if (parent != null)
+                update(new Key(pod.getMetadata().getNamespace(), parent));
+        }
+    }
+
+    public void onStatefulSet(V1StatefulSet sts) {
+        if (sts.getMetadata().getLabels() != null) {
+            String parent = sts.getMetadata().getLabels().get(OperatorLabels.PARENT);
+            if (parent != null)
+                update(new Key(sts.getMetadata().getNamespace(), parent));
+        }
+    }
+
+    public void onNodeUpdate(V1Node oldNode, V1Node node) {
+        if (oldNode != null)
+            internalIp(oldNode).ifPresent(hostIpToExternalIp::remove);
+        if (node != null)
+            internalIp(node).ifPresent(internalIp -> hostIpToExternalIp.put(internalIp, externalIp(node).orElse(internalIp)));
+        // node addresses are only used by datacenters with host networking
+        for (Key dcKey : keySet()) {
+            DataCenter dataCenter = sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class).getIndexer().getByKey(dcKey.id());
+            if (dataCenter != null && (dataCenter.getSpec().getNetworking().getHostNetworkEnabled() || dataCenter.getSpec().getNetworking().getHostPortEnabled()))
+                update(dcKey);
+        }
+    }
+
+    private static Optional<String> internalIp(V1Node node) {
+        return nodeAddress(node, "InternalIP");
+    }
+
+    private static Optional<String> externalIp(V1Node node) {
+        String publicIp = node.getMetadata().getAnnotations() == null ? null : node.getMetadata().getAnnotations().get("elassandra.strapdata.com/public-ip");
+        return publicIp != null ? Optional.of(publicIp) : nodeAddress(node, "ExternalIP");
+    }
+
+    private static Optional<String> nodeAddress(V1Node node, String type) {
+        if (node.getStatus() != null && node.getStatus().getAddresses() != null) {
+            for(V1NodeAddress v1NodeAddress : node.getStatus().getAddresses()) {
+                if (v1NodeAddress.getType().equals(type))
+                    return Optional.of(v1NodeAddress.getAddress());
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cache;
+
+import com.strapdata.strapkop.model.Key;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per datacenter objects identified by a name, recomputed only when their input version changes.
+ *
+ * @param <V> type of the cached objects
+ */
+public class VersionedCache<V> extends Cache<Key, Map<String, VersionedCache.Entry<V>>> {
+
+    static class Entry<V> {
+        final String version;
+        final V value;
+
+        Entry(String version, V value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Object builder, its checked exception is thrown by {@link #get(Key, String, String, Builder)}.
+     */
+    @FunctionalInterface
+    public interface Builder<T, E extends Exception> {
+        T build() throws E;
+    }
+
+    /**
+     * @param key datacenter key
+     * @param name object name in the datacenter
+     * @param version version of the inputs of the builder, or null to always build the object
+     * @param builder object builder
+     * @return the object for this version
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends V, E extends Exception> T get(Key key, String name, String version, Builder<T, E> builder) throws E {
+        if (version == null)
+            return builder.build();
+
+        Map<String, Entry<V>> entries = computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+        Entry<V> entry = entries.get(name);
+        if (entry != null && entry.version.equals(version))
+            return (T) entry.value;
+
+        T value = builder.build();
+        entries.put(name, new Entry<>(version, value));
+        return value;
+    }
+}
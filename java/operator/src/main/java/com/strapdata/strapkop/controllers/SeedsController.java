@@ -17,17 +17,13 @@
 
 package com.strapdata.strapkop.controllers;
 
-import com.strapdata.strapkop.cache.StatefulsetCache;
+import com.strapdata.strapkop.cache.SeedsCache;
 import com.strapdata.strapkop.k8s.OperatorNames;
 import com.strapdata.strapkop.model.Key;
-import com.strapdata.strapkop.model.k8s.OperatorLabels;
 import com.strapdata.strapkop.model.k8s.datacenter.DataCenter;
 import io.kubernetes.client.informer.SharedInformerFactory;
 import io.kubernetes.client.openapi.ApiException;
-import io.kubernetes.client.openapi.models.V1Node;
-import io.kubernetes.client.openapi.models.V1NodeAddress;
-import io.kubernetes.client.openapi.models.V1Pod;
-import io.kubernetes.client.openapi.models.V1StatefulSet;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
@@ -35,14 +31,21 @@ import io.micronaut.http.MediaType;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Error;
 import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.QueryValue;
-import io.reactivex.Single;
+import io.micronaut.http.sse.Event;
+import io.reactivex.BackpressureStrategy;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
-import java.util.*;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Return seed nodes IP (pod 0 for active racks)
@@ -53,11 +56,13 @@ public class SeedsController {
 
     private final Logger logger = LoggerFactory.getLogger(SeedsController.class);
 
+    public static final long HEARTBEAT_PERIOD_SECONDS = 30;
+
     @Inject
     SharedInformerFactory sharedInformerFactory;
 
     @Inject
-    StatefulsetCache statefulsetCache;
+    SeedsCache seedsCache;
 
 
     /**
@@ -70,65 +75,58 @@ public class SeedsController {
 
     /**
      * Retreive seed node (or pod) IP addresses or external DNS names.
+     * Seeds are precomputed from k8s events, and the response has an ETag to support conditional requests.
      * @param namespace
      * @param clusterName
      * @param datacenterName
      * @return
      */
     @Get(value = "/{namespace}/{clusterName}/{datacenterName}", produces = MediaType.APPLICATION_JSON)
-    public Single<List<String>> seeds(@QueryValue("namespace") String namespace,
+    public HttpResponse<byte[]> seeds(@QueryValue("namespace") String namespace,
                                       @QueryValue("clusterName") String clusterName,
-                                      @QueryValue("datacenterName") String datacenterName) throws ApiException {
+                                      @QueryValue("datacenterName") String datacenterName,
+                                      @Nullable @Header(HttpHeaders.IF_NONE_MATCH) String ifNoneMatch) throws ApiException {
         Key dcKey = new Key(namespace, OperatorNames.dataCenterResource(clusterName, datacenterName));
-        DataCenter dataCenter = sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class).getIndexer().getByKey(dcKey.id());
-        if (dataCenter == null)
+        if (sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class).getIndexer().getByKey(dcKey.id()) == null)
             throw new IllegalArgumentException("Datacenter not found");
 
-        TreeMap<String, V1StatefulSet> stsMap = statefulsetCache.get(dcKey);
-        if (stsMap == null)
+        SeedsCache.Seeds seeds = seedsCache.getOrCompute(dcKey);
+        if (seeds == null)
             throw new IllegalArgumentException("No StatefulSet found");
 
-        List<String> seeds = new ArrayList<>();
-        Map<String, String> hostIpToExternalIp = new HashMap<>();
-        for(V1Node node : sharedInformerFactory.getExistingSharedIndexInformer(V1Node.class).getIndexer().list()) {
-            String internalIp = null;
-            String externalIp = null;
-            if (node.getStatus() != null && node.getStatus().getAddresses() != null) {
-                for(V1NodeAddress v1NodeAddress : node.getStatus().getAddresses()) {
-                    if (v1NodeAddress.getType().equals("InternalIP")) {
-                        internalIp = v1NodeAddress.getAddress();
-                    }
-                    if (v1NodeAddress.getType().equals("ExternalIP")) {
-                        externalIp = v1NodeAddress.getAddress();
-                    }
-                }
-            }
-            String publicIp = node.getMetadata().getAnnotations().get("elassandra.strapdata.com/public-ip");
-            if (publicIp != null)
-                externalIp = publicIp;
-
-            if (internalIp != null)
-                hostIpToExternalIp.put(internalIp, (externalIp == null) ? internalIp : externalIp);
-        }
-
-        for(V1StatefulSet statefulSet : stsMap.values()) {
-            if (statefulSet.getStatus() != null && statefulSet.getStatus().getCurrentReplicas() != null && statefulSet.getStatus().getCurrentReplicas() > 0) {
-                String podName = OperatorNames.podName(dataCenter, Integer.parseInt(statefulSet.getMetadata().getLabels().get(OperatorLabels.RACKINDEX)), 0);
-                V1Pod pod = sharedInformerFactory.getExistingSharedIndexInformer(V1Pod.class).getIndexer().getByKey(namespace + "/" + podName);
-                if (pod != null && pod.getStatus() != null && pod.getStatus().getHostIP() != null) {
-                    String hostIp = pod.getStatus().getHostIP();
-                    String externalIp = hostIpToExternalIp.get(hostIp);
-                    if (dataCenter.getSpec().getNetworking().getHostNetworkEnabled() || dataCenter.getSpec().getNetworking().getHostPortEnabled()) {
-                        seeds.add(externalIp == null ? hostIp : externalIp);
-                    } else {
-                        seeds.add(pod.getStatus().getPodIP());
-                    }
-                }
-            }
-        }
-
-        logger.info("datacenter={} seeds={}", dataCenter.id(), seeds);
-        return Single.just(seeds);
+        if (seeds.getEtag().equals(ifNoneMatch))
+            return HttpResponse.<byte[]>notModified().header(HttpHeaders.ETAG, seeds.getEtag());
+
+        logger.debug("datacenter={} seeds={}", dcKey.id(), seeds.getSeeds());
+        return HttpResponse.ok(seeds.getJson())
+                .contentType(MediaType.APPLICATION_JSON_TYPE)
+                .header(HttpHeaders.ETAG, seeds.getEtag());
+    }
+
+    /**
+     * Stream the seeds of a datacenter as server-sent events, sent on subscription, when seeds change,
+     * and periodically as a heartbeat.
+     * @param namespace
+     * @param clusterName
+     * @param datacenterName
+     * @return
+     */
+    @Get(value = "/{namespace}/{clusterName}/{datacenterName}/watch", produces = MediaType.TEXT_EVENT_STREAM)
+    public Publisher<Event<List<String>>> watch(@QueryValue("namespace") String namespace,
+                                                @QueryValue("clusterName") String clusterName,
+                                                @QueryValue("datacenterName") String datacenterName) {
+        final Key dcKey = new Key(namespace, OperatorNames.dataCenterResource(clusterName, datacenterName));
+        if (sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class).getIndexer().getByKey(dcKey.id()) == null)
+            throw new IllegalArgumentException("Datacenter not found");
+
+        return Flowable.merge(
+                Flowable.interval(0, HEARTBEAT_PERIOD_SECONDS, TimeUnit.SECONDS),
+                seedsCache.updates().filter(dcKey::equals).toFlowable(BackpressureStrategy.LATEST))
+                .flatMapMaybe(x -> {
+                    SeedsCache.Seeds seeds = seedsCache.getOrCompute(dcKey);
+                    return seeds == null ? Maybe.<SeedsCache.Seeds>empty() : Maybe.just(seeds);
+                })
+                .map(seeds -> Event.of(seeds.getSeeds()).name("seeds").id(seeds.getEtag()));
     }
 
     @Error
@@ -17,8 +17,10 @@
 
 package com.strapdata.strapkop.cql;
 
+import com.datastax.driver.core.KeyspaceMetadata;
 import com.datastax.driver.core.Row;
 import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.strapdata.strapkop.StrapkopException;
@@ -140,20 +142,29 @@ public class CqlKeyspaceManager extends AbstractManager<CqlKeyspace> {
                     // reconcile keyspace according to the current DC size
                     // if the last observed replicas and current replicas differ, update keyspaces
                     if (!Optional.ofNullable(dataCenterUpdateAction.dataCenterStatus.getKeyspaceManagerStatus().getReplicas()).orElse(0).equals(dataCenter.getSpec().getReplicas())) {
-                        List<CompletableSource> todoList = new ArrayList<>();
                         logger.debug("manager={}", get(dataCenter));
-                        for (CqlKeyspace keyspace : get(dataCenter).values()) {
-                            try {
-                                if (!keyspace.reconcilied() || keyspace.reconcileWithDcSize < keyspace.rf || dataCenter.getSpec().getReplicas() < keyspace.rf)
-                                    todoList.add(updateKeyspaceReplicationMap(dataCenter, dataCenterUpdateAction.dataCenterStatus, keyspace.name, effectiveRF(dataCenter, keyspace.rf), sessionSupplier)
-                                            .andThen(Completable.fromAction(() -> dataCenterUpdateAction.operation.getActions().add("Update keyspace RF for ["+keyspace.getName()+"]")))
-                                    );
-                            } catch (Exception e) {
-                                logger.warn("datacenter=" + dataCenter.id() + " Failed to adjust RF for keyspace=" + keyspace, e);
-                            }
-                        }
-                        // we set the current replicas in observed replicas to know if we need to update rf map
-                        return Completable.mergeArray(todoList.toArray(new CompletableSource[todoList.size()]))
+                        final Map<String, Integer> targetRfs = new HashMap<>();
+                        for (CqlKeyspace keyspace : get(dataCenter).values())
+                            targetRfs.put(keyspace.name, effectiveRF(dataCenter, keyspace.rf));
+
+                        // only update keyspaces where the actual RF differs from the target RF
+                        return sessionSupplier.getSession(dataCenter, dataCenterUpdateAction.dataCenterStatus)
+                                .map(session -> keyspacesToUpdate(replicationSnapshot(session), dataCenter.getSpec().getDatacenterName(), targetRfs))
+                                .flatMapCompletable(changes -> {
+                                    logger.debug("datacenter={} keyspaces={}/{} to update RF", dataCenter.id(), changes.size(), targetRfs.size());
+                                    List<CompletableSource> todoList = new ArrayList<>();
+                                    for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                                        try {
+                                            todoList.add(updateKeyspaceReplicationMap(dataCenter, dataCenterUpdateAction.dataCenterStatus, change.getKey(), change.getValue(), sessionSupplier)
+                                                    .andThen(Completable.fromAction(() -> dataCenterUpdateAction.operation.getActions().add("Update keyspace RF for [" + change.getKey() + "]")))
+                                            );
+                                        } catch (Exception e) {
+                                            logger.warn("datacenter=" + dataCenter.id() + " Failed to adjust RF for keyspace=" + change.getKey(), e);
+                                        }
+                                    }
+                                    return Completable.mergeArray(todoList.toArray(new CompletableSource[todoList.size()]));
+                                })
+                                // we set the current replicas in observed replicas to know if we need to update rf map
                                 .andThen(Completable.fromAction(() -> {
                                     dataCenterUpdateAction.dataCenterStatus.getKeyspaceManagerStatus().setReplicas(dataCenter.getSpec().getReplicas());
                                 }))
@@ -164,6 +175,115 @@ public class CqlKeyspaceManager extends AbstractManager<CqlKeyspace> {
                 });
     }
 
+    /**
+     * Read the keyspace replication maps from the driver schema metadata, without querying the cluster.
+     * The driver keeps its schema metadata up-to-date, so the snapshot is not cached between reconciliations.
+     *
+     * @param session
+     * @return keyspace name -> replication map
+     */
+    static Map<String, Map<String, Integer>> replicationSnapshot(final Session session) {
+        final Map<String, Map<String, Integer>> snapshot = new HashMap<>();
+        for (KeyspaceMetadata keyspaceMetadata : session.getCluster().getMetadata().getKeyspaces())
+            snapshot.put(keyspaceMetadata.getName(), replicationMap(keyspaceMetadata.getReplication()));
+        return snapshot;
+    }
+
+    /**
+     * Compute the minimal set of keyspaces whose RF in dcName differs from the target RF.
+     * Keyspaces not yet visible in the snapshot are included so that their RF is checked against system_schema.
+     *
+     * @param snapshot keyspace name -> replication map
+     * @param dcName datacenter name
+     * @param targetRfs keyspace name -> target RF
+     * @return keyspace name -> target RF
+     */
+    static Map<String, Integer> keyspacesToUpdate(final Map<String, Map<String, Integer>> snapshot, final String dcName, final Map<String, Integer> targetRfs) {
+        final Map<String, Integer> changes = new HashMap<>();
+        for (Map.Entry<String, Integer> target : targetRfs.entrySet()) {
+            Map<String, Integer> replication = snapshot.get(target.getKey());
+            if (replication == null || replication.getOrDefault(dcName, 0).intValue() != target.getValue().intValue())
+                changes.put(target.getKey(), target.getValue());
+        }
+        return changes;
+    }
+
+    static Map<String, Integer> replicationMap(final Map<String, String> replication) {
+        return replication.entrySet().stream()
+                .filter(e -> !e.getKey().equals("class") && !e.getKey().equals("replication_factor"))
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> Integer.parseInt(e.getValue())));
+    }
+
+    /**
+     * Max replication factor of the datacenter keyspaces, read from the driver schema metadata.
+     *
+     * @param dataCenter
+     * @param dataCenterStatus
+     * @param sessionSupplier
+     * @return the max RF in the datacenter, or Integer.MAX_VALUE if a keyspace is not rack aware.
+     */
+    public Single<Integer> maxReplicationFactor(final DataCenter dataCenter, final DataCenterStatus dataCenterStatus, final CqlSessionSupplier sessionSupplier) throws Exception {
+        return replications(dataCenter, dataCenterStatus, sessionSupplier)
+                .map(replications -> maxReplicationFactor(replications, dataCenter.getSpec().getDatacenterName()));
+    }
+
+    /**
+     * Check that all the keyspaces replicated in the datacenter have a replication factor equals to the number of racks.
+     * Each rack then holds exactly one replica of every token range, so a node bootstrapping in a rack only takes
+     * ranges from the nodes of its own rack, and nodes bootstrapping in distinct racks move non-overlapping replicas.
+     * With a lower replication factor, the racks holding the replicas of a range depend on the ring,
+     * so a new node may take ranges from other racks and overlap with a node bootstrapping there.
+     *
+     * @param dataCenter
+     * @param dataCenterStatus
+     * @param sessionSupplier
+     * @param racks number of racks in the datacenter
+     * @return true if the replication factor of all the datacenter keyspaces equals the number of racks.
+     */
+    public Single<Boolean> rackAlignedReplication(final DataCenter dataCenter, final DataCenterStatus dataCenterStatus, final CqlSessionSupplier sessionSupplier, int racks) throws Exception {
+        return replications(dataCenter, dataCenterStatus, sessionSupplier)
+                .map(replications -> rackAlignedReplication(replications, dataCenter.getSpec().getDatacenterName(), racks));
+    }
+
+    Single<Map<String, Map<String, String>>> replications(final DataCenter dataCenter, final DataCenterStatus dataCenterStatus, final CqlSessionSupplier sessionSupplier) throws Exception {
+        return sessionSupplier.getSession(dataCenter, dataCenterStatus)
+                .map(session -> {
+                    final Map<String, Map<String, String>> replications = new HashMap<>();
+                    for (KeyspaceMetadata keyspaceMetadata : session.getCluster().getMetadata().getKeyspaces())
+                        replications.put(keyspaceMetadata.getName(), keyspaceMetadata.getReplication());
+                    return replications;
+                });
+    }
+
+    static boolean rackAlignedReplication(final Map<String, Map<String, String>> replications, final String dcName, int racks) {
+        for (Map<String, String> replication : replications.values()) {
+            String strategy = replication.getOrDefault("class", "");
+            if (strategy.endsWith("NetworkTopologyStrategy")) {
+                int rf = Integer.parseInt(replication.getOrDefault(dcName, "0"));
+                if (rf > 0 && rf != racks)
+                    return false;
+            } else if (strategy.endsWith("SimpleStrategy") && Integer.parseInt(replication.getOrDefault("replication_factor", "1")) > 1) {
+                // SimpleStrategy replicas ignore racks
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int maxReplicationFactor(final Map<String, Map<String, String>> replications, final String dcName) {
+        int maxRf = 0;
+        for (Map<String, String> replication : replications.values()) {
+            String strategy = replication.getOrDefault("class", "");
+            if (strategy.endsWith("NetworkTopologyStrategy")) {
+                maxRf = Math.max(maxRf, Integer.parseInt(replication.getOrDefault(dcName, "0")));
+            } else if (strategy.endsWith("SimpleStrategy") && Integer.parseInt(replication.getOrDefault("replication_factor", "1")) > 1) {
+                // SimpleStrategy replicas ignore racks
+                return Integer.MAX_VALUE;
+            }
+        }
+        return maxRf;
+    }
+
     /**
      * Compute the effective target RF.
      * If DC is scaling up, increase the RF by 1 to automatically stream data to the new node.
@@ -207,12 +327,18 @@ public class CqlKeyspaceManager extends AbstractManager<CqlKeyspace> {
         if (get(dataCenter) != null &&
                 dataCenter.getStatus().getPhase().equals(DataCenterPhase.RUNNING) &&
                 dataCenter.getStatus().getCqlStatus().equals(CqlStatus.ESTABLISHED)) {
-            Collection<CqlKeyspace> keyspaces = get(dataCenter).values();
-            List<Completable> completables = new ArrayList<>(keyspaces.size());
-            for (CqlKeyspace keyspace : keyspaces) {
-                completables.add(updateKeyspaceReplicationMap(dataCenter, dataCenterStatus, keyspace.name, Math.min(keyspace.rf, targetDcSize), sessionSupplier));
-            }
-            return Completable.mergeArray(completables.toArray(new Completable[completables.size()])).onErrorComplete();
+            final Map<String, Integer> targetRfs = new HashMap<>();
+            for (CqlKeyspace keyspace : get(dataCenter).values())
+                targetRfs.put(keyspace.name, Math.min(keyspace.rf, targetDcSize));
+            return sessionSupplier.getSession(dataCenter, dataCenterStatus)
+                    .map(session -> keyspacesToUpdate(replicationSnapshot(session), dataCenter.getSpec().getDatacenterName(), targetRfs))
+                    .flatMapCompletable(changes -> {
+                        List<Completable> completables = new ArrayList<>(changes.size());
+                        for (Map.Entry<String, Integer> change : changes.entrySet())
+                            completables.add(updateKeyspaceReplicationMap(dataCenter, dataCenterStatus, change.getKey(), change.getValue(), sessionSupplier));
+                        return Completable.mergeArray(completables.toArray(new Completable[completables.size()]));
+                    })
+                    .onErrorComplete();
         }
         return Completable.complete();
     }
@@ -232,15 +358,13 @@ public class CqlKeyspaceManager extends AbstractManager<CqlKeyspace> {
     public Completable removeDcFromReplicationMap(final DataCenter dc, final DataCenterStatus dataCenterStatus,
                                                   final String dcName, final CqlSessionSupplier sessionSupplier) throws Exception {
         return sessionSupplier.getSession(dc, dataCenterStatus)
-                .flatMap(session -> Single.fromFuture(session.executeAsync("SELECT keyspace_name, replication FROM system_schema.keyspaces")))
+                .flatMap(session -> Single.fromFuture(session.executeAsync(new SimpleStatement("SELECT keyspace_name, replication FROM system_schema.keyspaces").setIdempotent(true))))
                 .flatMapCompletable(rs -> {
                     final Map<String, Integer> currentRfMap = new HashMap<>();
                     List<Completable> todoList = new ArrayList<>();
                     for (Row row : rs) {
                         final Map<String, String> replication = row.getMap("replication", String.class, String.class);
-                        final Map<String, Integer> keyspaceReplicationMap = replication.entrySet().stream()
-                                .filter(e -> !e.getKey().equals("class") && !e.getKey().equals("replication_factor"))
-                                .collect(Collectors.toMap(Map.Entry::getKey, e -> Integer.parseInt(e.getValue())));
+                        final Map<String, Integer> keyspaceReplicationMap = replicationMap(replication);
                         if (keyspaceReplicationMap.containsKey(dcName)) {
                             keyspaceReplicationMap.remove(dcName);
                             todoList.add(alterKeyspace(dc, dataCenterStatus, sessionSupplier, row.getString("keyspace_name"), keyspaceReplicationMap).ignoreElement());
@@ -262,7 +386,7 @@ public class CqlKeyspaceManager extends AbstractManager<CqlKeyspace> {
     public Completable updateKeyspaceReplicationMap(final DataCenter dc, DataCenterStatus dataCenterStatus, String dcName, final String keyspace, int targetRf, final CqlSessionSupplier sessionSupplier, boolean triggerRepairOrCleanup) throws Exception {
         return sessionSupplier.getSessionWithSchemaAgreed(dc, dataCenterStatus)
                 .flatMap(session ->
-                        Single.fromFuture(session.executeAsync("SELECT keyspace_name, replication FROM system_schema.keyspaces WHERE keyspace_name = ?", keyspace))
+                        Single.fromFuture(session.executeAsync(new SimpleStatement("SELECT keyspace_name, replication FROM system_schema.keyspaces WHERE keyspace_name = ?", keyspace).setIdempotent(true)))
                 )
                 .flatMapCompletable(rs -> {
                     Row row = rs.one();
@@ -274,12 +398,7 @@ public class CqlKeyspaceManager extends AbstractManager<CqlKeyspace> {
                     final String strategy = replication.get("class");
                     Objects.requireNonNull(strategy, "replication strategy cannot be null");
 
-                    final Map<String, Integer> currentRfMap = replication.entrySet().stream()
-                            .filter(e -> !e.getKey().equals("class") && !e.getKey().equals("replication_factor"))
-                            .collect(Collectors.toMap(
-                                    Map.Entry::getKey,
-                                    e -> Integer.parseInt(e.getValue())
-                            ));
+                    final Map<String, Integer> currentRfMap = replicationMap(replication);
                     final int currentRf = currentRfMap.getOrDefault(dcName, 0);
                     logger.debug("datacenter={} keyspace={} currentRf={} targetRf={}", dc.id(), keyspace, currentRf, targetRf);
 
@@ -25,14 +25,17 @@ import com.strapdata.strapkop.k8s.OperatorNames;
 import com.strapdata.strapkop.model.k8s.datacenter.DataCenter;
 import com.strapdata.strapkop.model.k8s.datacenter.DataCenterStatus;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 import lombok.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 @Data
@@ -160,46 +163,27 @@ public class CqlRole implements CqlReconciliable, Cloneable {
      * @throws StrapkopException
      */
     public Single<CqlRole> createOrUpdateRole(DataCenter dataCenter, DataCenterStatus dataCenterStatus, K8sResourceUtils k8sResourceUtils, final CqlSessionSupplier sessionSupplier) throws Exception {
+        return createOrUpdateRole(dataCenter, dataCenterStatus, k8sResourceUtils, sessionSupplier, CqlRoleSnapshot.UNKNOWN, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create or update a cassandra role, only executing statements not already applied in the system_auth snapshot.
+     * Grant statements are executed asynchronously with at most maxInFlight concurrent requests.
+     *
+     * @param sessionSupplier
+     * @param snapshot system_auth snapshot, or CqlRoleSnapshot.UNKNOWN to execute all statements
+     * @param maxInFlight max concurrent grant statements
+     * @return this
+     * @throws StrapkopException
+     */
+    public Single<CqlRole> createOrUpdateRole(DataCenter dataCenter, DataCenterStatus dataCenterStatus, K8sResourceUtils k8sResourceUtils,
+                                              final CqlSessionSupplier sessionSupplier, final CqlRoleSnapshot snapshot, int maxInFlight) throws Exception {
         if (!reconcilied) {
-            // create role if not exists, then alter... so this is completely idempotent and can even update password, although it might not be optimized
-            return loadPassword(dataCenter, k8sResourceUtils)
-                    .flatMap(cqlRole -> {
-                        logger.debug("datacenter={} Creating role={}", dataCenter.id(), this);
-                        return sessionSupplier.getSession(dataCenter, dataCenterStatus);
-                    })
-                    .flatMap(session -> {
-                        if (!"cassandra".equals(username)) {
-                            // don not create the cassandra role, it always exists
-                            String q = String.format(Locale.ROOT, "CREATE ROLE IF NOT EXISTS %s with SUPERUSER = %b AND LOGIN = %b and PASSWORD = '%s'", username, superUser, login, password);
-                            logger.debug("datacenter={} query={}", dataCenter.id(), q);
-                            return Single.fromFuture(session.executeAsync(q)).map(rs -> session);
-                        } else {
-                            return Single.just(session);
-                        }
-                    })
-                    .flatMap(session -> {
-                        String q = String.format(Locale.ROOT, "ALTER ROLE %s WITH PASSWORD = '%s'", username, password);
-                        logger.debug("datacenter={} query={}", dataCenter.id(), q);
-                        return Single.fromFuture(session.executeAsync(q)).map(rs -> session);
-                    })
-                    .flatMap(session -> {
-                        return (this.grantStatements != null && this.grantStatements.size() > 0) ?
-                                Completable.mergeArray(this.grantStatements.stream().map(
-                                        stmt -> Completable.fromFuture(session.executeAsync(stmt))).toArray(Completable[]::new))
-                                        .toSingleDefault(session) :
-                                Single.just(session);
-                    })
-                    .map(session -> {
-                        if (this.postCreateHandler != null) {
-                            try {
-                                this.postCreateHandler.postCreate(dataCenter, sessionSupplier);
-                            } catch (Exception e) {
-                                logger.error("datacenter="+ dataCenter.id()+" Failed to execute posteCreate for role=" + this.username, e);
-                            }
-                        }
-                        this.reconcilied = true;     // mark the role as up-to-date
-                        return this;
-                    })
+            return createRole(dataCenter, dataCenterStatus, k8sResourceUtils, sessionSupplier, snapshot)
+                    .flatMap(session -> Flowable.fromIterable(missingGrants(dataCenter, snapshot))
+                            .flatMapCompletable(stmt -> Completable.fromFuture(session.executeAsync(stmt)), false, maxInFlight)
+                            .toSingleDefault(session))
+                    .map(session -> postCreate(dataCenter, sessionSupplier))
                     .onErrorReturn(t -> {
                         logger.warn("dc={} role={} failed to createOrUpdate:", dataCenter.id(), username, t.toString());
                         return this;
@@ -208,6 +192,69 @@ public class CqlRole implements CqlReconciliable, Cloneable {
         return Single.just(this);
     }
 
+    /**
+     * Load the password, then create the role if missing or update its password. Grant statements are not applied.
+     *
+     * @return the session used to create the role
+     */
+    Single<Session> createRole(DataCenter dataCenter, DataCenterStatus dataCenterStatus, K8sResourceUtils k8sResourceUtils,
+                               final CqlSessionSupplier sessionSupplier, final CqlRoleSnapshot snapshot) {
+        // create role if not exists, then alter... so this is completely idempotent and can even update password
+        return loadPassword(dataCenter, k8sResourceUtils)
+                .flatMap(cqlRole -> {
+                    logger.debug("datacenter={} Creating role={}", dataCenter.id(), this);
+                    return sessionSupplier.getSession(dataCenter, dataCenterStatus);
+                })
+                .flatMap(session -> {
+                    // don not create the cassandra role, it always exists
+                    if (!"cassandra".equals(username) && !snapshot.roleExists(username)) {
+                        String q = String.format(Locale.ROOT, "CREATE ROLE IF NOT EXISTS %s with SUPERUSER = %b AND LOGIN = %b and PASSWORD = '%s'", username, superUser, login, password);
+                        logger.debug("datacenter={} query={}", dataCenter.id(), q);
+                        // when the role was known to be missing, the password is set by the CREATE ROLE
+                        return Single.fromFuture(session.executeAsync(q)).map(rs -> snapshot.isKnown() ? Completable.complete() : alterPassword(dataCenter, session))
+                                .flatMap(alter -> alter.toSingleDefault(session));
+                    }
+                    return alterPassword(dataCenter, session).toSingleDefault(session);
+                });
+    }
+
+    /**
+     * @return grant statements not already applied in the system_auth snapshot.
+     */
+    List<String> missingGrants(DataCenter dataCenter, final CqlRoleSnapshot snapshot) {
+        if (this.grantStatements == null || this.grantStatements.isEmpty())
+            return Collections.emptyList();
+
+        List<String> missingGrants = this.grantStatements.stream()
+                .filter(stmt -> !snapshot.isGranted(stmt))
+                .collect(Collectors.toList());
+        logger.debug("datacenter={} role={} grants={}/{} to apply", dataCenter.id(), username, missingGrants.size(), grantStatements.size());
+        return missingGrants;
+    }
+
+    /**
+     * Execute the postCreate handler once the role and its grants are applied, and mark the role as up-to-date.
+     *
+     * @return this
+     */
+    CqlRole postCreate(DataCenter dataCenter, final CqlSessionSupplier sessionSupplier) {
+        if (this.postCreateHandler != null) {
+            try {
+                this.postCreateHandler.postCreate(dataCenter, sessionSupplier);
+            } catch (Exception e) {
+                logger.error("datacenter="+ dataCenter.id()+" Failed to execute posteCreate for role=" + this.username, e);
+            }
+        }
+        this.reconcilied = true;     // mark the role as up-to-date
+        return this;
+    }
+
+    private Completable alterPassword(DataCenter dataCenter, Session session) {
+        String q = String.format(Locale.ROOT, "ALTER ROLE %s WITH PASSWORD = '%s'", username, password);
+        logger.debug("datacenter={} query=ALTER ROLE {} WITH PASSWORD", dataCenter.id(), username);
+        return Completable.fromFuture(session.executeAsync(q));
+    }
+
     Single<CqlRole> deleteRole(DataCenter dataCenter, final Session session) throws Exception {
         logger.debug("Droping role={}", this);
         return Single.fromFuture(session.executeAsync(String.format(Locale.ROOT, "DROP ROLE %s", username)))
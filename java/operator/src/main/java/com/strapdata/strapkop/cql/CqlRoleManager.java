@@ -20,7 +20,10 @@ package com.strapdata.strapkop.cql;
 import com.datastax.driver.core.*;
 import com.datastax.driver.core.exceptions.AuthenticationException;
 import com.datastax.driver.core.exceptions.DriverException;
+import com.datastax.driver.core.policies.ConstantSpeculativeExecutionPolicy;
 import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.LatencyAwarePolicy;
+import com.datastax.driver.core.policies.LoadBalancingPolicy;
 import com.datastax.driver.core.policies.LoggingRetryPolicy;
 import com.datastax.driver.core.policies.TokenAwarePolicy;
 import com.google.common.collect.ImmutableList;
@@ -47,6 +50,8 @@ import io.netty.handler.ssl.SslContextBuilder;
 import io.netty.handler.ssl.SslProvider;
 import io.reactivex.Completable;
 import io.reactivex.CompletableSource;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
 import io.reactivex.Single;
 import io.vavr.Tuple2;
 import org.slf4j.Logger;
@@ -60,8 +65,11 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -127,32 +135,73 @@ public class CqlRoleManager extends AbstractManager<CqlRole> {
                 .flatMap(doUpdateStatus -> {
                     // now we are sure authentication is required and cql connection has been set
                     logger.info("datacenter={} reconcile roles", dataCenter.id());
-                    List<CompletableSource> todoList = new ArrayList<>();
-                    if (get(dataCenter) != null) {
-                        for (CqlRole role : get(dataCenter).values()) {
-                            if (!role.isReconcilied()) {
-                                try {
-                                    doUpdateStatus = true;
-                                    todoList.add(
-                                            role.createOrUpdateRole(dataCenter, dataCenterUpdateAction.dataCenterStatus, k8sResourceUtils, sessionSupplier)
-                                            .map(r -> {
-                                                // update registry because role seems to be managed by value
-                                                put(dataCenter, r.getUsername(), r);
-                                                return r;
-                                            }).ignoreElement()
-                                    );
-                                    dataCenterUpdateAction.operation.getActions().add("Create or update role=["+role.getUsername()+"]");
-                                } catch (Exception ex) {
-                                    logger.error("datacenter={} Cannot load password or apply for role={} error={}",
-                                            dataCenter.id(), role.getUsername(), ex.getMessage());
-                                }
-                            }
-                        }
-                    }
-                    return Completable.mergeArray(todoList.toArray(new CompletableSource[todoList.size()])).toSingleDefault(doUpdateStatus);
+                    final List<CqlRole> pendingRoles = (get(dataCenter) == null) ? new ArrayList<>() :
+                            get(dataCenter).values().stream().filter(role -> !role.isReconcilied()).collect(Collectors.toList());
+                    if (pendingRoles.isEmpty())
+                        return Single.just(doUpdateStatus);
+
+                    // read system_auth once to only apply missing roles and grants
+                    return loadRoleSnapshot(dataCenter, dataCenterUpdateAction.dataCenterStatus, sessionSupplier)
+                            .flatMap(snapshot -> {
+                                final int maxInFlight = Math.max(1, operatorConfig.getMaxInFlightCqlStatements());
+                                // create roles, then apply the grants of all roles in a single stream so that
+                                // at most maxInFlight statements are in flight.
+                                return Flowable.fromIterable(pendingRoles)
+                                        .flatMapMaybe(role -> {
+                                            dataCenterUpdateAction.operation.getActions().add("Create or update role=[" + role.getUsername() + "]");
+                                            return role.createRole(dataCenter, dataCenterUpdateAction.dataCenterStatus, k8sResourceUtils, sessionSupplier, snapshot)
+                                                    .map(session -> new Tuple2<>(role, session))
+                                                    .toMaybe()
+                                                    .onErrorResumeNext(t -> {
+                                                        logger.error("datacenter={} Cannot load password or apply for role={} error={}",
+                                                                dataCenter.id(), role.getUsername(), t.getMessage());
+                                                        return Maybe.empty();
+                                                    });
+                                        }, false, maxInFlight)
+                                        .toList()
+                                        .flatMap(createdRoles -> {
+                                            final Set<String> failedRoles = ConcurrentHashMap.newKeySet();
+                                            return Flowable.fromIterable(createdRoles)
+                                                    .concatMap(roleSession -> Flowable.fromIterable(roleSession._1.missingGrants(dataCenter, snapshot))
+                                                            .map(stmt -> new Tuple2<>(roleSession, stmt)))
+                                                    .flatMapCompletable(grant -> Completable.fromFuture(grant._1._2.executeAsync(grant._2))
+                                                            .onErrorComplete(t -> {
+                                                                logger.warn("datacenter={} role={} failed to grant: {}", dataCenter.id(), grant._1._1.getUsername(), t.toString());
+                                                                failedRoles.add(grant._1._1.getUsername());
+                                                                return true;
+                                                            }), false, maxInFlight)
+                                                    .toSingle(() -> {
+                                                        for (Tuple2<CqlRole, Session> roleSession : createdRoles) {
+                                                            if (!failedRoles.contains(roleSession._1.getUsername())) {
+                                                                // update registry because role seems to be managed by value
+                                                                CqlRole r = roleSession._1.postCreate(dataCenter, sessionSupplier);
+                                                                put(dataCenter, r.getUsername(), r);
+                                                            }
+                                                        }
+                                                        return true;
+                                                    });
+                                        });
+                            });
                 });
     }
 
+    /**
+     * Read the system_auth roles and permissions, or return an unknown snapshot on error so that all statements are applied.
+     */
+    Single<CqlRoleSnapshot> loadRoleSnapshot(DataCenter dataCenter, DataCenterStatus dataCenterStatus, CqlSessionSupplier sessionSupplier) {
+        try {
+            return sessionSupplier.getSession(dataCenter, dataCenterStatus)
+                    .flatMap(CqlRoleSnapshot::load)
+                    .onErrorReturn(t -> {
+                        logger.warn("datacenter={} Cannot read system_auth, applying all role statements: {}", dataCenter.id(), t.toString());
+                        return CqlRoleSnapshot.UNKNOWN;
+                    });
+        } catch (Exception e) {
+            logger.warn("datacenter={} Cannot read system_auth, applying all role statements: {}", dataCenter.id(), e.toString());
+            return Single.just(CqlRoleSnapshot.UNKNOWN);
+        }
+    }
+
     /**
      * @param dc the datacenter to connect  to
      * @return
@@ -324,12 +373,15 @@ public class CqlRoleManager extends AbstractManager<CqlRole> {
                         .setCoreConnectionsPerHost(HostDistance.LOCAL,1)
                 )
                 .withMaxSchemaAgreementWaitSeconds(operatorConfig.getMaxSchemaAgreementWaitSeconds())
-                .withLoadBalancingPolicy(new TokenAwarePolicy(
-                        DCAwareRoundRobinPolicy.builder()
-                                .withLocalDc(dc.getSpec().getDatacenterName())
-                                .withUsedHostsPerRemoteDc(0)
-                                .build()))
-                .withRetryPolicy(new LoggingRetryPolicy(OperatorRetryPolicy.INSTANCE));
+                .withLoadBalancingPolicy(loadBalancingPolicy(dc))
+                .withRetryPolicy(new LoggingRetryPolicy(new OperatorRetryPolicy(operatorConfig.getCqlMaxRetriesOnNextHost())));
+
+        if (operatorConfig.getCqlSpeculativeExecutionDelayMs() > 0 && operatorConfig.getCqlSpeculativeExecutionMaxExecutions() > 1) {
+            // only applies to idempotent statements, like system keyspaces reads
+            builder.withSpeculativeExecutionPolicy(new ConstantSpeculativeExecutionPolicy(
+                    operatorConfig.getCqlSpeculativeExecutionDelayMs(),
+                    operatorConfig.getCqlSpeculativeExecutionMaxExecutions()));
+        }
 
         if (dc.getSpec().getNetworking().getHostNetworkEnabled() || dc.getSpec().getNetworking().getHostPortEnabled()) {
             // if cluster has public broadcast IPs, the translator retreive internal k8s IP addresses
@@ -371,6 +423,26 @@ public class CqlRoleManager extends AbstractManager<CqlRole> {
         return builder.build();
     }
 
+    /**
+     * Token aware routing to the local DC nodes, excluding slow nodes (like restarting ones) when latency awareness is enabled.
+     */
+    private LoadBalancingPolicy loadBalancingPolicy(final DataCenter dc) {
+        LoadBalancingPolicy policy = DCAwareRoundRobinPolicy.builder()
+                .withLocalDc(dc.getSpec().getDatacenterName())
+                .withUsedHostsPerRemoteDc(0)
+                .build();
+        if (operatorConfig.isCqlLatencyAware()) {
+            policy = LatencyAwarePolicy.builder(policy)
+                    .withExclusionThreshold(operatorConfig.getCqlLatencyAwareExclusionThreshold())
+                    .withScale(100, TimeUnit.MILLISECONDS)
+                    .withRetryPeriod(10, TimeUnit.SECONDS)
+                    .withUpdateRate(100, TimeUnit.MILLISECONDS)
+                    .withMininumMeasurements(50)
+                    .build();
+        }
+        return new TokenAwarePolicy(policy);
+    }
+
     private SSLOptions getSSLOptions(String namespace, String clusterName) throws StrapkopException, ApiException, SSLException, ExecutionException, InterruptedException {
         X509CertificateAndPrivateKey ca = authorityManager.get(namespace, clusterName);
         SslContext sslContext = SslContextBuilder
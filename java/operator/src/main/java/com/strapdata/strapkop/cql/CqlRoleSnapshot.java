@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cql;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.Row;
+import com.datastax.driver.core.Session;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.google.common.collect.ImmutableSet;
+import io.reactivex.Single;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot of the system_auth roles and permissions, read once per role reconciliation
+ * to only execute the missing CREATE ROLE and GRANT statements.
+ */
+public class CqlRoleSnapshot {
+
+    /**
+     * Snapshot used when system_auth cannot be read, all role statements are executed.
+     */
+    public static final CqlRoleSnapshot UNKNOWN = new CqlRoleSnapshot(false);
+
+    static final Set<String> DATA_PERMISSIONS = ImmutableSet.of("CREATE", "ALTER", "DROP", "SELECT", "MODIFY", "AUTHORIZE");
+    static final Set<String> TABLE_PERMISSIONS = ImmutableSet.of("ALTER", "DROP", "SELECT", "MODIFY", "AUTHORIZE");
+    static final Set<String> ROLES_PERMISSIONS = ImmutableSet.of("CREATE", "ALTER", "DROP", "AUTHORIZE", "DESCRIBE");
+    static final Set<String> ROLE_PERMISSIONS = ImmutableSet.of("ALTER", "DROP", "AUTHORIZE");
+
+    private static final String IDENTIFIER = "(\"[^\"]+\"|\\w+)";
+
+    // GRANT <permissions> ON <resource> TO <role>
+    private static final Pattern GRANT_PERMISSION_PATTERN = Pattern.compile(
+            "^\\s*GRANT\\s+(.+?)\\s+ON\\s+(.+?)\\s+TO\\s+" + IDENTIFIER + "\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    // GRANT <role> TO <role>
+    private static final Pattern GRANT_ROLE_PATTERN = Pattern.compile(
+            "^\\s*GRANT\\s+" + IDENTIFIER + "\\s+TO\\s+" + IDENTIFIER + "\\s*;?\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern KEYSPACE_RESOURCE_PATTERN = Pattern.compile("^KEYSPACE\\s+" + IDENTIFIER + "$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_RESOURCE_PATTERN = Pattern.compile("^(?:TABLE\\s+)?" + IDENTIFIER + "\\." + IDENTIFIER + "$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ROLE_RESOURCE_PATTERN = Pattern.compile("^ROLE\\s+" + IDENTIFIER + "$", Pattern.CASE_INSENSITIVE);
+
+    private final boolean known;
+
+    // role name -> roles granted to this role
+    private final Map<String, Set<String>> roles = new HashMap<>();
+
+    // role name -> resource -> permissions
+    private final Map<String, Map<String, Set<String>>> permissions = new HashMap<>();
+
+    CqlRoleSnapshot(boolean known) {
+        this.known = known;
+    }
+
+    /**
+     * Read system_auth.roles and system_auth.role_permissions in parallel.
+     *
+     * @param session
+     * @return
+     */
+    public static Single<CqlRoleSnapshot> load(final Session session) {
+        return Single.zip(
+                Single.fromFuture(session.executeAsync(systemAuthQuery("SELECT role, member_of FROM system_auth.roles"))),
+                Single.fromFuture(session.executeAsync(systemAuthQuery("SELECT role, resource, permissions FROM system_auth.role_permissions"))),
+                (ResultSet rolesRs, ResultSet permissionsRs) -> {
+                    CqlRoleSnapshot snapshot = new CqlRoleSnapshot(true);
+                    for (Row row : rolesRs)
+                        snapshot.addRole(row.getString("role"), row.getSet("member_of", String.class));
+                    for (Row row : permissionsRs)
+                        snapshot.addPermissions(row.getString("role"), row.getString("resource"), row.getSet("permissions", String.class));
+                    return snapshot;
+                });
+    }
+
+    private static Statement systemAuthQuery(String query) {
+        return new SimpleStatement(query)
+                .setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM)
+                .setIdempotent(true);
+    }
+
+    void addRole(String role, Set<String> memberOf) {
+        roles.put(role, memberOf == null ? new HashSet<>() : new HashSet<>(memberOf));
+    }
+
+    void addPermissions(String role, String resource, Set<String> granted) {
+        permissions.computeIfAbsent(role, k -> new HashMap<>())
+                .computeIfAbsent(resource, k -> new HashSet<>())
+                .addAll(granted == null ? Collections.emptySet() : granted);
+    }
+
+    /**
+     * @return true if system_auth was successfully read.
+     */
+    public boolean isKnown() {
+        return known;
+    }
+
+    /**
+     * @param role
+     * @return true if the role exists, false if it does not exist or the snapshot is unknown.
+     */
+    public boolean roleExists(String role) {
+        return known && roles.containsKey(normalize(role));
+    }
+
+    /**
+     * Check whether a GRANT statement is already effective.
+     * Statements that cannot be parsed (including non GRANT statements) are never considered as granted.
+     *
+     * @param statement a CQL statement
+     * @return true if the statement can be skipped.
+     */
+    public boolean isGranted(String statement) {
+        if (!known || statement == null)
+            return false;
+
+        Matcher matcher = GRANT_PERMISSION_PATTERN.matcher(statement);
+        if (matcher.matches()) {
+            String resource = resource(matcher.group(2).trim());
+            if (resource == null)
+                return false;
+            Set<String> required = permissions(matcher.group(1).trim(), resource);
+            if (required == null)
+                return false;
+            Set<String> granted = permissions
+                    .getOrDefault(normalize(matcher.group(3)), Collections.emptyMap())
+                    .getOrDefault(resource, Collections.emptySet());
+            return granted.containsAll(required);
+        }
+
+        matcher = GRANT_ROLE_PATTERN.matcher(statement);
+        if (matcher.matches()) {
+            Set<String> memberOf = roles.get(normalize(matcher.group(2)));
+            return memberOf != null && memberOf.contains(normalize(matcher.group(1)));
+        }
+        return false;
+    }
+
+    /**
+     * Map a CQL resource to its system_auth.role_permissions name, or null if not supported.
+     */
+    static String resource(String cqlResource) {
+        String upper = cqlResource.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (upper.equals("ALL KEYSPACES"))
+            return "data";
+        if (upper.equals("ALL ROLES"))
+            return "roles";
+
+        Matcher matcher = KEYSPACE_RESOURCE_PATTERN.matcher(cqlResource);
+        if (matcher.matches())
+            return "data/" + normalize(matcher.group(1));
+
+        matcher = ROLE_RESOURCE_PATTERN.matcher(cqlResource);
+        if (matcher.matches())
+            return "roles/" + normalize(matcher.group(1));
+
+        matcher = TABLE_RESOURCE_PATTERN.matcher(cqlResource);
+        if (matcher.matches())
+            return "data/" + normalize(matcher.group(1)) + "/" + normalize(matcher.group(2));
+        return null;
+    }
+
+    /**
+     * Expand the permissions of a GRANT statement, or return null if not supported.
+     */
+    static Set<String> permissions(String cqlPermissions, String resource) {
+        String upper = cqlPermissions.toUpperCase(Locale.ROOT).replaceAll("\\s+", " ");
+        if (upper.equals("ALL") || upper.equals("ALL PERMISSIONS"))
+            return applicablePermissions(resource);
+
+        Set<String> result = new HashSet<>();
+        for (String permission : upper.split(",")) {
+            String p = permission.trim();
+            if (p.endsWith(" PERMISSION"))
+                p = p.substring(0, p.length() - " PERMISSION".length()).trim();
+            if (!applicablePermissions(resource).contains(p))
+                return null;
+            result.add(p);
+        }
+        return result;
+    }
+
+    static Set<String> applicablePermissions(String resource) {
+        if (resource.equals("roles"))
+            return ROLES_PERMISSIONS;
+        if (resource.startsWith("roles/"))
+            return ROLE_PERMISSIONS;
+        return resource.indexOf('/') != resource.lastIndexOf('/') ? TABLE_PERMISSIONS : DATA_PERMISSIONS;
+    }
+
+    /**
+     * Unquoted CQL identifiers are case insensitive, quoted ones are case sensitive.
+     */
+    static String normalize(String identifier) {
+        return (identifier.length() > 1 && identifier.startsWith("\"") && identifier.endsWith("\""))
+                ? identifier.substring(1, identifier.length() - 1)
+                : identifier.toLowerCase(Locale.ROOT);
+    }
+}
@@ -25,19 +25,42 @@ import com.datastax.driver.core.exceptions.DriverException;
 import com.datastax.driver.core.policies.DefaultRetryPolicy;
 import com.datastax.driver.core.policies.RetryPolicy;
 
+/**
+ * Retry policy for the operator admin sessions.
+ * With maxRetriesOnNextHost = 0, it behaves as the {@link DefaultRetryPolicy}, except that unavailable errors are retried at LOCAL_ONE.
+ * With maxRetriesOnNextHost &gt; 0, idempotent statements timing out are retried on the next host, and request errors are retried
+ * on at most maxRetriesOnNextHost hosts instead of walking the whole query plan.
+ * Bootstrapping coordinators are retried on the next host by the driver itself, without calling the retry policy.
+ */
 public class OperatorRetryPolicy implements RetryPolicy {
 
     private static final RetryPolicy DEFAULT_RETRY = DefaultRetryPolicy.INSTANCE;
-    public static final RetryPolicy INSTANCE = new OperatorRetryPolicy();
+    public static final RetryPolicy INSTANCE = new OperatorRetryPolicy(0);
+
+    /**
+     * Max number of retries on the next host, 0 to keep the default retry policy.
+     */
+    final int maxRetriesOnNextHost;
+
+    public OperatorRetryPolicy(int maxRetriesOnNextHost) {
+        this.maxRetriesOnNextHost = maxRetriesOnNextHost;
+    }
 
     @Override
     public RetryDecision onReadTimeout(Statement statement, ConsistencyLevel cl, int requiredResponses, int receivedResponses, boolean dataRetrieved, int nbRetry) {
-        return DEFAULT_RETRY.onReadTimeout(statement, cl, requiredResponses, receivedResponses, dataRetrieved, nbRetry);
+        RetryDecision decision = DEFAULT_RETRY.onReadTimeout(statement, cl, requiredResponses, receivedResponses, dataRetrieved, nbRetry);
+        // the coordinator may be restarting, try another one for idempotent reads
+        if (decision.getType() == RetryDecision.Type.RETHROW && isIdempotent(statement) && nbRetry < maxRetriesOnNextHost)
+            return RetryDecision.tryNextHost(cl);
+        return decision;
     }
 
     @Override
     public RetryDecision onWriteTimeout(Statement statement, ConsistencyLevel cl, WriteType writeType, int requiredAcks, int receivedAcks, int nbRetry) {
-        return DEFAULT_RETRY.onWriteTimeout(statement, cl, writeType, requiredAcks, receivedAcks, nbRetry);
+        RetryDecision decision = DEFAULT_RETRY.onWriteTimeout(statement, cl, writeType, requiredAcks, receivedAcks, nbRetry);
+        if (decision.getType() == RetryDecision.Type.RETHROW && isIdempotent(statement) && nbRetry < maxRetriesOnNextHost)
+            return RetryDecision.tryNextHost(cl);
+        return decision;
     }
 
     @Override
@@ -50,7 +73,14 @@ public class OperatorRetryPolicy implements RetryPolicy {
 
     @Override
     public RetryDecision onRequestError(Statement statement, ConsistencyLevel cl, DriverException e, int nbRetry) {
-        return DEFAULT_RETRY.onRequestError(statement, cl, e, nbRetry);
+        if (maxRetriesOnNextHost <= 0)
+            return DEFAULT_RETRY.onRequestError(statement, cl, e, nbRetry);
+        // do not walk the whole query plan when nodes are slow or restarting
+        return (nbRetry < maxRetriesOnNextHost) ? RetryDecision.tryNextHost(cl) : RetryDecision.rethrow();
+    }
+
+    private static boolean isIdempotent(Statement statement) {
+        return Boolean.TRUE.equals(statement.isIdempotent());
     }
 
     @Override
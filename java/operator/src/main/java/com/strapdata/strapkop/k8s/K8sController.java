@@ -2,6 +2,7 @@ package com.strapdata.strapkop.k8s;
 
 import com.google.common.collect.ImmutableList;
 import com.strapdata.strapkop.cache.DataCenterStatusCache;
+import com.strapdata.strapkop.cache.SeedsCache;
 import com.strapdata.strapkop.cache.StatefulsetCache;
 import com.strapdata.strapkop.model.Key;
 import com.strapdata.strapkop.model.k8s.OperatorLabels;
@@ -12,6 +13,7 @@ import com.strapdata.strapkop.model.k8s.task.TaskList;
 import com.strapdata.strapkop.model.k8s.task.TaskStatus;
 import com.strapdata.strapkop.reconcilier.DataCenterReconcilier;
 import com.strapdata.strapkop.reconcilier.Reconciliation;
+import com.strapdata.strapkop.reconcilier.TaskReconcilier;
 import com.strapdata.strapkop.reconcilier.TaskResolver;
 import io.kubernetes.client.informer.ResourceEventHandler;
 import io.kubernetes.client.informer.SharedIndexInformer;
@@ -75,6 +77,9 @@ public class K8sController {
     @Inject
     StatefulsetCache statefulsetCache;
 
+    @Inject
+    SeedsCache seedsCache;
+
     @Inject
     TaskResolver taskReconcilierResolver;
 
@@ -118,6 +123,22 @@ public class K8sController {
                         },
                         V1Node.class,
                         V1NodeList.class);
+        nodeInformer.addEventHandler(new ResourceEventHandler<V1Node>() {
+            @Override
+            public void onAdd(V1Node node) {
+                seedsCache.onNodeUpdate(null, node);
+            }
+
+            @Override
+            public void onUpdate(V1Node oldNode, V1Node node) {
+                seedsCache.onNodeUpdate(oldNode, node);
+            }
+
+            @Override
+            public void onDelete(V1Node node, boolean deletedFinalStateUnknown) {
+                seedsCache.onNodeUpdate(node, null);
+            }
+        });
     }
 
     void addPodInformer() {
@@ -136,6 +157,22 @@ public class K8sController {
                                 null),
                         V1Pod.class,
                         V1PodList.class);
+        podInformer.addEventHandler(new ResourceEventHandler<V1Pod>() {
+            @Override
+            public void onAdd(V1Pod pod) {
+                seedsCache.onPod(pod);
+            }
+
+            @Override
+            public void onUpdate(V1Pod oldPod, V1Pod pod) {
+                seedsCache.onPod(pod);
+            }
+
+            @Override
+            public void onDelete(V1Pod pod, boolean deletedFinalStateUnknown) {
+                seedsCache.onPod(pod);
+            }
+        });
     }
 
     void addServiceAccountInformer() {
@@ -184,6 +221,7 @@ public class K8sController {
             public void onAdd(DataCenter dataCenter) {
                 logger.debug("dc={} status.rackStatus={}",
                         dataCenter.id(), dataCenter.getStatus().getRackStatuses());
+                seedsCache.update(new Key(dataCenter.getMetadata()));
                 workQueues.submit(new Reconciliation(dataCenter.getMetadata(), Reconciliation.Kind.DATACENTER, Reconciliation.Type.ADDED)
                             .withKey(new Key(dataCenter.getMetadata()))
                             .withCompletable(dataCenterController.initDatacenter(dataCenter, new Operation()
@@ -198,6 +236,7 @@ public class K8sController {
             @Override
             public void onUpdate(DataCenter oldObj, DataCenter newObj) {
                 if (oldObj.getMetadata().getGeneration() != newObj.getMetadata().getGeneration()) {
+                    seedsCache.update(new Key(newObj.getMetadata()));
                     logger.debug("dc={} generation={}", oldObj.id(), newObj.getMetadata().getGeneration());
                     workQueues.submit(new Reconciliation(newObj.getMetadata(), Reconciliation.Kind.DATACENTER, Reconciliation.Type.MODIFIED)
                             .withKey(new Key(newObj.getMetadata()))
@@ -213,6 +252,9 @@ public class K8sController {
             @Override
             public void onDelete(DataCenter dc, boolean deletedFinalStateUnknown) {
                 logger.debug("dc={}", dc.id());
+                seedsCache.remove(new Key(dc.getMetadata()));
+                // cancel the pending and running tasks of the datacenter
+                taskQueues.remove(new Key(dc.getMetadata()));
                 workQueues.submit(new Reconciliation(dc.getMetadata(), Reconciliation.Kind.DATACENTER, Reconciliation.Type.DELETED)
                         .withKey(new Key(dc.getMetadata()))
                         .withCompletable(dataCenterController.deleteDatacenter(dc)
@@ -250,6 +292,7 @@ public class K8sController {
             public void onAdd(V1StatefulSet sts) {
                 logger.debug("sts={}/{}", sts.getMetadata().getNamespace(), sts.getMetadata().getName());
                 statefulsetCache.update(sts);
+                seedsCache.onStatefulSet(sts);
                 meterRegistry.counter("k8s.event.add", tags).increment();
                 managed.incrementAndGet();
                 reconcileSts(sts);
@@ -259,6 +302,7 @@ public class K8sController {
             public void onUpdate(V1StatefulSet oldObj, V1StatefulSet sts) {
                 logger.debug("sts={}/{}", sts.getMetadata().getNamespace(), sts.getMetadata().getName());
                 statefulsetCache.update(sts);
+                seedsCache.onStatefulSet(sts);
                 meterRegistry.counter("k8s.event.modifed", tags).increment();
                 managed.incrementAndGet();
                 reconcileSts(sts);
@@ -269,6 +313,7 @@ public class K8sController {
                 logger.debug("sts={}/{}", sts.getMetadata().getNamespace(), sts.getMetadata().getName());
                 Key key = new Key(sts.getMetadata());
                 statefulsetCache.remove(key);
+                seedsCache.onStatefulSet(sts);
                 meterRegistry.counter("k8s.event.deleted", tags).increment();
                 managed.decrementAndGet();
             }
@@ -357,7 +402,8 @@ public class K8sController {
             @Override
             public void onDelete(Task task, boolean deletedFinalStateUnknown) {
                 logger.debug("task={}", task.id());
-                // TODO: cancel removed tasks
+                taskQueues.cancel(new Key(task.getMetadata().getNamespace(), OperatorNames.dataCenterResource(task.getSpec().getCluster(), task.getSpec().getDatacenter())),
+                        task.getMetadata().getName());
                 meterRegistry.counter("k8s.event.deleted", tags).increment();
                 managed.decrementAndGet();
             }
@@ -369,9 +415,11 @@ public class K8sController {
         final TaskStatus taskStatus = task.getStatus();
         logger.debug("task={} generation={} taskStatus={}", task.id(), task.getMetadata().getGeneration(), taskStatus);
         if (taskStatus.getPhase() == null || !taskStatus.getPhase().isTerminated()) {
+            final TaskReconcilier taskReconcilier = taskReconcilierResolver.getTaskReconcilier(task);
             taskQueues.submit(new Reconciliation(task.getMetadata(), Reconciliation.Kind.TASK, type)
                     .withKey(dcKey)
-                    .withCompletable(taskReconcilierResolver.getTaskReconcilier(task).reconcile(task)));
+                    .withLane(taskReconcilier.lane())
+                    .withCompletable(taskReconcilier.reconcile(task)));
         }
     }
 
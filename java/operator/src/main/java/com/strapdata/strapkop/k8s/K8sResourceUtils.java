@@ -38,6 +38,7 @@ import io.kubernetes.client.openapi.ApiResponse;
 import io.kubernetes.client.openapi.apis.*;
 import io.kubernetes.client.openapi.models.*;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Single;
 import io.reactivex.functions.Action;
 import okhttp3.Call;
@@ -51,6 +52,7 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -343,6 +345,67 @@ public class K8sResourceUtils {
         );
     }
 
+    /**
+     * Delete and create again a StatefulSet to update its immutable fields like the podManagementPolicy.
+     * The StatefulSet is deleted without waiting for its dependents, so it must not have any pod.
+     */
+    public Single<V1StatefulSet> recreateNamespacedStatefulSet(final V1StatefulSet statefulset) {
+        return recreateNamespacedStatefulSet(statefulset, false);
+    }
+
+    /**
+     * Delete and create a StatefulSet, to change an immutable field.
+     *
+     * @param orphanPods keep the pods running, they are adopted by the new StatefulSet.
+     */
+    public Single<V1StatefulSet> recreateNamespacedStatefulSet(final V1StatefulSet statefulset, boolean orphanPods) {
+        final String namespace = statefulset.getMetadata().getNamespace();
+        final String name = statefulset.getMetadata().getName();
+        final Completable delete = Completable.fromAction(() -> {
+            try {
+                appsApi.deleteNamespacedStatefulSet(name, namespace, null, null, null, null, null,
+                        new V1DeleteOptions().propagationPolicy(orphanPods ? "Orphan" : "Background"));
+            } catch (final JsonSyntaxException e) {
+                logger.trace("Caught JSON exception while deleting StatefulSet. Ignoring due to https://github.com/kubernetes-client/java/issues/86.", e);
+            } catch (ApiException e) {
+                if (e.getCode() != 404)
+                    throw e;
+            }
+        });
+        // wait up to 30s for the garbage collector to orphan the pods and remove the StatefulSet, without blocking the calling thread
+        final Completable deleted = orphanPods ?
+                Single.fromCallable(() -> statefulSetExists(namespace, name))
+                        .repeatWhen(polls -> polls
+                                .zipWith(Flowable.range(1, 60), (poll, i) -> i)
+                                .flatMap(i -> Flowable.timer(500, TimeUnit.MILLISECONDS)))
+                        .takeUntil(exists -> !exists)
+                        .ignoreElements() :
+                Completable.complete();
+        return delete
+                .andThen(deleted)
+                .andThen(Single.fromCallable(() -> {
+                    statefulset.getMetadata().setResourceVersion(null);
+                    statefulset.getMetadata().setUid(null);
+                    statefulset.getMetadata().setCreationTimestamp(null);
+                    statefulset.setStatus(null);
+                    V1StatefulSet statefulSet2 = appsApi.createNamespacedStatefulSet(namespace, statefulset, null, null, null);
+                    logger.debug("Recreated namespaced statefulset={} in namespace={} podManagementPolicy={}",
+                            name, namespace, statefulset.getSpec().getPodManagementPolicy());
+                    return statefulSet2;
+                }));
+    }
+
+    private boolean statefulSetExists(final String namespace, final String name) throws ApiException {
+        try {
+            appsApi.readNamespacedStatefulSet(name, namespace, null, null, null);
+            return true;
+        } catch (ApiException e) {
+            if (e.getCode() == 404)
+                return false;
+            throw e;
+        }
+    }
+
     public Single<V1StatefulSet> readNamespacedStatefulSet(final String namespace, final String name) throws ApiException {
         return Single.fromCallable(() -> {
                     try {
@@ -579,6 +642,50 @@ public class K8sResourceUtils {
         });
     }
 
+    /**
+     * Delete all StatefulSets matching the label selector in one request, pods being deleted first (Foreground propagation).
+     */
+    public Completable deleteCollectionNamespacedStatefulSet(final String namespace, final String labelSelector) {
+        return deleteCollection("StatefulSet", namespace, labelSelector,
+                () -> appsApi.deleteCollectionNamespacedStatefulSet(namespace, null, null, null, null, null, null, labelSelector,
+                        null, null, "Foreground", null, null, null, new V1DeleteOptions().propagationPolicy("Foreground")));
+    }
+
+    public Completable deleteCollectionNamespacedConfigMap(final String namespace, final String labelSelector) {
+        return deleteCollection("ConfigMap", namespace, labelSelector,
+                () -> coreApi.deleteCollectionNamespacedConfigMap(namespace, null, null, null, null, null, null, labelSelector,
+                        null, null, null, null, null, null, new V1DeleteOptions()));
+    }
+
+    public Completable deleteCollectionNamespacedSecret(final String namespace, final String labelSelector) {
+        return deleteCollection("Secret", namespace, labelSelector,
+                () -> coreApi.deleteCollectionNamespacedSecret(namespace, null, null, null, null, null, null, labelSelector,
+                        null, null, null, null, null, null, new V1DeleteOptions()));
+    }
+
+    public Completable deleteCollectionNamespacedPersistentVolumeClaim(final String namespace, final String labelSelector) {
+        return deleteCollection("PersistentVolumeClaim", namespace, labelSelector,
+                () -> coreApi.deleteCollectionNamespacedPersistentVolumeClaim(namespace, null, null, null, null, null, null, labelSelector,
+                        null, null, "Foreground", null, null, null, new V1DeleteOptions().propagationPolicy("Foreground")));
+    }
+
+    static Completable deleteCollection(final String kind, final String namespace, final String labelSelector, final Callable<V1Status> deleteCollection) {
+        return Completable.fromAction(new Action() {
+            @Override
+            public void run() throws Exception {
+                try {
+                    deleteCollection.call();
+                    logger.debug("Deleted {} namespace={} labelSelector={}", kind, namespace, labelSelector);
+                } catch (final JsonSyntaxException e) {
+                    logger.debug("Caught JSON exception while deleting " + kind + ". Ignoring due to https://github.com/kubernetes-client/java/issues/86.", e);
+                } catch (final ApiException e) {
+                    if (e.getCode() != 404)
+                        throw e;
+                }
+            }
+        });
+    }
+
     public Completable deletePersistentVolumeClaim(final V1PersistentVolumeClaim persistentVolumeClaim) throws ApiException {
         return deleteResource(() -> {
             final V1DeleteOptions deleteOptions = new V1DeleteOptions().propagationPolicy("Foreground");
@@ -115,6 +115,10 @@ public class OperatorNames {
         return OperatorNames.dataCenterChildObjectName("%s-operator", dataCenter);
     }
 
+    public static String tuningConfig(final DataCenter dataCenter) {
+        return OperatorNames.dataCenterChildObjectName("%s-tuning", dataCenter);
+    }
+
     public static String rackConfig(final DataCenter dataCenter, final String rack) {
         return OperatorNames.rackChildObjectName("%s", dataCenter, rack);
     }
@@ -18,9 +18,14 @@
 package com.strapdata.strapkop.k8s;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.strapdata.strapkop.OperatorConfig;
 import com.strapdata.strapkop.model.Key;
 import com.strapdata.strapkop.reconcilier.Reconciliation;
+import com.strapdata.strapkop.reconcilier.TaskLane;
+import io.micrometer.core.instrument.ImmutableTag;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
 import io.micronaut.context.annotation.Infrastructure;
 import io.micronaut.scheduling.executor.ExecutorFactory;
 import io.micronaut.scheduling.executor.UserExecutorConfiguration;
@@ -30,74 +35,164 @@ import io.reactivex.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+/**
+ * Run the tasks of each datacenter in lanes. A pending task starts when it does not conflict with the running tasks
+ * nor with the pending tasks submitted before it, and when its lane concurrency limit is not reached.
+ * Conflicting tasks run in submission order.
+ */
 @Singleton
 @Infrastructure
 public class TaskQueues {
 
     private static final Logger logger = LoggerFactory.getLogger(TaskQueues.class);
 
+    static class RunningTask {
+        final Reconciliation reconciliation;
+        Disposable disposable;
+
+        RunningTask(Reconciliation reconciliation) {
+            this.reconciliation = reconciliation;
+        }
+    }
+
     /**
-     * Keep the pending tasks.
+     * Keep the running and pending tasks by datacenter, guarded by this.
      */
-    private final Map<Key, Disposable> ongoingTasks = new ConcurrentHashMap<>();
-    private final Map<Key, Queue<Reconciliation>> pendingTasks = new ConcurrentHashMap<>();
+    private final Map<Key, List<RunningTask>> ongoingTasks = new ConcurrentHashMap<>();
+    private final Map<Key, List<Reconciliation>> pendingTasks = new ConcurrentHashMap<>();
 
     final MeterRegistry meterRegistry;
     final Scheduler scheduler;
+    final Map<TaskLane, Integer> laneLimits;
 
+    @Inject
     public TaskQueues(final MeterRegistry meterRegistry,
+                      final OperatorConfig operatorConfig,
                       final ExecutorFactory executorFactory,
                       @Named("taskqueue") UserExecutorConfiguration userExecutorConfiguration) {
-        this.scheduler = Schedulers.from(executorFactory.executorService(userExecutorConfiguration));
+        this(meterRegistry, Schedulers.from(executorFactory.executorService(userExecutorConfiguration)), ImmutableMap.of(
+                TaskLane.TOPOLOGY, operatorConfig.getMaxConcurrentTopologyTasks(),
+                TaskLane.SCHEMA, operatorConfig.getMaxConcurrentSchemaTasks(),
+                TaskLane.MAINTENANCE, operatorConfig.getMaxConcurrentMaintenanceTasks(),
+                TaskLane.REPAIR, 1,
+                TaskLane.READ_ONLY, operatorConfig.getMaxConcurrentReadOnlyTasks()));
+    }
+
+    TaskQueues(final MeterRegistry meterRegistry, final Scheduler scheduler, final Map<TaskLane, Integer> laneLimits) {
+        this.scheduler = scheduler;
         this.meterRegistry = meterRegistry;
-        meterRegistry.gaugeMapSize("task.pending", ImmutableList.of(), pendingTasks);
-        meterRegistry.gaugeMapSize("task.ongoing", ImmutableList.of(), ongoingTasks);
+        this.laneLimits = laneLimits;
+        for (TaskLane lane : TaskLane.values()) {
+            List<Tag> tags = ImmutableList.of(new ImmutableTag("lane", lane.name()));
+            meterRegistry.gauge("task.pending", tags, this, q -> q.pending(lane));
+            meterRegistry.gauge("task.ongoing", tags, this, q -> q.ongoing(lane));
+        }
+    }
+
+    synchronized int pending(TaskLane lane) {
+        return (int) pendingTasks.values().stream().flatMap(List::stream).filter(r -> lane.equals(lane(r))).count();
+    }
+
+    synchronized int ongoing(TaskLane lane) {
+        return (int) ongoingTasks.values().stream().flatMap(List::stream).filter(t -> lane.equals(lane(t.reconciliation))).count();
+    }
+
+    static TaskLane lane(Reconciliation reconciliation) {
+        return reconciliation.getLane() == null ? TaskLane.TOPOLOGY : reconciliation.getLane();
+    }
+
+    /**
+     * @param running lanes of the running tasks
+     * @param pending lanes of the pending tasks in submission order
+     * @return the index of the first pending task that can start, or -1
+     */
+    static int nextTask(List<TaskLane> running, List<TaskLane> pending, Map<TaskLane, Integer> laneLimits) {
+        for (int i = 0; i < pending.size(); i++) {
+            final TaskLane lane = pending.get(i);
+            final List<TaskLane> previous = pending.subList(0, i);
+            if (running.stream().filter(lane::equals).count() < Math.max(1, laneLimits.getOrDefault(lane, 1)) &&
+                    running.stream().noneMatch(lane::conflictsWith) &&
+                    previous.stream().noneMatch(lane::conflictsWith))
+                return i;
+        }
+        return -1;
     }
 
     public synchronized boolean submit(final Reconciliation reconciliation) {
         reconciliation.setSubmitTime(System.currentTimeMillis());
-        Disposable ongoingReconciliation = ongoingTasks.get(reconciliation.getKey());
-        if (ongoingReconciliation == null) {
+        List<Reconciliation> tasks = pendingTasks.computeIfAbsent(reconciliation.getKey(), k -> new LinkedList<>());
+        tasks.add(reconciliation);
+        List<Reconciliation> started = startTasks(reconciliation.getKey());
+        if (started.contains(reconciliation)) {
             logger.debug("datacenter={} Immediate task reconciliation={}", reconciliation.getKey().id(), reconciliation);
-            ongoingTasks.put(reconciliation.getKey(), reconcile(reconciliation));
             return true;
-        } else {
-            Queue<Reconciliation> tasks = pendingTasks.computeIfAbsent(reconciliation.getKey(), k -> new ConcurrentLinkedQueue<>());
-            tasks.add(reconciliation);
-            logger.debug("datacenter={} Delaying task reconciliation={} queue.size={}",
-                    reconciliation.getKey().id(), reconciliation, tasks.size());
-            return false;
         }
+        logger.debug("datacenter={} Delaying task reconciliation={} lane={} queue.size={}",
+                reconciliation.getKey().id(), reconciliation, lane(reconciliation), tasks.size());
+        return false;
     }
 
-    synchronized void reconcilied(Key key) {
-        ongoingTasks.remove(key);
-        Queue<Reconciliation> tasks = pendingTasks.get(key);
-        if (tasks != null) {
-            Reconciliation task = tasks.poll();
-            if (task != null) {
-                logger.debug("datacenter={} Start delayed task reconciliation={}", task.getKey().id(), task);
-                ongoingTasks.put(task.getKey(), reconcile(task));
-            }
+    synchronized void reconcilied(Reconciliation reconciliation) {
+        List<RunningTask> running = ongoingTasks.get(reconciliation.getKey());
+        if (running != null) {
+            running.removeIf(t -> t.reconciliation == reconciliation);
+            if (running.isEmpty())
+                ongoingTasks.remove(reconciliation.getKey());
+        }
+        for (Reconciliation task : startTasks(reconciliation.getKey()))
+            logger.debug("datacenter={} Start delayed task reconciliation={}", task.getKey().id(), task);
+    }
+
+    /**
+     * Start the pending tasks allowed by the running ones.
+     */
+    private List<Reconciliation> startTasks(Key key) {
+        List<Reconciliation> started = new ArrayList<>();
+        List<Reconciliation> tasks = pendingTasks.get(key);
+        if (tasks == null)
+            return started;
+
+        List<RunningTask> running = ongoingTasks.computeIfAbsent(key, k -> new ArrayList<>());
+        int i;
+        while ((i = nextTask(
+                running.stream().map(t -> lane(t.reconciliation)).collect(Collectors.toList()),
+                tasks.stream().map(TaskQueues::lane).collect(Collectors.toList()),
+                laneLimits)) >= 0) {
+            Reconciliation task = tasks.remove(i);
+            RunningTask runningTask = new RunningTask(task);
+            running.add(runningTask);
+            runningTask.disposable = reconcile(task);
+            started.add(task);
         }
+        if (tasks.isEmpty())
+            pendingTasks.remove(key);
+        if (running.isEmpty())
+            ongoingTasks.remove(key);
+        return started;
     }
 
     Disposable reconcile(Reconciliation reconciliable) {
         reconciliable.setStartTime(System.currentTimeMillis());
+        meterRegistry.timer("task.wait", "lane", lane(reconciliable).name())
+                .record(reconciliable.getStartTime() - reconciliable.getSubmitTime(), TimeUnit.MILLISECONDS);
         return reconciliable.getCompletable()
                 .observeOn(scheduler)
-                .doFinally(() -> reconcilied(reconciliable.getKey()))
+                .doFinally(() -> reconcilied(reconciliable))
                 .subscribe(() -> {
-                    logger.debug("key={} {}-{} generation/resourceVersion={}/{} pending={}ms execution={}ms",
+                    logger.debug("key={} {}-{} lane={} generation/resourceVersion={}/{} pending={}ms execution={}ms",
                             reconciliable.getKey().id(),
-                            reconciliable.getKind(), reconciliable.getType(),
+                            reconciliable.getKind(), reconciliable.getType(), lane(reconciliable),
                             reconciliable.getGeneration(), reconciliable.getResourceVersion(),
                             reconciliable.getStartTime() - reconciliable.getSubmitTime(),
                             System.currentTimeMillis() - reconciliable.getStartTime());
@@ -106,11 +201,35 @@ public class TaskQueues {
                 });
     }
 
-    public void remove(Key key) {
+    /**
+     * Remove a pending task or dispose a running one, the task reconcilier aborts its remote work.
+     */
+    public synchronized void cancel(Key key, String name) {
+        List<Reconciliation> tasks = pendingTasks.get(key);
+        if (tasks != null) {
+            tasks.removeIf(r -> name.equals(r.getName()));
+            if (tasks.isEmpty())
+                pendingTasks.remove(key);
+        }
+        List<RunningTask> running = ongoingTasks.get(key);
+        if (running != null) {
+            for (RunningTask runningTask : new ArrayList<>(running)) {
+                if (name.equals(runningTask.reconciliation.getName()) && runningTask.disposable != null) {
+                    logger.debug("datacenter={} Cancelling task reconciliation={}", key.id(), runningTask.reconciliation);
+                    runningTask.disposable.dispose();
+                }
+            }
+        }
+    }
+
+    public synchronized void remove(Key key) {
         pendingTasks.remove(key);
-        Disposable disposable = ongoingTasks.remove(key);
-        if (disposable != null)
-            disposable.dispose();
+        List<RunningTask> running = ongoingTasks.remove(key);
+        if (running != null) {
+            for (RunningTask runningTask : running)
+                if (runningTask.disposable != null)
+                    runningTask.disposable.dispose();
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -20,6 +20,7 @@ package com.strapdata.strapkop.k8s;
 import com.google.common.collect.ImmutableList;
 import com.strapdata.strapkop.model.Key;
 import com.strapdata.strapkop.reconcilier.Reconciliation;
+import io.micrometer.core.instrument.ImmutableTag;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micronaut.context.annotation.Infrastructure;
 import io.micronaut.scheduling.executor.ExecutorFactory;
@@ -30,63 +31,140 @@ import io.reactivex.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Run one reconciliation at a time per datacenter. Pending reconciliations are coalesced by priority, keeping the last
+ * submitted one of each priority, and start by decreasing priority. A datacenter deletion discards the pending
+ * reconciliations and preempts the ongoing one.
+ */
 @Singleton
 @Infrastructure
 public class WorkQueues {
 
     private static final Logger logger = LoggerFactory.getLogger(WorkQueues.class);
 
+    static class OngoingReconciliation {
+        final Reconciliation reconciliation;
+        Disposable disposable;
+
+        OngoingReconciliation(Reconciliation reconciliation) {
+            this.reconciliation = reconciliation;
+        }
+    }
+
     /**
-     * Keep the last submitted delayed reconciliation rather than all the queue...
+     * Keep the last submitted delayed reconciliation of each priority rather than all the queue...
      */
-    private final Map<Key, Reconciliation> pendingReconciliations = new ConcurrentHashMap<>();
-    private final Map<Key, Disposable> ongoingReconciliations = new ConcurrentHashMap<>();
+    private final Map<Key, EnumMap<Reconciliation.Priority, Reconciliation>> pendingReconciliations = new ConcurrentHashMap<>();
+    private final Map<Key, OngoingReconciliation> ongoingReconciliations = new ConcurrentHashMap<>();
 
     final MeterRegistry meterRegistry;
     final Scheduler scheduler;
 
+    @Inject
     public WorkQueues(final MeterRegistry meterRegistry,
                       final ExecutorFactory executorFactory,
                       @Named("workqueue") UserExecutorConfiguration userExecutorConfiguration) {
-        this.scheduler = Schedulers.from(executorFactory.executorService(userExecutorConfiguration));
+        this(meterRegistry, Schedulers.from(executorFactory.executorService(userExecutorConfiguration)));
+    }
+
+    WorkQueues(final MeterRegistry meterRegistry, final Scheduler scheduler) {
+        this.scheduler = scheduler;
         this.meterRegistry = meterRegistry;
-        meterRegistry.gaugeMapSize("reconciliation.pending", ImmutableList.of(), pendingReconciliations);
+        for (Reconciliation.Priority priority : Reconciliation.Priority.values())
+            meterRegistry.gauge("reconciliation.pending", ImmutableList.of(new ImmutableTag("priority", priority.name())), this, q -> q.pending(priority));
         meterRegistry.gaugeMapSize("reconciliation.ongoing", ImmutableList.of(), ongoingReconciliations);
     }
 
+    synchronized int pending(Reconciliation.Priority priority) {
+        return (int) pendingReconciliations.values().stream().filter(m -> m.containsKey(priority)).count();
+    }
+
     public synchronized boolean submit(final Reconciliation reconciliation) {
         reconciliation.setSubmitTime(System.currentTimeMillis());
-        Disposable ongoingReconciliation = ongoingReconciliations.get(reconciliation.getKey());
+        final Key key = reconciliation.getKey();
+        final Reconciliation.Priority priority = reconciliation.priority();
+        OngoingReconciliation ongoingReconciliation = ongoingReconciliations.get(key);
+
+        if (Reconciliation.Priority.DELETE.equals(priority)) {
+            EnumMap<Reconciliation.Priority, Reconciliation> discarded = pendingReconciliations.remove(key);
+            if (discarded != null)
+                logger.debug("datacenter={} Discarding pending reconciliations={}", key.id(), discarded.values());
+            if (ongoingReconciliation != null && !Reconciliation.Priority.DELETE.equals(ongoingReconciliation.reconciliation.priority())) {
+                logger.debug("datacenter={} Preempting reconciliation={}", key.id(), ongoingReconciliation.reconciliation);
+                meterRegistry.counter("reconciliation.preempted", "priority", ongoingReconciliation.reconciliation.priority().name()).increment();
+                ongoingReconciliations.remove(key);
+                ongoingReconciliation.disposable.dispose();
+                ongoingReconciliation = null;
+            }
+        }
+
         if (ongoingReconciliation == null) {
-            logger.debug("datacenter={} Immediate reconciliation={}", reconciliation.getKey().id(), reconciliation);
-            ongoingReconciliations.put(reconciliation.getKey(), reconcile(reconciliation));
+            logger.debug("datacenter={} Immediate reconciliation={}", key.id(), reconciliation);
+            start(reconciliation);
             return true;
         } else {
-            logger.debug("datacenter={} Delaying reconciliation={}", reconciliation.getKey().id(), reconciliation);
-            pendingReconciliations.put(reconciliation.getKey(), reconciliation);
+            logger.debug("datacenter={} Delaying reconciliation={} priority={}", key.id(), reconciliation, priority);
+            Reconciliation coalesced = pendingReconciliations.computeIfAbsent(key, k -> new EnumMap<>(Reconciliation.Priority.class))
+                    .put(priority, reconciliation);
+            if (coalesced != null)
+                meterRegistry.counter("reconciliation.coalesced", "priority", priority.name()).increment();
+            return false;
+        }
+    }
+
+    /**
+     * Submit a reconciliation only when no other one is ongoing or pending for the same key,
+     * so that a periodic reconciliation never replaces a delayed one.
+     */
+    public synchronized boolean submitIfIdle(final Reconciliation reconciliation) {
+        if (ongoingReconciliations.containsKey(reconciliation.getKey()) || pendingReconciliations.containsKey(reconciliation.getKey())) {
+            logger.debug("datacenter={} Skipping reconciliation={}", reconciliation.getKey().id(), reconciliation);
             return false;
         }
+        return submit(reconciliation);
     }
 
-    synchronized void reconcilied(Key key) {
+    synchronized void reconcilied(Reconciliation reconciliation) {
+        final Key key = reconciliation.getKey();
+        OngoingReconciliation ongoingReconciliation = ongoingReconciliations.get(key);
+        if (ongoingReconciliation == null || ongoingReconciliation.reconciliation != reconciliation)
+            return; // preempted or removed
+
         ongoingReconciliations.remove(key);
-        Reconciliation delayedReconciliation = pendingReconciliations.remove(key);
-        if (delayedReconciliation != null) {
-            logger.debug("datacenter={} Start delayed reconciliation={}", delayedReconciliation.getKey().id(), delayedReconciliation);
-            ongoingReconciliations.put(delayedReconciliation.getKey(), reconcile(delayedReconciliation));
+        EnumMap<Reconciliation.Priority, Reconciliation> pending = pendingReconciliations.get(key);
+        if (pending != null) {
+            final Reconciliation.Priority[] priorities = Reconciliation.Priority.values();
+            for (int i = priorities.length - 1; i >= 0; i--) {
+                Reconciliation delayedReconciliation = pending.remove(priorities[i]);
+                if (delayedReconciliation != null) {
+                    if (pending.isEmpty())
+                        pendingReconciliations.remove(key);
+                    logger.debug("datacenter={} Start delayed reconciliation={}", key.id(), delayedReconciliation);
+                    start(delayedReconciliation);
+                    break;
+                }
+            }
         }
     }
 
+    void start(Reconciliation reconciliation) {
+        OngoingReconciliation ongoingReconciliation = new OngoingReconciliation(reconciliation);
+        ongoingReconciliations.put(reconciliation.getKey(), ongoingReconciliation);
+        ongoingReconciliation.disposable = reconcile(reconciliation);
+    }
+
     Disposable reconcile(Reconciliation reconciliable) {
         reconciliable.setStartTime(System.currentTimeMillis());
         return reconciliable.getCompletable()
                 .observeOn(scheduler)
-                .doFinally(() -> reconcilied(reconciliable.getKey()))
+                .doFinally(() -> reconcilied(reconciliable))
                 .subscribe(() -> {
                     logger.debug("key={} {}-{} generation/resourceVersion={}/{} pending={}ms execution={}ms",
                             reconciliable.getKey().id(),
@@ -99,10 +177,10 @@ public class WorkQueues {
                 });
     }
 
-    public void remove(Key key) {
+    public synchronized void remove(Key key) {
         pendingReconciliations.remove(key);
-        Disposable disposable = ongoingReconciliations.remove(key);
-        if (disposable != null)
-            disposable.dispose();
+        OngoingReconciliation ongoingReconciliation = ongoingReconciliations.remove(key);
+        if (ongoingReconciliation != null && ongoingReconciliation.disposable != null)
+            ongoingReconciliation.disposable.dispose();
     }
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@
 package com.strapdata.strapkop.plugins;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
@@ -300,6 +301,8 @@ public class KibanaPlugin extends AbstractPlugin {
             meta.putLabelsItem(entry.getKey(), entry.getValue());
         meta.putAnnotationsItem(OperatorLabels.DATACENTER_GENERATION, dataCenter.getMetadata().getGeneration().toString());
         meta.putAnnotationsItem(OperatorLabels.KIBANA_SPACE_FINGERPRINT, kibanaSpace.fingerprint(dataCenter.getSpec().getKibana().getImage()));
+        // garbage collected with the datacenter
+        meta.setOwnerReferences(ImmutableList.of(OperatorNames.ownerReference(dataCenter)));
 
         final V1Container container = new V1Container();
         final V1PodSpec kibanaSpacePodSpec = (kibanaSpace.getPodTemplate() != null && kibanaSpace.getPodTemplate().getSpec() != null
@@ -467,6 +470,7 @@ public class KibanaPlugin extends AbstractPlugin {
                                 .name(kibanaNameDc(dataCenter, kibanaSpace))
                                 .namespace(dataCenterMetadata.getNamespace())
                                 .labels(labels)
+                                .addOwnerReferencesItem(OperatorNames.ownerReference(dataCenter))
                                 .putAnnotationsItem(OperatorLabels.DATACENTER_GENERATION, dataCenter.getMetadata().getGeneration().toString());
                         if (kibanaSpace.getIngressAnnotations() != null && !kibanaSpace.getIngressAnnotations().isEmpty()) {
                             kibanaSpace.getIngressAnnotations().entrySet().stream()
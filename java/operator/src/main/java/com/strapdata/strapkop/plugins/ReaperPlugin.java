@@ -259,6 +259,8 @@ public class ReaperPlugin extends AbstractPlugin {
 
         meta.putAnnotationsItem(OperatorLabels.DATACENTER_GENERATION, datacenterGeneration);
         meta.putAnnotationsItem(OperatorLabels.REAPER_FINGERPRINT, dataCenter.getSpec().getReaper().reaperFingerprint());
+        // garbage collected with the datacenter
+        meta.setOwnerReferences(ImmutableList.of(OperatorNames.ownerReference(dataCenter)));
 
         // abort deployment replacement if it is already up to date (according to the annotation datacenter-generation and to spec.replicas)
         // this is important because otherwise it generate a "larsen" : deployment replace -> k8s event -> reconciliation -> deployment replace...
@@ -515,6 +517,7 @@ public class ReaperPlugin extends AbstractPlugin {
                 .name(reaperName(dataCenter))
                 .namespace(dataCenterMetadata.getNamespace())
                 .labels(labels)
+                .addOwnerReferencesItem(OperatorNames.ownerReference(dataCenter))
                 .putAnnotationsItem(OperatorLabels.DATACENTER_GENERATION, datacenterGeneration);
         if (dataCenterSpec.getReaper().getIngressAnnotations() != null && !dataCenterSpec.getReaper().getIngressAnnotations().isEmpty()) {
             dataCenterSpec.getReaper().getIngressAnnotations().entrySet().stream()
@@ -632,7 +635,8 @@ public class ReaperPlugin extends AbstractPlugin {
         final V1ObjectMeta secretMetadata = new V1ObjectMeta()
                 .name(reaperSecretName)
                 .namespace(dc.getMetadata().getNamespace())
-                .labels(OperatorLabels.datacenter(dc));
+                .labels(OperatorLabels.datacenter(dc))
+                .addOwnerReferencesItem(OperatorNames.ownerReference(dc));
 
         return this.k8sResourceUtils.readOrCreateNamespacedSecret(secretMetadata, () -> {
             logger.debug("datacenter={} Creating reaper secret name={}", dc.id(), reaperSecretName);
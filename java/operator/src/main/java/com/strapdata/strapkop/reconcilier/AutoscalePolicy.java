@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.datacenter.Autoscaling;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics autoscaling policy, adding or removing one node at a time.
+ * A node is added when a metric exceeds its threshold on any node, and removed when all metrics are below
+ * scaleDownRatio of their threshold on all nodes. Metrics between both neither scale up nor down.
+ */
+public class AutoscalePolicy {
+
+    /**
+     * Load metrics of an Elassandra node.
+     */
+    @Data
+    @With
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NodeMetrics {
+        String pod;
+        /**
+         * Ratio between the data size and the data volume capacity, null if the capacity is unknown.
+         */
+        Double diskUsage;
+        Double readLatencyP99Ms;
+        Double writeLatencyP99Ms;
+        Long pendingCompactions;
+        /**
+         * Elasticsearch search thread pool queue size, null when Elasticsearch is disabled.
+         */
+        Long searchQueue;
+    }
+
+    /**
+     * Scale decision.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Recommendation {
+        int replicas;
+        String reason;
+    }
+
+    /**
+     * @param autoscaling autoscaling settings
+     * @param minReplicas min number of nodes
+     * @param maxReplicas max number of nodes
+     * @param replicas current number of nodes
+     * @param metrics metrics of all nodes
+     * @param lastScaleTime last scale event time in milliseconds, 0 if never scaled
+     * @param now current time in milliseconds
+     * @return the new number of nodes, or empty to keep the current one.
+     */
+    public static Optional<Recommendation> recommend(Autoscaling autoscaling, int minReplicas, int maxReplicas, int replicas,
+                                                     List<NodeMetrics> metrics, long lastScaleTime, long now) {
+        if (replicas < minReplicas)
+            return Optional.of(new Recommendation(minReplicas, "below minReplicas=" + minReplicas));
+        if (replicas > maxReplicas)
+            return Optional.of(new Recommendation(maxReplicas, "above maxReplicas=" + maxReplicas));
+
+        // do not decide on partial metrics
+        if (metrics.size() < replicas)
+            return Optional.empty();
+
+        final long elapsed = now - lastScaleTime;
+        Optional<String> overloaded = exceeded(autoscaling, metrics, 1.0);
+        if (overloaded.isPresent()) {
+            if (replicas < maxReplicas && elapsed >= TimeUnit.SECONDS.toMillis(ObjectUtils.defaultIfNull(autoscaling.getScaleUpCooldownSeconds(), 0)))
+                return Optional.of(new Recommendation(replicas + 1, overloaded.get()));
+            return Optional.empty();
+        }
+
+        final double scaleDownRatio = ObjectUtils.defaultIfNull(autoscaling.getScaleDownRatio(), 0.5);
+        if (replicas > minReplicas &&
+                elapsed >= TimeUnit.SECONDS.toMillis(ObjectUtils.defaultIfNull(autoscaling.getScaleDownCooldownSeconds(), 0)) &&
+                !exceeded(autoscaling, metrics, scaleDownRatio).isPresent()) {
+            // the data of the removed node is streamed to the remaining ones
+            if (autoscaling.getMaxDiskUsage() != null) {
+                double maxDiskUsage = metrics.stream().filter(m -> m.getDiskUsage() != null).mapToDouble(NodeMetrics::getDiskUsage).max().orElse(0);
+                if (maxDiskUsage * replicas / (replicas - 1) >= autoscaling.getMaxDiskUsage())
+                    return Optional.empty();
+            }
+            return Optional.of(new Recommendation(replicas - 1, "all metrics below " + scaleDownRatio + " of their threshold"));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return the first metric exceeding ratio x its threshold, or empty.
+     */
+    static Optional<String> exceeded(Autoscaling autoscaling, List<NodeMetrics> metrics, double ratio) {
+        for (NodeMetrics m : metrics) {
+            if (exceeded(m.getDiskUsage(), autoscaling.getMaxDiskUsage(), ratio))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s diskUsage=%.2f > %.2f", m.getPod(), m.getDiskUsage(), ratio * autoscaling.getMaxDiskUsage()));
+            if (exceeded(m.getReadLatencyP99Ms(), autoscaling.getMaxReadLatencyP99Ms(), ratio))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s readLatencyP99=%.1fms > %.1fms", m.getPod(), m.getReadLatencyP99Ms(), ratio * autoscaling.getMaxReadLatencyP99Ms()));
+            if (exceeded(m.getWriteLatencyP99Ms(), autoscaling.getMaxWriteLatencyP99Ms(), ratio))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s writeLatencyP99=%.1fms > %.1fms", m.getPod(), m.getWriteLatencyP99Ms(), ratio * autoscaling.getMaxWriteLatencyP99Ms()));
+            if (exceeded(m.getPendingCompactions(), autoscaling.getMaxPendingCompactions(), ratio))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s pendingCompactions=%d > %.0f", m.getPod(), m.getPendingCompactions(), ratio * autoscaling.getMaxPendingCompactions()));
+            if (exceeded(m.getSearchQueue(), autoscaling.getMaxSearchQueue(), ratio))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s searchQueue=%d > %.0f", m.getPod(), m.getSearchQueue(), ratio * autoscaling.getMaxSearchQueue()));
+        }
+        return Optional.empty();
+    }
+
+    static boolean exceeded(Number value, Number threshold, double ratio) {
+        return value != null && threshold != null && value.doubleValue() > ratio * threshold.doubleValue();
+    }
+}
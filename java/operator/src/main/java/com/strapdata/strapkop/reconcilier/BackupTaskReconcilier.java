@@ -107,4 +107,9 @@ public class BackupTaskReconcilier extends TaskReconcilier {
     public Single<List<V1Pod>> init(Task task, DataCenter dc) {
         return listAllDcPods(task, dc).map(pods -> initTaskStatusPodMap(task, pods));
     }
+
+    @Override
+    public TaskLane lane() {
+        return TaskLane.READ_ONLY;
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.datacenter.Canary;
+import com.strapdata.strapkop.model.sidecar.ElassandraNodeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Health gate of a canary rolling update, comparing the canary pods to the not yet updated pods.
+ */
+public class CanaryGate {
+
+    /**
+     * Health signals of an Elassandra node.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NodeHealth {
+        String pod;
+        ElassandraNodeStatus status;
+        Long pendingCompactions;
+        /**
+         * 99th percentile coordinator read latency in microseconds.
+         */
+        Double readLatencyP99;
+        /**
+         * Elasticsearch search enabled, null when Elasticsearch is disabled.
+         */
+        Boolean searchEnabled;
+    }
+
+    /**
+     * Check the canary pods health.
+     *
+     * @param canary canary settings
+     * @param canaryPods health of the updated pods
+     * @param baselinePods health of the not yet updated pods
+     * @return the reason why the canary is unhealthy, or empty if healthy.
+     */
+    public static Optional<String> check(Canary canary, List<NodeHealth> canaryPods, List<NodeHealth> baselinePods) {
+        if (canaryPods.isEmpty())
+            return Optional.of("no canary pod");
+
+        double baselineLatency = baselinePods.stream()
+                .filter(h -> h.getReadLatencyP99() != null && h.getReadLatencyP99() > 0)
+                .mapToDouble(NodeHealth::getReadLatencyP99)
+                .max()
+                .orElse(0);
+        long maxPendingCompactions = ObjectUtils.defaultIfNull(canary.getMaxPendingCompactions(), Integer.MAX_VALUE);
+        double maxReadLatencyRatio = ObjectUtils.defaultIfNull(canary.getMaxReadLatencyRatio(), Double.MAX_VALUE);
+
+        for (NodeHealth health : canaryPods) {
+            if (!ElassandraNodeStatus.NORMAL.equals(health.getStatus()))
+                return Optional.of("pod=" + health.getPod() + " status=" + health.getStatus());
+            if (health.getPendingCompactions() != null && health.getPendingCompactions() > maxPendingCompactions)
+                return Optional.of("pod=" + health.getPod() + " pendingCompactions=" + health.getPendingCompactions() + " > " + maxPendingCompactions);
+            if (Boolean.FALSE.equals(health.getSearchEnabled()))
+                return Optional.of("pod=" + health.getPod() + " search disabled");
+            if (baselineLatency > 0 && health.getReadLatencyP99() != null && health.getReadLatencyP99() > maxReadLatencyRatio * baselineLatency)
+                return Optional.of(String.format(Locale.ROOT, "pod=%s readLatencyP99=%.0fus > %.1f x %.0fus",
+                        health.getPod(), health.getReadLatencyP99(), maxReadLatencyRatio, baselineLatency));
+        }
+        return Optional.empty();
+    }
+}
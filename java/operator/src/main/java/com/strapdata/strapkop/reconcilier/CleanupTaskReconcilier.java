@@ -88,6 +88,7 @@ public final class CleanupTaskReconcilier extends TaskReconcilier {
                 .subscribeOn(Schedulers.io())
                 .flatMapSingle(pod ->
                         jmxmpElassandraProxy.cleanup(ElassandraPod.fromV1Pod(pod), task.getSpec().getCleanup().getKeyspace())
+                        .doOnSubscribe(d -> task.getStatus().getPods().put(pod.getMetadata().getName(), TaskPhase.RUNNING))
                         .doOnComplete(() -> {
                             task.getStatus().getPods().put(pod.getMetadata().getName(), TaskPhase.SUCCEED);
                         })
@@ -114,6 +115,14 @@ public final class CleanupTaskReconcilier extends TaskReconcilier {
                 ));
     }
 
+    /**
+     * Stop all the cleanup compactions of the node, including those started by nodetool.
+     */
+    @Override
+    protected Completable cancelTask(final DataCenter dc, final Task task, final ElassandraPod pod) throws Exception {
+        return jmxmpElassandraProxy.stopCompaction(pod, "CLEANUP");
+    }
+
     @Override
     public Single<List<V1Pod>> init(Task task, DataCenter dc) {
         return listAllDcPods(task, dc).map(pods -> initTaskStatusPodMap(task, pods));
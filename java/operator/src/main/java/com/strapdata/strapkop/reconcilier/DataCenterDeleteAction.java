@@ -17,7 +17,6 @@
 
 package com.strapdata.strapkop.reconcilier;
 
-import com.google.gson.JsonSyntaxException;
 import com.strapdata.strapkop.utils.BackupScheduler;
 import com.strapdata.strapkop.cache.*;
 import com.strapdata.strapkop.cql.CqlKeyspaceManager;
@@ -31,30 +30,37 @@ import io.kubernetes.client.informer.SharedIndexInformer;
 import io.kubernetes.client.informer.SharedInformerFactory;
 import io.kubernetes.client.openapi.ApiException;
 import io.kubernetes.client.openapi.apis.AppsV1Api;
-import io.kubernetes.client.openapi.apis.CoreV1Api;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micronaut.context.annotation.Parameter;
 import io.micronaut.context.annotation.Prototype;
 import io.reactivex.Completable;
-import io.reactivex.functions.Action;
+import io.reactivex.schedulers.Schedulers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
 /**
- * TODO: we should probably use kubernetes GC to manage deletion : https://kubernetes.io/docs/concepts/workloads/controllers/garbage-collection/
+ * Datacenter child objects have an ownerReference to the datacenter and are deleted by the kubernetes garbage collector,
+ * see https://kubernetes.io/docs/concepts/workloads/controllers/garbage-collection/
+ * Remaining objects (created without ownerReference by previous operator versions) are deleted with one request per kind,
+ * concurrently with the operator caches cleanup.
  */
 @Prototype
 public class DataCenterDeleteAction {
     private static final Logger logger = LoggerFactory.getLogger(DataCenterDeleteAction.class);
 
     private final K8sResourceUtils k8sResourceUtils;
-    private final CoreV1Api coreV1Api;
     private final DataCenter dataCenter;
     private final SharedIndexInformer<DataCenter> dataCenterSharedIndexInformer;
     private final DataCenterStatusCache dataCenterStatusCache;
     private final HttpConnectionCache sidecarConnectionCache;
     private final JMXConnectorCache jmxConnectorCache;
     private final StatefulsetCache statefulsetCache;
+    private final DesiredStateCache desiredStateCache;
+    private final FingerprintCache fingerprintCache;
 
     private final CqlKeyspaceManager cqlKeyspaceManager;
     private final CqlRoleManager cqlRoleManager;
@@ -62,25 +68,27 @@ public class DataCenterDeleteAction {
     private final MeterRegistry meterRegistry;
 
     public DataCenterDeleteAction(K8sResourceUtils k8sResourceUtils,
-                                  CoreV1Api coreV1Api,
                                   AppsV1Api appsV1Api,
                                   final SharedInformerFactory sharedInformerFactory,
                                   final DataCenterStatusCache dataCenterStatusCache,
                                   final HttpConnectionCache sidecarConnectionCache,
                                   final JMXConnectorCache jmxConnectorCache,
                                   final StatefulsetCache statefulsetCache,
+                                  final DesiredStateCache desiredStateCache,
+                                  final FingerprintCache fingerprintCache,
                                   CqlKeyspaceManager cqlKeyspaceManager,
                                   CqlRoleManager cqlRoleManager,
                                   @Parameter("dataCenter") DataCenter dataCenter,
                                   BackupScheduler backupScheduler,
                                   final MeterRegistry meterRegistry) {
         this.k8sResourceUtils = k8sResourceUtils;
-        this.coreV1Api = coreV1Api;
         this.dataCenter = dataCenter;
         this.dataCenterSharedIndexInformer = sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class);
         this.dataCenterStatusCache = dataCenterStatusCache;
         this.sidecarConnectionCache = sidecarConnectionCache;
         this.statefulsetCache = statefulsetCache;
+        this.desiredStateCache = desiredStateCache;
+        this.fingerprintCache = fingerprintCache;
         this.jmxConnectorCache = jmxConnectorCache;
         this.cqlKeyspaceManager = cqlKeyspaceManager;
         this.cqlRoleManager = cqlRoleManager;
@@ -89,92 +97,55 @@ public class DataCenterDeleteAction {
     }
 
     Completable deleteDataCenter(final CqlSessionSupplier cqlSessionSupplier)  {
-        // remove the datacenter from replication maps of managed keyspaces
-        return Completable.fromAction(new Action() {
-            @Override
-            public void run() throws Exception {
-
-                backupScheduler.cancelBackups(new Key(dataCenter.getMetadata()));
-
-                // cleanup local caches
-                Key key = new Key(dataCenter.getMetadata());
-                dataCenterStatusCache.remove(key);
-                statefulsetCache.remove(key);
-
-                sidecarConnectionCache.purgeDataCenter(dataCenter);
-                jmxConnectorCache.purgeDataCenter(dataCenter);
-
-                cqlRoleManager.remove(dataCenter);
-                cqlKeyspaceManager.remove(dataCenter);
-
-                final String labelSelector = OperatorLabels.toSelector(OperatorLabels.datacenter(dataCenter));
-                // delete StatefulSets
-                k8sResourceUtils.listNamespacedStatefulSets(dataCenter.getMetadata().getNamespace(), null, labelSelector).forEach(statefulSet -> {
-                    try {
-                        k8sResourceUtils.deleteStatefulSet(statefulSet).blockingGet();
-                        logger.debug("Deleted StatefulSet namespace={} name={}", dataCenter.getMetadata().getNamespace(), statefulSet.getMetadata().getName());
-                    } catch (final JsonSyntaxException e) {
-                        logger.debug("Caught JSON exception while deleting StatefulSet. Ignoring due to https://github.com/kubernetes-client/java/issues/86.", e);
-                    } catch (final ApiException e) {
-                        logger.error("Failed to delete StatefulSet.", e);
-                    }
+        final Key key = new Key(dataCenter.getMetadata());
+        final String namespace = dataCenter.getMetadata().getNamespace();
+        final String labelSelector = OperatorLabels.toSelector(OperatorLabels.datacenter(dataCenter));
+
+        List<Completable> todoList = new ArrayList<>();
+        // cleanup local caches
+        todoList.add(Completable.fromAction(() -> {
+            backupScheduler.cancelBackups(key);
+            dataCenterStatusCache.remove(key);
+            statefulsetCache.remove(key);
+            desiredStateCache.remove(key);
+            fingerprintCache.remove(key);
+
+            sidecarConnectionCache.purgeDataCenter(dataCenter);
+            jmxConnectorCache.purgeDataCenter(dataCenter);
+
+            cqlRoleManager.remove(dataCenter);
+            cqlKeyspaceManager.remove(dataCenter);
+        }));
+
+        // delete kubernetes objects not yet garbage collected
+        todoList.add(k8sResourceUtils.deleteCollectionNamespacedStatefulSet(namespace, labelSelector));
+        todoList.add(k8sResourceUtils.deleteCollectionNamespacedConfigMap(namespace, labelSelector));
+        todoList.add(k8sResourceUtils.deleteCollectionNamespacedSecret(namespace, labelSelector));
+        todoList.add(k8sResourceUtils.deleteService(namespace, null, labelSelector));
+        try {
+            todoList.add(k8sResourceUtils.deleteTasks(namespace, null));
+        } catch (ApiException e) {
+            logger.error("Failed to delete tasks.", e);
+        }
+
+        // persistent volume claims are created by StatefulSets without ownerReference
+        switch (dataCenter.getSpec().getDecommissionPolicy()) {
+            case KEEP_PVC:
+                break;
+            case SNAPSHOT_AND_DELETE_PVC:
+                // TODO: backup
+            case DELETE_PVC:
+                todoList.add(k8sResourceUtils.deleteCollectionNamespacedPersistentVolumeClaim(namespace, labelSelector));
+                break;
+        }
+
+        return Completable.mergeDelayError(todoList.stream()
+                .map(c -> c.subscribeOn(Schedulers.io())
+                        .doOnError(t -> logger.error("datacenter=" + dataCenter.id() + " delete failed:", t)))
+                .collect(Collectors.toList()))
+                .doFinally(() -> {
+                    logger.info("Deleted dataCenter={}", dataCenter.id());
+                    cqlSessionSupplier.close();
                 });
-
-                // delete ConfigMaps
-                k8sResourceUtils.listNamespacedConfigMaps(dataCenter.getMetadata().getNamespace(), null, labelSelector).forEach(configMap -> {
-                    try {
-                        k8sResourceUtils.deleteConfigMap(configMap);
-                        logger.debug("Deleted ConfigMap namespace={} name={}", dataCenter.getMetadata().getNamespace(), configMap.getMetadata().getName());
-                    } catch (final JsonSyntaxException e) {
-                        logger.debug("Caught JSON exception while deleting ConfigMap. Ignoring due to https://github.com/kubernetes-client/java/issues/86.", e);
-                    } catch (final ApiException e) {
-                        if (e.getCode() != 404)
-                            logger.error("Failed to delete ConfigMap.", e);
-                    }
-                });
-
-                try {
-                    // delete secrets
-                    coreV1Api.deleteCollectionNamespacedSecret(dataCenter.getMetadata().getNamespace(), "false",
-                            null, null, null, null, null, labelSelector, null,
-                            null, null, null, null, null, null);
-                    logger.debug("Deleted Secrets namespace={}", dataCenter.getMetadata().getNamespace());
-                } catch (final JsonSyntaxException e) {
-                    logger.debug("Caught JSON exception while deleting Secrets. Ignoring due to https://github.com/kubernetes-client/java/issues/86.", e);
-                } catch (final ApiException e) {
-                    logger.error("Failed to delete Secrets.", e);
-                }
-
-                // delete Services
-                k8sResourceUtils.deleteService(dataCenter.getMetadata().getNamespace(), null, labelSelector)
-                        .onErrorComplete()
-                        .blockingGet();
-
-                // delete tasks
-                k8sResourceUtils.deleteTasks(dataCenter.getMetadata().getNamespace(), null).blockingGet();
-
-                // delete persistent volume claims
-                switch (dataCenter.getSpec().getDecommissionPolicy()) {
-                    case KEEP_PVC:
-                        break;
-                    case SNAPSHOT_AND_DELETE_PVC:
-                        // TODO: backup
-                    case DELETE_PVC:
-                        k8sResourceUtils.listNamespacedPodsPersitentVolumeClaims(dataCenter.getMetadata().getNamespace(), null, labelSelector).forEach(volumeClaim -> {
-                            try {
-                                k8sResourceUtils.deletePersistentVolumeClaim(volumeClaim).blockingGet();
-                                logger.debug("PVC={} deleted", volumeClaim.getMetadata().getName());
-                            } catch (final JsonSyntaxException e) {
-                                logger.debug("Caught JSON exception while deleting PVC. Ignoring due to https://github.com/kubernetes-client/java/issues/86.", e);
-                            } catch (final ApiException e) {
-                                logger.error("Failed to delete PVC for volumeClaim={}" + volumeClaim.getMetadata().getName(), e);
-                            }
-                        });
-                        break;
-                }
-                logger.info("Deleted dataCenter={}", dataCenter.id());
-                cqlSessionSupplier.close();
-            }
-        });
     }
 }
@@ -39,6 +39,7 @@ import io.kubernetes.client.openapi.models.V1StatefulSet;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micronaut.context.ApplicationContext;
 import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
 import io.reactivex.Single;
 import io.vavr.Tuple2;
 import org.slf4j.Logger;
@@ -174,13 +175,23 @@ public class DataCenterReconcilier extends Reconcilier<DataCenter> {
         return Completable.complete();
     }
 
+    /**
+     * Periodically called for datacenters in METRICS autoscale mode.
+     */
+    public Completable autoscaleDatacenter(DataCenter dc, Operation op) {
+        return reconcile(dc,
+                buildDataCenterUpdateAction(dc, op)
+                        .flatMapCompletable(dataCenterUpdateAction -> dataCenterUpdateAction.autoscale()));
+    }
+
     public Completable deleteDatacenter(final DataCenter dataCenter) {
         return reconcilierObserver.onReconciliationBegin()
-                .andThen(pluginRegistry.deleteAll(dataCenter))
-                .andThen(Completable.fromCallable(() -> {
+                .andThen(Completable.defer(() -> {
                     final DataCenterDeleteAction dataCenterDeleteAction = context.createBean(DataCenterDeleteAction.class, dataCenter);
                     final CqlSessionHandler cqlSessionHandler = context.createBean(CqlSessionHandler.class, this.cqlRoleManager);
-                    return dataCenterDeleteAction.deleteDataCenter(cqlSessionHandler).blockingGet();
+                    return Completable.mergeArrayDelayError(
+                            pluginRegistry.deleteAll(dataCenter).subscribeOn(Schedulers.io()),
+                            dataCenterDeleteAction.deleteDataCenter(cqlSessionHandler));
                 }))
                 .doFinally(() -> meterRegistry.counter("datacenter.delete").increment())
                 .doOnError(t -> {
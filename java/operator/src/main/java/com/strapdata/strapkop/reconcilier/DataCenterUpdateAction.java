@@ -20,10 +20,13 @@ package com.strapdata.strapkop.reconcilier;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.net.InetAddresses;
 import com.strapdata.cassandra.k8s.ElassandraOperatorSeedProvider;
 import com.strapdata.strapkop.OperatorConfig;
 import com.strapdata.strapkop.cache.DataCenterStatusCache;
+import com.strapdata.strapkop.cache.DesiredStateCache;
+import com.strapdata.strapkop.cache.FingerprintCache;
 import com.strapdata.strapkop.cache.StatefulsetCache;
 import com.strapdata.strapkop.cql.CqlKeyspaceManager;
 import com.strapdata.strapkop.cql.CqlRole;
@@ -32,12 +35,14 @@ import com.strapdata.strapkop.cql.CqlSessionHandler;
 import com.strapdata.strapkop.k8s.ElassandraPod;
 import com.strapdata.strapkop.k8s.K8sResourceUtils;
 import com.strapdata.strapkop.k8s.OperatorNames;
+import com.strapdata.strapkop.model.FingerprintHasher;
 import com.strapdata.strapkop.model.Key;
 import com.strapdata.strapkop.model.k8s.OperatorLabels;
 import com.strapdata.strapkop.model.k8s.StrapdataCrdGroup;
 import com.strapdata.strapkop.model.k8s.datacenter.*;
 import com.strapdata.strapkop.model.k8s.task.Task;
 import com.strapdata.strapkop.plugins.PluginRegistry;
+import com.strapdata.strapkop.sidecar.HttpClientFactory;
 import com.strapdata.strapkop.sidecar.JmxmpElassandraProxy;
 import com.strapdata.strapkop.ssl.AuthorityManager;
 import com.strapdata.strapkop.ssl.utils.X509CertificateAndPrivateKey;
@@ -59,6 +64,7 @@ import io.reactivex.Completable;
 import io.reactivex.CompletableSource;
 import io.reactivex.Flowable;
 import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 import io.vavr.Tuple4;
 import lombok.Data;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -72,6 +78,8 @@ import org.yaml.snakeyaml.Yaml;
 import javax.inject.Named;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.security.GeneralSecurityException;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
@@ -101,6 +109,12 @@ public class DataCenterUpdateAction {
     public static final String KEY_SHARED_SECRET = "shared-secret.yaml";
     public static final String KEY_REAPER_PASSWORD = "cassandra.reaper_password";
 
+    public static final String POD_MANAGEMENT_POLICY_PARALLEL = "Parallel";
+    public static final String POD_MANAGEMENT_POLICY_ORDERED_READY = "OrderedReady";
+
+    // label set by the StatefulSet controller to the revision of its pods
+    public static final String CONTROLLER_REVISION_HASH = "controller-revision-hash";
+
     public static final long CASSANDRA_USER_ID = 999L;
     public static final long CASSANDRA_GROUP_ID = 999L;
 
@@ -131,10 +145,14 @@ public class DataCenterUpdateAction {
     private final CqlKeyspaceManager cqlKeyspaceManager;
     private final PluginRegistry pluginRegistry;
     private final JmxmpElassandraProxy jmxmpElassandraProxy;
+    private final HttpClientFactory httpClientFactory;
+    private final RollingRestartMetrics rollingRestartMetrics;
 
     private final OperatorConfig operatorConfig;
 
     private final StatefulsetCache statefulsetCache;
+    private final FingerprintCache fingerprintCache;
+    private final DesiredStateCache desiredStateCache;
     private final DataCenterStatusCache dataCenterStatusCache;
     private final  SharedIndexInformer<V1ServiceAccount> saSharedIndexInformer;
 
@@ -154,8 +172,12 @@ public class DataCenterUpdateAction {
                                   final CqlRoleManager cqlRoleManager,
                                   final CqlKeyspaceManager cqlKeyspaceManager,
                                   final StatefulsetCache statefulsetCache,
+                                  final FingerprintCache fingerprintCache,
+                                  final DesiredStateCache desiredStateCache,
                                   final DataCenterStatusCache dataCenterStatusCache,
                                   final JmxmpElassandraProxy jmxmpElassandraProxy,
+                                  final HttpClientFactory httpClientFactory,
+                                  final RollingRestartMetrics rollingRestartMetrics,
                                   @Parameter("dataCenter") DataCenter dataCenter,
                                   @Parameter("operation") Operation operation,
                                   final OperatorConfig operatorConfig,
@@ -180,12 +202,16 @@ public class DataCenterUpdateAction {
 
         this.dataCenterStatusCache = dataCenterStatusCache;
         this.statefulsetCache = statefulsetCache;
+        this.fingerprintCache = fingerprintCache;
+        this.desiredStateCache = desiredStateCache;
         this.saSharedIndexInformer = sharedInformerFactory.getExistingSharedIndexInformer(V1ServiceAccount.class);
 
         this.cqlRoleManager = cqlRoleManager;
         this.cqlKeyspaceManager = cqlKeyspaceManager;
 
         this.jmxmpElassandraProxy = jmxmpElassandraProxy;
+        this.httpClientFactory = httpClientFactory;
+        this.rollingRestartMetrics = rollingRestartMetrics;
 
         this.backupScheduler = backupScheduler;
         this.pluginRegistry = pluginRegistry;
@@ -223,11 +249,7 @@ public class DataCenterUpdateAction {
     public void endOperation() {
         long endTime = System.currentTimeMillis();
         operation.setDurationInMs(endTime - startTime);
-        List<Operation> history = dataCenterStatus.getOperationHistory();
-        history.add(0, this.operation);
-        if (history.size() > operatorConfig.getOperationHistoryDepth())
-            history.remove(operatorConfig.getOperationHistoryDepth());
-        dataCenterStatus.setOperationHistory(history);
+        dataCenterStatus.addOperation(this.operation, operatorConfig.getOperationHistoryDepth());
         logger.trace("update status datacenterStatus={}", dataCenterStatus);
     }
 
@@ -406,11 +428,15 @@ public class DataCenterUpdateAction {
                     Completable.complete();
         }
 
+        Completable restoreOrderedReadyPolicy = restoreOrderedReadyPolicy();
+        if (restoreOrderedReadyPolicy != null)
+            return restoreOrderedReadyPolicy;
+
         // read user config map to check fingerprint
         return readUserConfigMap()
                 .flatMapCompletable(optionalUserConfig -> {
                     ConfigMapVolumeMounts configMapVolumeMounts = new ConfigMapVolumeMounts(optionalUserConfig);
-                    String currentFingerprint = dataCenterSpec.elassandraFingerprint() + "-" + configMapVolumeMounts.fingerPrint();
+                    String currentFingerprint = elassandraFingerprint() + "-" + configMapVolumeMounts.fingerPrint();
                     TreeMap<String, V1StatefulSet> statefulSetTreeMap = this.statefulsetCache.getOrDefault(key, new TreeMap<>());
                     boolean allStsReady = true;
                     for(RackStatus rackStatus : dataCenterStatus.getRackStatuses().values()) {
@@ -423,8 +449,28 @@ public class DataCenterUpdateAction {
                     logger.debug("allStsReady={} currentFingerprint={} rackStatus={}",
                             allStsReady, currentFingerprint, dataCenterStatus.getRackStatuses().values());
 
-                    // don't update sts if another one is currently doing a rolling update.
-                    if (allStsReady) {
+                    if (drainBeforeRestart()) {
+                        Completable drainRollingUpdateStep = drainRollingUpdateStep(statefulSetTreeMap);
+                        if (drainRollingUpdateStep != null)
+                            return drainRollingUpdateStep;
+                    }
+
+                    final boolean canaryEnabled = dataCenterSpec.getCanary() != null && Boolean.TRUE.equals(dataCenterSpec.getCanary().getEnabled());
+                    if (canaryEnabled) {
+                        Completable canaryRollingUpdate = canaryRollingUpdate(optionalUserConfig, currentFingerprint, statefulSetTreeMap, allStsReady);
+                        if (canaryRollingUpdate != null)
+                            return canaryRollingUpdate;
+                    }
+
+                    if (canaryEnabled && canaryRolledBack(currentFingerprint)) {
+                        // don't deploy the rejected fingerprint again, but keep reconciling scaling, keyspaces, roles and plugins
+                        logger.debug("datacenter={} fingerprint={} rolled back by canary, skipping rolling update", dataCenter.id(), currentFingerprint);
+                    } else if (RollingUpdateStrategy.PARALLEL_RACK_ONE_POD.equals(dataCenterSpec.getRollingUpdateStrategy())) {
+                        Completable parallelRollingUpdate = parallelRollingUpdate(optionalUserConfig, currentFingerprint, statefulSetTreeMap);
+                        if (parallelRollingUpdate != null)
+                            return parallelRollingUpdate;
+                    } else if (allStsReady) {
+                        // don't update sts if another one is currently doing a rolling update.
                         for(RackStatus rackStatus : dataCenterStatus.getRackStatuses().values()) {
                             V1StatefulSet v1StatefulSet = statefulSetTreeMap.get(rackStatus.getName());
                             String stsFingerprint = v1StatefulSet == null ? null : v1StatefulSet.getSpec().getTemplate().getMetadata().getAnnotations().get(OperatorLabels.DATACENTER_FINGERPRINT);
@@ -439,7 +485,7 @@ public class DataCenterUpdateAction {
                                 configMapVolumeMounts.setRack(rackStatus);
                                 return configMapVolumeMounts.createOrReplaceNamespacedConfigMaps()
                                         // updateRack also call prepareDataCenterSnapshot
-                                        .andThen(builder.buildStatefulSetRack(rackStatus, configMapVolumeMounts)
+                                        .andThen(rollingUpdateRack(rackStatus, configMapVolumeMounts, 0, null)
                                                 .flatMapCompletable(sts -> {
                                                     endOperation("updating sts=" + v1StatefulSet.getMetadata().getName() +" fingerprint=" + currentFingerprint + " rack=" + rackStatus.getName());
                                                     return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
@@ -462,12 +508,12 @@ public class DataCenterUpdateAction {
                     int totalReplicas = dataCenterStatus.getRackStatuses().values().stream()
                             .map(r -> r.getDesiredReplicas())
                             .reduce(0, (a, b) -> a + b);
-                    if (totalReplicas < dataCenter.getSpec().getReplicas() && Health.GREEN.equals(dataCenterStatus.health()))
+                    if (totalReplicas < targetReplicas() && Health.GREEN.equals(dataCenterStatus.health()))
                         return scaleUpDatacenter(configMapVolumeMounts);
 
                     // check if need to scale down (require a CQL connection to reduce some RF)
                     final CqlSessionHandler cqlSessionHandler = context.createBean(CqlSessionHandler.class, this.cqlRoleManager);
-                    if (totalReplicas > dataCenter.getSpec().getReplicas() && Health.GREEN.equals(dataCenterStatus.health()))
+                    if (totalReplicas > targetReplicas() && Health.GREEN.equals(dataCenterStatus.health()))
                         return scaleDownDatacenter(configMapVolumeMounts, cqlSessionHandler)
                                 .doFinally(() -> cqlSessionHandler.close());
 
@@ -486,6 +532,12 @@ public class DataCenterUpdateAction {
                         ? k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).map(o -> false)
                         : Single.just(false);
 
+                    // apply changed live settings without restarting nodes, a failure is retried on the next reconciliation
+                    // and does not prevent the keyspaces, roles and plugins reconciliation.
+                    String liveConfigFingerprint = configMapVolumeMounts.liveConfig().fingerPrint();
+                    if (dataCenterStatus.getReadyReplicas() > 0 && !Objects.equals(liveConfigFingerprint, dataCenterStatus.getLiveConfigFingerPrint()))
+                        doUpdate = doUpdate.flatMap(status -> applyLiveConfig(configMapVolumeMounts, liveConfigFingerprint).map(applied -> applied || status));
+
                     // manage roles, keyspaces, plugins, and backups
                     if (dataCenterStatus.getReadyReplicas() > 0 && dataCenterStatus.getBootstrapped() == true) {
                         doUpdate = doUpdate
@@ -508,40 +560,959 @@ public class DataCenterUpdateAction {
                 });
     }
 
-    public Completable parkDatacenter() {
+    /**
+     * Max unavailable pods during a parallel rolling update, bounded by the PodDisruptionBudget.
+     */
+    int rollingUpdateBudget() {
+        return rollingUpdateBudget(dataCenterSpec.getMaxUnavailablePerDc(), dataCenterSpec.getMaxPodUnavailable());
+    }
+
+    /**
+     * With the default PodDisruptionBudget (maxPodUnavailable=1), the budget is 1 and a parallel rolling update restarts
+     * one pod at a time in the datacenter, maxPodUnavailable must be raised to restart pods of several racks concurrently.
+     */
+    static int rollingUpdateBudget(Integer maxUnavailablePerDc, Integer maxPodUnavailable) {
+        int podDisruptionBudget = Math.max(1, ObjectUtils.defaultIfNull(maxPodUnavailable, 1));
+        return maxUnavailablePerDc == null
+                ? podDisruptionBudget
+                : Math.max(1, Math.min(maxUnavailablePerDc, podDisruptionBudget));
+    }
+
+    static int unavailablePods(V1StatefulSet sts) {
+        int replicas = ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0);
+        int readyReplicas = sts.getStatus() == null ? 0 : ObjectUtils.defaultIfNull(sts.getStatus().getReadyReplicas(), 0);
+        return Math.max(0, replicas - readyReplicas);
+    }
+
+    static int partition(V1StatefulSet sts) {
+        V1StatefulSetUpdateStrategy updateStrategy = sts.getSpec().getUpdateStrategy();
+        return (updateStrategy == null || updateStrategy.getRollingUpdate() == null)
+                ? 0
+                : ObjectUtils.defaultIfNull(updateStrategy.getRollingUpdate().getPartition(), 0);
+    }
+
+    /**
+     * @return true if the current StatefulSet has the same pod template fingerprint, generation and nodeinfo secret, replicas,
+     * partition, pod management policy, labels, owner references and rollback template as the desired one, so that replacing it is useless.
+     */
+    static boolean sameDesiredState(V1StatefulSet current, V1StatefulSet desired) {
+        if (current == null || current.getSpec() == null || current.getSpec().getTemplate() == null || current.getSpec().getTemplate().getMetadata() == null)
+            return false;
+        Map<String, String> currentTemplateAnnotations = current.getSpec().getTemplate().getMetadata().getAnnotations();
+        Map<String, String> desiredTemplateAnnotations = desired.getSpec().getTemplate().getMetadata().getAnnotations();
+        Map<String, String> currentAnnotations = current.getMetadata().getAnnotations();
+        Map<String, String> desiredAnnotations = desired.getMetadata().getAnnotations();
+        return currentTemplateAnnotations != null &&
+                Objects.equals(currentTemplateAnnotations.get(OperatorLabels.DATACENTER_FINGERPRINT), desiredTemplateAnnotations.get(OperatorLabels.DATACENTER_FINGERPRINT)) &&
+                Objects.equals(currentTemplateAnnotations.get(OperatorLabels.DATACENTER_GENERATION), desiredTemplateAnnotations.get(OperatorLabels.DATACENTER_GENERATION)) &&
+                Objects.equals(nodeInfoSecretName(current.getSpec().getTemplate()), nodeInfoSecretName(desired.getSpec().getTemplate())) &&
+                Objects.equals(current.getSpec().getReplicas(), desired.getSpec().getReplicas()) &&
+                partition(current) == partition(desired) &&
+                Objects.equals(ObjectUtils.defaultIfNull(current.getSpec().getPodManagementPolicy(), POD_MANAGEMENT_POLICY_ORDERED_READY),
+                        ObjectUtils.defaultIfNull(desired.getSpec().getPodManagementPolicy(), POD_MANAGEMENT_POLICY_ORDERED_READY)) &&
+                Objects.equals(current.getMetadata().getLabels(), desired.getMetadata().getLabels()) &&
+                Objects.equals(ownerReferenceUids(current), ownerReferenceUids(desired)) &&
+                Objects.equals(currentAnnotations == null ? null : currentAnnotations.get(OperatorLabels.ROLLBACK_TEMPLATE),
+                        desiredAnnotations == null ? null : desiredAnnotations.get(OperatorLabels.ROLLBACK_TEMPLATE));
+    }
+
+    /**
+     * @return the nodeinfo secret name used by the nodeinfo init container of a pod template, or null.
+     */
+    static String nodeInfoSecretName(V1PodTemplateSpec template) {
+        if (template.getSpec() == null || template.getSpec().getInitContainers() == null)
+            return null;
+        return template.getSpec().getInitContainers().stream()
+                .filter(c -> "nodeinfo".equals(c.getName()) && c.getEnv() != null)
+                .flatMap(c -> c.getEnv().stream())
+                .filter(e -> "NODEINFO_TOKEN".equals(e.getName()) && e.getValueFrom() != null && e.getValueFrom().getSecretKeyRef() != null)
+                .map(e -> e.getValueFrom().getSecretKeyRef().getName())
+                .findFirst()
+                .orElse(null);
+    }
+
+    static List<String> ownerReferenceUids(V1StatefulSet sts) {
+        return sts.getMetadata().getOwnerReferences() == null
+                ? Collections.emptyList()
+                : sts.getMetadata().getOwnerReferences().stream().map(V1OwnerReference::getUid).collect(Collectors.toList());
+    }
+
+    /**
+     * Partition pausing the rolling update of a StatefulSet without reverting its updated pods, nor the pod being restarted.
+     * As the StatefulSet controller updates pods from the highest ordinal, this is the lowest ordinal of the pods,
+     * from the highest ordinal, that are updated, missing or not ready.
+     *
+     * @param pods the StatefulSet pods by ordinal, null when missing
+     */
+    static int pausePartition(V1StatefulSet sts, List<V1Pod> pods) {
+        final String updateRevision = sts.getStatus() == null ? null : sts.getStatus().getUpdateRevision();
+        int partition = pods.size();
+        for (int ordinal = pods.size() - 1; ordinal >= 0; ordinal--) {
+            V1Pod pod = pods.get(ordinal);
+            if (pod != null && !podIsUpdated(updateRevision, pod) && pod.getMetadata().getDeletionTimestamp() == null && podIsReady(pod))
+                break;
+            partition = ordinal;
+        }
+        return partition;
+    }
+
+    static boolean podIsUpdated(String updateRevision, V1Pod pod) {
+        return updateRevision != null && pod.getMetadata().getLabels() != null &&
+                updateRevision.equals(pod.getMetadata().getLabels().get(CONTROLLER_REVISION_HASH));
+    }
+
+    static boolean podIsReady(V1Pod pod) {
+        return pod.getStatus() != null && pod.getStatus().getConditions() != null &&
+                pod.getStatus().getConditions().stream().anyMatch(c -> "Ready".equals(c.getType()) && "True".equals(c.getStatus()));
+    }
+
+    /**
+     * @return the rack pods by ordinal from the informer cache, null when missing.
+     */
+    List<V1Pod> rackPods(RackStatus rackStatus, V1StatefulSet sts) {
+        final List<V1Pod> pods = new ArrayList<>();
+        for (int ordinal = 0; ordinal < ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0); ordinal++)
+            pods.add(sharedInformerFactory.getExistingSharedIndexInformer(V1Pod.class).getIndexer()
+                    .getByKey(dataCenterMetadata.getNamespace() + "/" + OperatorNames.podName(dataCenter, rackStatus.getIndex(), ordinal)));
+        return pods;
+    }
+
+    /**
+     * Pause or resume the rolling update of a StatefulSet. The StatefulSet controller updates pods from the highest ordinal,
+     * so setting the partition to the number of pods not yet updated stops the rolling update.
+     */
+    static V1StatefulSet setPartition(V1StatefulSet sts, int partition) {
+        sts.getSpec().setUpdateStrategy(new V1StatefulSetUpdateStrategy()
+                .type("RollingUpdate")
+                .rollingUpdate(new V1RollingUpdateStatefulSetStrategy().partition(partition)));
+        return sts;
+    }
+
+    /**
+     * Update several racks at the same time, each StatefulSet restarting one pod at a time,
+     * while keeping the number of unavailable pods in the datacenter within the rolling update budget.
+     * As StatefulSet rolling updates delete pods without eviction, the PodDisruptionBudget is enforced here
+     * by pausing and resuming StatefulSets with their update partition.
+     *
+     * @return null if no rolling update needs to be started, paused or resumed.
+     */
+    Completable parallelRollingUpdate(Optional<V1ConfigMap> optionalUserConfig, String currentFingerprint, TreeMap<String, V1StatefulSet> statefulSetTreeMap) throws Exception {
+        int budget = rollingUpdateBudget();
+        List<RackStatus> rollingRacks = new ArrayList<>();
+        List<RackStatus> outdatedRacks = new ArrayList<>();
+        for (RackStatus rackStatus : dataCenterStatus.getRackStatuses().values()) {
+            V1StatefulSet sts = statefulSetTreeMap.get(rackStatus.getName());
+            if (sts == null)
+                return null;
+            if (ProgressState.UPDATING.equals(rackStatus.getProgressState())) {
+                rollingRacks.add(rackStatus);
+            } else {
+                // pods unavailable for another reason
+                budget -= unavailablePods(sts);
+                String stsFingerprint = sts.getSpec().getTemplate().getMetadata().getAnnotations().get(OperatorLabels.DATACENTER_FINGERPRINT);
+                if (!currentFingerprint.equals(stsFingerprint))
+                    outdatedRacks.add(rackStatus);
+            }
+        }
+
+        List<String> actions = new ArrayList<>();
         List<CompletableSource> todoList = new ArrayList<>();
+        for (RackStatus rackStatus : rollingRacks) {
+            V1StatefulSet sts = statefulSetTreeMap.get(rackStatus.getName());
+            int cost = Math.max(1, unavailablePods(sts));
+            int partition = partition(sts);
+            if (drainBeforeRestart()) {
+                // pods are restarted one by one by drainRollingUpdateStep
+                budget -= unavailablePods(sts);
+            } else if (partition == 0 && cost > budget) {
+                int pausePartition = pausePartition(sts, rackPods(rackStatus, sts));
+                actions.add("pause rolling update of rack=" + rackStatus.getName() + " partition=" + pausePartition);
+                todoList.add(k8sResourceUtils.replaceNamespacedStatefulSet(setPartition(sts, pausePartition)).ignoreElement());
+                budget -= unavailablePods(sts);
+            } else if (partition > 0 && cost <= budget) {
+                actions.add("resume rolling update of rack=" + rackStatus.getName());
+                todoList.add(k8sResourceUtils.replaceNamespacedStatefulSet(setPartition(sts, 0)).ignoreElement());
+                budget -= cost;
+            } else {
+                budget -= (partition == 0) ? cost : unavailablePods(sts);
+            }
+        }
+
+        for (RackStatus rackStatus : outdatedRacks) {
+            if (budget < 1)
+                break;
+            budget--;
+            logger.debug("datacenter={} fingerprint={} rack={} parallel rolling update", dataCenter.id(), currentFingerprint, rackStatus.getName());
+            rackStatus.setFingerprint(currentFingerprint);
+            rackStatus.setProgressState(ProgressState.UPDATING);
+            // a ConfigMapVolumeMounts per rack, because makeUnique renames the user configmap
+            ConfigMapVolumeMounts configMapVolumeMounts = new ConfigMapVolumeMounts(optionalUserConfig);
+            configMapVolumeMounts.setRack(rackStatus);
+            actions.add("updating sts=" + statefulSetTreeMap.get(rackStatus.getName()).getMetadata().getName() + " fingerprint=" + currentFingerprint + " rack=" + rackStatus.getName());
+            todoList.add(configMapVolumeMounts.createOrReplaceNamespacedConfigMaps()
+                    .andThen(rollingUpdateRack(rackStatus, configMapVolumeMounts, 0, null).ignoreElement()));
+        }
+
+        if (todoList.isEmpty())
+            return null;
+
+        return Completable.concat(todoList)
+                .andThen(Completable.defer(() -> {
+                    endOperation(String.join(", ", actions));
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                }));
+    }
+
+    boolean drainBeforeRestart() {
+        return Boolean.TRUE.equals(dataCenterSpec.getDrainBeforeRestart());
+    }
+
+    /**
+     * Flush and drain a node before restarting it, so that it does not replay its commitlogs at startup.
+     */
+    Completable drainPod(ElassandraPod pod) {
+        return rollingRestartMetrics.timeDrain(pod, Completable.defer(() -> jmxmpElassandraProxy.flush(pod, null)
+                .andThen(jmxmpElassandraProxy.drain(pod))));
+    }
+
+    /**
+     * Update the rack StatefulSet. When draining before restart, the new template is deployed with a partition
+     * preventing any pod restart, then pods are drained and restarted one by one down to the partition
+     * by {@link #drainRollingUpdateStep(TreeMap)} on the next reconciliations.
+     *
+     * @param partition the partition to reach, greater than 0 for a canary
+     * @param rollbackTemplate JSON of the previous pod template, or null
+     */
+    Single<V1StatefulSet> rollingUpdateRack(RackStatus rackStatus, ConfigMapVolumeMounts configMapVolumeMounts, int partition, String rollbackTemplate) throws Exception {
+        final int replicas = ObjectUtils.defaultIfNull(rackStatus.getDesiredReplicas(), 0);
+        return builder.buildStatefulSetRack(rackStatus, configMapVolumeMounts, drainBeforeRestart() ? Math.max(partition, replicas) : partition, rollbackTemplate);
+    }
+
+    Single<V1StatefulSet> restartPod(V1StatefulSet sts, ElassandraPod pod, int ordinal) {
+        logger.debug("datacenter={} sts={} restarting pod={}", dataCenter.id(), sts.getMetadata().getName(), pod.getName());
+        return k8sResourceUtils.replaceNamespacedStatefulSet(setPartition(sts, ordinal))
+                .map(s -> {
+                    rollingRestartMetrics.restartStarted(s, pod, ordinal);
+                    return s;
+                });
+    }
+
+    /**
+     * Lowest partition of a rack rolling update, greater than 0 while canary pods are deployed or observed.
+     */
+    int partitionFloor(RackStatus rackStatus, V1StatefulSet sts) {
+        CanaryStatus canaryStatus = dataCenterStatus.getCanary();
+        if (canaryStatus == null || !rackStatus.getName().equals(canaryStatus.getRack()) ||
+                !Objects.equals(canaryStatus.getFingerprint(), sts.getSpec().getTemplate().getMetadata().getAnnotations().get(OperatorLabels.DATACENTER_FINGERPRINT)))
+            return 0;
+        int replicas = ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0);
+        switch (canaryStatus.getPhase()) {
+            case DEPLOYING:
+            case OBSERVING:
+                return Math.max(0, replicas - Math.max(1, ObjectUtils.defaultIfNull(dataCenterSpec.getCanary().getPods(), 1)));
+            case ROLLED_BACK:
+                return replicas;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Next pod to drain and restart in a rack rolling update driven by the partition: the highest outdated pod below the partition,
+     * when the pods above the partition are updated and ready, and the other pods are ready.
+     * The next pod itself may be not ready, for instance when drained before an operator restart.
+     *
+     * @param pods the StatefulSet pods by ordinal, null when missing
+     * @param partitionFloor the lowest partition of the rolling update
+     * @return the ordinal of the next pod to restart, or -1 if no pod can be restarted.
+     */
+    static int nextDrainOrdinal(V1StatefulSet sts, List<V1Pod> pods, int partitionFloor) {
+        final int partition = partition(sts);
+        final boolean observed = sts.getStatus() != null && Objects.equals(sts.getStatus().getObservedGeneration(), sts.getMetadata().getGeneration());
+        if (partition <= partitionFloor || !observed)
+            return -1;
+
+        final String updateRevision = sts.getStatus().getUpdateRevision();
+        int next = -1;
+        for (int ordinal = pods.size() - 1; ordinal >= 0; ordinal--) {
+            V1Pod pod = pods.get(ordinal);
+            if (pod == null || pod.getMetadata().getDeletionTimestamp() != null)
+                return -1;
+            boolean updated = podIsUpdated(updateRevision, pod);
+            if (ordinal >= partition) {
+                // wait for the restarted pods
+                if (!updated || !podIsReady(pod))
+                    return -1;
+            } else if (next < 0 && !updated && ordinal >= partitionFloor) {
+                next = ordinal;
+            } else if (!podIsReady(pod)) {
+                return -1;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Drain and restart the next pod of the updating racks when the previously restarted pod is ready,
+     * while keeping the number of unavailable pods within the rolling update budget.
+     * A next pod not ready, for instance drained before an operator restart, is restarted without draining.
+     *
+     * @return null if no pod needs to be restarted.
+     */
+    Completable drainRollingUpdateStep(TreeMap<String, V1StatefulSet> statefulSetTreeMap) {
+        int budget = rollingUpdateBudget();
+        for (V1StatefulSet sts : statefulSetTreeMap.values()) {
+            rollingRestartMetrics.restartCompleted(sts);
+            budget -= unavailablePods(sts);
+        }
+
+        List<String> actions = new ArrayList<>();
+        List<CompletableSource> todoList = new ArrayList<>();
+        for (RackStatus rackStatus : dataCenterStatus.getRackStatuses().values()) {
+            V1StatefulSet sts = statefulSetTreeMap.get(rackStatus.getName());
+            if (sts == null || !ProgressState.UPDATING.equals(rackStatus.getProgressState()))
+                continue;
+
+            final List<V1Pod> pods = rackPods(rackStatus, sts);
+            final int ordinal = nextDrainOrdinal(sts, pods, partitionFloor(rackStatus, sts));
+            if (ordinal < 0)
+                continue;
+
+            final ElassandraPod pod = new ElassandraPod(dataCenter, rackStatus.getIndex(), ordinal);
+            if (!podIsReady(pods.get(ordinal))) {
+                // already unavailable, nothing to drain
+                actions.add("restart not ready pod=" + pod.getName());
+                todoList.add(restartPod(sts, pod, ordinal).ignoreElement());
+                continue;
+            }
+            if (budget < 1)
+                break;
+            budget--;
+
+            actions.add("drain and restart pod=" + pod.getName());
+            todoList.add(drainPod(pod).andThen(Single.defer(() -> restartPod(sts, pod, ordinal))).ignoreElement());
+        }
+
+        if (todoList.isEmpty())
+            return null;
+
+        return Completable.mergeDelayError(todoList)
+                .andThen(Completable.defer(() -> {
+                    endOperation(String.join(", ", actions));
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                }));
+    }
+
+    /**
+     * Canary rolling update: the first outdated rack only updates canary pods, then the canary pods health is checked
+     * before updating the rest of the datacenter. An unhealthy canary is rolled back by restoring the previous pod template,
+     * and the rejected fingerprint is not deployed again.
+     *
+     * @return null when the canary has been promoted or rolled back, or no rolling update is needed.
+     */
+    Completable canaryRollingUpdate(Optional<V1ConfigMap> optionalUserConfig, String currentFingerprint, TreeMap<String, V1StatefulSet> statefulSetTreeMap, boolean allStsReady) throws Exception {
+        final CanaryStatus canaryStatus = dataCenterStatus.getCanary();
+        final boolean inProgress = canaryStatus != null &&
+                (CanaryPhase.DEPLOYING.equals(canaryStatus.getPhase()) || CanaryPhase.OBSERVING.equals(canaryStatus.getPhase()));
+
+        if (canaryStatus != null && currentFingerprint.equals(canaryStatus.getFingerprint())) {
+            if (CanaryPhase.PROMOTED.equals(canaryStatus.getPhase()))
+                return null;
+            if (CanaryPhase.ROLLED_BACK.equals(canaryStatus.getPhase()))
+                return null;
+            return checkCanary(canaryStatus, currentFingerprint, statefulSetTreeMap);
+        }
+
+        if (inProgress) {
+            // spec changed during the canary, deploy the new fingerprint on the canary pods and keep the original rollback template
+            Optional<RackStatus> canaryRack = dataCenterStatus.getRackStatuses().values().stream()
+                    .filter(r -> r.getName().equals(canaryStatus.getRack()))
+                    .findFirst();
+            V1StatefulSet sts = statefulSetTreeMap.get(canaryStatus.getRack());
+            if (canaryRack.isPresent() && sts != null) {
+                String rollbackTemplate = sts.getMetadata().getAnnotations() == null ? null : sts.getMetadata().getAnnotations().get(OperatorLabels.ROLLBACK_TEMPLATE);
+                return startCanary(optionalUserConfig, currentFingerprint, canaryRack.get(), sts, rollbackTemplate);
+            }
+        }
+
+        if (!allStsReady)
+            return null;
+
+        for (RackStatus rackStatus : dataCenterStatus.getRackStatuses().values()) {
+            V1StatefulSet sts = statefulSetTreeMap.get(rackStatus.getName());
+            if (sts != null && !currentFingerprint.equals(sts.getSpec().getTemplate().getMetadata().getAnnotations().get(OperatorLabels.DATACENTER_FINGERPRINT))) {
+                String rollbackTemplate = appsApi.getApiClient().getJSON().serialize(sts.getSpec().getTemplate());
+                return startCanary(optionalUserConfig, currentFingerprint, rackStatus, sts, rollbackTemplate);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the current fingerprint has been rejected by the canary, so its rolling update must be skipped.
+     */
+    boolean canaryRolledBack(String currentFingerprint) {
+        final CanaryStatus canaryStatus = dataCenterStatus.getCanary();
+        return canaryStatus != null &&
+                currentFingerprint.equals(canaryStatus.getFingerprint()) &&
+                CanaryPhase.ROLLED_BACK.equals(canaryStatus.getPhase());
+    }
+
+    Completable startCanary(Optional<V1ConfigMap> optionalUserConfig, String currentFingerprint, RackStatus rackStatus, V1StatefulSet sts, String rollbackTemplate) throws Exception {
+        int replicas = ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0);
+        int canaryPods = Math.max(1, ObjectUtils.defaultIfNull(dataCenterSpec.getCanary().getPods(), 1));
+        int partition = Math.max(0, replicas - canaryPods);
+        logger.debug("datacenter={} fingerprint={} rack={} canary partition={}", dataCenter.id(), currentFingerprint, rackStatus.getName(), partition);
+
+        rackStatus.setFingerprint(currentFingerprint);
+        rackStatus.setProgressState(ProgressState.UPDATING);
+        dataCenterStatus.setCanary(new CanaryStatus(currentFingerprint, rackStatus.getName(), CanaryPhase.DEPLOYING, new Date(), null, null));
+
+        ConfigMapVolumeMounts configMapVolumeMounts = new ConfigMapVolumeMounts(optionalUserConfig);
+        configMapVolumeMounts.setRack(rackStatus);
+        return configMapVolumeMounts.createOrReplaceNamespacedConfigMaps()
+                .andThen(rollingUpdateRack(rackStatus, configMapVolumeMounts, partition, rollbackTemplate)
+                        .flatMapCompletable(s -> {
+                            endOperation("canary sts=" + sts.getMetadata().getName() + " fingerprint=" + currentFingerprint + " pods=" + (replicas - partition));
+                            return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                        }));
+    }
+
+    /**
+     * Wait for the canary pods to be ready, then gate on their health after the observation delay.
+     */
+    Completable checkCanary(CanaryStatus canaryStatus, String currentFingerprint, TreeMap<String, V1StatefulSet> statefulSetTreeMap) throws Exception {
+        final Canary canary = dataCenterSpec.getCanary();
+        final V1StatefulSet sts = statefulSetTreeMap.get(canaryStatus.getRack());
+        final Optional<RackStatus> rackStatus = dataCenterStatus.getRackStatuses().values().stream()
+                .filter(r -> r.getName().equals(canaryStatus.getRack()))
+                .findFirst();
+        if (sts == null || !rackStatus.isPresent())
+            return null;
+
+        final long now = System.currentTimeMillis();
+        final int replicas = ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0);
+        final int updatedReplicas = sts.getStatus() == null ? 0 : ObjectUtils.defaultIfNull(sts.getStatus().getUpdatedReplicas(), 0);
+        final int canaryPods = Math.min(replicas, Math.max(1, ObjectUtils.defaultIfNull(canary.getPods(), 1)));
+        final boolean canaryReady = updatedReplicas >= canaryPods && statefulSetIsReady(sts);
+
+        if (CanaryPhase.DEPLOYING.equals(canaryStatus.getPhase())) {
+            if (canaryReady) {
+                canaryStatus.setPhase(CanaryPhase.OBSERVING);
+                canaryStatus.setReadyTime(new Date(now));
+                endOperation("canary pods ready in rack=" + canaryStatus.getRack() + ", observing for " + canary.getObservationSeconds() + "s");
+            } else if (now - canaryStatus.getStartTime().getTime() > TimeUnit.SECONDS.toMillis(canary.getReadyTimeoutSeconds())) {
+                return rollbackCanary(canaryStatus, rackStatus.get(), sts, "canary pods not ready after " + canary.getReadyTimeoutSeconds() + "s");
+            } else {
+                endOperation("noop, wait for canary pods ready in rack=" + canaryStatus.getRack());
+            }
+            return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+        }
+
+        // OBSERVING
+        if (!canaryReady)
+            return rollbackCanary(canaryStatus, rackStatus.get(), sts, "canary pods not ready during observation");
+
+        if (now - canaryStatus.getReadyTime().getTime() < TimeUnit.SECONDS.toMillis(canary.getObservationSeconds())) {
+            endOperation("noop, observing canary pods in rack=" + canaryStatus.getRack());
+            return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+        }
+
+        final boolean elasticsearchEnabled = dataCenterSpec.getElasticsearch().getEnabled();
+        final String labelSelector = OperatorLabels.toSelector(ImmutableMap.of(
+                OperatorLabels.MANAGED_BY, "elassandra-operator",
+                OperatorLabels.PARENT, dataCenterMetadata.getName(),
+                OperatorLabels.APP, "elassandra"));
+        final Set<String> canaryPodNames = new HashSet<>();
+        return Single.fromCallable(() -> Lists.newArrayList(k8sResourceUtils.listNamespacedPods(dataCenterMetadata.getNamespace(), "status.phase=Running", labelSelector)))
+                .flatMap(v1Pods -> Flowable.fromIterable(v1Pods)
+                        .flatMapSingle(v1Pod -> {
+                            Map<String, String> annotations = v1Pod.getMetadata().getAnnotations();
+                            if (annotations != null && currentFingerprint.equals(annotations.get(OperatorLabels.DATACENTER_FINGERPRINT)))
+                                canaryPodNames.add(v1Pod.getMetadata().getName());
+                            return jmxmpElassandraProxy.nodeHealth(ElassandraPod.fromV1Pod(v1Pod)
+                                    .setEsPort(dataCenterSpec.getElasticsearch().getHttpPort())
+                                    .setSsl(dataCenterSpec.getCassandra().getSsl()), elasticsearchEnabled);
+                        })
+                        .toList())
+                .flatMapCompletable(healths -> {
+                    Map<Boolean, List<CanaryGate.NodeHealth>> partitioned = healths.stream()
+                            .collect(Collectors.partitioningBy(h -> canaryPodNames.contains(h.getPod())));
+                    Optional<String> failure = CanaryGate.check(canary, partitioned.get(true), partitioned.get(false));
+                    if (failure.isPresent())
+                        return rollbackCanary(canaryStatus, rackStatus.get(), sts, failure.get());
+                    return promoteCanary(canaryStatus, sts);
+                })
+                .onErrorResumeNext(t -> {
+                    // health signals not available, retry on next reconciliation
+                    logger.warn("datacenter={} failed to check canary health: {}", dataCenter.id(), t.toString());
+                    canaryStatus.setMessage("health check failed: " + t.getMessage());
+                    endOperation("noop, canary health check failed: " + t.getMessage());
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                });
+    }
+
+    Completable promoteCanary(CanaryStatus canaryStatus, V1StatefulSet sts) {
+        logger.info("datacenter={} canary fingerprint={} promoted", dataCenter.id(), canaryStatus.getFingerprint());
+        if (sts.getMetadata().getAnnotations() != null)
+            sts.getMetadata().getAnnotations().remove(OperatorLabels.ROLLBACK_TEMPLATE);
+        // when draining, the remaining pods are restarted one by one by drainRollingUpdateStep
+        return k8sResourceUtils.replaceNamespacedStatefulSet(drainBeforeRestart() ? sts : setPartition(sts, 0))
+                .flatMapCompletable(s -> {
+                    canaryStatus.setPhase(CanaryPhase.PROMOTED);
+                    canaryStatus.setMessage("healthy");
+                    endOperation("canary promoted fingerprint=" + canaryStatus.getFingerprint() + " rack=" + canaryStatus.getRack());
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                });
+    }
+
+    /**
+     * Restore the previous pod template, the StatefulSet controller then rolls the canary pods back to the current revision.
+     * When draining before restart, the canary pods are drained and restarted one by one by {@link #drainRollingUpdateStep(TreeMap)}.
+     */
+    Completable rollbackCanary(CanaryStatus canaryStatus, RackStatus rackStatus, V1StatefulSet sts, String reason) {
+        logger.warn("datacenter={} canary fingerprint={} rolled back: {}", dataCenter.id(), canaryStatus.getFingerprint(), reason);
+        canaryStatus.setPhase(CanaryPhase.ROLLED_BACK);
+        canaryStatus.setMessage(reason);
+
+        String rollbackTemplate = sts.getMetadata().getAnnotations() == null ? null : sts.getMetadata().getAnnotations().get(OperatorLabels.ROLLBACK_TEMPLATE);
+        if (rollbackTemplate == null) {
+            // keep the partition to stop the rolling update
+            endOperation("canary rejected, no rollback template for sts=" + sts.getMetadata().getName() + ": " + reason);
+            return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+        }
+
+        V1PodTemplateSpec template = appsApi.getApiClient().getJSON().deserialize(rollbackTemplate, V1PodTemplateSpec.class);
+        sts.getSpec().setTemplate(template);
+        sts.getMetadata().getAnnotations().remove(OperatorLabels.ROLLBACK_TEMPLATE);
+        rackStatus.setFingerprint(template.getMetadata().getAnnotations().get(OperatorLabels.DATACENTER_FINGERPRINT));
+        int partition = drainBeforeRestart() ? ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0) : 0;
+        return k8sResourceUtils.replaceNamespacedStatefulSet(setPartition(sts, partition))
+                .flatMapCompletable(s -> {
+                    endOperation("canary rolled back fingerprint=" + canaryStatus.getFingerprint() + " rack=" + canaryStatus.getRack() + ": " + reason);
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                });
+    }
+
+    /**
+     * Apply live settings on all running pods in parallel, Cassandra settings through JMX,
+     * and Elasticsearch settings as transient cluster settings. Live settings removed from the user config map are reset to their default value,
+     * Elasticsearch settings that were not applied by the operator are left unchanged.
+     * The live config fingerprint is updated when all pods have been updated, otherwise it is retried on the next reconciliation.
+     *
+     * @return true if the live config fingerprint has been updated in the datacenter status
+     */
+    public Single<Boolean> applyLiveConfig(ConfigMapVolumeMounts configMapVolumeMounts, String liveConfigFingerprint) throws Exception {
+        final LiveConfig liveConfig = configMapVolumeMounts.liveConfig();
+        final Map<String, Object> cassandraSettings = liveConfig.cassandraSettingsWithDefaults(configMapVolumeMounts.cassandraLiveSettingsDefaults());
+        final Map<String, Object> elasticsearchSettings = liveConfig.elasticsearchSettingsWithDefaults(dataCenterStatus.getLiveElasticsearchSettings());
+        final String labelSelector = OperatorLabels.toSelector(ImmutableMap.of(
+                OperatorLabels.MANAGED_BY, "elassandra-operator",
+                OperatorLabels.PARENT, dataCenterMetadata.getName(),
+                OperatorLabels.APP, "elassandra"));
+        return configMapVolumeMounts.replaceUserConfigMap()
+                .andThen(Single.fromCallable(() -> Lists.newArrayList(k8sResourceUtils.listNamespacedPods(dataCenterMetadata.getNamespace(), "status.phase=Running", labelSelector))))
+                .flatMapCompletable(v1Pods -> {
+                    List<ElassandraPod> pods = v1Pods.stream()
+                            .map(v1Pod -> ElassandraPod.fromV1Pod(v1Pod)
+                                    .setEsPort(dataCenterSpec.getElasticsearch().getHttpPort())
+                                    .setSsl(dataCenterSpec.getCassandra().getSsl()))
+                            .collect(Collectors.toList());
+                    logger.info("datacenter={} applying live settings cassandra={} elasticsearch={} on pods={}",
+                            dataCenter.id(), cassandraSettings, elasticsearchSettings,
+                            pods.stream().map(ElassandraPod::getName).collect(Collectors.toList()));
+
+                    List<CompletableSource> todoList = new ArrayList<>();
+                    for (ElassandraPod pod : pods)
+                        todoList.add(jmxmpElassandraProxy.applySettings(pod, cassandraSettings));
+                    if (dataCenterSpec.getElasticsearch().getEnabled() && !pods.isEmpty() && !elasticsearchSettings.isEmpty()) {
+                        // cluster settings are cluster-wide, so update once.
+                        cqlRoleManager.addIfAbsent(dataCenter, CqlRole.STRAPKOP_ROLE.getUsername(), () -> CqlRole.STRAPKOP_ROLE.duplicate());
+                        todoList.add(httpClientFactory.clientForPod(pods.get(0), cqlRoleManager.get(dataCenter, CqlRole.STRAPKOP_ROLE.getUsername()))
+                                .putTransientSettings(elasticsearchSettings));
+                    }
+                    return Completable.mergeArrayDelayError(todoList.toArray(new CompletableSource[todoList.size()]));
+                })
+                .toSingle(() -> {
+                    dataCenterStatus.setLiveConfigFingerPrint(liveConfigFingerprint);
+                    if (dataCenterSpec.getElasticsearch().getEnabled())
+                        dataCenterStatus.setLiveElasticsearchSettings(new HashSet<>(liveConfig.getElasticsearchSettings().keySet()));
+                    operation.getActions().add("live settings applied fingerprint=" + liveConfigFingerprint);
+                    return true;
+                })
+                .onErrorReturn(t -> {
+                    logger.warn("datacenter={} failed to apply live settings: {}", dataCenter.id(), t.toString());
+                    operation.getActions().add("failed to apply live settings: " + t.getMessage());
+                    return false;
+                });
+    }
+
+    /**
+     * @return the desired number of nodes, the autoscaled one in METRICS mode, or spec.replicas.
+     */
+    public int targetReplicas() {
+        if (AutoScaleMode.METRICS.equals(dataCenterSpec.getAutoScaleMode()) &&
+                dataCenterStatus.getAutoscaling() != null && dataCenterStatus.getAutoscaling().getReplicas() != null)
+            return dataCenterStatus.getAutoscaling().getReplicas();
+        return dataCenterSpec.getReplicas();
+    }
+
+    /**
+     * @return the data volume capacity in bytes, or null if unknown.
+     */
+    Long dataVolumeCapacity() {
+        for (V1StatefulSet sts : statefulsetCache.getOrDefault(key, new TreeMap<>()).values()) {
+            if (sts.getSpec().getVolumeClaimTemplates() != null) {
+                for (V1PersistentVolumeClaim pvc : sts.getSpec().getVolumeClaimTemplates()) {
+                    if ("data-volume".equals(pvc.getMetadata().getName()) && pvc.getSpec().getResources() != null &&
+                            pvc.getSpec().getResources().getRequests() != null && pvc.getSpec().getResources().getRequests().get("storage") != null)
+                        return QuantityConverter.toBytes(pvc.getSpec().getResources().getRequests().get("storage"));
+                }
+            }
+        }
+        V1PersistentVolumeClaimSpec dataVolumeClaim = dataCenterSpec.getDataVolumeClaim();
+        if (dataVolumeClaim != null && dataVolumeClaim.getResources() != null &&
+                dataVolumeClaim.getResources().getRequests() != null && dataVolumeClaim.getResources().getRequests().get("storage") != null)
+            return QuantityConverter.toBytes(dataVolumeClaim.getResources().getRequests().get("storage"));
+        return null;
+    }
+
+    /**
+     * Collect the metrics of running nodes and update the autoscaled number of nodes when a threshold is crossed,
+     * then scale the datacenter up or down by one node through the next action.
+     * Without horizontal scaling decision, check the vertical autoscaling.
+     */
+    public Completable autoscale() {
+        if (dataCenterSpec.isParked() || !DataCenterPhase.RUNNING.equals(dataCenterStatus.getPhase()) || !Health.GREEN.equals(dataCenterStatus.health()))
+            return Completable.complete();
+
+        // wait for the end of any rolling update or scaling operation
+        TreeMap<String, V1StatefulSet> statefulSetTreeMap = this.statefulsetCache.getOrDefault(key, new TreeMap<>());
+        int totalReplicas = 0;
+        for (RackStatus rackStatus : dataCenterStatus.getRackStatuses().values()) {
+            V1StatefulSet v1StatefulSet = statefulSetTreeMap.get(rackStatus.getName());
+            if (ProgressState.UPDATING.equals(rackStatus.getProgressState()) || v1StatefulSet == null || !statefulSetIsReady(v1StatefulSet))
+                return Completable.complete();
+            totalReplicas += ObjectUtils.defaultIfNull(rackStatus.getDesiredReplicas(), 0);
+        }
+        final int replicas = targetReplicas();
+        if (totalReplicas != replicas)
+            return Completable.complete();
+        if (!AutoScaleMode.METRICS.equals(dataCenterSpec.getAutoScaleMode()))
+            return verticalAutoscale();
+
+        final Autoscaling autoscaling = dataCenterSpec.getAutoscaling() == null ? new Autoscaling() : dataCenterSpec.getAutoscaling();
+        final int minReplicas = Math.max(1, ObjectUtils.defaultIfNull(autoscaling.getMinReplicas(), dataCenterSpec.getReplicas()));
+        final int maxReplicas = Math.max(minReplicas, ObjectUtils.defaultIfNull(autoscaling.getMaxReplicas(), minReplicas));
+        final Long diskCapacity = dataVolumeCapacity();
+        final boolean searchQueue = autoscaling.getMaxSearchQueue() != null && dataCenterSpec.getElasticsearch().getEnabled();
+        final String labelSelector = OperatorLabels.toSelector(ImmutableMap.of(
+                OperatorLabels.MANAGED_BY, "elassandra-operator",
+                OperatorLabels.PARENT, dataCenterMetadata.getName(),
+                OperatorLabels.APP, "elassandra"));
+        if (searchQueue)
+            cqlRoleManager.addIfAbsent(dataCenter, CqlRole.STRAPKOP_ROLE.getUsername(), () -> CqlRole.STRAPKOP_ROLE.duplicate());
+
+        return Single.fromCallable(() -> Lists.newArrayList(k8sResourceUtils.listNamespacedPods(dataCenterMetadata.getNamespace(), "status.phase=Running", labelSelector)))
+                .flatMap(v1Pods -> {
+                    List<Single<AutoscalePolicy.NodeMetrics>> todoList = new ArrayList<>();
+                    for (V1Pod v1Pod : v1Pods) {
+                        ElassandraPod pod = ElassandraPod.fromV1Pod(v1Pod)
+                                .setEsPort(dataCenterSpec.getElasticsearch().getHttpPort())
+                                .setSsl(dataCenterSpec.getCassandra().getSsl());
+                        Single<AutoscalePolicy.NodeMetrics> nodeMetrics = jmxmpElassandraProxy.nodeMetrics(pod, diskCapacity);
+                        if (searchQueue)
+                            nodeMetrics = nodeMetrics.zipWith(
+                                    httpClientFactory.clientForPod(pod, cqlRoleManager.get(dataCenter, CqlRole.STRAPKOP_ROLE.getUsername())).searchQueue(),
+                                    AutoscalePolicy.NodeMetrics::withSearchQueue);
+                        todoList.add(nodeMetrics);
+                    }
+                    return Single.merge(todoList).toList();
+                })
+                .flatMapCompletable(metrics -> {
+                    AutoscalingStatus autoscalingStatus = dataCenterStatus.getAutoscaling() == null ? new AutoscalingStatus() : dataCenterStatus.getAutoscaling();
+                    long lastScaleTime = autoscalingStatus.getLastScaleTime() == null ? 0 : autoscalingStatus.getLastScaleTime().getTime();
+                    long now = System.currentTimeMillis();
+                    Optional<AutoscalePolicy.Recommendation> recommendation = AutoscalePolicy.recommend(autoscaling, minReplicas, maxReplicas, replicas, metrics, lastScaleTime, now);
+                    if (!recommendation.isPresent()) {
+                        logger.debug("datacenter={} autoscale noop replicas={} metrics={}", dataCenter.id(), replicas, metrics);
+                        return verticalAutoscale();
+                    }
+                    logger.info("datacenter={} autoscale replicas={}->{} reason={}",
+                            dataCenter.id(), replicas, recommendation.get().getReplicas(), recommendation.get().getReason());
+                    autoscalingStatus.setReplicas(recommendation.get().getReplicas());
+                    autoscalingStatus.setLastScaleTime(new Date(now));
+                    autoscalingStatus.setReason(recommendation.get().getReason());
+                    dataCenterStatus.setAutoscaling(autoscalingStatus);
+                    return nextAction(true);
+                })
+                .onErrorResumeNext(t -> {
+                    logger.warn("datacenter={} autoscale failed: {}", dataCenter.id(), t.toString());
+                    return Completable.complete();
+                });
+    }
+
+    /**
+     * @return the vertical autoscaling status when its resources replace the datacenter resources, or null.
+     */
+    VerticalAutoscalingStatus appliedVerticalAutoscaling() {
+        VerticalAutoscalingStatus verticalAutoscalingStatus = dataCenterStatus.getVerticalAutoscaling();
+        if (dataCenterSpec.getVerticalAutoscaling() != null &&
+                VerticalAutoscalingMode.AUTO.equals(dataCenterSpec.getVerticalAutoscaling().getMode()) &&
+                dataCenterSpec.getResources() != null &&
+                verticalAutoscalingStatus != null &&
+                Boolean.TRUE.equals(verticalAutoscalingStatus.getApplied()) &&
+                verticalAutoscalingStatus.getMemory() != null && verticalAutoscalingStatus.getCpu() != null)
+            return verticalAutoscalingStatus;
+        return null;
+    }
+
+    /**
+     * @return the Elassandra containers resources, including the applied vertical autoscaling resources.
+     */
+    public V1ResourceRequirements elassandraResources() {
+        VerticalAutoscalingStatus verticalAutoscalingStatus = appliedVerticalAutoscaling();
+        if (verticalAutoscalingStatus == null)
+            return dataCenterSpec.getResources();
+        Map<String, Quantity> requests = new HashMap<>(ObjectUtils.defaultIfNull(dataCenterSpec.getResources().getRequests(), Collections.emptyMap()));
+        Map<String, Quantity> limits = dataCenterSpec.getResources().getLimits() == null ? null : new HashMap<>(dataCenterSpec.getResources().getLimits());
+        resize("memory", Quantity.fromString(verticalAutoscalingStatus.getMemory()), requests, limits);
+        resize("cpu", Quantity.fromString(verticalAutoscalingStatus.getCpu()), requests, limits);
+        return new V1ResourceRequirements().requests(requests).limits(limits);
+    }
+
+    /**
+     * Replace a resource request, and scale its limit to keep the same limit/request ratio.
+     */
+    static void resize(String name, Quantity quantity, Map<String, Quantity> requests, Map<String, Quantity> limits) {
+        Quantity request = requests.getOrDefault(name, limits == null ? null : limits.get(name));
+        if (limits != null && limits.get(name) != null && request != null && request.getNumber().signum() > 0) {
+            Quantity limit = limits.get(name);
+            limits.put(name, new Quantity(limit.getNumber().multiply(quantity.getNumber()).divide(request.getNumber(), 3, RoundingMode.UP), limit.getFormat()));
+        }
+        requests.put(name, quantity);
+    }
+
+    static Quantity resource(V1ResourceRequirements resources, String name) {
+        if (resources == null)
+            return null;
+        if (resources.getRequests() != null && resources.getRequests().get(name) != null)
+            return resources.getRequests().get(name);
+        return resources.getLimits() == null ? null : resources.getLimits().get(name);
+    }
+
+    static long cpuMillis(Quantity quantity) {
+        return quantity.getNumber().multiply(BigDecimal.valueOf(1000)).longValue();
+    }
+
+    /**
+     * Collect the JVM metrics of running nodes and update the recommended cpu and memory requests.
+     * In AUTO mode, recommended resources change the datacenter fingerprint and are deployed by a rolling update.
+     */
+    Completable verticalAutoscale() {
+        final VerticalAutoscaling settings = dataCenterSpec.getVerticalAutoscaling();
+        if (settings == null || settings.getMode() == null || VerticalAutoscalingMode.OFF.equals(settings.getMode()))
+            return Completable.complete();
+
+        final Quantity memory = resource(elassandraResources(), "memory");
+        final Quantity cpu = resource(elassandraResources(), "cpu");
+        final Quantity specMemory = resource(dataCenterSpec.getResources(), "memory");
+        final Quantity specCpu = resource(dataCenterSpec.getResources(), "cpu");
+        if (memory == null || cpu == null || specMemory == null || specCpu == null) {
+            logger.debug("datacenter={} vertical autoscaling requires cpu and memory resources", dataCenter.id());
+            return Completable.complete();
+        }
+        final long minMemory = QuantityConverter.toBytes(settings.getMinMemory() == null ? specMemory : Quantity.fromString(settings.getMinMemory()));
+        final long maxMemory = QuantityConverter.toBytes(settings.getMaxMemory() == null ? specMemory : Quantity.fromString(settings.getMaxMemory()));
+        final long minCpu = cpuMillis(settings.getMinCpu() == null ? specCpu : Quantity.fromString(settings.getMinCpu()));
+        final long maxCpu = cpuMillis(settings.getMaxCpu() == null ? specCpu : Quantity.fromString(settings.getMaxCpu()));
+        final String labelSelector = OperatorLabels.toSelector(ImmutableMap.of(
+                OperatorLabels.MANAGED_BY, "elassandra-operator",
+                OperatorLabels.PARENT, dataCenterMetadata.getName(),
+                OperatorLabels.APP, "elassandra"));
+
+        return Single.fromCallable(() -> Lists.newArrayList(k8sResourceUtils.listNamespacedPods(dataCenterMetadata.getNamespace(), "status.phase=Running", labelSelector)))
+                .flatMap(v1Pods -> {
+                    List<Single<VerticalAutoscalePolicy.JvmMetrics>> todoList = new ArrayList<>();
+                    for (V1Pod v1Pod : v1Pods)
+                        todoList.add(jmxmpElassandraProxy.jvmMetrics(ElassandraPod.fromV1Pod(v1Pod)));
+                    return Single.merge(todoList).toList();
+                })
+                .flatMapCompletable(metrics -> {
+                    VerticalAutoscalingStatus verticalAutoscalingStatus = dataCenterStatus.getVerticalAutoscaling() == null ? new VerticalAutoscalingStatus() : dataCenterStatus.getVerticalAutoscaling();
+                    long lastUpdateTime = verticalAutoscalingStatus.getLastUpdateTime() == null ? 0 : verticalAutoscalingStatus.getLastUpdateTime().getTime();
+                    long now = System.currentTimeMillis();
+                    Optional<VerticalAutoscalePolicy.Recommendation> recommendation = VerticalAutoscalePolicy.recommend(settings,
+                            QuantityConverter.toBytes(memory), minMemory, maxMemory,
+                            cpuMillis(cpu), minCpu, maxCpu,
+                            metrics, lastUpdateTime, now);
+                    if (!recommendation.isPresent()) {
+                        logger.debug("datacenter={} vertical autoscale noop metrics={}", dataCenter.id(), metrics);
+                        return Completable.complete();
+                    }
+
+                    final boolean apply = VerticalAutoscalingMode.AUTO.equals(settings.getMode());
+                    verticalAutoscalingStatus.setMemory(new Quantity(BigDecimal.valueOf(recommendation.get().getMemoryBytes()), Quantity.Format.BINARY_SI).toSuffixedString());
+                    verticalAutoscalingStatus.setCpu(new Quantity(BigDecimal.valueOf(recommendation.get().getCpuMillis(), 3), Quantity.Format.DECIMAL_SI).toSuffixedString());
+                    verticalAutoscalingStatus.setApplied(apply);
+                    verticalAutoscalingStatus.setLastUpdateTime(new Date(now));
+                    verticalAutoscalingStatus.setReason(recommendation.get().getReason());
+                    dataCenterStatus.setVerticalAutoscaling(verticalAutoscalingStatus);
+                    logger.info("datacenter={} vertical autoscale memory={} cpu={} apply={} reason={}",
+                            dataCenter.id(), verticalAutoscalingStatus.getMemory(), verticalAutoscalingStatus.getCpu(), apply, verticalAutoscalingStatus.getReason());
+                    if (apply)
+                        return nextAction(true);
+                    endOperation("vertical autoscale recommendation memory=" + verticalAutoscalingStatus.getMemory() + " cpu=" + verticalAutoscalingStatus.getCpu());
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                })
+                .onErrorResumeNext(t -> {
+                    logger.warn("datacenter={} vertical autoscale failed: {}", dataCenter.id(), t.toString());
+                    return Completable.complete();
+                });
+    }
+
+    boolean drainBeforePark() {
+        return Boolean.TRUE.equals(dataCenterSpec.getDrainBeforePark());
+    }
+
+    /**
+     * Record the datacenter topology, flush and drain all nodes in parallel when drainBeforePark is true, then scale all StatefulSets to zero.
+     * Nodes failing to drain are stopped anyway and replay their commitlogs when unparking.
+     */
+    public Completable parkDatacenter() {
         TreeMap<String, V1StatefulSet> statefulSetTreeMap = this.statefulsetCache.get(key);
+        final ParkedTopology parkedTopology = new ParkedTopology().setParkTime(new Date());
+        final List<String> drainedPods = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableSource> drainList = new ArrayList<>();
         for (V1StatefulSet v1StatefulSet : statefulSetTreeMap.values()) {
             int rackIndex = Integer.parseInt(v1StatefulSet.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
             RackStatus rackStatus = dataCenterStatus.getRackStatuses().get(rackIndex);
-            logger.debug("DataCenter={} PARKING rack={}", dataCenter.id(), rackStatus);
-            rackStatus.setHealth(Health.RED);
-            v1StatefulSet.getSpec().setReplicas(0);
-            todoList.add(k8sResourceUtils.replaceNamespacedStatefulSet(v1StatefulSet).ignoreElement());
+            int replicas = ObjectUtils.defaultIfNull(v1StatefulSet.getSpec().getReplicas(), 0);
+            parkedTopology.getRackReplicas().put(rackStatus.getName(), replicas);
+            if (drainBeforePark()) {
+                for (int i = 0; i < replicas; i++) {
+                    final ElassandraPod pod = new ElassandraPod(dataCenter, rackIndex, i);
+                    drainList.add(drainPod(pod)
+                            .doOnComplete(() -> drainedPods.add(pod.getName()))
+                            .onErrorResumeNext(t -> {
+                                logger.warn("datacenter={} pod={} drain before park failed: {}", dataCenter.id(), pod.getName(), t.toString());
+                                return Completable.complete();
+                            })
+                            .subscribeOn(Schedulers.io()));
+                }
+            }
         }
-        return Completable.mergeArray(todoList.toArray(new CompletableSource[todoList.size()]))
+
+        return Completable.merge(drainList)
+                .andThen(Completable.defer(() -> {
+                    List<CompletableSource> todoList = new ArrayList<>();
+                    for (V1StatefulSet v1StatefulSet : statefulSetTreeMap.values()) {
+                        int rackIndex = Integer.parseInt(v1StatefulSet.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
+                        RackStatus rackStatus = dataCenterStatus.getRackStatuses().get(rackIndex);
+                        logger.debug("DataCenter={} PARKING rack={}", dataCenter.id(), rackStatus);
+                        rackStatus.setHealth(Health.RED);
+                        v1StatefulSet.getSpec().setReplicas(0);
+                        todoList.add(k8sResourceUtils.replaceNamespacedStatefulSet(v1StatefulSet).ignoreElement());
+                    }
+                    return Completable.mergeArray(todoList.toArray(new CompletableSource[todoList.size()]));
+                }))
                 .toSingleDefault(dataCenter)
                 .flatMap(s -> pluginRegistry.reconcileAll(this))
                 // remove scheduled backups ?
                 //.flatMap(s -> Completable.fromAction(() -> backupScheduler.scheduleBackups(dataCenter)).toSingleDefault(dataCenter)) // start backup when plugin are reconcilied.
                 .flatMapCompletable(dataCenter1 -> {
+                    Collections.sort(drainedPods);
+                    parkedTopology.setDrainedPods(new ArrayList<>(drainedPods));
+                    dataCenterStatus.setParkedTopology(parkedTopology);
                     dataCenterStatus.setPhase(DataCenterPhase.PARKED);
                     dataCenterStatus.setHealth(Health.RED);
-                    endOperation("parked");
+                    endOperation("parked drained=" + drainedPods.size() + "/" + parkedTopology.getRackReplicas().values().stream().mapToInt(Integer::intValue).sum());
                     return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
                 });
     }
 
+    /**
+     * Pods of a rack can start in parallel when all of them have already joined the datacenter before parking,
+     * otherwise new nodes must bootstrap one by one.
+     *
+     * @return the StatefulSet podManagementPolicy to unpark a rack
+     */
+    static String unparkPodManagementPolicy(ParkedTopology parkedTopology, String rack, int desiredReplicas, boolean parallelUnpark, boolean bootstrapped) {
+        if (parallelUnpark && bootstrapped && parkedTopology != null && parkedTopology.getRackReplicas() != null &&
+                Objects.equals(parkedTopology.getRackReplicas().get(rack), desiredReplicas))
+            return POD_MANAGEMENT_POLICY_PARALLEL;
+        return POD_MANAGEMENT_POLICY_ORDERED_READY;
+    }
+
+    /**
+     * @return true if the StatefulSet was unparked with the Parallel podManagementPolicy and all its pods are ready.
+     */
+    static boolean unparkedInParallel(V1StatefulSet sts) {
+        if (!POD_MANAGEMENT_POLICY_PARALLEL.equals(sts.getSpec().getPodManagementPolicy()) || sts.getStatus() == null)
+            return false;
+        int replicas = ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0);
+        return replicas > 0 &&
+                Objects.equals(sts.getStatus().getObservedGeneration(), sts.getMetadata().getGeneration()) &&
+                ObjectUtils.defaultIfNull(sts.getStatus().getReplicas(), 0) == replicas &&
+                ObjectUtils.defaultIfNull(sts.getStatus().getReadyReplicas(), 0) == replicas;
+    }
+
+    /**
+     * Recreate the StatefulSets unparked in parallel with the OrderedReady podManagementPolicy once all their pods are ready,
+     * so that pods later restarted by Kubernetes start one by one. Pods are orphaned and adopted by the new StatefulSet without restart.
+     *
+     * @return null if no StatefulSet needs to be recreated.
+     */
+    Completable restoreOrderedReadyPolicy() {
+        List<String> actions = new ArrayList<>();
+        List<CompletableSource> todoList = new ArrayList<>();
+        for (V1StatefulSet v1StatefulSet : this.statefulsetCache.getOrDefault(key, new TreeMap<>()).values()) {
+            if (!unparkedInParallel(v1StatefulSet))
+                continue;
+            actions.add("restore " + POD_MANAGEMENT_POLICY_ORDERED_READY + " podManagementPolicy of sts=" + v1StatefulSet.getMetadata().getName());
+            v1StatefulSet.getSpec().setPodManagementPolicy(POD_MANAGEMENT_POLICY_ORDERED_READY);
+            todoList.add(k8sResourceUtils.recreateNamespacedStatefulSet(v1StatefulSet, true)
+                    .map(s -> {
+                        statefulsetCache.update(s);
+                        return s;
+                    }).ignoreElement());
+        }
+        if (todoList.isEmpty())
+            return null;
+
+        return Completable.merge(todoList)
+                .andThen(Completable.defer(() -> {
+                    endOperation(String.join(", ", actions));
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                }));
+    }
+
+    /**
+     * Scale StatefulSets to the desired replicas. As the podManagementPolicy is immutable, a parked StatefulSet
+     * is recreated when its policy changes, PVCs are kept. The OrderedReady policy is restored once the rack is ready.
+     */
     public Completable unparkDatacenter() {
         List<CompletableSource> todoList = new ArrayList<>();
         TreeMap<String, V1StatefulSet> statefulSetTreeMap = this.statefulsetCache.get(key);
         for (V1StatefulSet v1StatefulSet : statefulSetTreeMap.values()) {
             int rackIndex = Integer.parseInt(v1StatefulSet.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
             RackStatus rackStatus = dataCenterStatus.getRackStatuses().get(rackIndex);
-            logger.debug("DataCenter={} UNPARKING rack={}", dataCenter.id(), rackStatus);
+            String podManagementPolicy = unparkPodManagementPolicy(dataCenterStatus.getParkedTopology(), rackStatus.getName(), rackStatus.getDesiredReplicas(),
+                    Boolean.TRUE.equals(dataCenterSpec.getParallelUnpark()), Boolean.TRUE.equals(dataCenterStatus.getBootstrapped()));
+            String currentPodManagementPolicy = ObjectUtils.defaultIfNull(v1StatefulSet.getSpec().getPodManagementPolicy(), POD_MANAGEMENT_POLICY_ORDERED_READY);
+            logger.debug("DataCenter={} UNPARKING rack={} podManagementPolicy={}", dataCenter.id(), rackStatus, podManagementPolicy);
 
             v1StatefulSet.getSpec().setReplicas(rackStatus.getDesiredReplicas());
-            todoList.add(k8sResourceUtils.replaceNamespacedStatefulSet(v1StatefulSet).ignoreElement());
+            if (!podManagementPolicy.equals(currentPodManagementPolicy) && (v1StatefulSet.getStatus() == null || ObjectUtils.defaultIfNull(v1StatefulSet.getStatus().getReplicas(), 0) == 0)) {
+                v1StatefulSet.getSpec().setPodManagementPolicy(podManagementPolicy);
+                todoList.add(k8sResourceUtils.recreateNamespacedStatefulSet(v1StatefulSet)
+                        .map(s -> {
+                            statefulsetCache.update(s);
+                            return s;
+                        }).ignoreElement());
+            } else {
+                todoList.add(k8sResourceUtils.replaceNamespacedStatefulSet(v1StatefulSet).ignoreElement());
+            }
         }
         return Completable.mergeArray(todoList.toArray(new CompletableSource[todoList.size()]))
                 .toSingleDefault(dataCenter)
@@ -555,7 +1526,7 @@ public class DataCenterUpdateAction {
     public Completable scaleUpDatacenter(ConfigMapVolumeMounts configMapVolumeMounts) throws Exception {
         Optional<Zone> scaleUpZone = zones.nextToScalueUp();
         if (!scaleUpZone.isPresent()) {
-            logger.warn("datacenter={} Cannot scale up replicas={}/{}, no free node", dataCenter.id(), zones.totalReplicas(), dataCenter.getSpec().getReplicas());
+            logger.warn("datacenter={} Cannot scale up replicas={}/{}, no free node", dataCenter.id(), zones.totalReplicas(), targetReplicas());
             endOperation("Cannot scale-up, no node available");
             return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
         }
@@ -587,49 +1558,140 @@ public class DataCenterUpdateAction {
                     );
         }
 
-        // +1 on sts replicas
-        V1StatefulSet sts = zone.getSts().get();
-        sts.getSpec().setReplicas(sts.getSpec().getReplicas() + 1);
-
-        Integer rackIndex = Integer.parseInt(sts.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
-        RackStatus rackStatus = dataCenterStatus.getRackStatuses().computeIfAbsent(rackIndex, idx -> new RackStatus()
-                .setName(zone.name)
-                .setIndex(idx)
-                .setHealth(Health.RED)
-                .withFingerprint(configMapVolumeMounts.fingerPrint()));
-        rackStatus.setDesiredReplicas(sts.getSpec().getReplicas());
-        logger.debug("datacenter={} SCALE_UP started in rack={} desiredReplicas={}", dataCenter.id(), rackStatus.getName(), rackStatus.getDesiredReplicas());
-
-        // call ConfigMapVolumeMount here to update seeds in case of single rack with multi-nodes
-        configMapVolumeMounts.setRack(rackStatus);
-        return configMapVolumeMounts.createOrReplaceNamespacedConfigMaps() // update seeds
-                .andThen(k8sResourceUtils.replaceNamespacedStatefulSet(sts)
-                        .flatMap(s -> {
-                            endOperation("scale-up rack=" + rackStatus.getName());
-                            dataCenterStatus.setNeedCleanup(true);
-                            return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus);
+        // add one node per rack in parallel when allowed
+        final int maxConcurrentBootstraps = Math.min(targetReplicas() - zones.totalReplicas(), ObjectUtils.defaultIfNull(dataCenterSpec.getMaxConcurrentBootstraps(), 1));
+        if (maxConcurrentBootstraps > 1 && dataCenterStatus.getBootstrapped()) {
+            final List<Zone> batch = zones.nextToScaleUp(maxConcurrentBootstraps);
+            if (batch.size() > 1) {
+                final int racks = zones.rackCount();
+                final CqlSessionHandler cqlSessionHandler = context.createBean(CqlSessionHandler.class, this.cqlRoleManager);
+                return cqlKeyspaceManager.rackAlignedReplication(dataCenter, dataCenterStatus, cqlSessionHandler, racks)
+                        .onErrorResumeNext(t -> {
+                            logger.warn("datacenter={} Cannot read the keyspaces replication factor: {}", dataCenter.id(), t.toString());
+                            return Single.just(false);
+                        })
+                        .flatMapCompletable(rackAligned -> {
+                            if (!rackAligned) {
+                                // new nodes in distinct racks may take ranges from the same nodes, bootstrap one node at a time
+                                logger.info("datacenter={} replication factor not equal to racks={}, scaling up one node at a time", dataCenter.id(), racks);
+                                return scaleUpRacks(Collections.singletonList(zone), configMapVolumeMounts);
+                            }
+                            return scaleUpRacks(batch, configMapVolumeMounts);
                         })
-                        .ignoreElement());
+                        .doFinally(() -> cqlSessionHandler.close());
+            }
+        }
+        return scaleUpRacks(Collections.singletonList(zone), configMapVolumeMounts);
     }
 
-    public Completable scaleDownDatacenter(ConfigMapVolumeMounts configMapVolumeMounts, CqlSessionHandler cqlSessionHandler) throws Exception {
+    /**
+     * Add one node in the statefulset of each zone, new nodes bootstrap concurrently.
+     */
+    Completable scaleUpRacks(List<Zone> zoneList, ConfigMapVolumeMounts configMapVolumeMounts) {
         Completable todo = Completable.complete();
+        final List<String> rackNames = new ArrayList<>(zoneList.size());
+        for (Zone zone : zoneList) {
+            // +1 on sts replicas
+            V1StatefulSet sts = zone.getSts().get();
+            sts.getSpec().setReplicas(sts.getSpec().getReplicas() + 1);
+
+            Integer rackIndex = Integer.parseInt(sts.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
+            RackStatus rackStatus = dataCenterStatus.getRackStatuses().computeIfAbsent(rackIndex, idx -> new RackStatus()
+                    .setName(zone.name)
+                    .setIndex(idx)
+                    .setHealth(Health.RED)
+                    .withFingerprint(configMapVolumeMounts.fingerPrint()));
+            rackStatus.setDesiredReplicas(sts.getSpec().getReplicas());
+            rackNames.add(rackStatus.getName());
+            logger.debug("datacenter={} SCALE_UP started in rack={} desiredReplicas={}", dataCenter.id(), rackStatus.getName(), rackStatus.getDesiredReplicas());
+
+            // call ConfigMapVolumeMount here to update seeds in case of single rack with multi-nodes
+            todo = todo.andThen(Completable.defer(() -> {
+                        configMapVolumeMounts.setRack(rackStatus);
+                        return configMapVolumeMounts.createOrReplaceNamespacedConfigMaps(); // update seeds
+                    }))
+                    .andThen(k8sResourceUtils.replaceNamespacedStatefulSet(sts).ignoreElement());
+        }
+        return todo.andThen(Single.defer(() -> {
+                    endOperation("scale-up rack=" + String.join(",", rackNames));
+                    dataCenterStatus.setNeedCleanup(true);
+                    return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus);
+                }))
+                .ignoreElement();
+    }
+
+    public Completable scaleDownDatacenter(ConfigMapVolumeMounts configMapVolumeMounts, CqlSessionHandler cqlSessionHandler) throws Exception {
         Optional<Zone> scaleDownZone = zones.nextToScaleDown();
         if (!scaleDownZone.isPresent()) {
             logger.warn("datacenter={} Cannot scale down, no more replicas", dataCenter.id(), dataCenterMetadata.getName(), dataCenterMetadata.getNamespace());
-            return todo.toSingleDefault(dataCenterStatus).flatMapCompletable(dcs -> {
+            return Completable.complete().toSingleDefault(dataCenterStatus).flatMapCompletable(dcs -> {
                 endOperation("Cannot scale-down, no more replicas");
                 return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
             });
         }
 
-        // scaling DOWN
-        Zone zone = scaleDownZone.get();
+        // select the rack where the remaining nodes have enough free space to receive the decommissioned node data
+        if (dataCenterStatus.getBootstrapped() && targetReplicas() > 1 && dataCenterSpec.getScaleDownMaxDiskUsage() != null) {
+            return planScaleDown(cqlSessionHandler)
+                    .flatMapCompletable(decision -> {
+                        if (!decision.isAccepted()) {
+                            logger.warn("datacenter={} Cannot scale down, {}", dataCenter.id(), decision.getReason());
+                            endOperation("Cannot scale-down, " + decision.getReason());
+                            return k8sResourceUtils.updateDataCenterStatus(dataCenter, dataCenterStatus).ignoreElement();
+                        }
+                        logger.info("datacenter={} scale down rack={} pod={} {}", dataCenter.id(), decision.getRack(), decision.getPod(), decision.getReason());
+                        return scaleDownZone(zones.get(decision.getRack()), configMapVolumeMounts, cqlSessionHandler);
+                    });
+        }
+        return scaleDownZone(scaleDownZone.get(), configMapVolumeMounts, cqlSessionHandler);
+    }
+
+    /**
+     * Read the load of all nodes and simulate the decommission of the last pod of each rack.
+     */
+    Single<ScaleDownPlanner.Decision> planScaleDown(CqlSessionHandler cqlSessionHandler) throws Exception {
+        final Long capacity = dataVolumeCapacity();
+        final List<String> racks = zones.scaleDownCandidates().stream().map(Zone::getName).collect(Collectors.toList());
+        final List<Single<ScaleDownPlanner.NodeLoad>> todoList = new ArrayList<>();
+        for (Zone zone : zones) {
+            if (!zone.getSts().isPresent())
+                continue;
+            V1StatefulSet sts = zone.getSts().get();
+            int rackIndex = Integer.parseInt(sts.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
+            for (int i = 0; i < zone.replicas(); i++) {
+                final ElassandraPod pod = new ElassandraPod(dataCenter, rackIndex, i);
+                final int ordinal = i;
+                // an unreachable node only prevents the scale down of the racks where it would receive data
+                todoList.add(Single.defer(() -> jmxmpElassandraProxy.load(pod))
+                        .map(load -> new ScaleDownPlanner.NodeLoad(pod.getName(), zone.getName(), ordinal, load, capacity))
+                        .onErrorReturn(t -> {
+                            logger.warn("datacenter={} Cannot read the load of pod={}: {}", dataCenter.id(), pod.getName(), t.toString());
+                            return new ScaleDownPlanner.NodeLoad(pod.getName(), zone.getName(), ordinal, null, capacity);
+                        }));
+            }
+        }
+        final int rackCount = zones.rackCount();
+        return cqlKeyspaceManager.maxReplicationFactor(dataCenter, dataCenterStatus, cqlSessionHandler)
+                .onErrorResumeNext(t -> {
+                    // assume the worst case, data streamed to the same rack
+                    logger.warn("datacenter={} Cannot read the keyspaces replication factor: {}", dataCenter.id(), t.toString());
+                    return Single.just(rackCount);
+                })
+                .zipWith(Single.merge(todoList).toList(), (maxRf, nodes) -> {
+                    ScaleDownPlanner.Decision decision = ScaleDownPlanner.plan(racks, nodes,
+                            maxRf != Integer.MAX_VALUE && maxRf >= rackCount, dataCenterSpec.getScaleDownMaxDiskUsage());
+                    logger.debug("datacenter={} scale down racks={} nodes={} maxRf={} decision={}", dataCenter.id(), racks, nodes, maxRf, decision);
+                    return decision;
+                });
+    }
+
+    Completable scaleDownZone(Zone zone, ConfigMapVolumeMounts configMapVolumeMounts, CqlSessionHandler cqlSessionHandler) throws Exception {
+        Completable todo = Completable.complete();
         V1StatefulSet sts = zone.getSts().get();
         Integer rackIndex = Integer.parseInt(sts.getMetadata().getLabels().get(OperatorLabels.RACKINDEX));
         RackStatus rackStatus = dataCenterStatus.getRackStatuses().get(rackIndex);
 
-        if (dataCenterStatus.getBootstrapped() && dataCenterSpec.getReplicas() > 1) {
+        if (dataCenterStatus.getBootstrapped() && targetReplicas() > 1) {
             todo = cqlKeyspaceManager.decreaseRfBeforeScalingDownDc(dataCenter, dataCenterStatus, zones.totalReplicas() - 1, cqlSessionHandler)
                     .andThen(Completable.fromAction(() -> {
                         // update the DC status after the decreaseRf because decreaseRf test DC phase is RUNNING...
@@ -660,6 +1722,9 @@ public class DataCenterUpdateAction {
         public final V1ConfigMap configMap;
         public final V1ConfigMapVolumeSource volumeSource;
         public final String mountName, mountPath;
+        public LiveConfig liveConfig;   // live settings excluded from the fingerprint
+        public String sourceVersion;    // version of the source configmap used to memoize the fingerprint
+        private String fingerprint;
 
         public ConfigMapVolumeMountBuilder(final V1ConfigMap configMap, final V1ConfigMapVolumeSource volumeSource, final String mountName, final String mountPath) {
             this.configMap = configMap;
@@ -692,7 +1757,11 @@ public class DataCenterUpdateAction {
         }
 
         public String fingerPrint() {
-            return configMapFingerPrint(configMap);
+            if (fingerprint == null) {
+                fingerprint = fingerprintCache.get(key, "configmap/" + configMap.getMetadata().getName(), sourceVersion,
+                        () -> configMapFingerPrint(liveConfig == null ? configMap : liveConfig.restartConfigMap(configMap)));
+            }
+            return fingerprint;
         }
 
         public ConfigMapVolumeMountBuilder makeUnique() {
@@ -708,6 +1777,18 @@ public class DataCenterUpdateAction {
             this(null, volumeSource, mountName, mountPath);
         }
 
+        public ConfigMapVolumeMountBuilder(final ConfigMapState state, final String mountName, final String mountPath) {
+            this(state.configMap, state.volumeSource, mountName, mountPath);
+            this.fingerprint = state.fingerprint;
+        }
+
+        /**
+         * @return the generated configmap to share through the {@link DesiredStateCache}, no more file should be added.
+         */
+        public ConfigMapState state() {
+            return new ConfigMapState(configMap, volumeSource, fingerprint);
+        }
+
         public Single<ConfigMapVolumeMountBuilder> createOrReplaceNamespacedConfigMap() throws ApiException {
             if (configMap != null) {
                 return k8sResourceUtils.createOrReplaceNamespacedConfigMap(configMap).map(c -> this);
@@ -719,6 +1800,7 @@ public class DataCenterUpdateAction {
             final String encodedKey = path.replaceAll("\\W", "_");
 
             configMap.putDataItem(encodedKey, content);
+            fingerprint = null;
             volumeSource.addItemsItem(new V1KeyToPath().key(encodedKey).path(path));
             return this;
         }
@@ -731,35 +1813,87 @@ public class DataCenterUpdateAction {
     }
 
 
+    /**
+     * Immutable generated configmap, reused while the datacenter generation does not change.
+     */
+    static class ConfigMapState {
+        final V1ConfigMap configMap;
+        final V1ConfigMapVolumeSource volumeSource;
+        final String fingerprint;
+
+        ConfigMapState(V1ConfigMap configMap, V1ConfigMapVolumeSource volumeSource, String fingerprint) {
+            this.configMap = configMap;
+            this.volumeSource = volumeSource;
+            this.fingerprint = fingerprint;
+        }
+    }
+
     class ConfigMapVolumeMounts implements Iterable<ConfigMapVolumeMountBuilder> {
         public ConfigMapVolumeMountBuilder seedConfig;  // per DC configmap, can be changed without triggering a rolling restart
         public ConfigMapVolumeMountBuilder rackConfig;  // per rack configmap
 
         public final ConfigMapVolumeMountBuilder operatorConfig;  // configmap generated from CRD
+        public final Optional<ConfigMapVolumeMountBuilder> tuningConfig;  // configmap generated from the workload and resources
         public final Optional<ConfigMapVolumeMountBuilder> userConfig;  // user provided configmap
 
-        public ConfigMapVolumeMounts(Optional<V1ConfigMap> userConfig) throws IOException, ApiException {
+        public ConfigMapVolumeMounts(Optional<V1ConfigMap> userConfig) throws Exception {
             this.operatorConfig = builder.buildConfigMapOperator();
+            this.tuningConfig = builder.buildConfigMapTuning();
             this.userConfig = builder.buildConfigMapUser(userConfig);
         }
 
-        public void setRack(RackStatus rackStatus) throws IOException, ApiException {
+        public void setRack(RackStatus rackStatus) throws Exception {
             this.rackConfig = builder.buildConfigMapRack(rackStatus);
             this.seedConfig = builder.buildConfigMapSeed(zones);
         }
 
         public String fingerPrint() {
-            String fingerprint = configMapFingerPrint(this.operatorConfig.configMap);
+            String fingerprint = this.operatorConfig.fingerPrint();
+            if (tuningConfig.isPresent()) {
+                fingerprint += "-" + tuningConfig.get().fingerPrint();
+            }
             if (userConfig.isPresent()) {
-                fingerprint += "-" + configMapFingerPrint(userConfig.get().configMap);
+                fingerprint += "-" + userConfig.get().fingerPrint();
             } else {
                 fingerprint += "-0000000";
             }
             return fingerprint;
         }
 
+        /**
+         * @return live settings of the user config map.
+         */
+        public LiveConfig liveConfig() {
+            return userConfig.isPresent() && userConfig.get().liveConfig != null ? userConfig.get().liveConfig : LiveConfig.EMPTY;
+        }
+
+        /**
+         * @return default value of the Cassandra live settings, from the operator generated config maps or Cassandra.
+         */
+        public Map<String, Object> cassandraLiveSettingsDefaults() {
+            final Map<String, Object> defaults = new HashMap<>(LiveConfig.CASSANDRA_LIVE_SETTINGS_DEFAULTS);
+            defaults.putAll(LiveConfig.of(operatorConfig.configMap, operatorConfig.volumeSource).getCassandraSettings());
+            if (tuningConfig.isPresent())
+                defaults.putAll(LiveConfig.of(tuningConfig.get().configMap, tuningConfig.get().volumeSource).getCassandraSettings());
+            return defaults;
+        }
+
+        /**
+         * Update the user config map in place when only live settings have changed,
+         * so that restarted pods get the current live settings.
+         */
+        public Completable replaceUserConfigMap() throws ApiException {
+            return userConfig.isPresent() ?
+                    userConfig.get().makeUnique().createOrReplaceNamespacedConfigMap().ignoreElement() :
+                    Completable.complete();
+        }
+
         public Completable createOrReplaceNamespacedConfigMaps() throws ApiException {
             return operatorConfig.createOrReplaceNamespacedConfigMap().ignoreElement()
+                    .andThen(tuningConfig.isPresent() ?
+                            tuningConfig.get().createOrReplaceNamespacedConfigMap().ignoreElement() :
+                            Completable.complete()
+                    )
                     .andThen(rackConfig.createOrReplaceNamespacedConfigMap().ignoreElement())
                     .andThen(seedConfig.createOrReplaceNamespacedConfigMap().ignoreElement())
                     // use user configmap
@@ -776,8 +1910,10 @@ public class DataCenterUpdateAction {
          */
         @Override
         public Iterator<ConfigMapVolumeMountBuilder> iterator() {
-            List<ConfigMapVolumeMountBuilder> builders = new ArrayList<>(4);
+            List<ConfigMapVolumeMountBuilder> builders = new ArrayList<>(5);
             builders.add(operatorConfig);
+            if (tuningConfig.isPresent())
+                builders.add(tuningConfig.get());
             builders.add(rackConfig);
             builders.add(seedConfig);
             if (userConfig.isPresent())
@@ -786,6 +1922,32 @@ public class DataCenterUpdateAction {
         }
     }
 
+    /**
+     * @return the datacenter uid and generation, or null if not yet known.
+     */
+    String dataCenterVersion() {
+        return dataCenterMetadata.getGeneration() == null ? null : dataCenterMetadata.getUid() + "-" + dataCenterMetadata.getGeneration();
+    }
+
+    /**
+     * Datacenter spec fingerprint, computed once per datacenter generation.
+     */
+    public String elassandraFingerprint() {
+        String fingerprint = fingerprintCache.get(key, "datacenter", dataCenterVersion(),
+                dataCenterSpec::elassandraFingerprint);
+        // applied vertical autoscaling resources trigger a rolling update
+        String resourcesVersion = resourcesVersion();
+        return resourcesVersion == null ? fingerprint : DigestUtils.sha1Hex(fingerprint + "-" + resourcesVersion).substring(0, 7);
+    }
+
+    /**
+     * @return the applied vertical autoscaling memory/cpu, or null.
+     */
+    String resourcesVersion() {
+        VerticalAutoscalingStatus verticalAutoscalingStatus = appliedVerticalAutoscaling();
+        return verticalAutoscalingStatus == null ? null : verticalAutoscalingStatus.getMemory() + "/" + verticalAutoscalingStatus.getCpu();
+    }
+
     /**
      * SHA1 first 7 caraters fingerprint of binaryData+data
      *
@@ -796,7 +1958,7 @@ public class DataCenterUpdateAction {
         object.put("data", configMap.getData());
         if (configMap.getBinaryData() != null)
             object.put("binaryData", configMap.getBinaryData());
-        return DigestUtils.sha1Hex(appsApi.getApiClient().getJSON().getGson().toJson(object)).substring(0, 7);
+        return FingerprintHasher.sha1Hex(appsApi.getApiClient().getJSON().getGson(), object).substring(0, 7);
     }
 
     public class Builder {
@@ -1171,12 +2333,75 @@ public class DataCenterUpdateAction {
         }
 
         /**
-         * One configmap per sts, mutable and suffixed by a hash of the spec data
+         * One configmap per sts, mutable and suffixed by a hash of the spec data, rebuilt when the datacenter generation changes.
          *
          * @return
-         * @throws IOException
+         * @throws Exception
          */
-        public ConfigMapVolumeMountBuilder buildConfigMapOperator() throws IOException {
+        public ConfigMapVolumeMountBuilder buildConfigMapOperator() throws Exception {
+            ConfigMapState state = desiredStateCache.get(key, "configmap/operator", resourcesDataCenterVersion(), () -> newConfigMapOperator().state());
+            return new ConfigMapVolumeMountBuilder(state, "operator-config-volume", "/tmp/operator-config");
+        }
+
+        /**
+         * Configmap generated by the {@link WorkloadTuning} from the workload, the resources and the data volume,
+         * suffixed by a hash of its data and rebuilt when the datacenter generation or the applied resources change.
+         *
+         * @return the tuning configmap, or empty when autoTuning is disabled.
+         */
+        public Optional<ConfigMapVolumeMountBuilder> buildConfigMapTuning() throws Exception {
+            ConfigMapState state = desiredStateCache.get(key, "configmap/tuning", resourcesDataCenterVersion(), () -> newConfigMapTuning().state());
+            return state.configMap == null ? Optional.empty() : Optional.of(new ConfigMapVolumeMountBuilder(state, "operator-config-volume-tuning", "/tmp/operator-config-tuning"));
+        }
+
+        /**
+         * @return the datacenter version and the applied vertical autoscaling resources, the heap size depending on the memory.
+         */
+        private String resourcesDataCenterVersion() {
+            return (dataCenterVersion() == null || resourcesVersion() == null) ? dataCenterVersion() : dataCenterVersion() + "-" + resourcesVersion();
+        }
+
+        private ConfigMapVolumeMountBuilder newConfigMapTuning() {
+            final WorkloadTuning.Inputs inputs = workloadTuningInputs();
+            final Map<String, String> files = WorkloadTuning.files(inputs);
+            logger.debug("datacenter={} tuning inputs={} files={}", dataCenter.id(), inputs, files.keySet());
+            if (files.isEmpty())
+                return new ConfigMapVolumeMountBuilder(null, null, "operator-config-volume-tuning", "/tmp/operator-config-tuning");
+
+            if (inputs.getMemoryMb() != null && inputs.isComputeJvmMemorySettings() && WorkloadTuning.heapSizeMb(inputs.getMemoryMb()) < 1.2 * 1024) {
+                logger.warn("Cannot deploy elassandra with less than 1.2Gb heap, please increase your kubernetes memory limits if you are in production environment");
+            }
+
+            final V1ConfigMap configMap = new V1ConfigMap().metadata(dataCenterObjectMeta(OperatorNames.tuningConfig(dataCenter)));
+            final V1ConfigMapVolumeSource volumeSource = new V1ConfigMapVolumeSource().name(configMap.getMetadata().getName());
+            final ConfigMapVolumeMountBuilder configMapVolumeMountBuilder =
+                    new ConfigMapVolumeMountBuilder(configMap, volumeSource, "operator-config-volume-tuning", "/tmp/operator-config-tuning");
+            for (Map.Entry<String, String> file : files.entrySet())
+                configMapVolumeMountBuilder.addFile(file.getKey(), file.getValue());
+            return configMapVolumeMountBuilder.makeUnique();
+        }
+
+        private WorkloadTuning.Inputs workloadTuningInputs() {
+            final V1ResourceRequirements resources = elassandraResources();
+            final Quantity memory = resource(resources, "memory");
+            final Quantity cpu = resource(resources, "cpu");
+            // without cpu request, fallback to the available processors
+            final int cores = cpu == null ? Math.max(1, Runtime.getRuntime().availableProcessors()) : QuantityConverter.toCpu(cpu);
+
+            final String storageClassName = dataCenterSpec.getDataVolumeClaim() == null ? null : dataCenterSpec.getDataVolumeClaim().getStorageClassName();
+
+            return new WorkloadTuning.Inputs(
+                    dataCenterSpec.getCassandra().getWorkload(),
+                    WorkloadTuning.diskType(dataCenterSpec.getCassandra().getDiskType(), storageClassName),
+                    cores,
+                    memory == null ? null : QuantityConverter.toMegaBytes(memory),
+                    Boolean.TRUE.equals(dataCenterSpec.getCassandra().getAutoTuning()),
+                    dataCenterSpec.getJvm().isComputeJvmMemorySettings(),
+                    dataCenterSpec.getElasticsearch().getEnabled());
+        }
+
+        private ConfigMapVolumeMountBuilder newConfigMapOperator() throws IOException {
+            final boolean autoTuning = Boolean.TRUE.equals(dataCenterSpec.getCassandra().getAutoTuning());
             final V1ConfigMap configMap = new V1ConfigMap().metadata(dataCenterObjectMeta(OperatorNames.operatorConfig(dataCenter)));
             final V1ConfigMapVolumeSource volumeSource = new V1ConfigMapVolumeSource().name(configMap.getMetadata().getName());
             final ConfigMapVolumeMountBuilder configMapVolumeMountBuilder =
@@ -1198,24 +2423,27 @@ public class DataCenterUpdateAction {
                 // disable dynamic snitch for better stability,
                 config.put("dynamic_snitch", false);
 
+                // with autoTuning, concurrency, memtables, caches and compaction settings are generated in the tuning configmap
                 // compute the number os CPU to adapt the ConcurrentWriter settings (force a min to 1 to avoid the a ThreadPool of 0)
                 final int cpu = Math.max(1, Runtime.getRuntime().availableProcessors());
-                // writer recommendation is 8 * CPUs
-                final int concurrentWriter = cpu * 8;
-                config.put("concurrent_writes", concurrentWriter);
-                config.put("concurrent_materialized_view_writes", concurrentWriter);
-
-                // reader recommendation is based on the number of disk (nbDisk * 16)
-                // so leave the default value or set to nb of writer if writers are more than 32...
-                final int concurrentReader = Math.max(32, concurrentWriter);
-                config.put("concurrent_reads", concurrentReader);
-                // counter use the same as reader because counter read the value before increment & write value
-                config.put("concurrent_counter_writes", concurrentReader);
+                if (!autoTuning) {
+                    // writer recommendation is 8 * CPUs
+                    final int concurrentWriter = cpu * 8;
+                    config.put("concurrent_writes", concurrentWriter);
+                    config.put("concurrent_materialized_view_writes", concurrentWriter);
+
+                    // reader recommendation is based on the number of disk (nbDisk * 16)
+                    // so leave the default value or set to nb of writer if writers are more than 32...
+                    final int concurrentReader = Math.max(32, concurrentWriter);
+                    config.put("concurrent_reads", concurrentReader);
+                    // counter use the same as reader because counter read the value before increment & write value
+                    config.put("concurrent_counter_writes", concurrentReader);
+                }
 
                 // value used by : https://blog.deimos.fr/2018/06/24/running-cassandra-on-kubernetes/
                 config.put("hinted_handoff_throttle_in_kb", 4096);
 
-                if (dataCenterSpec.getCassandra().getWorkload() != null) {
+                if (!autoTuning && dataCenterSpec.getCassandra().getWorkload() != null) {
                     if (dataCenterSpec.getCassandra().getWorkload().equals(Workload.READ)
                             || dataCenterSpec.getCassandra().getWorkload().equals(Workload.READ_WRITE)) {
                         // because we are in a read heavy workload, we set the cache to 100MB
@@ -1295,15 +2523,21 @@ public class DataCenterUpdateAction {
             }
             configMapVolumeMountBuilder.addFile("jvm.options.d/001-jmx.options", jvmOptionsD.toString());
 
+            // allow concurrent bootstraps in distinct racks
+            if (ObjectUtils.defaultIfNull(dataCenterSpec.getMaxConcurrentBootstraps(), 1) > 1) {
+                configMapVolumeMountBuilder.addFile("jvm.options.d/001-bootstrap.options", "-Dcassandra.consistent.rangemovement=false");
+            }
+
             // Add jdb transport socket
             if (dataCenterSpec.getJvm().getJdbPort() > 0) {
                 configMapVolumeMountBuilder.addFile("cassandra-env.sh.d/001-cassandra-jdb.sh",
                         "JVM_OPTS=\"${JVM_OPTS} -Xdebug -Xnoagent -Xrunjdwp:transport=dt_socket,server=y,suspend=n,address=${POD_IP}:" + dataCenterSpec.getJvm().getJdbPort() + "\"");
             }
 
-            // heap size and GC settings
-            if (dataCenterSpec.getJvm().isComputeJvmMemorySettings() && dataCenterSpec.getResources() != null) {
-                Map<String, Quantity> resourceQuantity = Optional.ofNullable(dataCenterSpec.getResources().getRequests()).orElse(dataCenterSpec.getResources().getLimits());
+            // heap size and GC settings, generated in the tuning configmap with autoTuning
+            final V1ResourceRequirements resources = elassandraResources();
+            if (!autoTuning && dataCenterSpec.getJvm().isComputeJvmMemorySettings() && resources != null) {
+                Map<String, Quantity> resourceQuantity = Optional.ofNullable(resources.getRequests()).orElse(resources.getLimits());
                 final long memoryLimit = QuantityConverter.toMegaBytes(resourceQuantity.get("memory"));
                 final long coreCount = QuantityConverter.toCpu(resourceQuantity.get("cpu"));
 
@@ -1327,7 +2561,6 @@ public class DataCenterUpdateAction {
                 }
 
                 final boolean useG1GC = (jvmHeapSizeInMb > 12 * 1024);
-                //final StringWriter writer = new StringWriter();
                 StringBuilder jvmGCOptions = new StringBuilder(500);
 
                 jvmGCOptions.append(String.format(Locale.ROOT, "-Xms%dm", (long) jvmHeapSizeInMb) + "\n"); // min heap size
@@ -1338,12 +2571,7 @@ public class DataCenterUpdateAction {
                     jvmGCOptions.append("-XX:+UseG1GC\n");
                     jvmGCOptions.append("-XX:G1RSetUpdatingPauseTimePercent=5\n");
                     jvmGCOptions.append("-XX:MaxGCPauseMillis=500\n");
-
-                    if (jvmHeapSizeInMb > 12 * 1024) {
-                        jvmGCOptions.append("-XX:InitiatingHeapOccupancyPercent=70\n");
-                    }
-
-                    // TODO: tune -XX:ParallelGCThreads, -XX:ConcGCThreads
+                    jvmGCOptions.append("-XX:InitiatingHeapOccupancyPercent=70\n");
                 } else {
                     jvmGCOptions.append(String.format(Locale.ROOT, "-Xmn%dm", (long) youngGenSizeInMb) + "\n"); // young gen size
                     jvmGCOptions.append("-XX:+UseParNewGC\n");
@@ -1361,7 +2589,6 @@ public class DataCenterUpdateAction {
                 configMapVolumeMountBuilder.addFile("jvm.options.d/001-jvm-memory-gc.options", jvmGCOptions.toString());
             }
 
-
             // TODO: maybe tune -Dcassandra.available_processors=number_of_processors - Wait till we build C* for Java 11
             // not sure if k8s exposes the right number of CPU cores inside the container
 
@@ -1470,7 +2697,12 @@ public class DataCenterUpdateAction {
          * configuration that is specific to rack. For the moment, an update of it does not trigger a restart
          * One immutable configmap per rack
          */
-        private ConfigMapVolumeMountBuilder buildConfigMapRack(final RackStatus rackStatus) throws IOException {
+        private ConfigMapVolumeMountBuilder buildConfigMapRack(final RackStatus rackStatus) throws Exception {
+            ConfigMapState state = desiredStateCache.get(key, "configmap/rack/" + rackStatus.getName(), dataCenterVersion(), () -> newConfigMapRack(rackStatus).state());
+            return new ConfigMapVolumeMountBuilder(state, "operator-config-volume-rack", "/tmp/operator-config-rack");
+        }
+
+        private ConfigMapVolumeMountBuilder newConfigMapRack(final RackStatus rackStatus) throws IOException {
             final V1ConfigMap configMap = new V1ConfigMap().metadata(rackObjectMeta(rackStatus));
             final V1ConfigMapVolumeSource volumeSource = new V1ConfigMapVolumeSource().name(configMap.getMetadata().getName());
 
@@ -1489,20 +2721,29 @@ public class DataCenterUpdateAction {
                     .addFile("cassandra-topology.properties", String.format(Locale.ROOT, "default=%s:%s", dataCenterSpec.getDatacenterName(), rackStatus.getName()));
         }
 
-        public Optional<ConfigMapVolumeMountBuilder> buildConfigMapUser(Optional<V1ConfigMap> userConfigMap) {
-            return userConfigMap.map(configMap -> {
-                        V1ObjectMeta meta = new V1ObjectMeta()
-                                .name(configMap.getMetadata().getName())
-                                .namespace(configMap.getMetadata().getNamespace())
-                                .annotations(configMap.getMetadata().getAnnotations())
-                                .labels(configMap.getMetadata().getLabels())
-                                .addOwnerReferencesItem(OperatorNames.ownerReference(dataCenter));
-                        V1ConfigMap configMap1 = new V1ConfigMap()
-                                .metadata(meta)
-                                .data(configMap.getData())
-                                .binaryData(configMap.getBinaryData());
-                        return new ConfigMapVolumeMountBuilder(configMap1, dataCenterSpec.getUserConfigMapVolumeSource(), "user-config-volume", "/tmp/user-config");
-                    });
+        public Optional<ConfigMapVolumeMountBuilder> buildConfigMapUser(Optional<V1ConfigMap> userConfigMap) throws Exception {
+            if (!userConfigMap.isPresent())
+                return Optional.empty();
+
+            V1ConfigMap configMap = userConfigMap.get();
+            V1ObjectMeta meta = new V1ObjectMeta()
+                    .name(configMap.getMetadata().getName())
+                    .namespace(configMap.getMetadata().getNamespace())
+                    .annotations(configMap.getMetadata().getAnnotations())
+                    .labels(configMap.getMetadata().getLabels())
+                    .addOwnerReferencesItem(OperatorNames.ownerReference(dataCenter));
+            V1ConfigMap configMap1 = new V1ConfigMap()
+                    .metadata(meta)
+                    .data(configMap.getData())
+                    .binaryData(configMap.getBinaryData());
+            ConfigMapVolumeMountBuilder configMapVolumeMountBuilder = new ConfigMapVolumeMountBuilder(configMap1, dataCenterSpec.getUserConfigMapVolumeSource(), "user-config-volume", "/tmp/user-config");
+            // the volume source items of the datacenter spec classify the live settings
+            if (configMap.getMetadata().getResourceVersion() != null && dataCenterMetadata.getGeneration() != null)
+                configMapVolumeMountBuilder.sourceVersion = configMap.getMetadata().getResourceVersion() + "-" + dataCenterMetadata.getGeneration();
+            // live settings are parsed once per user configmap version
+            configMapVolumeMountBuilder.liveConfig = desiredStateCache.get(key, "liveconfig", configMapVolumeMountBuilder.sourceVersion,
+                    () -> LiveConfig.of(configMap1, dataCenterSpec.getUserConfigMapVolumeSource()));
+            return Optional.of(configMapVolumeMountBuilder);
         }
 
 
@@ -1614,8 +2855,102 @@ public class DataCenterUpdateAction {
         }
 
         public Single<V1StatefulSet> buildStatefulSetRack(RackStatus rackStatus, ConfigMapVolumeMounts configMapVolumeMounts) throws Exception {
+            return buildStatefulSetRack(rackStatus, configMapVolumeMounts, 0, null);
+        }
+
+        /**
+         * Build the rack StatefulSet, only updating pods with an ordinal greater or equals to the partition.
+         *
+         * @param partition StatefulSet rolling update partition
+         * @param rollbackTemplate JSON of the previous pod template to restore on rollback, or null
+         */
+        public Single<V1StatefulSet> buildStatefulSetRack(RackStatus rackStatus, ConfigMapVolumeMounts configMapVolumeMounts, int partition, String rollbackTemplate) throws Exception {
             final V1ObjectMeta statefulSetMetadata = rackObjectMeta(rackStatus);
+            if (rollbackTemplate != null)
+                statefulSetMetadata.putAnnotationsItem(OperatorLabels.ROLLBACK_TEMPLATE, rollbackTemplate);
+
+            // the pod template is rebuilt when the datacenter generation, the configmaps or the nodeinfo secret change
+            final String fingerprint = elassandraFingerprint() + "-" + configMapVolumeMounts.fingerPrint();
+            final String nodeInfoSecretName = nodeInfoSecretName();
+            final V1PodTemplateSpec podTemplate = desiredStateCache.get(key, "podtemplate/" + rackStatus.getName() + "/" + rackStatus.getIndex(),
+                    dataCenterVersion() == null ? null : dataCenterVersion() + "-" + fingerprint + "-" + nodeInfoSecretName,
+                    () -> newPodTemplateRack(rackStatus, configMapVolumeMounts, fingerprint, nodeInfoSecretName));
+            final Map<String, String> rackLabels = OperatorLabels.rack(dataCenter, rackStatus.getName(), rackStatus.getIndex());
+
+            final V1StatefulSetSpec statefulSetSpec = new V1StatefulSetSpec()
+                    // if the serviceName references a headless service, kubeDNS to create an A record for
+                    // each pod : $(podName).$(serviceName).$(namespace).svc.cluster.local
+                    .serviceName(OperatorNames.nodesService(dataCenter))
+                    .replicas(rackStatus.getDesiredReplicas())
+                    .selector(new V1LabelSelector().matchLabels(rackLabels))
+                    .template(podTemplate);
+
+            Zone zone = zones.get(rackStatus.getName());
+            if (zone != null && zone.getSts().isPresent()) {
+                // Avoid PVC replacement and data loss if spec modified...
+                statefulSetSpec.setVolumeClaimTemplates(zone.getSts().get().getSpec().getVolumeClaimTemplates());
+                // immutable, only changed when unparking
+                statefulSetSpec.setPodManagementPolicy(zone.getSts().get().getSpec().getPodManagementPolicy());
+            } else {
+                if (dataCenterSpec.getDataVolumeClaim() != null && dataCenterSpec.getDataVolumeClaim().getStorageClassName() != null) {
+                    String storageClassName = dataCenterSpec.getDataVolumeClaim().getStorageClassName()
+                            .replace("{zone}", rackStatus.getName())
+                            .replace("{index}", Integer.toString(rackStatus.getIndex()));
+                    logger.info("sts={}/{} rack={} creating new PVC with storageClassName={}",
+                            statefulSetMetadata.getName(), rackStatus.getName(), dataCenterMetadata.getNamespace(), storageClassName);
+
+                    V1PersistentVolumeClaimSpec v1PersistentVolumeClaimSpec = new V1PersistentVolumeClaimSpec()
+                            .accessModes(dataCenterSpec.getDataVolumeClaim().getAccessModes())
+                            .dataSource(dataCenterSpec.getDataVolumeClaim().getDataSource())
+                            .resources(dataCenterSpec.getDataVolumeClaim().getResources())
+                            .selector(dataCenterSpec.getDataVolumeClaim().getSelector())
+                            .volumeMode(dataCenterSpec.getDataVolumeClaim().getVolumeMode())
+                            .storageClassName(storageClassName);
+                    statefulSetSpec.setVolumeClaimTemplates(ImmutableList.of(new V1PersistentVolumeClaim()
+                            .metadata(new V1ObjectMeta().name("data-volume")).spec(v1PersistentVolumeClaimSpec)));
+                }
+            }
+
+            if (partition > 0)
+                statefulSetSpec.setUpdateStrategy(new V1StatefulSetUpdateStrategy()
+                        .type("RollingUpdate")
+                        .rollingUpdate(new V1RollingUpdateStatefulSetStrategy().partition(partition)));
+
+            final V1StatefulSet statefulSet = new V1StatefulSet().metadata(statefulSetMetadata).spec(statefulSetSpec);
+            final V1StatefulSet currentStatefulSet = statefulsetCache.getOrDefault(key, new TreeMap<>()).get(rackStatus.getName());
+            if (sameDesiredState(currentStatefulSet, statefulSet)) {
+                logger.debug("datacenter={} sts={} fingerprint={} unchanged", dataCenter.id(), statefulSetMetadata.getName(), fingerprint);
+                return Single.just(currentStatefulSet);
+            }
+
+            return k8sResourceUtils.createOrReplaceNamespacedStatefulSet(statefulSet)
+                    .map(s -> {
+                        statefulsetCache.updateIfAbsent(s);
+                        return s;
+                    });
+        }
+
+        /**
+         * @return the secret name of the nodeinfo service account, or null if not available.
+         */
+        private String nodeInfoSecretName() throws ApiException {
+            if (!dataCenterSpec.getNetworking().nodeInfoRequired())
+                return null;
+            V1ServiceAccount serviceAccount = saSharedIndexInformer.getIndexer().getByKey(
+                    (dataCenterMetadata.getNamespace() == null ? "" : dataCenterMetadata.getNamespace() +"/" ) + OperatorNames.nodeInfoServiceAccount(dataCenter));
+            if (serviceAccount == null) {
+                // try a blocking k8s read if not available from the cache.
+                serviceAccount = k8sResourceUtils.readNamespacedServiceAccount(dataCenterMetadata.getNamespace(), OperatorNames.nodeInfoServiceAccount(dataCenter));
+            }
+            return (serviceAccount != null && serviceAccount.getSecrets() != null && !serviceAccount.getSecrets().isEmpty())
+                    ? serviceAccount.getSecrets().get(0).getName()
+                    : null;
+        }
 
+        /**
+         * Build the rack pod template, shared between reconciliations through the {@link DesiredStateCache}.
+         */
+        private V1PodTemplateSpec newPodTemplateRack(RackStatus rackStatus, ConfigMapVolumeMounts configMapVolumeMounts, String fingerprint, String nodeInfoSecretName) {
             // create Elassandra container and the associated initContainer to replay commitlogs
             final V1Container cassandraContainer = buildElassandraContainer(rackStatus);
             final V1Container commitlogInitContainer = buildInitContainerCommitlogReplayer(rackStatus);
@@ -1710,14 +3045,7 @@ public class DataCenterUpdateAction {
             // Add the nodeinfo init container to bind on the k8s node public IP if available.
             // If externalDns is enabled, this init-container also publish a DNSEndpoint to expose public DNS name of seed nodes.
             if (dataCenterSpec.getNetworking().nodeInfoRequired()) {
-                V1ServiceAccount serviceAccount = saSharedIndexInformer.getIndexer().getByKey(
-                        (dataCenterMetadata.getNamespace() == null ? "" : dataCenterMetadata.getNamespace() +"/" ) + OperatorNames.nodeInfoServiceAccount(dataCenter));
-                if (serviceAccount == null) {
-                    // try a blocking k8s read if not available from the cache.
-                    serviceAccount = k8sResourceUtils.readNamespacedServiceAccount(dataCenterMetadata.getNamespace(), OperatorNames.nodeInfoServiceAccount(dataCenter));
-                }
-                if (serviceAccount != null && serviceAccount.getSecrets() != null && !serviceAccount.getSecrets().isEmpty()) {
-                    String nodeInfoSecretName = serviceAccount.getSecrets().get(0).getName();
+                if (nodeInfoSecretName != null) {
                     podSpec.addInitContainersItem(buildInitContainerNodeInfo(nodeInfoSecretName, rackStatus));
                 } else {
                     logger.warn("datacenter={} nodeinfo secret not found for serviceaccount={}", dataCenter, key);
@@ -1828,7 +3156,6 @@ public class DataCenterUpdateAction {
             }
 
             // CRD spec + configMap fingerprint
-            String fingerprint = dataCenterSpec.elassandraFingerprint() + "-" + configMapVolumeMounts.fingerPrint();
             final V1ObjectMeta templateMetadata = (dataCenterSpec.getPodTemplate() != null && dataCenterSpec.getPodTemplate().getMetadata() != null
                     ? dataCenterSpec.getPodTemplate().getMetadata()
                     : new V1ObjectMeta())
@@ -1851,46 +3178,9 @@ public class DataCenterUpdateAction {
                 podSpec.addInitContainersItem(commitlogInitContainer);
             }
 
-            final V1StatefulSetSpec statefulSetSpec = new V1StatefulSetSpec()
-                    // if the serviceName references a headless service, kubeDNS to create an A record for
-                    // each pod : $(podName).$(serviceName).$(namespace).svc.cluster.local
-                    .serviceName(OperatorNames.nodesService(dataCenter))
-                    .replicas(rackStatus.getDesiredReplicas())
-                    .selector(new V1LabelSelector().matchLabels(rackLabels))
-                    .template(new V1PodTemplateSpec()
-                            .metadata(templateMetadata)
-                            .spec(podSpec)
-                    );
-
-            Zone zone = zones.get(rackStatus.getName());
-            if (zone != null && zone.getSts().isPresent()) {
-                // Avoid PVC replacement and data loss if spec modified...
-                statefulSetSpec.setVolumeClaimTemplates(zone.getSts().get().getSpec().getVolumeClaimTemplates());
-            } else {
-                if (dataCenterSpec.getDataVolumeClaim() != null && dataCenterSpec.getDataVolumeClaim().getStorageClassName() != null) {
-                    String storageClassName = dataCenterSpec.getDataVolumeClaim().getStorageClassName()
-                            .replace("{zone}", rackStatus.getName())
-                            .replace("{index}", Integer.toString(rackStatus.getIndex()));
-                    logger.info("sts={}/{} rack={} creating new PVC with storageClassName={}",
-                            statefulSetMetadata.getName(), rackStatus.getName(), dataCenterMetadata.getNamespace(), storageClassName);
-
-                    V1PersistentVolumeClaimSpec v1PersistentVolumeClaimSpec = new V1PersistentVolumeClaimSpec()
-                            .accessModes(dataCenterSpec.getDataVolumeClaim().getAccessModes())
-                            .dataSource(dataCenterSpec.getDataVolumeClaim().getDataSource())
-                            .resources(dataCenterSpec.getDataVolumeClaim().getResources())
-                            .selector(dataCenterSpec.getDataVolumeClaim().getSelector())
-                            .volumeMode(dataCenterSpec.getDataVolumeClaim().getVolumeMode())
-                            .storageClassName(storageClassName);
-                    statefulSetSpec.setVolumeClaimTemplates(ImmutableList.of(new V1PersistentVolumeClaim()
-                            .metadata(new V1ObjectMeta().name("data-volume")).spec(v1PersistentVolumeClaimSpec)));
-                }
-            }
-
-            return k8sResourceUtils.createOrReplaceNamespacedStatefulSet(new V1StatefulSet().metadata(statefulSetMetadata).spec(statefulSetSpec))
-                    .map(s -> {
-                        statefulsetCache.updateIfAbsent(s);
-                        return s;
-                    });
+            return new V1PodTemplateSpec()
+                    .metadata(templateMetadata)
+                    .spec(podSpec);
         }
 
         private V1Container buildElassandraContainer(RackStatus rack) {
@@ -1934,7 +3224,7 @@ public class DataCenterUpdateAction {
                     .securityContext(new V1SecurityContext()
                             .runAsUser(CASSANDRA_USER_ID)
                             .capabilities(new V1Capabilities().add(ImmutableList.of("IPC_LOCK", "SYS_RESOURCE"))))
-                    .resources(dataCenterSpec.getResources())
+                    .resources(elassandraResources())
                     .addVolumeMountsItem(new V1VolumeMount()
                             .name("data-volume")
                             .mountPath("/var/lib/cassandra")
@@ -2311,6 +3601,25 @@ public class DataCenterUpdateAction {
                     .min(Zone.scaleComparator);
         }
 
+        /**
+         * @return up to count distinct zones where to add a node, in scale up order.
+         */
+        public List<Zone> nextToScaleUp(int count) {
+            return (totalNodes() == totalReplicas()) ? Collections.emptyList() : zoneMap.values().stream()
+                    // only existing racks with free nodes
+                    .filter(z -> z.freeNodeCount() > 0 && z.sts.isPresent())
+                    .sorted(Zone.scaleComparator)
+                    .limit(count)
+                    .collect(Collectors.toList());
+        }
+
+        /**
+         * @return the number of racks having at least one node.
+         */
+        public int rackCount() {
+            return (int) zoneMap.values().stream().filter(z -> z.replicas() > 0).count();
+        }
+
         public Optional<Zone> nextToScaleDown() {
             return (totalReplicas() == 0) ? Optional.empty() : zoneMap.values().stream()
                     // filter-out full nodes
@@ -2319,6 +3628,16 @@ public class DataCenterUpdateAction {
                     .max(Zone.scaleComparator);
         }
 
+        /**
+         * @return zones having at least one replica, in scale down preference order.
+         */
+        public List<Zone> scaleDownCandidates() {
+            return zoneMap.values().stream()
+                    .filter(z -> z.replicas() > 0)
+                    .sorted(Zone.scaleComparator.reversed())
+                    .collect(Collectors.toList());
+        }
+
         public Optional<Zone> first() {
             return zoneMap.values().stream().min(Zone.scaleComparator);
         }
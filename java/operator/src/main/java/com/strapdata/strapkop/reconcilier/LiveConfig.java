@@ -0,0 +1,248 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1ConfigMapVolumeSource;
+import io.kubernetes.client.openapi.models.V1KeyToPath;
+import lombok.Getter;
+import org.apache.cassandra.service.StorageServiceMBean;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.YAMLException;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+/**
+ * Split the user config map between restart settings, requiring a rolling restart when changed,
+ * and live settings applied on running nodes through JMX or the Elasticsearch cluster settings API.
+ */
+@Getter
+public class LiveConfig {
+    private static final Logger logger = LoggerFactory.getLogger(LiveConfig.class);
+
+    /**
+     * Cassandra settings that can be updated through the StorageService MBean.
+     */
+    public static final Map<String, BiConsumer<StorageServiceMBean, Object>> CASSANDRA_LIVE_SETTINGS = ImmutableMap.<String, BiConsumer<StorageServiceMBean, Object>>builder()
+            .put("compaction_throughput_mb_per_sec", (mbean, value) -> mbean.setCompactionThroughputMbPerSec(intValue(value)))
+            .put("stream_throughput_outbound_megabits_per_sec", (mbean, value) -> mbean.setStreamThroughputMbPerSec(intValue(value)))
+            .put("inter_dc_stream_throughput_outbound_megabits_per_sec", (mbean, value) -> mbean.setInterDCStreamThroughputMbPerSec(intValue(value)))
+            .put("hinted_handoff_throttle_in_kb", (mbean, value) -> mbean.setHintedHandoffThrottleInKB(intValue(value)))
+            .put("batch_size_fail_threshold_in_kb", (mbean, value) -> mbean.setBatchSizeFailureThreshold(intValue(value)))
+            .put("tombstone_warn_threshold", (mbean, value) -> mbean.setTombstoneWarnThreshold(intValue(value)))
+            .put("tombstone_failure_threshold", (mbean, value) -> mbean.setTombstoneFailureThreshold(intValue(value)))
+            .put("incremental_backups", (mbean, value) -> mbean.setIncrementalBackupsEnabled(Boolean.parseBoolean(value.toString())))
+            .build();
+
+    /**
+     * Cassandra 3.11 default values of the live settings, restored when a live setting is removed from the user config map.
+     */
+    public static final Map<String, Object> CASSANDRA_LIVE_SETTINGS_DEFAULTS = ImmutableMap.<String, Object>builder()
+            .put("compaction_throughput_mb_per_sec", 16)
+            .put("stream_throughput_outbound_megabits_per_sec", 200)
+            .put("inter_dc_stream_throughput_outbound_megabits_per_sec", 200)
+            .put("hinted_handoff_throttle_in_kb", 1024)
+            .put("batch_size_fail_threshold_in_kb", 50)
+            .put("tombstone_warn_threshold", 1000)
+            .put("tombstone_failure_threshold", 100000)
+            .put("incremental_backups", false)
+            .build();
+
+    /**
+     * Elasticsearch dynamic cluster settings.
+     */
+    public static final Set<String> ELASTICSEARCH_LIVE_SETTINGS = ImmutableSet.of(
+            "indices.recovery.max_bytes_per_sec",
+            "indices.breaker.total.limit",
+            "indices.breaker.fielddata.limit",
+            "indices.breaker.fielddata.overhead",
+            "indices.breaker.request.limit",
+            "indices.breaker.request.overhead",
+            "search.default_search_timeout",
+            "search.default_keep_alive",
+            "search.max_keep_alive",
+            "search.max_buckets",
+            "action.auto_create_index",
+            "action.destructive_requires_name");
+
+    enum ConfigKind { CASSANDRA, ELASTICSEARCH, OTHER }
+
+    /**
+     * User config map data without the live settings, used to compute the restart fingerprint.
+     */
+    private final Map<String, String> restartData = new LinkedHashMap<>();
+
+    /**
+     * Cassandra live settings, sorted by name.
+     */
+    private final SortedMap<String, Object> cassandraSettings = new TreeMap<>();
+
+    /**
+     * Flattened Elasticsearch live settings, sorted by name.
+     */
+    private final SortedMap<String, Object> elasticsearchSettings = new TreeMap<>();
+
+    public static final LiveConfig EMPTY = new LiveConfig();
+
+    /**
+     * Extract live settings from the cassandra.yaml.d and elasticsearch.yml.d YAML files of a config map.
+     * Files without any live setting are kept unchanged in the restart data.
+     *
+     * @param configMap the user config map
+     * @param volumeSource the user config map volume source, mapping keys to file paths
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static LiveConfig of(V1ConfigMap configMap, V1ConfigMapVolumeSource volumeSource) {
+        LiveConfig liveConfig = new LiveConfig();
+        if (configMap.getData() == null)
+            return liveConfig;
+
+        Map<String, String> keyToPath = new HashMap<>();
+        if (volumeSource != null && volumeSource.getItems() != null) {
+            for (V1KeyToPath item : volumeSource.getItems())
+                keyToPath.put(item.getKey(), item.getPath());
+        }
+
+        for (Map.Entry<String, String> entry : configMap.getData().entrySet()) {
+            String data = entry.getValue();
+            ConfigKind kind = kind(entry.getKey(), keyToPath.getOrDefault(entry.getKey(), entry.getKey()));
+            if (kind != ConfigKind.OTHER && data != null) {
+                try {
+                    Object tree = new Yaml().load(data);
+                    if (tree instanceof Map) {
+                        Map<String, Object> settings = kind == ConfigKind.CASSANDRA
+                                ? new LinkedHashMap<>((Map<String, Object>) tree)
+                                : flatten((Map<String, Object>) tree);
+                        Set<String> liveKeys = kind == ConfigKind.CASSANDRA ? CASSANDRA_LIVE_SETTINGS.keySet() : ELASTICSEARCH_LIVE_SETTINGS;
+                        Map<String, Object> live = kind == ConfigKind.CASSANDRA ? liveConfig.cassandraSettings : liveConfig.elasticsearchSettings;
+                        boolean removed = false;
+                        for (Iterator<Map.Entry<String, Object>> it = settings.entrySet().iterator(); it.hasNext(); ) {
+                            Map.Entry<String, Object> setting = it.next();
+                            if (liveKeys.contains(setting.getKey()) && setting.getValue() != null) {
+                                live.put(setting.getKey(), setting.getValue());
+                                it.remove();
+                                removed = true;
+                            }
+                        }
+                        if (removed)
+                            data = settings.isEmpty() ? "" : dump(settings);
+                    }
+                } catch (YAMLException e) {
+                    logger.warn("Cannot parse config file key={}, considered as a restart setting: {}", entry.getKey(), e.getMessage());
+                }
+            }
+            liveConfig.restartData.put(entry.getKey(), data);
+        }
+        return liveConfig;
+    }
+
+    static ConfigKind kind(String key, String path) {
+        if (path.startsWith("cassandra.yaml.d/") || key.startsWith("cassandra_yaml_d"))
+            return ConfigKind.CASSANDRA;
+        if (path.startsWith("elasticsearch.yml.d/") || key.startsWith("elasticsearch_yml_d"))
+            return ConfigKind.ELASTICSEARCH;
+        return ConfigKind.OTHER;
+    }
+
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> flatten(Map<String, Object> tree) {
+        Map<String, Object> flat = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : tree.entrySet()) {
+            if (entry.getValue() instanceof Map) {
+                for (Map.Entry<String, Object> child : flatten((Map<String, Object>) entry.getValue()).entrySet())
+                    flat.put(entry.getKey() + "." + child.getKey(), child.getValue());
+            } else {
+                flat.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return flat;
+    }
+
+    static String dump(Map<String, Object> settings) {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return new Yaml(options).dump(settings);
+    }
+
+    static int intValue(Object value) {
+        return (value instanceof Number) ? ((Number) value).intValue() : Integer.parseInt(value.toString().trim());
+    }
+
+    public boolean isEmpty() {
+        return cassandraSettings.isEmpty() && elasticsearchSettings.isEmpty();
+    }
+
+    /**
+     * Cassandra settings to apply on running nodes, where live settings missing from this config are reset to their default value.
+     *
+     * @param defaults default value of the live settings, from the operator generated config files or Cassandra
+     * @return all the Cassandra live settings, sorted by name
+     */
+    public SortedMap<String, Object> cassandraSettingsWithDefaults(Map<String, Object> defaults) {
+        SortedMap<String, Object> settings = new TreeMap<>();
+        for (String key : CASSANDRA_LIVE_SETTINGS.keySet()) {
+            Object value = defaults.get(key);
+            if (value != null)
+                settings.put(key, value);
+        }
+        settings.putAll(cassandraSettings);
+        return settings;
+    }
+
+    /**
+     * Elasticsearch transient settings to apply, where previously applied live settings missing from this config are reset with a null value.
+     * Other settings are left unchanged, as they may have been set on the cluster without the operator.
+     *
+     * @param applied keys of the Elasticsearch live settings previously applied from the user config map
+     * @return the Elasticsearch live settings to update, sorted by name
+     */
+    public SortedMap<String, Object> elasticsearchSettingsWithDefaults(Collection<String> applied) {
+        SortedMap<String, Object> settings = new TreeMap<>();
+        if (applied != null) {
+            for (String key : applied)
+                settings.put(key, null);
+        }
+        settings.putAll(elasticsearchSettings);
+        return settings;
+    }
+
+    /**
+     * Build a config map containing only the restart settings.
+     */
+    public V1ConfigMap restartConfigMap(V1ConfigMap configMap) {
+        return new V1ConfigMap()
+                .metadata(configMap.getMetadata())
+                .data(restartData)
+                .binaryData(configMap.getBinaryData());
+    }
+
+    /**
+     * SHA1 first 7 caraters fingerprint of the live settings, or null when there is no live setting.
+     */
+    public String fingerPrint() {
+        return isEmpty() ? null : DigestUtils.sha1Hex(cassandraSettings.toString() + elasticsearchSettings.toString()).substring(0, 7);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.OperatorConfig;
+import com.strapdata.strapkop.k8s.WorkQueues;
+import com.strapdata.strapkop.model.Key;
+import com.strapdata.strapkop.model.k8s.datacenter.AutoScaleMode;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenter;
+import com.strapdata.strapkop.model.k8s.datacenter.Operation;
+import com.strapdata.strapkop.model.k8s.datacenter.VerticalAutoscalingMode;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.micronaut.discovery.event.ServiceShutdownEvent;
+import io.micronaut.discovery.event.ServiceStartedEvent;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Async;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Date;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Periodically submit an autoscale reconciliation for datacenters in METRICS autoscale mode or with vertical autoscaling.
+ */
+@Singleton
+public class MetricsAutoscaler {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsAutoscaler.class);
+    private Timer autoscalerThread;
+
+    @Inject
+    private OperatorConfig operatorConfig;
+
+    @Inject
+    private SharedInformerFactory sharedInformerFactory;
+
+    @Inject
+    private WorkQueues workQueues;
+
+    @Inject
+    private DataCenterReconcilier dataCenterReconcilier;
+
+    @EventListener
+    @Async
+    void onStartup(ServiceStartedEvent event) {
+        this.autoscalerThread = new Timer("elassandra-metrics-autoscaler", true);
+        final long periodInMs = operatorConfig.getAutoscalePeriod().toMillis();
+        logger.info("Starting metrics autoscaler period={}", periodInMs);
+        autoscalerThread.schedule(new Autoscaler(), periodInMs, periodInMs);
+    }
+
+    @EventListener
+    @Async
+    void onShutdown(ServiceShutdownEvent event) {
+        if (autoscalerThread != null){
+            autoscalerThread.cancel();
+        }
+    }
+
+    static boolean autoscaled(DataCenter dataCenter) {
+        return AutoScaleMode.METRICS.equals(dataCenter.getSpec().getAutoScaleMode()) ||
+                (dataCenter.getSpec().getVerticalAutoscaling() != null &&
+                        dataCenter.getSpec().getVerticalAutoscaling().getMode() != null &&
+                        !VerticalAutoscalingMode.OFF.equals(dataCenter.getSpec().getVerticalAutoscaling().getMode()));
+    }
+
+    private class Autoscaler extends TimerTask {
+        @Override
+        public void run() {
+            try {
+                SharedIndexInformer<DataCenter> dataCenterInformer = sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class);
+                if (dataCenterInformer == null)
+                    return;
+                for (DataCenter dataCenter : dataCenterInformer.getIndexer().list()) {
+                    if (!autoscaled(dataCenter) || dataCenter.getSpec().isParked())
+                        continue;
+                    Operation op = new Operation()
+                            .withLastTransitionTime(new Date())
+                            .withTriggeredBy("Metrics autoscaler");
+                    // skipped when another reconciliation is ongoing for this datacenter
+                    workQueues.submitIfIdle(new Reconciliation(dataCenter.getMetadata(), Reconciliation.Kind.DATACENTER, Reconciliation.Type.MODIFIED)
+                            .withKey(new Key(dataCenter.getMetadata()))
+                            .withCompletable(dataCenterReconcilier.autoscaleDatacenter(dataCenter, op)));
+                }
+            } catch (Exception e) {
+                logger.info("autoscaler iteration fails due to : {}", e.getMessage(), e);
+            }
+        }
+    }
+}
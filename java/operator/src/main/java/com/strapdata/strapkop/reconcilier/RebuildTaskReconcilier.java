@@ -145,4 +145,9 @@ public class RebuildTaskReconcilier extends TaskReconcilier {
     public boolean reconcileDataCenterWhenDone() {
         return true;
     }
+
+    @Override
+    public TaskLane lane() {
+        return TaskLane.TOPOLOGY;
+    }
 }
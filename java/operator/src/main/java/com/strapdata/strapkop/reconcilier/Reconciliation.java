@@ -41,6 +41,11 @@ public class Reconciliation {
 
     Type type;
 
+    /**
+     * Task class, null for other kinds.
+     */
+    TaskLane lane;
+
     Long submitTime;
     Long startTime;
 
@@ -59,6 +64,32 @@ public class Reconciliation {
         DELETED
     }
 
+    /**
+     * Pending reconciliations of a datacenter start by decreasing priority.
+     */
+    public enum Priority {
+        /**
+         * Status refresh triggered by a StatefulSet or Deployment event.
+         */
+        STATUS,
+        /**
+         * Datacenter added or spec modified.
+         */
+        SPEC,
+        /**
+         * Datacenter deleted, preempts the ongoing reconciliation.
+         */
+        DELETE
+    }
+
+    public Priority priority() {
+        if (Type.DELETED.equals(type))
+            return Priority.DELETE;
+        if (Kind.DATACENTER.equals(kind) || Kind.TASK.equals(kind))
+            return Priority.SPEC;
+        return Priority.STATUS;
+    }
+
     public Reconciliation(V1ObjectMeta objectMeta, Kind kind, Type type) {
         this.name = objectMeta.getName();
         this.kind = kind;
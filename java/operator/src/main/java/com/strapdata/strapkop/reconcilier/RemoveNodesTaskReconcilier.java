@@ -127,4 +127,9 @@ public class RemoveNodesTaskReconcilier extends TaskReconcilier {
         return getElassandraRunningPods(dc).map(pods ->
                 initTaskStatusPodMap(task, pods.size() == 0 ? ImmutableList.of() : ImmutableList.of(pods.get(0))));
     }
+
+    @Override
+    public TaskLane lane() {
+        return TaskLane.TOPOLOGY;
+    }
 }
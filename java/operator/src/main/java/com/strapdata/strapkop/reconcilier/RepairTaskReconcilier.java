@@ -74,6 +74,7 @@ public final class RepairTaskReconcilier extends TaskReconcilier {
         return Observable.zip(Observable.fromIterable(pods), Observable.interval(repairTaskSpec.getWaitIntervalInSec(), TimeUnit.SECONDS), (pod, timer) -> pod)
                 .subscribeOn(Schedulers.io())
                 .flatMapSingle(pod -> jmxmpElassandraProxy.repair(ElassandraPod.fromV1Pod(pod), task.getSpec().getRepair().getKeyspace())
+                        .doOnSubscribe(d -> task.getStatus().getPods().put(pod.getMetadata().getName(), TaskPhase.RUNNING))
                         .toSingleDefault(pod)
                         .map(p -> {
                             // update pod status in memory (no etcd update)
@@ -93,9 +94,24 @@ public final class RepairTaskReconcilier extends TaskReconcilier {
                 .flatMapCompletable(list -> finalizeTaskStatus(dc, dataCenterStatus, task, TaskPhase.SUCCEED, "repair"));
     }
 
+    /**
+     * Cassandra cannot abort a single repair command, so all the repair sessions of the node are terminated,
+     * including those started by Cassandra Reaper or nodetool. Repair tasks run one at a time in the {@link TaskLane#REPAIR} lane,
+     * so another repair task is never aborted.
+     */
+    @Override
+    protected Completable cancelTask(final DataCenter dc, final Task task, final ElassandraPod pod) throws Exception {
+        return jmxmpElassandraProxy.abortRepair(pod);
+    }
+
     // repair PR on all available nodes
     @Override
     public Single<List<V1Pod>> init(Task task, DataCenter dc) {
         return listAllDcPods(task, dc).map(pods -> initTaskStatusPodMap(task, pods));
     }
+
+    @Override
+    public TaskLane lane() {
+        return TaskLane.REPAIR;
+    }
 }
@@ -166,4 +166,9 @@ public class ReplicationTaskReconcilier extends TaskReconcilier {
     public Single<List<V1Pod>> init(Task task, DataCenter dc) {
         return listAllDcPods(task, dc).map(pods -> initTaskStatusPodMap(task, pods));
     }
+
+    @Override
+    public TaskLane lane() {
+        return TaskLane.SCHEMA;
+    }
 }
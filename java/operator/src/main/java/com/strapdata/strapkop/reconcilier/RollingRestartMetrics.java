@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableList;
+import com.strapdata.strapkop.k8s.ElassandraPod;
+import io.kubernetes.client.openapi.models.V1StatefulSet;
+import io.micrometer.core.instrument.ImmutableTag;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.reactivex.Completable;
+import org.apache.commons.lang3.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drain and restart durations of the pods restarted during a rolling update.
+ */
+@Singleton
+public class RollingRestartMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(RollingRestartMetrics.class);
+
+    static class Restart {
+        final ElassandraPod pod;
+        final int ordinal;
+        final long startTime;
+
+        Restart(ElassandraPod pod, int ordinal) {
+            this.pod = pod;
+            this.ordinal = ordinal;
+            this.startTime = System.currentTimeMillis();
+        }
+    }
+
+    final MeterRegistry meterRegistry;
+
+    // pending restart by statefulset namespace/name
+    final Map<String, Restart> restarts = new ConcurrentHashMap<>();
+
+    public RollingRestartMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    static List<Tag> tags(ElassandraPod pod, String outcome) {
+        return ImmutableList.of(
+                new ImmutableTag("namespace", pod.getNamespace()),
+                new ImmutableTag("datacenter", pod.getParent()),
+                new ImmutableTag("outcome", outcome));
+    }
+
+    /**
+     * Time the drain of a pod, a failed drain is recorded and ignored so that the pod is restarted anyway.
+     */
+    public Completable timeDrain(ElassandraPod pod, Completable drain) {
+        final long start = System.currentTimeMillis();
+        return drain
+                .doOnComplete(() -> meterRegistry.timer("rolling_update.drain", tags(pod, "success"))
+                        .record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS))
+                .onErrorComplete(t -> {
+                    logger.warn("pod={} drain failed, restarting without drain: {}", pod.id(), t.toString());
+                    meterRegistry.timer("rolling_update.drain", tags(pod, "failure"))
+                            .record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+                    return true;
+                });
+    }
+
+    public void restartStarted(V1StatefulSet sts, ElassandraPod pod, int ordinal) {
+        restarts.put(sts.getMetadata().getNamespace() + "/" + sts.getMetadata().getName(), new Restart(pod, ordinal));
+    }
+
+    /**
+     * Record the restart duration when the restarted pod of the statefulset is updated and ready.
+     */
+    public void restartCompleted(V1StatefulSet sts) {
+        Restart restart = restarts.get(sts.getMetadata().getNamespace() + "/" + sts.getMetadata().getName());
+        if (restart == null || sts.getStatus() == null)
+            return;
+
+        int replicas = ObjectUtils.defaultIfNull(sts.getSpec().getReplicas(), 0);
+        int readyReplicas = ObjectUtils.defaultIfNull(sts.getStatus().getReadyReplicas(), 0);
+        int updatedReplicas = ObjectUtils.defaultIfNull(sts.getStatus().getUpdatedReplicas(), 0);
+        if (readyReplicas >= replicas && updatedReplicas >= replicas - restart.ordinal
+                && restarts.remove(sts.getMetadata().getNamespace() + "/" + sts.getMetadata().getName(), restart)) {
+            long duration = System.currentTimeMillis() - restart.startTime;
+            logger.debug("pod={} restarted in {}ms", restart.pod.id(), duration);
+            meterRegistry.timer("rolling_update.restart", tags(restart.pod, "success")).record(duration, TimeUnit.MILLISECONDS);
+        }
+    }
+}
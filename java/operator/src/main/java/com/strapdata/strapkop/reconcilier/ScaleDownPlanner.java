@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Select the rack to scale down from the node loads and data volume capacities.
+ * As a StatefulSet can only remove its last pod, each candidate rack decommissions its highest ordinal, and the data of
+ * this node is streamed to the remaining nodes of the same rack when each rack holds a full copy of the data
+ * (rack aware replication with RF greater or equals to the number of racks), or to all remaining nodes otherwise.
+ * With vnodes, each remaining node receives a part of the data proportional to its own load.
+ */
+public class ScaleDownPlanner {
+
+    /**
+     * Load of an Elassandra node.
+     */
+    @Data
+    @With
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class NodeLoad {
+        String pod;
+        String rack;
+        int ordinal;
+        /**
+         * Load in bytes, null if the node is unreachable.
+         */
+        Long loadBytes;
+        /**
+         * Data volume capacity in bytes, null if unknown.
+         */
+        Long capacityBytes;
+    }
+
+    /**
+     * Scale down decision.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Decision {
+        /**
+         * Rack to scale down, null if the scale down is refused.
+         */
+        String rack;
+        String pod;
+        /**
+         * Max projected disk usage of the remaining nodes, null if unknown.
+         */
+        Double projectedDiskUsage;
+        String reason;
+
+        public boolean isAccepted() {
+            return rack != null;
+        }
+    }
+
+    /**
+     * @param racks candidate racks, in scale down preference order
+     * @param nodes load of all nodes of the datacenter
+     * @param rackLocal true if the data of a rack is streamed to the same rack
+     * @param maxDiskUsage max projected disk usage of the remaining nodes, null to disable the check
+     * @return the first rack where the remaining nodes do not exceed the max disk usage, or a refused decision.
+     * A rack is skipped when the load of its victim or of a node receiving its data is unknown.
+     */
+    public static Decision plan(List<String> racks, List<NodeLoad> nodes, boolean rackLocal, Double maxDiskUsage) {
+        List<String> refused = new ArrayList<>();
+        for (String rack : racks) {
+            Optional<NodeLoad> victim = nodes.stream()
+                    .filter(n -> rack.equals(n.getRack()))
+                    .max((n1, n2) -> Integer.compare(n1.getOrdinal(), n2.getOrdinal()));
+            if (!victim.isPresent())
+                continue;
+
+            if (maxDiskUsage != null) {
+                List<String> unknown = new ArrayList<>();
+                if (victim.get().getLoadBytes() == null)
+                    unknown.add(victim.get().getPod());
+                for (NodeLoad survivor : survivors(victim.get(), nodes, rackLocal)) {
+                    if (survivor.getLoadBytes() == null)
+                        unknown.add(survivor.getPod());
+                }
+                if (!unknown.isEmpty()) {
+                    refused.add(String.format(Locale.ROOT, "pod=%s unknown load of %s", victim.get().getPod(), String.join(",", unknown)));
+                    continue;
+                }
+            }
+
+            Double projected = projectedDiskUsage(victim.get(), nodes, rackLocal);
+            if (maxDiskUsage == null || projected == null || projected <= maxDiskUsage)
+                return new Decision(rack, victim.get().getPod(), projected,
+                        projected == null ? "unknown disk usage" : String.format(Locale.ROOT, "projected diskUsage=%.2f", projected));
+            refused.add(String.format(Locale.ROOT, "pod=%s projected diskUsage=%.2f > %.2f", victim.get().getPod(), projected, maxDiskUsage));
+        }
+        return new Decision(null, null, null, refused.isEmpty() ? "no node to remove" : String.join(", ", refused));
+    }
+
+    /**
+     * @return the nodes receiving the data of the victim.
+     */
+    static List<NodeLoad> survivors(NodeLoad victim, List<NodeLoad> nodes, boolean rackLocal) {
+        List<NodeLoad> survivors = nodes.stream()
+                .filter(n -> !n.getPod().equals(victim.getPod()))
+                .filter(n -> !rackLocal || n.getRack().equals(victim.getRack()))
+                .collect(Collectors.toList());
+        if (survivors.isEmpty()) {
+            // the last node of a rack, replicas move to the other racks
+            survivors = nodes.stream().filter(n -> !n.getPod().equals(victim.getPod())).collect(Collectors.toList());
+        }
+        return survivors;
+    }
+
+    /**
+     * @return the max disk usage of the remaining nodes after removing the victim, or null if a capacity or a load is unknown.
+     */
+    static Double projectedDiskUsage(NodeLoad victim, List<NodeLoad> nodes, boolean rackLocal) {
+        List<NodeLoad> survivors = survivors(victim, nodes, rackLocal);
+        if (victim.getLoadBytes() == null || survivors.stream().anyMatch(n -> n.getLoadBytes() == null))
+            return null;
+
+        final long totalLoad = survivors.stream().mapToLong(NodeLoad::getLoadBytes).sum();
+        double max = 0;
+        for (NodeLoad survivor : survivors) {
+            if (survivor.getCapacityBytes() == null || survivor.getCapacityBytes() == 0)
+                return null;
+            double share = totalLoad == 0 ? 1.0 / survivors.size() : (double) survivor.getLoadBytes() / totalLoad;
+            max = Math.max(max, (survivor.getLoadBytes() + share * victim.getLoadBytes()) / survivor.getCapacityBytes());
+        }
+        return max;
+    }
+}
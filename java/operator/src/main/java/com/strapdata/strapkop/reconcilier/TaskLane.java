@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+/**
+ * Task classes sharing the execution lanes of a datacenter. Tasks of non-conflicting classes run concurrently,
+ * tasks of the same class run concurrently up to the class concurrency limit when they do not conflict with each other.
+ * <pre>
+ *               TOPOLOGY  SCHEMA  MAINTENANCE  REPAIR  READ_ONLY
+ * TOPOLOGY         x        x          x          x        x
+ * SCHEMA           x        x          x          x
+ * MAINTENANCE      x        x
+ * REPAIR           x        x
+ * READ_ONLY        x
+ * </pre>
+ */
+public enum TaskLane {
+    /**
+     * Tasks adding or removing nodes, like removeNodes or rebuild.
+     */
+    TOPOLOGY,
+    /**
+     * Tasks updating the keyspaces replication.
+     */
+    SCHEMA,
+    /**
+     * Tasks running node maintenance without changing the topology, like cleanup.
+     */
+    MAINTENANCE,
+    /**
+     * Repair tasks, running one at a time as concurrent repairs of the same ranges fail or overload the nodes.
+     */
+    REPAIR,
+    /**
+     * Tasks reading data, like backups.
+     */
+    READ_ONLY;
+
+    public boolean conflictsWith(TaskLane other) {
+        switch (this) {
+            case TOPOLOGY:
+                return true;
+            case SCHEMA:
+                return !READ_ONLY.equals(other);
+            case MAINTENANCE:
+            case REPAIR:
+                return TOPOLOGY.equals(other) || SCHEMA.equals(other);
+            default:
+                return TOPOLOGY.equals(other);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.strapdata.strapkop.OperatorConfig;
 import com.strapdata.strapkop.cache.DataCenterStatusCache;
+import com.strapdata.strapkop.k8s.ElassandraPod;
 import com.strapdata.strapkop.k8s.K8sResourceUtils;
 import com.strapdata.strapkop.k8s.OperatorNames;
 import com.strapdata.strapkop.model.Key;
@@ -45,10 +46,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Named;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -113,7 +116,44 @@ public abstract class TaskReconcilier extends Reconcilier<Task> {
                         return k8sResourceUtils.updateTaskStatus(task).ignoreElement();
                     }
                     return Completable.complete();
-                });
+                })
+                .doOnDispose(() -> cancel(dc, task));
+    }
+
+    /**
+     * Abort the remote work of a disposed task on the pods where it is running.
+     */
+    void cancel(final DataCenter dc, final Task task) {
+        logger.info("datacenter={} task={} cancelled", dc.id(), task.id());
+        meterRegistry.counter("task.cancelled",
+                "cluster", task.getSpec().getCluster(),
+                "datacenter", task.getSpec().getDatacenter())
+                .increment();
+        if (task.getStatus() == null || task.getStatus().getPods() == null)
+            return;
+
+        List<Completable> todoList = new ArrayList<>();
+        for (Map.Entry<String, TaskPhase> entry : task.getStatus().getPods().entrySet()) {
+            if (!TaskPhase.RUNNING.equals(entry.getValue()))
+                continue;
+            final String podName = entry.getKey();
+            todoList.add(Completable.defer(() -> cancelTask(dc, task, ElassandraPod.fromName(dc, podName)))
+                    .onErrorComplete(t -> {
+                        logger.warn("datacenter={} task={} pod={} cancel failed: {}", dc.id(), task.id(), podName, t.toString());
+                        return true;
+                    }));
+        }
+        Completable.merge(todoList)
+                .subscribeOn(Schedulers.io())
+                .subscribe();
+    }
+
+    /**
+     * Abort the remote work of a disposed task on a pod, like a running repair or compaction.
+     * Tasks running a blocking JMX call are released when the remote work stops.
+     */
+    protected Completable cancelTask(final DataCenter dc, final Task task, final ElassandraPod pod) throws Exception {
+        return Completable.complete();
     }
 
     Completable reconcileDcWhenDone(DataCenter dataCenter, Task task)  {
@@ -172,11 +212,7 @@ public abstract class TaskReconcilier extends Reconcilier<Task> {
                     operation.setPendingInMs(startTime - operation.getLastTransitionTime().getTime());
                     operation.setDurationInMs(endTime - startTime);
 
-                    List<Operation> history = dataCenterStatus.getOperationHistory();
-                    history.add(0, operation);
-                    if (history.size() > operatorConfig.getOperationHistoryDepth())
-                        history.remove(operatorConfig.getOperationHistoryDepth());
-                    dataCenterStatus.setOperationHistory(history);
+                    dataCenterStatus.addOperation(operation, operatorConfig.getOperationHistoryDepth());
 
                     logger.debug("update status taskStatus={} datacenterStatus={}", task.getStatus(), dataCenterStatus);
                     return k8sResourceUtils.updateDataCenterStatus(dc, dataCenterStatus).ignoreElement();
@@ -222,7 +258,8 @@ public abstract class TaskReconcilier extends Reconcilier<Task> {
     }
 
     public List<V1Pod> initTaskStatusPodMap(Task task, List<V1Pod> pods) {
-        task.getStatus().setPods(pods.stream().collect(Collectors.toMap(p -> p.getMetadata().getName(), p -> TaskPhase.WAITING)));
+        // concurrently updated by the pod operations and read when cancelling the task
+        task.getStatus().setPods(pods.stream().collect(Collectors.toMap(p -> p.getMetadata().getName(), p -> TaskPhase.WAITING, (a, b) -> b, ConcurrentHashMap::new)));
         return pods;
     }
 
@@ -235,6 +272,13 @@ public abstract class TaskReconcilier extends Reconcilier<Task> {
         return false;
     }
 
+    /**
+     * Task class used to run non-conflicting tasks of a datacenter concurrently.
+     */
+    public TaskLane lane() {
+        return TaskLane.MAINTENANCE;
+    }
+
     public void updateMetrics(Task task, String taskTag, boolean succeed) {
         meterRegistry.counter(succeed ? "task.succeed" : "task.failed",
                 "task", taskTag,
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.datacenter.VerticalAutoscaling;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+import org.apache.commons.lang3.ObjectUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vertical autoscaling policy, increasing or decreasing the memory and cpu requests by one step.
+ * Memory is increased when a node has long GC pauses, a high heap usage after GC, or when its heap plus off-heap
+ * memory is close to the memory request, and decreased when all nodes have a low heap usage after GC and short GC pauses.
+ * Cpu is increased when a node has a high cpu load, and decreased when all nodes have a low cpu load.
+ */
+public class VerticalAutoscalePolicy {
+
+    private static final long MB = 1024 * 1024;
+
+    /**
+     * JVM metrics of an Elassandra node.
+     */
+    @Data
+    @With
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class JvmMetrics {
+        String pod;
+        /**
+         * Max GC pause since the last collection.
+         */
+        Double maxGcPauseMs;
+        /**
+         * Ratio between the heap used after the last GC and the max heap size.
+         */
+        Double heapUsageAfterGc;
+        Long heapMaxBytes;
+        /**
+         * Non-heap, direct buffers and Cassandra off-heap memory.
+         */
+        Long offHeapBytes;
+        /**
+         * Process cpu load relative to the available processors, null if not available.
+         */
+        Double cpuUsage;
+    }
+
+    /**
+     * Resources decision.
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Recommendation {
+        long memoryBytes;
+        long cpuMillis;
+        String reason;
+    }
+
+    /**
+     * @param settings vertical autoscaling settings
+     * @param memoryBytes current memory request
+     * @param minMemoryBytes min memory request
+     * @param maxMemoryBytes max memory request
+     * @param cpuMillis current cpu request in millicores
+     * @param minCpuMillis min cpu request in millicores
+     * @param maxCpuMillis max cpu request in millicores
+     * @param metrics metrics of all nodes
+     * @param lastUpdateTime last recommendation time in milliseconds, 0 if never
+     * @param now current time in milliseconds
+     * @return the new resources, or empty to keep the current ones.
+     */
+    public static Optional<Recommendation> recommend(VerticalAutoscaling settings,
+                                                     long memoryBytes, long minMemoryBytes, long maxMemoryBytes,
+                                                     long cpuMillis, long minCpuMillis, long maxCpuMillis,
+                                                     List<JvmMetrics> metrics, long lastUpdateTime, long now) {
+        if (metrics.isEmpty() || now - lastUpdateTime < TimeUnit.SECONDS.toMillis(ObjectUtils.defaultIfNull(settings.getCooldownSeconds(), 0)))
+            return Optional.empty();
+
+        final double step = ObjectUtils.defaultIfNull(settings.getStep(), 0.25);
+        final List<String> reasons = new ArrayList<>();
+
+        long memory = memoryBytes;
+        Optional<String> memoryPressure = memoryPressure(settings, metrics, memoryBytes);
+        if (memoryPressure.isPresent()) {
+            memory = (long) (memoryBytes * (1 + step));
+            reasons.add(memoryPressure.get());
+        } else if (metrics.stream().allMatch(m -> below(m.getHeapUsageAfterGc(), settings.getMinHeapUsageAfterGc(), 1.0) &&
+                (m.getMaxGcPauseMs() == null || below(m.getMaxGcPauseMs(), settings.getMaxGcPauseMs(), 0.5)))) {
+            memory = (long) (memoryBytes * (1 - step));
+            reasons.add("heapUsageAfterGc < " + settings.getMinHeapUsageAfterGc() + " on all nodes");
+        }
+        memory = Math.max(minMemoryBytes, Math.min(maxMemoryBytes, memory)) / MB * MB;
+
+        long cpu = cpuMillis;
+        Optional<JvmMetrics> cpuPressure = metrics.stream().filter(m -> exceeded(m.getCpuUsage(), settings.getMaxCpuUsage())).findFirst();
+        if (cpuPressure.isPresent()) {
+            cpu = (long) (cpuMillis * (1 + step));
+            reasons.add(String.format(Locale.ROOT, "pod=%s cpuUsage=%.2f > %.2f", cpuPressure.get().getPod(), cpuPressure.get().getCpuUsage(), settings.getMaxCpuUsage()));
+        } else if (metrics.stream().allMatch(m -> below(m.getCpuUsage(), settings.getMinCpuUsage(), 1.0))) {
+            cpu = (long) (cpuMillis * (1 - step));
+            reasons.add("cpuUsage < " + settings.getMinCpuUsage() + " on all nodes");
+        }
+        cpu = Math.max(minCpuMillis, Math.min(maxCpuMillis, cpu));
+
+        if (memory == memoryBytes && cpu == cpuMillis)
+            return Optional.empty();
+        return Optional.of(new Recommendation(memory, cpu, reasons.isEmpty() ? "resources out of bounds" : String.join(", ", reasons)));
+    }
+
+    static Optional<String> memoryPressure(VerticalAutoscaling settings, List<JvmMetrics> metrics, long memoryBytes) {
+        for (JvmMetrics m : metrics) {
+            if (exceeded(m.getMaxGcPauseMs(), settings.getMaxGcPauseMs()))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s maxGcPause=%.0fms > %.0fms", m.getPod(), m.getMaxGcPauseMs(), settings.getMaxGcPauseMs()));
+            if (exceeded(m.getHeapUsageAfterGc(), settings.getMaxHeapUsageAfterGc()))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s heapUsageAfterGc=%.2f > %.2f", m.getPod(), m.getHeapUsageAfterGc(), settings.getMaxHeapUsageAfterGc()));
+            if (m.getHeapMaxBytes() != null && m.getOffHeapBytes() != null && memoryBytes > 0 &&
+                    exceeded((double) (m.getHeapMaxBytes() + m.getOffHeapBytes()) / memoryBytes, settings.getMaxMemoryUsage()))
+                return Optional.of(String.format(Locale.ROOT, "pod=%s heap+offHeap=%dMi > %.2f x memory", m.getPod(),
+                        (m.getHeapMaxBytes() + m.getOffHeapBytes()) / MB, settings.getMaxMemoryUsage()));
+        }
+        return Optional.empty();
+    }
+
+    static boolean exceeded(Double value, Double threshold) {
+        return value != null && threshold != null && value > threshold;
+    }
+
+    static boolean below(Double value, Double threshold, double ratio) {
+        return value != null && threshold != null && value < ratio * threshold;
+    }
+}
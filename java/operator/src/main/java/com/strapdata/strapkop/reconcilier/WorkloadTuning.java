@@ -0,0 +1,256 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.datacenter.DiskType;
+import com.strapdata.strapkop.model.k8s.datacenter.Workload;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.With;
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.Yaml;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Derive Cassandra, JVM and Elasticsearch settings from the workload, the pod cpu and memory requests,
+ * the disk type and the data volume size. The generated files are mounted from a dedicated configmap
+ * and loaded after the operator files, so they can still be overridden by the user configmap.
+ */
+public class WorkloadTuning {
+
+    public static final String CASSANDRA_YAML = "cassandra.yaml.d/002-tuning.yaml";
+    public static final String JVM_OPTIONS = "jvm.options.d/002-tuning-gc.options";
+    public static final String ELASTICSEARCH_YAML = "elasticsearch.yml.d/002-tuning.yaml";
+
+    /**
+     * Tuning inputs.
+     */
+    @Data
+    @With
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Inputs {
+        Workload workload;
+        DiskType diskType;
+        /**
+         * Number of cores, at least 1.
+         */
+        int cores;
+        /**
+         * Memory request in megabytes, null if unknown.
+         */
+        Long memoryMb;
+        /**
+         * Generate the Cassandra, JVM and Elasticsearch settings.
+         */
+        boolean autoTuning;
+        /**
+         * Generate the heap size and GC settings.
+         */
+        boolean computeJvmMemorySettings;
+        boolean elasticsearch;
+    }
+
+    /**
+     * @return the configured disk type, or SSD when the storage class name looks like a local or SSD storage class.
+     */
+    public static DiskType diskType(DiskType diskType, String storageClassName) {
+        if (diskType != null)
+            return diskType;
+        if (storageClassName != null) {
+            String name = storageClassName.toLowerCase(Locale.ROOT);
+            if (name.contains("ssd") || name.contains("local") || name.contains("nvme") || name.contains("premium"))
+                return DiskType.SSD;
+        }
+        return DiskType.NETWORK;
+    }
+
+    /**
+     * Same as stock cassandra-env.sh
+     */
+    public static long heapSizeMb(long memoryMb) {
+        return (long) Math.max(Math.min(memoryMb / 2, 1.5 * 1024), Math.min(memoryMb / 4, 8 * 1024));
+    }
+
+    /**
+     * @return generated files content by path, empty without autoTuning as the operator configmap then keeps its own settings.
+     */
+    public static Map<String, String> files(Inputs inputs) {
+        final Map<String, String> files = new LinkedHashMap<>();
+        if (!inputs.autoTuning)
+            return files;
+        files.put(CASSANDRA_YAML, toYamlString(cassandraConfig(inputs)));
+        if (inputs.computeJvmMemorySettings && inputs.memoryMb != null)
+            files.put(JVM_OPTIONS, jvmOptions(inputs));
+        if (inputs.elasticsearch)
+            files.put(ELASTICSEARCH_YAML, toYamlString(elasticsearchConfig(inputs)));
+        return files;
+    }
+
+    static Map<String, Object> cassandraConfig(Inputs inputs) {
+        final Map<String, Object> config = new TreeMap<>();
+        final Workload workload = inputs.workload == null ? Workload.READ_WRITE : inputs.workload;
+        final boolean ssd = DiskType.SSD.equals(inputs.diskType);
+        final int cores = Math.max(1, inputs.cores);
+        final boolean writeHeavy = workload.equals(Workload.WRITE) || workload.equals(Workload.READ_WRITE);
+
+        // writer recommendation is 8 * CPUs
+        final int concurrentWrites = Math.max(32, cores * 8);
+        config.put("concurrent_writes", concurrentWrites);
+        config.put("concurrent_materialized_view_writes", concurrentWrites);
+
+        // reader recommendation is based on the disk concurrency, SSD sustain more concurrent reads than network disks
+        final int concurrentReads = workload.equals(Workload.READ) ?
+                clamp(cores * (ssd ? 16 : 8), 32, 256) :
+                clamp(cores * (ssd ? 8 : 4), 32, 128);
+        config.put("concurrent_reads", concurrentReads);
+        // counter use the same as reader because counter read the value before increment & write value
+        config.put("concurrent_counter_writes", concurrentReads);
+
+        if (writeHeavy) {
+            // configure memtable_flush_writers has an influence on the memtable_cleanup_threshold (1/(nb_flush_w + 1))
+            // so we set a little bit higher value for write heavy workload on SSD, network disks are saturated by 2 writers.
+            config.put("memtable_flush_writers", ssd ? Math.min(cores, Math.max(2, cores / 2)) : 2);
+
+            // https://tobert.github.io/pages/als-cassandra-21-tuning-guide.html
+            // Offheap memtables can improve write-heavy workloads by reducing the amount of data stored on the Java heap
+            config.put("memtable_allocation_type", "offheap_objects");
+        } else {
+            config.put("memtable_allocation_type", "heap_buffers");
+        }
+
+        if (!workload.equals(Workload.WRITE)) {
+            // because we are in a read workload, we set the cache to 100MB
+            // (the max value of the auto setting -  (min(5% of Heap (in MB), 100MB)) )
+            config.put("key_cache_size_in_mb", 100);
+        }
+
+        if (inputs.memoryMb != null) {
+            final long offHeapMb = inputs.memoryMb - heapSizeMb(inputs.memoryMb);
+            if (writeHeavy)
+                config.put("memtable_offheap_space_in_mb", Math.max(128, offHeapMb / 4));
+            // chunk cache, larger for read workloads
+            config.put("file_cache_size_in_mb", workload.equals(Workload.READ) ?
+                    clamp(offHeapMb / 4, 128, 2048) :
+                    clamp(offHeapMb / 8, 128, 512));
+        }
+
+        // The faster you insert data, the faster you need to compact in order to keep the sstable count down.
+        int compactionThroughput;
+        switch (workload) {
+            case WRITE:
+                compactionThroughput = ssd ? 64 : 32;
+                break;
+            case READ_WRITE:
+                compactionThroughput = ssd ? 48 : 24;
+                break;
+            default:
+                compactionThroughput = ssd ? 32 : 16;
+        }
+        config.put("compaction_throughput_mb_per_sec", compactionThroughput);
+        config.put("concurrent_compactors", ssd && writeHeavy ? clamp(cores / 2, 2, 8) : 2);
+
+        config.put("disk_optimization_strategy", ssd ? "ssd" : "spinning");
+        if (ssd) {
+            // avoid large fsync bursts on SSD
+            config.put("trickle_fsync", true);
+        }
+        return config;
+    }
+
+    static String jvmOptions(Inputs inputs) {
+        final Workload workload = inputs.workload == null ? Workload.READ_WRITE : inputs.workload;
+        final int cores = Math.max(1, inputs.cores);
+        final long heapSizeMb = heapSizeMb(inputs.memoryMb);
+        final long youngGenSizeInMb = Math.min(100L * cores, heapSizeMb / 4);
+
+        // G1 for large heaps, or for read workloads keeping many long lived objects in the heap
+        final boolean useG1GC = heapSizeMb > 12 * 1024 || (workload.equals(Workload.READ) && heapSizeMb >= 8 * 1024);
+
+        final StringBuilder jvmGCOptions = new StringBuilder(500);
+        jvmGCOptions.append(String.format(Locale.ROOT, "-Xms%dm", heapSizeMb) + "\n"); // min heap size
+        jvmGCOptions.append(String.format(Locale.ROOT, "-Xmx%dm", heapSizeMb) + "\n"); // max heap size
+
+        // GC threads from the cpu request, the JVM may see all the node cores
+        jvmGCOptions.append(String.format(Locale.ROOT, "-XX:ParallelGCThreads=%d", cores) + "\n");
+        jvmGCOptions.append(String.format(Locale.ROOT, "-XX:ConcGCThreads=%d", Math.max(1, (cores + 2) / 4)) + "\n");
+
+        // copied from stock jvm.options
+        if (useG1GC) {
+            jvmGCOptions.append("-XX:+UseG1GC\n");
+            jvmGCOptions.append("-XX:G1RSetUpdatingPauseTimePercent=5\n");
+            jvmGCOptions.append("-XX:MaxGCPauseMillis=500\n");
+            jvmGCOptions.append("-XX:InitiatingHeapOccupancyPercent=70\n");
+        } else {
+            jvmGCOptions.append(String.format(Locale.ROOT, "-Xmn%dm", youngGenSizeInMb) + "\n"); // young gen size
+            jvmGCOptions.append("-XX:+UseParNewGC\n");
+            jvmGCOptions.append("-XX:+UseConcMarkSweepGC\n");
+            jvmGCOptions.append("-XX:+CMSParallelRemarkEnabled\n");
+            jvmGCOptions.append("-XX:SurvivorRatio=8\n");
+            jvmGCOptions.append("-XX:MaxTenuringThreshold=1\n");
+            jvmGCOptions.append("-XX:CMSInitiatingOccupancyFraction=75\n");
+            jvmGCOptions.append("-XX:+UseCMSInitiatingOccupancyOnly\n");
+            jvmGCOptions.append("-XX:CMSWaitDuration=10000\n");
+            jvmGCOptions.append("-XX:+CMSParallelInitialMarkEnabled\n");
+            jvmGCOptions.append("-XX:+CMSEdenChunksRecordAlways\n");
+            jvmGCOptions.append("-XX:+CMSClassUnloadingEnabled\n");
+        }
+        return jvmGCOptions.toString();
+    }
+
+    static Map<String, Object> elasticsearchConfig(Inputs inputs) {
+        final Map<String, Object> config = new TreeMap<>();
+        final Workload workload = inputs.workload == null ? Workload.READ_WRITE : inputs.workload;
+        final int cores = Math.max(1, inputs.cores);
+
+        // thread pools are sized from the processors setting, not from the node cores
+        config.put("processors", cores);
+        config.put("thread_pool.search.size", (cores * 3) / 2 + 1);
+        config.put("thread_pool.search.queue_size", workload.equals(Workload.READ) ? 2000 : 1000);
+        config.put("thread_pool.get.size", cores);
+        config.put("thread_pool.write.size", cores);
+        switch (workload) {
+            case WRITE:
+                config.put("thread_pool.write.queue_size", 1000);
+                config.put("indices.memory.index_buffer_size", "20%");
+                break;
+            case READ_WRITE:
+                config.put("thread_pool.write.queue_size", 500);
+                break;
+            default:
+                config.put("thread_pool.write.queue_size", 200);
+        }
+        return config;
+    }
+
+    static int clamp(long value, int min, int max) {
+        return (int) Math.max(min, Math.min(max, value));
+    }
+
+    static String toYamlString(final Object object) {
+        final DumperOptions options = new DumperOptions();
+        options.setPrettyFlow(true);
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        return new Yaml(options).dump(object);
+    }
+}
@@ -18,6 +18,7 @@
 package com.strapdata.strapkop.sidecar;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
 import com.strapdata.strapkop.cql.CqlRole;
 import com.strapdata.strapkop.model.sidecar.BackupResponse;
 import com.strapdata.strapkop.model.sidecar.StatusResponse;
@@ -46,9 +47,11 @@ import java.io.UnsupportedEncodingException;
 import java.net.URL;
 import java.net.URLEncoder;
 import java.util.List;
+import java.util.Map;
 
 import static io.micronaut.http.HttpRequest.GET;
 import static io.micronaut.http.HttpRequest.POST;
+import static io.micronaut.http.HttpRequest.PUT;
 
 /**
  * Currently @Client annotation advice that generates the client code from an interface is totally static and cannot
@@ -153,6 +156,30 @@ public class HttpClient {
         return httpClient.exchange(auth(POST("/_license", ""))).ignoreElements();
     }
 
+    /**
+     * Update Elasticsearch transient cluster settings.
+     */
+    public Completable putTransientSettings(Map<String, Object> settings) {
+        return httpClient.exchange(auth(PUT("_cluster/settings", ImmutableMap.of("transient", settings)))).ignoreElements();
+    }
+
+    /**
+     * @return the queue size of the local node Elasticsearch search thread pool.
+     */
+    @SuppressWarnings("unchecked")
+    public Single<Long> searchQueue() {
+        return httpClient.retrieve(auth(GET("_nodes/_local/stats/thread_pool/search")), Map.class).singleOrError()
+                .map(stats -> {
+                    Map<String, Object> nodes = (Map<String, Object>) stats.get("nodes");
+                    long queue = 0;
+                    for (Object node : nodes.values()) {
+                        Map<String, Object> search = (Map<String, Object>) ((Map<String, Object>) ((Map<String, Object>) node).get("thread_pool")).get("search");
+                        queue += ((Number) search.get("queue")).longValue();
+                    }
+                    return queue;
+                });
+    }
+
     public Completable repairPrimaryRange(@Nullable String keyspace) throws UnsupportedEncodingException {
         String qs = (keyspace == null) ? "" : "?keyspace=" + URLEncoder.encode(keyspace,"UTF-8");
         return httpClient.exchange(auth(POST("_nodetool/repair" + qs, ""))).ignoreElements();
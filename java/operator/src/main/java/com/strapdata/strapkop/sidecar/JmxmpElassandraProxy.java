@@ -26,7 +26,11 @@ import com.strapdata.strapkop.k8s.K8sResourceUtils;
 import com.strapdata.strapkop.k8s.OperatorNames;
 import com.strapdata.strapkop.model.k8s.datacenter.DataCenter;
 import com.strapdata.strapkop.model.sidecar.ElassandraNodeStatus;
+import com.strapdata.strapkop.reconcilier.AutoscalePolicy;
+import com.strapdata.strapkop.reconcilier.CanaryGate;
 import com.strapdata.strapkop.reconcilier.DataCenterUpdateAction;
+import com.strapdata.strapkop.reconcilier.LiveConfig;
+import com.strapdata.strapkop.reconcilier.VerticalAutoscalePolicy;
 import com.strapdata.strapkop.ssl.AuthorityManager;
 import com.strapdata.strapkop.ssl.utils.X509CertificateAndPrivateKey;
 import io.kubernetes.client.informer.SharedInformerFactory;
@@ -36,15 +40,18 @@ import io.micronaut.http.uri.UriTemplate;
 import io.reactivex.Completable;
 import io.reactivex.Single;
 import io.vavr.Tuple2;
+import org.apache.cassandra.db.compaction.CompactionManagerMBean;
 import org.apache.cassandra.locator.EndpointSnitchInfoMBean;
 import org.apache.cassandra.service.StorageServiceMBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.management.InstanceNotFoundException;
 import javax.management.JMX;
 import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 import javax.management.remote.JMXConnector;
 import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXServiceURL;
@@ -56,6 +63,7 @@ import javax.security.auth.callback.NameCallback;
 import javax.security.auth.callback.PasswordCallback;
 import javax.security.auth.callback.UnsupportedCallbackException;
 import java.io.IOException;
+import java.lang.management.MemoryUsage;
 import java.net.MalformedURLException;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
@@ -64,6 +72,7 @@ import java.security.cert.X509Certificate;
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Infrastructure
@@ -75,6 +84,21 @@ public class JmxmpElassandraProxy {
     public static final ObjectName ENDPOINT_SNITCH_INFO_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.db:type=EndpointSnitchInfo");
     public static final ObjectName STORAGE_SERVICE_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.db:type=StorageService");
     public static final ObjectName ELASTIC_NODE_METRICS_MBEAN_NAME = ObjectNames.create("org.elasticsearch.node:type=node");
+    public static final ObjectName PENDING_COMPACTIONS_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.metrics:type=Compaction,name=PendingTasks");
+    public static final ObjectName READ_LATENCY_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.metrics:type=ClientRequest,scope=Read,name=Latency");
+    public static final ObjectName WRITE_LATENCY_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.metrics:type=ClientRequest,scope=Write,name=Latency");
+    public static final ObjectName COMPACTION_MANAGER_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.db:type=CompactionManager");
+    public static final ObjectName LOAD_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.metrics:type=Storage,name=Load");
+    public static final ObjectName GC_INSPECTOR_MBEAN_NAME = ObjectNames.create("org.apache.cassandra.service:type=GCInspector");
+    public static final ObjectName MEMORY_MBEAN_NAME = ObjectNames.create("java.lang:type=Memory");
+    public static final ObjectName MEMORY_POOLS_MBEAN_NAME = ObjectNames.create("java.lang:type=MemoryPool,name=*");
+    public static final ObjectName DIRECT_BUFFER_POOL_MBEAN_NAME = ObjectNames.create("java.nio:type=BufferPool,name=direct");
+    public static final ObjectName OPERATING_SYSTEM_MBEAN_NAME = ObjectNames.create("java.lang:type=OperatingSystem");
+    public static final List<ObjectName> OFF_HEAP_MBEAN_NAMES = ImmutableList.of(
+            ObjectNames.create("org.apache.cassandra.metrics:type=Table,name=MemtableOffHeapSize"),
+            ObjectNames.create("org.apache.cassandra.metrics:type=Table,name=BloomFilterOffHeapMemoryUsed"),
+            ObjectNames.create("org.apache.cassandra.metrics:type=Table,name=IndexSummaryOffHeapMemoryUsed"),
+            ObjectNames.create("org.apache.cassandra.metrics:type=Table,name=CompressionMetadataOffHeapMemoryUsed"));
 
     @Inject
     JMXConnectorCache jmxConnectorCache;
@@ -268,6 +292,96 @@ public class JmxmpElassandraProxy {
                 });
     }
 
+    /**
+     * Collect the node status, pending compactions, read latency and Elasticsearch search status of a pod.
+     */
+    public Single<CanaryGate.NodeHealth> nodeHealth(ElassandraPod pod, boolean elasticsearchEnabled) throws MalformedURLException {
+        return getMbeanServerConn(pod)
+                .map(jmxConnector -> {
+                    MBeanServerConnection mBeanServerConnection = jmxConnector.getMBeanServerConnection();
+                    StorageServiceMBean storageServiceMBean = JMX.newMBeanProxy(mBeanServerConnection, STORAGE_SERVICE_MBEAN_NAME, StorageServiceMBean.class);
+                    CanaryGate.NodeHealth nodeHealth = new CanaryGate.NodeHealth(
+                            pod.getName(),
+                            ElassandraNodeStatus.valueOf(storageServiceMBean.getOperationMode()),
+                            ((Number) mBeanServerConnection.getAttribute(PENDING_COMPACTIONS_MBEAN_NAME, "Value")).longValue(),
+                            ((Number) mBeanServerConnection.getAttribute(READ_LATENCY_MBEAN_NAME, "99thPercentile")).doubleValue(),
+                            elasticsearchEnabled ? JMX.newMBeanProxy(mBeanServerConnection, ELASTIC_NODE_METRICS_MBEAN_NAME, ElasticNodeMetricsMBean.class).isSearchEnabled() : null);
+                    logger.debug("pod={} health={}", pod.id(), nodeHealth);
+                    return nodeHealth;
+                });
+    }
+
+    /**
+     * Collect the disk usage, pending compactions, read and write latencies of a pod.
+     *
+     * @param diskCapacity data volume capacity in bytes, or null if unknown
+     */
+    public Single<AutoscalePolicy.NodeMetrics> nodeMetrics(ElassandraPod pod, Long diskCapacity) throws MalformedURLException {
+        return getMbeanServerConn(pod)
+                .map(jmxConnector -> {
+                    MBeanServerConnection mBeanServerConnection = jmxConnector.getMBeanServerConnection();
+                    long load = ((Number) mBeanServerConnection.getAttribute(LOAD_MBEAN_NAME, "Count")).longValue();
+                    AutoscalePolicy.NodeMetrics nodeMetrics = new AutoscalePolicy.NodeMetrics(
+                            pod.getName(),
+                            diskCapacity == null || diskCapacity == 0 ? null : (double) load / diskCapacity,
+                            ((Number) mBeanServerConnection.getAttribute(READ_LATENCY_MBEAN_NAME, "99thPercentile")).doubleValue() / 1000,
+                            ((Number) mBeanServerConnection.getAttribute(WRITE_LATENCY_MBEAN_NAME, "99thPercentile")).doubleValue() / 1000,
+                            ((Number) mBeanServerConnection.getAttribute(PENDING_COMPACTIONS_MBEAN_NAME, "Value")).longValue(),
+                            null);
+                    logger.debug("pod={} metrics={}", pod.id(), nodeMetrics);
+                    return nodeMetrics;
+                });
+    }
+
+    /**
+     * @return the live data size of a node in bytes.
+     */
+    public Single<Long> load(ElassandraPod pod) throws MalformedURLException {
+        return getMbeanServerConn(pod)
+                .map(jmxConnector -> ((Number) jmxConnector.getMBeanServerConnection().getAttribute(LOAD_MBEAN_NAME, "Count")).longValue());
+    }
+
+    /**
+     * Read the JVM metrics of a node. GC stats are reset by each call, like nodetool gcstats.
+     */
+    public Single<VerticalAutoscalePolicy.JvmMetrics> jvmMetrics(ElassandraPod pod) throws MalformedURLException {
+        return getMbeanServerConn(pod)
+                .map(jmxConnector -> {
+                    MBeanServerConnection mBeanServerConnection = jmxConnector.getMBeanServerConnection();
+                    // interval, max pause, total pause, stdev, reclaimed bytes, collections
+                    double[] gcStats = (double[]) mBeanServerConnection.invoke(GC_INSPECTOR_MBEAN_NAME, "getAndResetStats", null, null);
+                    MemoryUsage heap = MemoryUsage.from((CompositeData) mBeanServerConnection.getAttribute(MEMORY_MBEAN_NAME, "HeapMemoryUsage"));
+                    MemoryUsage nonHeap = MemoryUsage.from((CompositeData) mBeanServerConnection.getAttribute(MEMORY_MBEAN_NAME, "NonHeapMemoryUsage"));
+
+                    long heapUsedAfterGc = 0;
+                    for (ObjectName pool : mBeanServerConnection.queryNames(MEMORY_POOLS_MBEAN_NAME, null)) {
+                        CompositeData collectionUsage = (CompositeData) mBeanServerConnection.getAttribute(pool, "CollectionUsage");
+                        if ("HEAP".equals(String.valueOf(mBeanServerConnection.getAttribute(pool, "Type"))) && collectionUsage != null)
+                            heapUsedAfterGc += MemoryUsage.from(collectionUsage).getUsed();
+                    }
+
+                    long offHeap = nonHeap.getUsed() + ((Number) mBeanServerConnection.getAttribute(DIRECT_BUFFER_POOL_MBEAN_NAME, "MemoryUsed")).longValue();
+                    for (ObjectName name : OFF_HEAP_MBEAN_NAMES) {
+                        try {
+                            offHeap += ((Number) mBeanServerConnection.getAttribute(name, "Value")).longValue();
+                        } catch (InstanceNotFoundException e) {
+                            logger.debug("pod={} mbean={} not found", pod.id(), name);
+                        }
+                    }
+                    double cpuLoad = ((Number) mBeanServerConnection.getAttribute(OPERATING_SYSTEM_MBEAN_NAME, "ProcessCpuLoad")).doubleValue();
+
+                    VerticalAutoscalePolicy.JvmMetrics jvmMetrics = new VerticalAutoscalePolicy.JvmMetrics(
+                            pod.getName(),
+                            gcStats[1],
+                            heap.getMax() > 0 ? (double) heapUsedAfterGc / heap.getMax() : null,
+                            heap.getMax() > 0 ? heap.getMax() : null,
+                            offHeap,
+                            cpuLoad < 0 ? null : cpuLoad);
+                    logger.debug("pod={} jvmMetrics={}", pod.id(), jvmMetrics);
+                    return jvmMetrics;
+                });
+    }
+
     public Completable flush(ElassandraPod pod, String keyspace) throws MalformedURLException {
         return storageServiceMBeanProvider(pod)
                 .map(storageServiceMBean -> {
@@ -321,6 +435,24 @@ public class JmxmpElassandraProxy {
                 }));
     }
 
+    /**
+     * Apply Cassandra live settings through the StorageService MBean.
+     */
+    public Completable applySettings(ElassandraPod pod, Map<String, Object> settings) throws MalformedURLException {
+        return storageServiceMBeanProvider(pod)
+                .map(storageServiceMBean -> {
+                    for (Map.Entry<String, Object> setting : settings.entrySet()) {
+                        BiConsumer<StorageServiceMBean, Object> setter = LiveConfig.CASSANDRA_LIVE_SETTINGS.get(setting.getKey());
+                        if (setter != null) {
+                            setter.accept(storageServiceMBean, setting.getValue());
+                            logger.debug("pod={} setting {}={}", pod.id(), setting.getKey(), setting.getValue());
+                        }
+                    }
+                    logger.info("settings={} applied on pod={}", settings, pod.id());
+                    return storageServiceMBean;
+                }).ignoreElement();
+    }
+
     public Completable drain(ElassandraPod pod) throws MalformedURLException {
         return storageServiceMBeanProvider(pod)
                 .map(storageServiceMBean -> {
@@ -427,4 +559,30 @@ public class JmxmpElassandraProxy {
                     return storageServiceMBean;
                 }).ignoreElement();
     }
+
+    /**
+     * Abort all the repair sessions running on a node and the validation compactions, whoever started them.
+     */
+    public Completable abortRepair(ElassandraPod pod) throws MalformedURLException {
+        return getMbeanServerConn(pod)
+                .map(jmxConnector -> {
+                    MBeanServerConnection mBeanServerConnection = jmxConnector.getMBeanServerConnection();
+                    JMX.newMBeanProxy(mBeanServerConnection, STORAGE_SERVICE_MBEAN_NAME, StorageServiceMBean.class).forceTerminateAllRepairSessions();
+                    JMX.newMBeanProxy(mBeanServerConnection, COMPACTION_MANAGER_MBEAN_NAME, CompactionManagerMBean.class).stopCompaction("VALIDATION");
+                    logger.info("Repair aborted pod={}", pod.id());
+                    return jmxConnector;
+                }).ignoreElement();
+    }
+
+    /**
+     * Stop the running compactions of a type (COMPACTION, VALIDATION, CLEANUP, SCRUB, INDEX_BUILD...) on a node.
+     */
+    public Completable stopCompaction(ElassandraPod pod, String type) throws MalformedURLException {
+        return getMbeanServerConn(pod)
+                .map(jmxConnector -> {
+                    JMX.newMBeanProxy(jmxConnector.getMBeanServerConnection(), COMPACTION_MANAGER_MBEAN_NAME, CompactionManagerMBean.class).stopCompaction(type);
+                    logger.info("Compaction type={} stopped pod={}", type, pod.id());
+                    return jmxConnector;
+                }).ignoreElement();
+    }
 }
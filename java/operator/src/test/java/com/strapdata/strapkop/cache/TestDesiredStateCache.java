@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cache;
+
+import com.strapdata.strapkop.model.Key;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDesiredStateCache {
+
+    @Test
+    public void testRebuildOnVersionChange() throws Exception {
+        DesiredStateCache cache = new DesiredStateCache();
+        Key key = new Key("ns", "elassandra-cl1-dc1");
+        AtomicInteger builds = new AtomicInteger();
+
+        Object state1 = cache.get(key, "configmap/operator", "uid-1", () -> "state-" + builds.incrementAndGet());
+        Object state2 = cache.get(key, "configmap/operator", "uid-1", () -> "state-" + builds.incrementAndGet());
+        assertSame(state1, state2);
+        assertEquals(1, builds.get());
+
+        assertEquals("state-2", cache.get(key, "configmap/operator", "uid-2", () -> "state-" + builds.incrementAndGet()));
+        assertEquals("state-3", cache.get(key, "configmap/rack/a", "uid-2", () -> "state-" + builds.incrementAndGet()));
+        assertEquals("state-2", cache.get(key, "configmap/operator", "uid-2", () -> "state-" + builds.incrementAndGet()));
+    }
+
+    @Test
+    public void testBuildFailureNotCached() throws Exception {
+        DesiredStateCache cache = new DesiredStateCache();
+        Key key = new Key("ns", "elassandra-cl1-dc1");
+
+        assertThrows(IOException.class, () -> cache.get(key, "configmap/operator", "uid-1", () -> {
+            throw new IOException("failed");
+        }));
+        assertEquals("state", cache.get(key, "configmap/operator", "uid-1", () -> "state"));
+    }
+
+    @Test
+    public void testUnversionedAlwaysBuilt() throws Exception {
+        DesiredStateCache cache = new DesiredStateCache();
+        Key key = new Key("ns", "elassandra-cl1-dc1");
+        AtomicInteger builds = new AtomicInteger();
+
+        cache.get(key, "liveconfig", null, builds::incrementAndGet);
+        cache.get(key, "liveconfig", null, builds::incrementAndGet);
+        assertEquals(2, builds.get());
+        assertTrue(cache.isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cache;
+
+import com.strapdata.strapkop.model.Key;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestFingerprintCache {
+
+    @Test
+    public void testRecomputeOnVersionChange() {
+        FingerprintCache cache = new FingerprintCache();
+        Key key = new Key("ns", "elassandra-cl1-dc1");
+        AtomicInteger hashes = new AtomicInteger();
+
+        assertEquals("hash-1", cache.get(key, "datacenter", "uid-1", () -> "hash-" + hashes.incrementAndGet()));
+        assertEquals("hash-1", cache.get(key, "datacenter", "uid-1", () -> "hash-" + hashes.incrementAndGet()));
+        assertEquals("hash-2", cache.get(key, "datacenter", "uid-2", () -> "hash-" + hashes.incrementAndGet()));
+        assertEquals("hash-3", cache.get(key, "configmap/cm", "1", () -> "hash-" + hashes.incrementAndGet()));
+        assertEquals("hash-4", cache.get(key, "configmap/cm", null, () -> "hash-" + hashes.incrementAndGet()));
+        assertEquals(4, hashes.get());
+    }
+
+    @Test
+    public void testRemoveDataCenter() {
+        FingerprintCache cache = new FingerprintCache();
+        Key dc1 = new Key("ns", "elassandra-cl1-dc1");
+        Key dc2 = new Key("ns", "elassandra-cl1-dc2");
+        cache.get(dc1, "datacenter", "uid-1", () -> "hash-dc1");
+        cache.get(dc1, "configmap/elassandra-cl1-dc1-operator-config", "1", () -> "hash-cm1");
+        cache.get(dc2, "datacenter", "uid-1", () -> "hash-dc2");
+
+        // datacenter deleted
+        cache.remove(dc1);
+        assertFalse(cache.containsKey(dc1));
+        assertEquals(1, cache.size());
+        assertEquals("hash-dc2", cache.get(dc2, "datacenter", "uid-1", () -> "hash-recomputed"));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cache;
+
+import com.strapdata.strapkop.model.Key;
+import com.strapdata.strapkop.model.k8s.OperatorLabels;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenter;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenterSpec;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.openapi.models.*;
+import io.reactivex.observers.TestObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TestSeedsCache {
+
+    static final Key DC_KEY = new Key("ns", "elassandra-cl1-dc1");
+
+    SeedsCache seedsCache;
+    Cache<DataCenter> dataCenters;
+    Cache<V1Pod> pods;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        dataCenters = new Cache<>();
+        pods = new Cache<>();
+        SharedIndexInformer<DataCenter> dcInformer = mock(SharedIndexInformer.class);
+        when(dcInformer.getIndexer()).thenReturn(dataCenters);
+        SharedIndexInformer<V1Pod> podInformer = mock(SharedIndexInformer.class);
+        when(podInformer.getIndexer()).thenReturn(pods);
+        SharedInformerFactory sharedInformerFactory = mock(SharedInformerFactory.class);
+        when(sharedInformerFactory.getExistingSharedIndexInformer(DataCenter.class)).thenReturn(dcInformer);
+        when(sharedInformerFactory.getExistingSharedIndexInformer(V1Pod.class)).thenReturn(podInformer);
+
+        seedsCache = new SeedsCache();
+        seedsCache.sharedInformerFactory = sharedInformerFactory;
+        seedsCache.statefulsetCache = new StatefulsetCache();
+    }
+
+    DataCenter dataCenter() {
+        return new DataCenter()
+                .setMetadata(new V1ObjectMeta().namespace(DC_KEY.getNamespace()).name(DC_KEY.getName()))
+                .setSpec(new DataCenterSpec().setClusterName("cl1").setDatacenterName("dc1"));
+    }
+
+    static V1StatefulSet statefulSet(int rackIndex, String rack, int currentReplicas) {
+        return new V1StatefulSet()
+                .metadata(new V1ObjectMeta()
+                        .namespace(DC_KEY.getNamespace())
+                        .name("elassandra-cl1-dc1-" + rackIndex)
+                        .labels(new java.util.HashMap<String, String>() {{
+                            put(OperatorLabels.PARENT, DC_KEY.getName());
+                            put(OperatorLabels.RACK, rack);
+                            put(OperatorLabels.RACKINDEX, Integer.toString(rackIndex));
+                        }}))
+                .status(new V1StatefulSetStatus().currentReplicas(currentReplicas));
+    }
+
+    static V1Pod pod(String name, String hostIp) {
+        return new V1Pod()
+                .metadata(new V1ObjectMeta().namespace(DC_KEY.getNamespace()).name(name)
+                        .labels(Collections.singletonMap(OperatorLabels.PARENT, DC_KEY.getName())))
+                .status(new V1PodStatus().hostIP(hostIp).podIP("192.168.0.1"));
+    }
+
+    @Test
+    public void testUpdate() {
+        TestObserver<Key> updates = seedsCache.updates().test();
+
+        // no datacenter
+        assertNull(seedsCache.update(DC_KEY));
+
+        dataCenters.add(dataCenter());
+        V1StatefulSet sts0 = statefulSet(0, "a", 1);
+        seedsCache.statefulsetCache.update(sts0);
+        seedsCache.statefulsetCache.update(statefulSet(1, "b", 0));
+        pods.add(pod("elassandra-cl1-dc1-0-0", "10.0.0.1"));
+        pods.add(pod("elassandra-cl1-dc1-1-0", "10.0.0.2"));
+
+        SeedsCache.Seeds seeds = seedsCache.update(DC_KEY);
+        assertEquals(Collections.singletonList("10.0.0.1"), seeds.getSeeds());
+        assertNotNull(seeds.getEtag());
+        updates.assertValues(DC_KEY);
+
+        // unchanged seeds are not published again
+        assertSame(seeds, seedsCache.update(DC_KEY));
+        updates.assertValueCount(1);
+
+        // the second rack is started, cached seeds are served until the statefulset event
+        seedsCache.statefulsetCache.update(statefulSet(1, "b", 1));
+        assertSame(seeds, seedsCache.getOrCompute(DC_KEY));
+        seedsCache.onStatefulSet(statefulSet(1, "b", 1));
+        assertEquals(Arrays.asList("10.0.0.1", "10.0.0.2"), seedsCache.get(DC_KEY).getSeeds());
+        updates.assertValueCount(2);
+
+        // datacenter deleted
+        dataCenters.delete(dataCenters.getByKey(DC_KEY.id()));
+        assertNull(seedsCache.update(DC_KEY));
+        assertFalse(seedsCache.containsKey(DC_KEY));
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        TestObserver<Key> updates = seedsCache.updates().test();
+        dataCenters.add(dataCenter());
+        seedsCache.statefulsetCache.update(statefulSet(0, "a", 1));
+        pods.add(pod("elassandra-cl1-dc1-0-0", "10.0.0.1"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<SeedsCache.Seeds>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++)
+                futures.add(executor.submit(() -> seedsCache.update(DC_KEY)));
+            SeedsCache.Seeds seeds = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<SeedsCache.Seeds> future : futures)
+                assertSame(seeds, future.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        // seeds are published once
+        updates.assertValues(DC_KEY);
+    }
+
+    @Test
+    public void testStatefulSetWithoutLabels() {
+        TestObserver<Key> updates = seedsCache.updates().test();
+        seedsCache.onStatefulSet(new V1StatefulSet().metadata(new V1ObjectMeta().namespace("ns").name("sts")));
+        seedsCache.onPod(new V1Pod().metadata(new V1ObjectMeta().namespace("ns").name("pod-0")));
+        updates.assertNoValues();
+        assertTrue(seedsCache.isEmpty());
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cql;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCqlKeyspaceManager {
+
+    @Test
+    public void testKeyspacesToUpdate() {
+        Map<String, Map<String, Integer>> snapshot = ImmutableMap.of(
+                "system_auth", ImmutableMap.of("dc1", 3, "dc2", 3),
+                "ks1", ImmutableMap.of("dc1", 1),
+                "ks2", ImmutableMap.of("dc2", 2));
+
+        Map<String, Integer> changes = CqlKeyspaceManager.keyspacesToUpdate(snapshot, "dc1",
+                ImmutableMap.of("system_auth", 3, "ks1", 3, "ks2", 2, "ks3", 1));
+        assertEquals(ImmutableMap.of("ks1", 3, "ks2", 2, "ks3", 1), changes);
+    }
+
+    @Test
+    public void testReplicationMap() {
+        assertEquals(ImmutableMap.of("dc1", 3),
+                CqlKeyspaceManager.replicationMap(ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc1", "3")));
+        assertEquals(ImmutableMap.of(),
+                CqlKeyspaceManager.replicationMap(ImmutableMap.of("class", "org.apache.cassandra.locator.SimpleStrategy", "replication_factor", "1")));
+    }
+
+    @Test
+    public void testMaxReplicationFactor() {
+        assertEquals(3, CqlKeyspaceManager.maxReplicationFactor(ImmutableMap.of(
+                "system", ImmutableMap.of("class", "org.apache.cassandra.locator.LocalStrategy"),
+                "system_auth", ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc1", "3", "dc2", "5"),
+                "ks1", ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc2", "2"),
+                "ks2", ImmutableMap.of("class", "org.apache.cassandra.locator.SimpleStrategy", "replication_factor", "1")), "dc1"));
+        assertEquals(Integer.MAX_VALUE, CqlKeyspaceManager.maxReplicationFactor(ImmutableMap.of(
+                "system_traces", ImmutableMap.of("class", "org.apache.cassandra.locator.SimpleStrategy", "replication_factor", "2")), "dc1"));
+    }
+
+    @Test
+    public void testRackAlignedReplication() {
+        Map<String, Map<String, String>> replications = ImmutableMap.of(
+                "system", ImmutableMap.of("class", "org.apache.cassandra.locator.LocalStrategy"),
+                "system_auth", ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc1", "3", "dc2", "5"),
+                "ks1", ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc2", "2"),
+                "ks2", ImmutableMap.of("class", "org.apache.cassandra.locator.SimpleStrategy", "replication_factor", "1"));
+        assertTrue(CqlKeyspaceManager.rackAlignedReplication(replications, "dc1", 3));
+        assertFalse(CqlKeyspaceManager.rackAlignedReplication(replications, "dc1", 2));
+        // RF lower than racks, replicas of a range are not in every rack
+        assertFalse(CqlKeyspaceManager.rackAlignedReplication(replications, "dc1", 4));
+
+        // one keyspace with a lower RF is enough to disable concurrent bootstraps
+        assertFalse(CqlKeyspaceManager.rackAlignedReplication(ImmutableMap.of(
+                "system_auth", ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc1", "3"),
+                "ks1", ImmutableMap.of("class", "org.apache.cassandra.locator.NetworkTopologyStrategy", "dc1", "2")), "dc1", 3));
+        assertFalse(CqlKeyspaceManager.rackAlignedReplication(ImmutableMap.of(
+                "system_traces", ImmutableMap.of("class", "org.apache.cassandra.locator.SimpleStrategy", "replication_factor", "2")), "dc1", 3));
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cql;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCqlRoleSnapshot {
+
+    @Test
+    public void testResources() {
+        assertEquals("data", CqlRoleSnapshot.resource("ALL KEYSPACES"));
+        assertEquals("data/ks", CqlRoleSnapshot.resource("KEYSPACE Ks"));
+        assertEquals("data/Ks", CqlRoleSnapshot.resource("KEYSPACE \"Ks\""));
+        assertEquals("data/ks/t1", CqlRoleSnapshot.resource("TABLE ks.T1"));
+        assertEquals("data/ks/t1", CqlRoleSnapshot.resource("ks.t1"));
+        assertEquals("roles", CqlRoleSnapshot.resource("ALL ROLES"));
+        assertEquals("roles/bob", CqlRoleSnapshot.resource("ROLE bob"));
+        assertNull(CqlRoleSnapshot.resource("ALL FUNCTIONS"));
+    }
+
+    @Test
+    public void testGrantedPermissions() {
+        CqlRoleSnapshot snapshot = new CqlRoleSnapshot(true);
+        snapshot.addRole("reaper", ImmutableSet.of());
+        snapshot.addPermissions("reaper", "data/reaper_db", CqlRoleSnapshot.DATA_PERMISSIONS);
+        snapshot.addPermissions("kibana", "data/.kibana", ImmutableSet.of("SELECT"));
+
+        assertTrue(snapshot.roleExists("reaper"));
+        assertFalse(snapshot.roleExists("kibana"));
+        assertTrue(snapshot.isGranted("GRANT ALL PERMISSIONS ON KEYSPACE reaper_db TO reaper"));
+        assertTrue(snapshot.isGranted("GRANT SELECT, MODIFY ON KEYSPACE reaper_db TO reaper"));
+        assertFalse(snapshot.isGranted("GRANT SELECT ON reaper_db.t1 TO reaper"));
+        assertTrue(snapshot.isGranted("GRANT SELECT ON KEYSPACE \".kibana\" TO kibana"));
+        assertFalse(snapshot.isGranted("GRANT ALL PERMISSIONS ON KEYSPACE \".kibana\" TO kibana"));
+        assertFalse(snapshot.isGranted("INSERT INTO elastic_admin.privileges (role,actions,indices,fields,query) VALUES ('kibana','cluster:monitor/.*','',null,null)"));
+    }
+
+    @Test
+    public void testGrantedRoles() {
+        CqlRoleSnapshot snapshot = new CqlRoleSnapshot(true);
+        snapshot.addRole("gravitee", ImmutableSet.of("gravitee_ro"));
+        assertTrue(snapshot.isGranted("GRANT gravitee_ro TO gravitee"));
+        assertFalse(snapshot.isGranted("GRANT admin TO gravitee"));
+    }
+
+    @Test
+    public void testUnknownSnapshot() {
+        assertFalse(CqlRoleSnapshot.UNKNOWN.roleExists("cassandra"));
+        assertFalse(CqlRoleSnapshot.UNKNOWN.isGranted("GRANT ALL PERMISSIONS ON ALL KEYSPACES TO admin"));
+    }
+}
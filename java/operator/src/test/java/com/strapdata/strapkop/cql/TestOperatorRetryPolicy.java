@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.cql;
+
+import com.datastax.driver.core.ConsistencyLevel;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.WriteType;
+import com.datastax.driver.core.exceptions.DriverException;
+import com.datastax.driver.core.exceptions.OperationTimedOutException;
+import com.datastax.driver.core.policies.DefaultRetryPolicy;
+import com.datastax.driver.core.policies.RetryPolicy;
+import com.datastax.driver.core.policies.RetryPolicy.RetryDecision;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestOperatorRetryPolicy {
+
+    static final Statement IDEMPOTENT = new SimpleStatement("SELECT * FROM system_schema.keyspaces").setIdempotent(true);
+    static final Statement NON_IDEMPOTENT = new SimpleStatement("CREATE ROLE bob").setIdempotent(false);
+    static final DriverException ERROR = new OperationTimedOutException(new InetSocketAddress("127.0.0.1", 9042));
+
+    static void assertDecision(RetryDecision expected, RetryDecision actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getRetryConsistencyLevel(), actual.getRetryConsistencyLevel());
+        assertEquals(expected.isRetryCurrent(), actual.isRetryCurrent());
+    }
+
+    @Test
+    public void testDefaultBehaviour() {
+        RetryPolicy policy = new OperatorRetryPolicy(0);
+        RetryPolicy defaultPolicy = DefaultRetryPolicy.INSTANCE;
+        for (Statement stmt : new Statement[] { IDEMPOTENT, NON_IDEMPOTENT }) {
+            for (int nbRetry = 0; nbRetry < 3; nbRetry++) {
+                assertDecision(defaultPolicy.onReadTimeout(stmt, ConsistencyLevel.QUORUM, 2, 1, false, nbRetry),
+                        policy.onReadTimeout(stmt, ConsistencyLevel.QUORUM, 2, 1, false, nbRetry));
+                assertDecision(defaultPolicy.onReadTimeout(stmt, ConsistencyLevel.QUORUM, 2, 2, false, nbRetry),
+                        policy.onReadTimeout(stmt, ConsistencyLevel.QUORUM, 2, 2, false, nbRetry));
+                assertDecision(defaultPolicy.onWriteTimeout(stmt, ConsistencyLevel.QUORUM, WriteType.SIMPLE, 2, 1, nbRetry),
+                        policy.onWriteTimeout(stmt, ConsistencyLevel.QUORUM, WriteType.SIMPLE, 2, 1, nbRetry));
+                assertDecision(defaultPolicy.onWriteTimeout(stmt, ConsistencyLevel.QUORUM, WriteType.BATCH_LOG, 2, 1, nbRetry),
+                        policy.onWriteTimeout(stmt, ConsistencyLevel.QUORUM, WriteType.BATCH_LOG, 2, 1, nbRetry));
+                assertDecision(defaultPolicy.onRequestError(stmt, ConsistencyLevel.QUORUM, ERROR, nbRetry),
+                        policy.onRequestError(stmt, ConsistencyLevel.QUORUM, ERROR, nbRetry));
+            }
+        }
+        assertEquals(RetryDecision.Type.RETRY, OperatorRetryPolicy.INSTANCE.onRequestError(IDEMPOTENT, ConsistencyLevel.ONE, ERROR, 5).getType());
+    }
+
+    @Test
+    public void testRetryOnNextHost() {
+        RetryPolicy policy = new OperatorRetryPolicy(1);
+
+        // idempotent timeouts are retried once on the next host
+        assertDecision(RetryDecision.tryNextHost(ConsistencyLevel.QUORUM), policy.onReadTimeout(IDEMPOTENT, ConsistencyLevel.QUORUM, 2, 1, false, 0));
+        assertDecision(RetryDecision.rethrow(), policy.onReadTimeout(IDEMPOTENT, ConsistencyLevel.QUORUM, 2, 1, false, 1));
+        assertDecision(RetryDecision.tryNextHost(ConsistencyLevel.QUORUM), policy.onWriteTimeout(IDEMPOTENT, ConsistencyLevel.QUORUM, WriteType.SIMPLE, 2, 1, 0));
+        assertDecision(RetryDecision.rethrow(), policy.onWriteTimeout(IDEMPOTENT, ConsistencyLevel.QUORUM, WriteType.SIMPLE, 2, 1, 1));
+
+        // non idempotent timeouts are not retried
+        assertDecision(RetryDecision.rethrow(), policy.onReadTimeout(NON_IDEMPOTENT, ConsistencyLevel.QUORUM, 2, 1, false, 0));
+        assertDecision(RetryDecision.rethrow(), policy.onWriteTimeout(NON_IDEMPOTENT, ConsistencyLevel.QUORUM, WriteType.SIMPLE, 2, 1, 0));
+
+        // default decisions are kept when the default policy retries
+        assertDecision(RetryDecision.retry(ConsistencyLevel.QUORUM), policy.onReadTimeout(IDEMPOTENT, ConsistencyLevel.QUORUM, 2, 2, false, 0));
+
+        // request errors do not walk the whole query plan
+        assertDecision(RetryDecision.tryNextHost(ConsistencyLevel.QUORUM), policy.onRequestError(NON_IDEMPOTENT, ConsistencyLevel.QUORUM, ERROR, 0));
+        assertDecision(RetryDecision.rethrow(), policy.onRequestError(NON_IDEMPOTENT, ConsistencyLevel.QUORUM, ERROR, 1));
+    }
+
+    @Test
+    public void testUnavailable() {
+        RetryPolicy policy = new OperatorRetryPolicy(0);
+        assertDecision(RetryDecision.tryNextHost(ConsistencyLevel.LOCAL_ONE), policy.onUnavailable(IDEMPOTENT, ConsistencyLevel.QUORUM, 2, 1, 0));
+        assertDecision(RetryDecision.rethrow(), policy.onUnavailable(IDEMPOTENT, ConsistencyLevel.QUORUM, 2, 1, 1));
+        assertDecision(RetryDecision.rethrow(), policy.onUnavailable(IDEMPOTENT, ConsistencyLevel.SERIAL, 2, 1, 0));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.k8s;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.strapdata.strapkop.model.Key;
+import com.strapdata.strapkop.reconcilier.Reconciliation;
+import com.strapdata.strapkop.reconcilier.TaskLane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.CompletableSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.strapdata.strapkop.reconcilier.TaskLane.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTaskQueues {
+
+    static final Map<TaskLane, Integer> LIMITS = ImmutableMap.of(TOPOLOGY, 1, SCHEMA, 1, MAINTENANCE, 2, REPAIR, 1, READ_ONLY, 4);
+
+    @Test
+    public void testConflictMatrix() {
+        for (TaskLane lane1 : TaskLane.values())
+            for (TaskLane lane2 : TaskLane.values())
+                assertEquals(lane1.conflictsWith(lane2), lane2.conflictsWith(lane1), lane1 + "/" + lane2);
+        assertTrue(TOPOLOGY.conflictsWith(READ_ONLY));
+        assertTrue(SCHEMA.conflictsWith(MAINTENANCE));
+        assertFalse(MAINTENANCE.conflictsWith(MAINTENANCE));
+        assertFalse(MAINTENANCE.conflictsWith(READ_ONLY));
+        assertFalse(SCHEMA.conflictsWith(READ_ONLY));
+        assertTrue(SCHEMA.conflictsWith(REPAIR));
+        assertFalse(REPAIR.conflictsWith(MAINTENANCE));
+        assertFalse(REPAIR.conflictsWith(READ_ONLY));
+    }
+
+    @Test
+    public void testNonConflictingTasksStart() {
+        // a backup and a cleanup run along a repair
+        assertEquals(0, TaskQueues.nextTask(ImmutableList.of(REPAIR), ImmutableList.of(READ_ONLY), LIMITS));
+        assertEquals(0, TaskQueues.nextTask(ImmutableList.of(REPAIR, READ_ONLY), ImmutableList.of(MAINTENANCE), LIMITS));
+        assertEquals(0, TaskQueues.nextTask(ImmutableList.of(), ImmutableList.of(TOPOLOGY), LIMITS));
+    }
+
+    @Test
+    public void testLaneLimit() {
+        assertEquals(-1, TaskQueues.nextTask(ImmutableList.of(MAINTENANCE, MAINTENANCE), ImmutableList.of(MAINTENANCE), LIMITS));
+        assertEquals(1, TaskQueues.nextTask(ImmutableList.of(MAINTENANCE, MAINTENANCE), ImmutableList.of(MAINTENANCE, READ_ONLY), LIMITS));
+        // one repair at a time
+        assertEquals(-1, TaskQueues.nextTask(ImmutableList.of(REPAIR), ImmutableList.of(REPAIR), LIMITS));
+        assertEquals(1, TaskQueues.nextTask(ImmutableList.of(REPAIR), ImmutableList.of(REPAIR, MAINTENANCE), LIMITS));
+    }
+
+    @Test
+    public void testConflictingTasksWait() {
+        assertEquals(-1, TaskQueues.nextTask(ImmutableList.of(TOPOLOGY), ImmutableList.of(READ_ONLY), LIMITS));
+        assertEquals(-1, TaskQueues.nextTask(ImmutableList.of(MAINTENANCE), ImmutableList.of(SCHEMA), LIMITS));
+        // a task does not overtake a conflicting pending task
+        assertEquals(-1, TaskQueues.nextTask(ImmutableList.of(MAINTENANCE), ImmutableList.of(TOPOLOGY, READ_ONLY), LIMITS));
+        assertEquals(1, TaskQueues.nextTask(ImmutableList.of(MAINTENANCE), ImmutableList.of(SCHEMA, READ_ONLY), LIMITS));
+    }
+
+    @Test
+    public void testCancel() {
+        final Key key = new Key("default", "elassandra-cl1-dc1");
+        TaskQueues taskQueues = new TaskQueues(new SimpleMeterRegistry(), Schedulers.trampoline(), LIMITS);
+        CompletableSubject repair = CompletableSubject.create();
+        CompletableSubject replication = CompletableSubject.create();
+        assertTrue(taskQueues.submit(new Reconciliation().withKey(key).withName("repair").withKind(Reconciliation.Kind.TASK)
+                .withLane(REPAIR).withCompletable(repair)));
+        assertFalse(taskQueues.submit(new Reconciliation().withKey(key).withName("replication").withKind(Reconciliation.Kind.TASK)
+                .withLane(SCHEMA).withCompletable(replication)));
+        assertTrue(repair.hasObservers());
+        assertEquals(1, taskQueues.pending(SCHEMA));
+
+        // cancelling the running repair starts the conflicting replication task
+        taskQueues.cancel(key, "repair");
+        assertFalse(repair.hasObservers());
+        assertTrue(replication.hasObservers());
+        assertEquals(0, taskQueues.ongoing(REPAIR));
+        assertEquals(1, taskQueues.ongoing(SCHEMA));
+
+        taskQueues.remove(key);
+        assertFalse(replication.hasObservers());
+        assertEquals(0, taskQueues.ongoing(SCHEMA));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.k8s;
+
+import com.strapdata.strapkop.model.Key;
+import com.strapdata.strapkop.reconcilier.Reconciliation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+import io.reactivex.subjects.CompletableSubject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorkQueues {
+
+    static final Key KEY = new Key("default", "elassandra-cl1-dc1");
+
+    static Reconciliation reconciliation(String name, Reconciliation.Kind kind, Reconciliation.Type type, Completable completable) {
+        return new Reconciliation().withKey(KEY).withName(name).withKind(kind).withType(type).withCompletable(completable);
+    }
+
+    @Test
+    public void testPriority() {
+        assertEquals(Reconciliation.Priority.DELETE, reconciliation("dc", Reconciliation.Kind.DATACENTER, Reconciliation.Type.DELETED, null).priority());
+        assertEquals(Reconciliation.Priority.SPEC, reconciliation("dc", Reconciliation.Kind.DATACENTER, Reconciliation.Type.MODIFIED, null).priority());
+        assertEquals(Reconciliation.Priority.STATUS, reconciliation("sts", Reconciliation.Kind.STATEFULSET, Reconciliation.Type.MODIFIED, null).priority());
+        assertEquals(Reconciliation.Priority.STATUS, reconciliation("deployment", Reconciliation.Kind.DEPLOYMENT, Reconciliation.Type.MODIFIED, null).priority());
+    }
+
+    @Test
+    public void testSpecChangeOvertakesCoalescedStatus() {
+        WorkQueues workQueues = new WorkQueues(new SimpleMeterRegistry(), Schedulers.trampoline());
+        List<String> executed = new ArrayList<>();
+        CompletableSubject first = CompletableSubject.create();
+
+        assertTrue(workQueues.submit(reconciliation("sts-0", Reconciliation.Kind.STATEFULSET, Reconciliation.Type.MODIFIED,
+                first.doOnComplete(() -> executed.add("sts-0")))));
+        assertFalse(workQueues.submit(reconciliation("sts-1", Reconciliation.Kind.STATEFULSET, Reconciliation.Type.MODIFIED,
+                Completable.fromAction(() -> executed.add("sts-1")))));
+        assertFalse(workQueues.submit(reconciliation("sts-2", Reconciliation.Kind.STATEFULSET, Reconciliation.Type.MODIFIED,
+                Completable.fromAction(() -> executed.add("sts-2")))));
+        assertFalse(workQueues.submit(reconciliation("dc", Reconciliation.Kind.DATACENTER, Reconciliation.Type.MODIFIED,
+                Completable.fromAction(() -> executed.add("dc")))));
+        assertEquals(1, workQueues.pending(Reconciliation.Priority.STATUS));
+        assertEquals(1, workQueues.pending(Reconciliation.Priority.SPEC));
+
+        first.onComplete();
+        // the spec change runs first, then the last status refresh
+        assertEquals(3, executed.size());
+        assertEquals("sts-0", executed.get(0));
+        assertEquals("dc", executed.get(1));
+        assertEquals("sts-2", executed.get(2));
+        assertEquals(0, workQueues.pending(Reconciliation.Priority.STATUS));
+    }
+
+    @Test
+    public void testDeletePreempts() {
+        WorkQueues workQueues = new WorkQueues(new SimpleMeterRegistry(), Schedulers.trampoline());
+        List<String> executed = new ArrayList<>();
+        CompletableSubject ongoing = CompletableSubject.create();
+
+        assertTrue(workQueues.submit(reconciliation("sts-0", Reconciliation.Kind.STATEFULSET, Reconciliation.Type.MODIFIED,
+                ongoing.doOnComplete(() -> executed.add("sts-0")))));
+        assertFalse(workQueues.submit(reconciliation("dc", Reconciliation.Kind.DATACENTER, Reconciliation.Type.MODIFIED,
+                Completable.fromAction(() -> executed.add("dc")))));
+        assertTrue(workQueues.submit(reconciliation("dc", Reconciliation.Kind.DATACENTER, Reconciliation.Type.DELETED,
+                Completable.fromAction(() -> executed.add("delete")))));
+
+        assertFalse(ongoing.hasObservers());
+        assertEquals(1, executed.size());
+        assertEquals("delete", executed.get(0));
+        assertEquals(0, workQueues.pending(Reconciliation.Priority.SPEC));
+    }
+}
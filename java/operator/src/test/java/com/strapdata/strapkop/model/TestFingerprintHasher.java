@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.model;
+
+import com.google.gson.Gson;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenterSpec;
+import io.kubernetes.client.openapi.JSON;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestFingerprintHasher {
+
+    static void assertSameDigest(Gson gson, Object object) {
+        assertEquals(DigestUtils.sha1Hex(gson.toJson(object)), FingerprintHasher.sha1Hex(gson, object));
+    }
+
+    @Test
+    public void testSameDigestAsJsonString() {
+        Gson gson = new Gson();
+        assertSameDigest(gson, new DataCenterSpec());
+        assertSameDigest(gson, Arrays.asList("a", 1, null, true, Collections.singletonMap("k", "v")));
+        // non-ASCII, surrogate pairs, html escaped characters
+        assertSameDigest(gson, Collections.singletonMap("key", "café € 😀 <tag>&'=\u0000"));
+        // unpaired surrogates
+        assertSameDigest(gson, Arrays.asList("\ud83d", "x\ude00y", "\ud83d"));
+    }
+
+    /**
+     * A new exposed setting with a non-null default changes the fingerprint of all datacenters, and rolls them when upgrading the operator.
+     */
+    @Test
+    public void testDefaultSpecFingerprint() {
+        assertEquals("6dab4b6", new DataCenterSpec().elassandraFingerprint());
+    }
+
+    @Test
+    public void testLargeConfigMap() {
+        Map<String, Object> object = new HashMap<>();
+        Map<String, String> data = new TreeMap<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            sb.append("key_").append(i).append(": value é").append(i).append('\n');
+        data.put("cassandra_yaml_d_009_user_config_overrides_yaml", sb.toString());
+        data.put("logback_xml", "<configuration/>");
+        object.put("data", data);
+        object.put("binaryData", Collections.singletonMap("keystore", new byte[]{ 1, 2, 3 }));
+        assertSameDigest(new JSON().getGson(), object);
+    }
+}
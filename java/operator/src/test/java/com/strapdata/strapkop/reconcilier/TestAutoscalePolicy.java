@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableList;
+import com.strapdata.strapkop.model.k8s.datacenter.Autoscaling;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestAutoscalePolicy {
+
+    static final long NOW = 10_000_000L;
+
+    static Autoscaling autoscaling() {
+        return new Autoscaling()
+                .withMaxDiskUsage(0.7)
+                .withMaxReadLatencyP99Ms(20.0)
+                .withScaleDownRatio(0.5)
+                .withScaleUpCooldownSeconds(600)
+                .withScaleDownCooldownSeconds(3600);
+    }
+
+    static List<AutoscalePolicy.NodeMetrics> metrics(double diskUsage, double readLatency, int nodes) {
+        ImmutableList.Builder<AutoscalePolicy.NodeMetrics> builder = ImmutableList.builder();
+        for (int i = 0; i < nodes; i++)
+            builder.add(new AutoscalePolicy.NodeMetrics("pod-" + i, diskUsage, readLatency, 1.0, 0L, null));
+        return builder.build();
+    }
+
+    @Test
+    public void testScaleUp() {
+        Optional<AutoscalePolicy.Recommendation> recommendation = AutoscalePolicy.recommend(autoscaling(), 3, 6, 3, metrics(0.3, 25.0, 3), 0, NOW);
+        assertTrue(recommendation.isPresent());
+        assertEquals(4, recommendation.get().getReplicas());
+        assertTrue(recommendation.get().getReason().contains("readLatencyP99"));
+    }
+
+    @Test
+    public void testScaleUpCooldown() {
+        assertFalse(AutoscalePolicy.recommend(autoscaling(), 3, 6, 3, metrics(0.3, 25.0, 3), NOW - 60_000, NOW).isPresent());
+    }
+
+    @Test
+    public void testMaxReplicas() {
+        assertFalse(AutoscalePolicy.recommend(autoscaling(), 3, 3, 3, metrics(0.8, 25.0, 3), 0, NOW).isPresent());
+        assertEquals(4, AutoscalePolicy.recommend(autoscaling(), 3, 4, 5, metrics(0.1, 1.0, 5), 0, NOW).get().getReplicas());
+        assertEquals(3, AutoscalePolicy.recommend(autoscaling(), 3, 6, 2, metrics(0.1, 1.0, 2), 0, NOW).get().getReplicas());
+    }
+
+    @Test
+    public void testPartialMetrics() {
+        assertFalse(AutoscalePolicy.recommend(autoscaling(), 3, 6, 3, metrics(0.3, 25.0, 2), 0, NOW).isPresent());
+    }
+
+    @Test
+    public void testHysteresis() {
+        // between scaleDownRatio and the threshold, keep the current size
+        assertFalse(AutoscalePolicy.recommend(autoscaling(), 3, 6, 4, metrics(0.3, 15.0, 4), 0, NOW).isPresent());
+    }
+
+    @Test
+    public void testScaleDown() {
+        Optional<AutoscalePolicy.Recommendation> recommendation = AutoscalePolicy.recommend(autoscaling(), 3, 6, 4, metrics(0.2, 5.0, 4), 0, NOW);
+        assertTrue(recommendation.isPresent());
+        assertEquals(3, recommendation.get().getReplicas());
+
+        // scale down cooldown
+        assertFalse(AutoscalePolicy.recommend(autoscaling(), 3, 6, 4, metrics(0.2, 5.0, 4), NOW - 1_800_000, NOW).isPresent());
+        // min replicas
+        assertFalse(AutoscalePolicy.recommend(autoscaling(), 4, 6, 4, metrics(0.2, 5.0, 4), 0, NOW).isPresent());
+    }
+
+    @Test
+    public void testScaleDownProjectedDiskUsage() {
+        // 0.3 x 2/1 = 0.6 < 0.7
+        assertTrue(AutoscalePolicy.recommend(autoscaling(), 1, 6, 2, metrics(0.3, 5.0, 2), 0, NOW).isPresent());
+        // 0.36 x 2/1 = 0.72 > 0.7, the remaining node would be overloaded
+        assertFalse(AutoscalePolicy.recommend(autoscaling().withScaleDownRatio(0.99), 1, 6, 2, metrics(0.36, 5.0, 2), 0, NOW).isPresent());
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableList;
+import com.strapdata.strapkop.model.k8s.datacenter.Canary;
+import com.strapdata.strapkop.model.sidecar.ElassandraNodeStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestCanaryGate {
+
+    static final Canary CANARY = new Canary().withMaxPendingCompactions(10).withMaxReadLatencyRatio(2.0);
+
+    static final List<CanaryGate.NodeHealth> BASELINE = ImmutableList.of(
+            new CanaryGate.NodeHealth("elassandra-cl1-dc1-0-1", ElassandraNodeStatus.NORMAL, 0L, 800.0, true),
+            new CanaryGate.NodeHealth("elassandra-cl1-dc1-1-0", ElassandraNodeStatus.NORMAL, 2L, 1000.0, true));
+
+    static List<CanaryGate.NodeHealth> canary(ElassandraNodeStatus status, long pendingCompactions, double readLatency, Boolean searchEnabled) {
+        return ImmutableList.of(new CanaryGate.NodeHealth("elassandra-cl1-dc1-0-0", status, pendingCompactions, readLatency, searchEnabled));
+    }
+
+    @Test
+    public void testHealthyCanary() {
+        assertEquals(Optional.empty(), CanaryGate.check(CANARY, canary(ElassandraNodeStatus.NORMAL, 5, 1500.0, true), BASELINE));
+        // Elasticsearch disabled
+        assertEquals(Optional.empty(), CanaryGate.check(CANARY, canary(ElassandraNodeStatus.NORMAL, 5, 1500.0, null), BASELINE));
+        // no baseline latency
+        assertEquals(Optional.empty(), CanaryGate.check(CANARY, canary(ElassandraNodeStatus.NORMAL, 0, 5000.0, true), Collections.emptyList()));
+    }
+
+    @Test
+    public void testUnhealthyCanary() {
+        assertTrue(CanaryGate.check(CANARY, Collections.emptyList(), BASELINE).isPresent());
+        assertTrue(CanaryGate.check(CANARY, canary(ElassandraNodeStatus.JOINING, 0, 500.0, true), BASELINE).get().contains("status=JOINING"));
+        assertTrue(CanaryGate.check(CANARY, canary(ElassandraNodeStatus.NORMAL, 11, 500.0, true), BASELINE).get().contains("pendingCompactions=11"));
+        assertTrue(CanaryGate.check(CANARY, canary(ElassandraNodeStatus.NORMAL, 0, 500.0, false), BASELINE).get().contains("search disabled"));
+        // compared to the slowest baseline pod
+        assertTrue(CanaryGate.check(CANARY, canary(ElassandraNodeStatus.NORMAL, 0, 2001.0, true), BASELINE).get().contains("readLatencyP99=2001us"));
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.OperatorLabels;
+import com.strapdata.strapkop.model.k8s.datacenter.ParkedTopology;
+import io.kubernetes.client.openapi.models.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDesiredState {
+
+    static V1StatefulSet statefulSet(String fingerprint, long generation, int replicas, int partition, String rollbackTemplate) {
+        V1StatefulSet sts = new V1StatefulSet()
+                .metadata(new V1ObjectMeta().name("elassandra-cl1-dc1-0"))
+                .spec(new V1StatefulSetSpec()
+                        .replicas(replicas)
+                        .template(new V1PodTemplateSpec().metadata(new V1ObjectMeta()
+                                .putAnnotationsItem(OperatorLabels.DATACENTER_FINGERPRINT, fingerprint)
+                                .putAnnotationsItem(OperatorLabels.DATACENTER_GENERATION, Long.toString(generation)))));
+        if (partition > 0)
+            DataCenterUpdateAction.setPartition(sts, partition);
+        if (rollbackTemplate != null)
+            sts.getMetadata().putAnnotationsItem(OperatorLabels.ROLLBACK_TEMPLATE, rollbackTemplate);
+        return sts;
+    }
+
+    @Test
+    public void testSameDesiredState() {
+        V1StatefulSet desired = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        assertTrue(DataCenterUpdateAction.sameDesiredState(statefulSet("1234567-89abcde-0000000", 3, 3, 0, null), desired));
+        assertTrue(DataCenterUpdateAction.sameDesiredState(DataCenterUpdateAction.setPartition(statefulSet("1234567-89abcde-0000000", 3, 3, 0, null), 0), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(null, desired));
+    }
+
+    @Test
+    public void testChangedDesiredState() {
+        V1StatefulSet desired = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        assertFalse(DataCenterUpdateAction.sameDesiredState(statefulSet("7654321-89abcde-0000000", 3, 3, 0, null), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(statefulSet("1234567-89abcde-0000000", 2, 3, 0, null), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(statefulSet("1234567-89abcde-0000000", 3, 2, 0, null), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(statefulSet("1234567-89abcde-0000000", 3, 3, 2, null), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(statefulSet("1234567-89abcde-0000000", 3, 3, 0, "{}"), desired));
+    }
+
+    static V1StatefulSet withNodeInfoSecret(V1StatefulSet sts, String secretName) {
+        sts.getSpec().getTemplate().spec(new V1PodSpec().addInitContainersItem(new V1Container()
+                .name("nodeinfo")
+                .addEnvItem(new V1EnvVar().name("NODEINFO_TOKEN").valueFrom(new V1EnvVarSource()
+                        .secretKeyRef(new V1SecretKeySelector().name(secretName).key("token"))))));
+        return sts;
+    }
+
+    @Test
+    public void testChangedNodeInfoSecret() {
+        V1StatefulSet desired = withNodeInfoSecret(statefulSet("1234567-89abcde-0000000", 3, 3, 0, null), "nodeinfo-token-abcde");
+        assertTrue(DataCenterUpdateAction.sameDesiredState(withNodeInfoSecret(statefulSet("1234567-89abcde-0000000", 3, 3, 0, null), "nodeinfo-token-abcde"), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(withNodeInfoSecret(statefulSet("1234567-89abcde-0000000", 3, 3, 0, null), "nodeinfo-token-fghij"), desired));
+        assertFalse(DataCenterUpdateAction.sameDesiredState(statefulSet("1234567-89abcde-0000000", 3, 3, 0, null), desired));
+    }
+
+    @Test
+    public void testChangedMetadata() {
+        V1StatefulSet desired = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        desired.getMetadata()
+                .putLabelsItem("app", "elassandra")
+                .addOwnerReferencesItem(new V1OwnerReference().kind("ElassandraDatacenter").name("elassandra-cl1-dc1").uid("uid-1"));
+
+        V1StatefulSet current = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        current.getMetadata()
+                .putLabelsItem("app", "elassandra")
+                .addOwnerReferencesItem(new V1OwnerReference().kind("ElassandraDatacenter").name("elassandra-cl1-dc1").uid("uid-1"));
+        assertTrue(DataCenterUpdateAction.sameDesiredState(current, desired));
+
+        current.getMetadata().putLabelsItem("app", "elassandra-old");
+        assertFalse(DataCenterUpdateAction.sameDesiredState(current, desired));
+
+        current.getMetadata().putLabelsItem("app", "elassandra");
+        current.getMetadata().getOwnerReferences().get(0).setUid("uid-0");
+        assertFalse(DataCenterUpdateAction.sameDesiredState(current, desired));
+    }
+
+    @Test
+    public void testChangedPodManagementPolicy() {
+        V1StatefulSet desired = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        V1StatefulSet current = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        current.getSpec().setPodManagementPolicy(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY);
+        // OrderedReady is the default policy
+        assertTrue(DataCenterUpdateAction.sameDesiredState(current, desired));
+
+        current.getSpec().setPodManagementPolicy(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_PARALLEL);
+        assertFalse(DataCenterUpdateAction.sameDesiredState(current, desired));
+    }
+
+    @Test
+    public void testUnparkPodManagementPolicy() {
+        ParkedTopology parkedTopology = new ParkedTopology();
+        parkedTopology.getRackReplicas().put("a", 3);
+        parkedTopology.getRackReplicas().put("b", 2);
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_PARALLEL, DataCenterUpdateAction.unparkPodManagementPolicy(parkedTopology, "a", 3, true, true));
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_PARALLEL, DataCenterUpdateAction.unparkPodManagementPolicy(parkedTopology, "b", 2, true, true));
+
+        // new nodes must bootstrap one by one
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY, DataCenterUpdateAction.unparkPodManagementPolicy(parkedTopology, "a", 4, true, true));
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY, DataCenterUpdateAction.unparkPodManagementPolicy(parkedTopology, "c", 1, true, true));
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY, DataCenterUpdateAction.unparkPodManagementPolicy(parkedTopology, "a", 3, true, false));
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY, DataCenterUpdateAction.unparkPodManagementPolicy(null, "a", 3, true, true));
+        assertEquals(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY, DataCenterUpdateAction.unparkPodManagementPolicy(parkedTopology, "a", 3, false, true));
+    }
+
+    @Test
+    public void testUnparkedInParallel() {
+        V1StatefulSet sts = statefulSet("1234567-89abcde-0000000", 3, 3, 0, null);
+        sts.getMetadata().setGeneration(2L);
+        sts.getSpec().setPodManagementPolicy(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_PARALLEL);
+        sts.setStatus(new V1StatefulSetStatus().observedGeneration(2L).replicas(3).readyReplicas(2));
+        // wait for all pods ready
+        assertFalse(DataCenterUpdateAction.unparkedInParallel(sts));
+
+        sts.getStatus().setReadyReplicas(3);
+        assertTrue(DataCenterUpdateAction.unparkedInParallel(sts));
+
+        sts.getStatus().setObservedGeneration(1L);
+        assertFalse(DataCenterUpdateAction.unparkedInParallel(sts));
+
+        sts.getStatus().setObservedGeneration(2L);
+        sts.getSpec().setPodManagementPolicy(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_ORDERED_READY);
+        assertFalse(DataCenterUpdateAction.unparkedInParallel(sts));
+
+        // still parked
+        sts.getSpec().setPodManagementPolicy(DataCenterUpdateAction.POD_MANAGEMENT_POLICY_PARALLEL);
+        sts.getSpec().setReplicas(0);
+        sts.setStatus(new V1StatefulSetStatus().observedGeneration(2L).replicas(0).readyReplicas(0));
+        assertFalse(DataCenterUpdateAction.unparkedInParallel(sts));
+    }
+}
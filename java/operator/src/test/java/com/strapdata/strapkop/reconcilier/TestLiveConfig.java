@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableMap;
+import io.kubernetes.client.openapi.models.V1ConfigMap;
+import io.kubernetes.client.openapi.models.V1ConfigMapVolumeSource;
+import io.kubernetes.client.openapi.models.V1KeyToPath;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestLiveConfig {
+
+    static final V1ConfigMapVolumeSource VOLUME_SOURCE = new V1ConfigMapVolumeSource()
+            .name("user-config")
+            .addItemsItem(new V1KeyToPath().key("cassandra_overrides").path("cassandra.yaml.d/009-user_config_overrides.yaml"))
+            .addItemsItem(new V1KeyToPath().key("es_overrides").path("elasticsearch.yml.d/009-user_config_overrides.yaml"))
+            .addItemsItem(new V1KeyToPath().key("logback.xml").path("logback.xml"));
+
+    static V1ConfigMap configMap(String cassandra, String elasticsearch) {
+        Map<String, String> data = new LinkedHashMap<>();
+        data.put("cassandra_overrides", cassandra);
+        data.put("es_overrides", elasticsearch);
+        data.put("logback.xml", "<configuration/>");
+        return new V1ConfigMap().data(data);
+    }
+
+    @Test
+    public void testSplitLiveSettings() {
+        LiveConfig liveConfig = LiveConfig.of(configMap(
+                "compaction_throughput_mb_per_sec: 64\nconcurrent_compactors: 4\n",
+                "indices:\n  recovery:\n    max_bytes_per_sec: 100mb\nthread_pool.write.queue_size: 500\n"), VOLUME_SOURCE);
+
+        assertEquals(ImmutableMap.of("compaction_throughput_mb_per_sec", 64), liveConfig.getCassandraSettings());
+        assertEquals(ImmutableMap.of("indices.recovery.max_bytes_per_sec", "100mb"), liveConfig.getElasticsearchSettings());
+        assertEquals("concurrent_compactors: 4\n", liveConfig.getRestartData().get("cassandra_overrides"));
+        assertEquals("thread_pool.write.queue_size: 500\n", liveConfig.getRestartData().get("es_overrides"));
+        assertEquals("<configuration/>", liveConfig.getRestartData().get("logback.xml"));
+    }
+
+    @Test
+    public void testUnchangedWithoutLiveSettings() {
+        V1ConfigMap configMap = configMap("concurrent_compactors: 4 # comment\n", "thread_pool.write.queue_size: 500\n");
+        LiveConfig liveConfig = LiveConfig.of(configMap, VOLUME_SOURCE);
+        assertTrue(liveConfig.isEmpty());
+        assertNull(liveConfig.fingerPrint());
+        assertEquals(configMap.getData(), liveConfig.getRestartData());
+    }
+
+    @Test
+    public void testFingerprint() {
+        LiveConfig liveConfig1 = LiveConfig.of(configMap("compaction_throughput_mb_per_sec: 64\nconcurrent_compactors: 4\n", ""), VOLUME_SOURCE);
+        LiveConfig liveConfig2 = LiveConfig.of(configMap("compaction_throughput_mb_per_sec: 128\nconcurrent_compactors: 4\n", ""), VOLUME_SOURCE);
+        assertNotEquals(liveConfig1.fingerPrint(), liveConfig2.fingerPrint());
+        assertEquals(liveConfig1.getRestartData(), liveConfig2.getRestartData());
+    }
+
+    @Test
+    public void testRemovedSettingsReset() {
+        LiveConfig liveConfig = LiveConfig.of(configMap("compaction_throughput_mb_per_sec: 64\n", "search.max_buckets: 20000\n"), VOLUME_SOURCE);
+        Map<String, Object> defaults = new HashMap<>(LiveConfig.CASSANDRA_LIVE_SETTINGS_DEFAULTS);
+        defaults.put("hinted_handoff_throttle_in_kb", 4096);
+
+        Map<String, Object> cassandraSettings = liveConfig.cassandraSettingsWithDefaults(defaults);
+        assertEquals(LiveConfig.CASSANDRA_LIVE_SETTINGS.keySet(), cassandraSettings.keySet());
+        assertEquals(64, cassandraSettings.get("compaction_throughput_mb_per_sec"));
+        assertEquals(4096, cassandraSettings.get("hinted_handoff_throttle_in_kb"));
+        assertEquals(1000, cassandraSettings.get("tombstone_warn_threshold"));
+
+        // indices.recovery.max_bytes_per_sec removed from the user config map
+        Map<String, Object> elasticsearchSettings = liveConfig.elasticsearchSettingsWithDefaults(
+                Arrays.asList("search.max_buckets", "indices.recovery.max_bytes_per_sec"));
+        assertEquals(new HashSet<>(Arrays.asList("search.max_buckets", "indices.recovery.max_bytes_per_sec")), elasticsearchSettings.keySet());
+        assertEquals(20000, elasticsearchSettings.get("search.max_buckets"));
+        assertNull(elasticsearchSettings.get("indices.recovery.max_bytes_per_sec"));
+
+        // all settings removed
+        assertEquals(16, LiveConfig.EMPTY.cassandraSettingsWithDefaults(LiveConfig.CASSANDRA_LIVE_SETTINGS_DEFAULTS).get("compaction_throughput_mb_per_sec"));
+        assertEquals(Collections.singletonMap("search.max_buckets", null), LiveConfig.EMPTY.elasticsearchSettingsWithDefaults(Collections.singleton("search.max_buckets")));
+    }
+
+    @Test
+    public void testExternalElasticsearchSettingsUnchanged() {
+        // search.default_search_timeout set on the cluster without the operator, never applied from the user config map
+        LiveConfig liveConfig = LiveConfig.of(configMap("", "search.max_buckets: 20000\n"), VOLUME_SOURCE);
+        Map<String, Object> elasticsearchSettings = liveConfig.elasticsearchSettingsWithDefaults(Collections.singleton("search.max_buckets"));
+        assertEquals(Collections.singleton("search.max_buckets"), elasticsearchSettings.keySet());
+        assertFalse(elasticsearchSettings.containsKey("search.default_search_timeout"));
+
+        // first apply
+        assertEquals(Collections.singleton("search.max_buckets"), liveConfig.elasticsearchSettingsWithDefaults(null).keySet());
+        assertTrue(LiveConfig.EMPTY.elasticsearchSettingsWithDefaults(Collections.emptySet()).isEmpty());
+    }
+
+    @Test
+    public void testInvalidYaml() {
+        LiveConfig liveConfig = LiveConfig.of(configMap("compaction_throughput_mb_per_sec: [64\n", ""), VOLUME_SOURCE);
+        assertTrue(liveConfig.isEmpty());
+        assertEquals("compaction_throughput_mb_per_sec: [64\n", liveConfig.getRestartData().get("cassandra_overrides"));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.OperatorConfig;
+import com.strapdata.strapkop.cache.DataCenterStatusCache;
+import com.strapdata.strapkop.cache.DesiredStateCache;
+import com.strapdata.strapkop.cache.FingerprintCache;
+import com.strapdata.strapkop.cache.StatefulsetCache;
+import com.strapdata.strapkop.model.k8s.datacenter.*;
+import io.kubernetes.client.custom.Quantity;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Cache;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.apis.AppsV1Api;
+import io.kubernetes.client.openapi.models.V1KeyToPath;
+import io.kubernetes.client.openapi.models.V1Node;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.openapi.models.V1ResourceRequirements;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Compare the operator configmap with the golden files in src/test/resources/configmap, generated before the workload auto tuning:
+ * without autoTuning, the operator configmap and its fingerprint must not change when upgrading the operator.
+ */
+public class TestOperatorConfigMap {
+
+    @SuppressWarnings("unchecked")
+    static SharedInformerFactory sharedInformerFactory() {
+        SharedIndexInformer<V1Node> nodeInformer = mock(SharedIndexInformer.class);
+        when(nodeInformer.getIndexer()).thenReturn(new Cache<>());
+        SharedInformerFactory sharedInformerFactory = mock(SharedInformerFactory.class);
+        when(sharedInformerFactory.getExistingSharedIndexInformer(V1Node.class)).thenReturn(nodeInformer);
+        return sharedInformerFactory;
+    }
+
+    static DataCenterStatusCache dataCenterStatusCache() {
+        DataCenterStatusCache dataCenterStatusCache = mock(DataCenterStatusCache.class);
+        when(dataCenterStatusCache.getOrDefault(any(), any())).thenAnswer(invocation -> invocation.getArgument(1));
+        return dataCenterStatusCache;
+    }
+
+    static DataCenterUpdateAction updateAction(DataCenterSpec spec) {
+        DataCenter dataCenter = new DataCenter()
+                .setMetadata(new V1ObjectMeta().namespace("default").name("elassandra-cl1-dc1").generation(1L).uid("00000000-0000-0000-0000-000000000001"))
+                .setSpec(spec.setClusterName("cl1").setDatacenterName("dc1"));
+        return new DataCenterUpdateAction(null,
+                sharedInformerFactory(),
+                null,
+                new AppsV1Api(new ApiClient()),
+                null, null, null, null, null,
+                new StatefulsetCache(),
+                new FingerprintCache(),
+                new DesiredStateCache(),
+                dataCenterStatusCache(),
+                null, null, null,
+                dataCenter,
+                new Operation().setLastTransitionTime(new Date()),
+                new OperatorConfig(),
+                null, null);
+    }
+
+    static String golden(String name) throws IOException {
+        try (InputStream is = TestOperatorConfigMap.class.getResourceAsStream("/configmap/" + name + ".txt")) {
+            assertNotNull(is, "missing golden file " + name);
+            return new Scanner(is, StandardCharsets.UTF_8.name()).useDelimiter("\\A").next();
+        }
+    }
+
+    /**
+     * @return the configmap files in the volume items order, with the cpu dependent settings replaced by placeholders.
+     */
+    static String render(DataCenterUpdateAction.ConfigMapVolumeMountBuilder builder) {
+        final int cpu = Math.max(1, Runtime.getRuntime().availableProcessors());
+        StringBuilder sb = new StringBuilder();
+        for (V1KeyToPath item : builder.volumeSource.getItems()) {
+            String content = builder.configMap.getData().get(item.getKey())
+                    .replace("concurrent_writes: " + (cpu * 8) + "\n", "concurrent_writes: ${concurrent_writes}\n")
+                    .replace("concurrent_materialized_view_writes: " + (cpu * 8) + "\n", "concurrent_materialized_view_writes: ${concurrent_writes}\n")
+                    .replace("concurrent_reads: " + Math.max(32, cpu * 8) + "\n", "concurrent_reads: ${concurrent_reads}\n")
+                    .replace("concurrent_counter_writes: " + Math.max(32, cpu * 8) + "\n", "concurrent_counter_writes: ${concurrent_reads}\n")
+                    .replace("memtable_flush_writers: " + Math.min(cpu, Math.max(2, cpu / 2)) + "\n", "memtable_flush_writers: ${memtable_flush_writers}\n");
+            sb.append("# ").append(item.getPath()).append("\n").append(content);
+            if (!content.endsWith("\n"))
+                sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testDefaultSpec() throws Exception {
+        DataCenterUpdateAction action = updateAction(new DataCenterSpec());
+        assertEquals(golden("default"), render(action.builder.buildConfigMapOperator()));
+        assertFalse(action.builder.buildConfigMapTuning().isPresent());
+    }
+
+    @Test
+    public void testWriteWorkloadWithResources() throws Exception {
+        DataCenterSpec spec = new DataCenterSpec().setResources(new V1ResourceRequirements()
+                .putRequestsItem("cpu", Quantity.fromString("2"))
+                .putRequestsItem("memory", Quantity.fromString("4Gi")));
+        spec.getCassandra().setWorkload(Workload.WRITE);
+        DataCenterUpdateAction action = updateAction(spec);
+        assertEquals(golden("write-resources"), render(action.builder.buildConfigMapOperator()));
+        assertFalse(action.builder.buildConfigMapTuning().isPresent());
+    }
+
+    @Test
+    public void testReadWorkloadWithLargeHeap() throws Exception {
+        DataCenterSpec spec = new DataCenterSpec().setResources(new V1ResourceRequirements()
+                .putRequestsItem("cpu", Quantity.fromString("8"))
+                .putRequestsItem("memory", Quantity.fromString("64Gi")));
+        spec.getCassandra().setWorkload(Workload.READ);
+        DataCenterUpdateAction action = updateAction(spec);
+        assertEquals(golden("read-large-heap"), render(action.builder.buildConfigMapOperator()));
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import io.kubernetes.client.openapi.models.*;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRollingUpdate {
+
+    static V1StatefulSet statefulSet(int replicas, String updateRevision) {
+        return new V1StatefulSet()
+                .metadata(new V1ObjectMeta().name("elassandra-cl1-dc1-0"))
+                .spec(new V1StatefulSetSpec().replicas(replicas))
+                .status(new V1StatefulSetStatus().updateRevision(updateRevision));
+    }
+
+    static V1StatefulSet statefulSet(int replicas, String updateRevision, int partition, boolean observed) {
+        V1StatefulSet sts = statefulSet(replicas, updateRevision);
+        sts.getMetadata().setGeneration(2L);
+        sts.getStatus().setObservedGeneration(observed ? 2L : 1L);
+        return DataCenterUpdateAction.setPartition(sts, partition);
+    }
+
+    static V1Pod pod(String revision, boolean ready) {
+        return new V1Pod()
+                .metadata(new V1ObjectMeta().labels(Collections.singletonMap(DataCenterUpdateAction.CONTROLLER_REVISION_HASH, revision)))
+                .status(new V1PodStatus().addConditionsItem(new V1PodCondition().type("Ready").status(ready ? "True" : "False")));
+    }
+
+    @Test
+    public void testRollingUpdateBudget() {
+        // bounded by the PodDisruptionBudget, sequential by default
+        assertEquals(1, DataCenterUpdateAction.rollingUpdateBudget(null, null));
+        assertEquals(1, DataCenterUpdateAction.rollingUpdateBudget(null, 1));
+        assertEquals(1, DataCenterUpdateAction.rollingUpdateBudget(3, 1));
+        assertEquals(3, DataCenterUpdateAction.rollingUpdateBudget(null, 3));
+        assertEquals(2, DataCenterUpdateAction.rollingUpdateBudget(2, 3));
+        assertEquals(1, DataCenterUpdateAction.rollingUpdateBudget(0, 3));
+    }
+
+    @Test
+    public void testPausePartition() {
+        V1StatefulSet sts = statefulSet(3, "new");
+
+        // nothing updated yet
+        assertEquals(3, DataCenterUpdateAction.pausePartition(sts, Arrays.asList(pod("old", true), pod("old", true), pod("old", true))));
+
+        // pod-2 deleted by the StatefulSet controller, not yet recreated
+        assertEquals(2, DataCenterUpdateAction.pausePartition(sts, Arrays.asList(pod("old", true), pod("old", true), null)));
+
+        // pod-2 terminating
+        V1Pod terminating = pod("old", true);
+        terminating.getMetadata().setDeletionTimestamp(DateTime.now());
+        assertEquals(2, DataCenterUpdateAction.pausePartition(sts, Arrays.asList(pod("old", true), pod("old", true), terminating)));
+
+        // pod-2 updated but not yet ready
+        assertEquals(2, DataCenterUpdateAction.pausePartition(sts, Arrays.asList(pod("old", true), pod("old", true), pod("new", false))));
+
+        // pod-2 updated, pod-1 restarting
+        assertEquals(1, DataCenterUpdateAction.pausePartition(sts, Arrays.asList(pod("old", true), pod("old", false), pod("new", true))));
+
+        // pod-0 unavailable for another reason is not part of the rolling update
+        assertEquals(2, DataCenterUpdateAction.pausePartition(sts, Arrays.asList(pod("old", false), pod("old", true), pod("new", true))));
+
+        // all updated
+        List<V1Pod> updated = Arrays.asList(pod("new", true), pod("new", true), pod("new", true));
+        assertEquals(0, DataCenterUpdateAction.pausePartition(sts, updated));
+    }
+
+    @Test
+    public void testDrainSequence() {
+        // new template deployed with partition=replicas, drain and restart the highest ordinal first
+        assertEquals(2, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 3, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("old", true)), 0));
+
+        // StatefulSet update not yet observed by the controller
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 3, false),
+                Arrays.asList(pod("old", true), pod("old", true), pod("old", true)), 0));
+
+        // pod-2 being restarted
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 2, true),
+                Arrays.asList(pod("old", true), pod("old", true), null), 0));
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 2, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("new", false)), 0));
+
+        // pod-2 restarted and ready, next is pod-1
+        assertEquals(1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 2, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("new", true)), 0));
+
+        // another pod not ready, wait
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 2, true),
+                Arrays.asList(pod("old", false), pod("old", true), pod("new", true)), 0));
+
+        // all pods restarted
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 0, true),
+                Arrays.asList(pod("new", true), pod("new", true), pod("new", true)), 0));
+    }
+
+    @Test
+    public void testDrainedBeforeOperatorRestart() {
+        // pod-2 drained but the partition was not decreased, the not ready pod is the next to restart
+        assertEquals(2, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 3, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("old", false)), 0));
+
+        // same for pod-1 after pod-2 was restarted
+        assertEquals(1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "new", 2, true),
+                Arrays.asList(pod("old", true), pod("old", false), pod("new", true)), 0));
+    }
+
+    @Test
+    public void testCanaryDrainSequence() {
+        // one canary pod, stop at the partition floor
+        assertEquals(2, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "canary", 3, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("old", true)), 2));
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "canary", 2, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("canary", true)), 2));
+
+        // rolled back, the previous template is restored with partition=replicas, only the canary pod is restarted
+        assertEquals(2, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "old", 3, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("canary", true)), 0));
+        assertEquals(-1, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "old", 2, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("old", true)), 0));
+
+        // a canary pod not ready is restarted without draining
+        assertEquals(2, DataCenterUpdateAction.nextDrainOrdinal(statefulSet(3, "old", 3, true),
+                Arrays.asList(pod("old", true), pod("old", true), pod("canary", false)), 0));
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestScaleDownPlanner {
+
+    static final long GB = 1024L * 1024 * 1024;
+
+    static ScaleDownPlanner.NodeLoad node(String rack, int ordinal, long loadGb) {
+        return new ScaleDownPlanner.NodeLoad("pod-" + rack + "-" + ordinal, rack, ordinal, loadGb * GB, 100 * GB);
+    }
+
+    @Test
+    public void testPreferredRack() {
+        List<ScaleDownPlanner.NodeLoad> nodes = ImmutableList.of(
+                node("a", 0, 20), node("a", 1, 20),
+                node("b", 0, 20), node("b", 1, 20));
+        ScaleDownPlanner.Decision decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, true, 0.7);
+        assertTrue(decision.isAccepted());
+        assertEquals("b", decision.getRack());
+        assertEquals("pod-b-1", decision.getPod());
+        assertEquals(0.4, decision.getProjectedDiskUsage(), 0.001);
+    }
+
+    @Test
+    public void testReorderRack() {
+        // removing b-1 would fill b-0 up to 80%
+        List<ScaleDownPlanner.NodeLoad> nodes = ImmutableList.of(
+                node("a", 0, 20), node("a", 1, 20),
+                node("b", 0, 40), node("b", 1, 40));
+        ScaleDownPlanner.Decision decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, true, 0.7);
+        assertEquals("a", decision.getRack());
+        assertEquals("pod-a-1", decision.getPod());
+    }
+
+    @Test
+    public void testRefused() {
+        List<ScaleDownPlanner.NodeLoad> nodes = ImmutableList.of(
+                node("a", 0, 40), node("a", 1, 40),
+                node("b", 0, 40), node("b", 1, 40));
+        ScaleDownPlanner.Decision decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, true, 0.7);
+        assertFalse(decision.isAccepted());
+        assertTrue(decision.getReason().contains("pod=pod-b-1"));
+        assertTrue(decision.getReason().contains("pod=pod-a-1"));
+
+        // streamed to all remaining nodes, 40 + 40/3 = 53%
+        decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, false, 0.7);
+        assertEquals("b", decision.getRack());
+        assertEquals(0.533, decision.getProjectedDiskUsage(), 0.001);
+    }
+
+    @Test
+    public void testProportionalToLoad() {
+        // c-0 holds more tokens and receives 3/4 of the data
+        List<ScaleDownPlanner.NodeLoad> nodes = ImmutableList.of(
+                node("c", 0, 30), node("c", 1, 10), node("c", 2, 20));
+        assertEquals(0.45, ScaleDownPlanner.projectedDiskUsage(nodes.get(2), nodes, true), 0.001);
+    }
+
+    @Test
+    public void testUnreachableNode() {
+        // b-0 is unreachable, b-1 data is streamed to b-0
+        List<ScaleDownPlanner.NodeLoad> nodes = ImmutableList.of(
+                node("a", 0, 20), node("a", 1, 20),
+                node("b", 0, 20).withLoadBytes(null), node("b", 1, 20));
+        ScaleDownPlanner.Decision decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, true, 0.7);
+        assertEquals("a", decision.getRack());
+        assertEquals("pod-a-1", decision.getPod());
+
+        // streamed to all remaining nodes
+        decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, false, 0.7);
+        assertFalse(decision.isAccepted());
+        assertTrue(decision.getReason().contains("pod=pod-b-1 unknown load of pod-b-0"));
+
+        // without the disk usage check
+        decision = ScaleDownPlanner.plan(ImmutableList.of("b", "a"), nodes, true, null);
+        assertEquals("b", decision.getRack());
+        assertNull(decision.getProjectedDiskUsage());
+    }
+
+    @Test
+    public void testUnknownCapacity() {
+        List<ScaleDownPlanner.NodeLoad> nodes = ImmutableList.of(
+                node("a", 0, 90).withCapacityBytes(null), node("a", 1, 90));
+        ScaleDownPlanner.Decision decision = ScaleDownPlanner.plan(ImmutableList.of("a"), nodes, true, 0.7);
+        assertTrue(decision.isAccepted());
+        assertNull(decision.getProjectedDiskUsage());
+    }
+}
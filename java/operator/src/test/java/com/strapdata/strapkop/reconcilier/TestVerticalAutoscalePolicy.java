@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.google.common.collect.ImmutableList;
+import com.strapdata.strapkop.model.k8s.datacenter.VerticalAutoscaling;
+import io.kubernetes.client.custom.Quantity;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestVerticalAutoscalePolicy {
+
+    static final long GB = 1024L * 1024 * 1024;
+    static final long NOW = 10_000_000L;
+
+    static List<VerticalAutoscalePolicy.JvmMetrics> metrics(double gcPauseMs, double heapUsageAfterGc, double cpuUsage) {
+        return ImmutableList.of(
+                new VerticalAutoscalePolicy.JvmMetrics("pod-0", gcPauseMs, heapUsageAfterGc, 2 * GB, GB / 2, cpuUsage),
+                new VerticalAutoscalePolicy.JvmMetrics("pod-1", 10.0, 0.1, 2 * GB, GB / 2, 0.1));
+    }
+
+    static Optional<VerticalAutoscalePolicy.Recommendation> recommend(List<VerticalAutoscalePolicy.JvmMetrics> metrics, long lastUpdateTime) {
+        return VerticalAutoscalePolicy.recommend(new VerticalAutoscaling(),
+                8 * GB, 4 * GB, 16 * GB,
+                2000, 1000, 4000,
+                metrics, lastUpdateTime, NOW);
+    }
+
+    @Test
+    public void testMemoryUp() {
+        Optional<VerticalAutoscalePolicy.Recommendation> recommendation = recommend(metrics(800.0, 0.5, 0.5), 0);
+        assertTrue(recommendation.isPresent());
+        assertEquals(10 * GB, recommendation.get().getMemoryBytes());
+        assertEquals(2000, recommendation.get().getCpuMillis());
+        assertTrue(recommendation.get().getReason().contains("maxGcPause"));
+
+        assertEquals(10 * GB, recommend(metrics(100.0, 0.8, 0.5), 0).get().getMemoryBytes());
+    }
+
+    @Test
+    public void testMemoryDown() {
+        Optional<VerticalAutoscalePolicy.Recommendation> recommendation = recommend(metrics(100.0, 0.2, 0.5), 0);
+        assertTrue(recommendation.isPresent());
+        assertEquals(6 * GB, recommendation.get().getMemoryBytes());
+        // GC pauses above half the threshold
+        assertFalse(recommend(metrics(300.0, 0.2, 0.5), 0).isPresent());
+    }
+
+    @Test
+    public void testOffHeap() {
+        List<VerticalAutoscalePolicy.JvmMetrics> metrics = ImmutableList.of(new VerticalAutoscalePolicy.JvmMetrics("pod-0", 10.0, 0.5, 4 * GB, 4 * GB, 0.5));
+        assertEquals(10 * GB, recommend(metrics, 0).get().getMemoryBytes());
+    }
+
+    @Test
+    public void testCpu() {
+        assertEquals(2500, recommend(metrics(100.0, 0.5, 0.9), 0).get().getCpuMillis());
+        assertEquals(1500, recommend(ImmutableList.of(new VerticalAutoscalePolicy.JvmMetrics("pod-0", 100.0, 0.5, 2 * GB, GB / 2, 0.1)), 0).get().getCpuMillis());
+    }
+
+    @Test
+    public void testBoundsAndCooldown() {
+        assertFalse(VerticalAutoscalePolicy.recommend(new VerticalAutoscaling(), 8 * GB, 8 * GB, 8 * GB, 2000, 2000, 2000,
+                metrics(800.0, 0.8, 0.9), 0, NOW).isPresent());
+        assertFalse(recommend(metrics(800.0, 0.5, 0.5), NOW - 60_000).isPresent());
+        assertFalse(recommend(ImmutableList.of(), 0).isPresent());
+    }
+
+    @Test
+    public void testResize() {
+        Map<String, Quantity> requests = new HashMap<>();
+        requests.put("memory", Quantity.fromString("4Gi"));
+        Map<String, Quantity> limits = new HashMap<>();
+        limits.put("memory", Quantity.fromString("8Gi"));
+        DataCenterUpdateAction.resize("memory", Quantity.fromString("6Gi"), requests, limits);
+        assertEquals(Quantity.fromString("6Gi").getNumber(), requests.get("memory").getNumber());
+        assertEquals(0, Quantity.fromString("12Gi").getNumber().compareTo(limits.get("memory").getNumber()));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.datacenter.DiskType;
+import com.strapdata.strapkop.model.k8s.datacenter.Workload;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Scanner;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compare the generated tuning files with the golden files in src/test/resources/tuning.
+ */
+public class TestWorkloadTuning {
+
+    static String render(WorkloadTuning.Inputs inputs) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> file : WorkloadTuning.files(inputs).entrySet()) {
+            sb.append("# ").append(file.getKey()).append("\n").append(file.getValue());
+            if (!file.getValue().endsWith("\n"))
+                sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    static String golden(String name) throws IOException {
+        try (InputStream is = TestWorkloadTuning.class.getResourceAsStream("/tuning/" + name + ".txt")) {
+            assertNotNull(is, "missing golden file " + name);
+            return new Scanner(is, StandardCharsets.UTF_8.name()).useDelimiter("\\A").next();
+        }
+    }
+
+    @Test
+    public void testReadWriteNetworkDisk() throws IOException {
+        assertEquals(golden("read-write-network"), render(new WorkloadTuning.Inputs(
+                Workload.READ_WRITE, DiskType.NETWORK, 4, 16384L, true, true, true)));
+    }
+
+    @Test
+    public void testWriteSsd() throws IOException {
+        assertEquals(golden("write-ssd"), render(new WorkloadTuning.Inputs(
+                Workload.WRITE, DiskType.SSD, 8, 32768L, true, true, true)));
+    }
+
+    @Test
+    public void testReadSsd() throws IOException {
+        assertEquals(golden("read-ssd"), render(new WorkloadTuning.Inputs(
+                Workload.READ, DiskType.SSD, 16, 65536L, true, true, false)));
+    }
+
+    @Test
+    public void testWithoutResources() throws IOException {
+        assertEquals(golden("no-resources"), render(new WorkloadTuning.Inputs(
+                Workload.READ_WRITE, DiskType.NETWORK, 1, null, true, true, false)));
+    }
+
+    @Test
+    public void testAutoTuningDisabled() {
+        // the operator configmap keeps the heap, GC and workload settings
+        assertTrue(WorkloadTuning.files(new WorkloadTuning.Inputs(
+                Workload.WRITE, DiskType.SSD, 8, 32768L, false, true, true)).isEmpty());
+        assertTrue(WorkloadTuning.files(new WorkloadTuning.Inputs(
+                Workload.WRITE, DiskType.SSD, 8, 32768L, false, false, true)).isEmpty());
+    }
+
+    @Test
+    public void testDiskType() {
+        assertEquals(DiskType.SSD, WorkloadTuning.diskType(null, "ssd-{zone}"));
+        assertEquals(DiskType.SSD, WorkloadTuning.diskType(null, "local-storage"));
+        assertEquals(DiskType.SSD, WorkloadTuning.diskType(null, "managed-premium"));
+        assertEquals(DiskType.NETWORK, WorkloadTuning.diskType(null, "standard"));
+        assertEquals(DiskType.NETWORK, WorkloadTuning.diskType(null, null));
+        assertEquals(DiskType.NETWORK, WorkloadTuning.diskType(DiskType.NETWORK, "ssd-{zone}"));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2020 Strapdata SAS (support@strapdata.com)
+ *
+ * The Elassandra-Operator is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * The Elassandra-Operator is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with the Elassandra-Operator.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package com.strapdata.strapkop.reconcilier;
+
+import com.strapdata.strapkop.model.k8s.OperatorLabels;
+import com.strapdata.strapkop.model.k8s.datacenter.DataCenterStatus;
+import io.kubernetes.client.openapi.models.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TestZones {
+
+    static List<V1Node> nodes(String zone, int count) {
+        List<V1Node> nodes = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            nodes.add(new V1Node().metadata(new V1ObjectMeta().name(zone + "-" + i).putLabelsItem(OperatorLabels.ZONE, zone)));
+        return nodes;
+    }
+
+    static V1StatefulSet statefulSet(int replicas) {
+        return new V1StatefulSet().spec(new V1StatefulSetSpec().replicas(replicas));
+    }
+
+    @Test
+    public void testNextToScaleUp() {
+        List<V1Node> nodes = new ArrayList<>();
+        nodes.addAll(nodes("a", 3));
+        nodes.addAll(nodes("b", 3));
+        nodes.addAll(nodes("c", 2));
+        nodes.addAll(nodes("d", 2));
+        TreeMap<String, V1StatefulSet> statefulSets = new TreeMap<>();
+        statefulSets.put("a", statefulSet(2));
+        statefulSets.put("b", statefulSet(3));
+        statefulSets.put("c", statefulSet(1));
+        DataCenterUpdateAction.Zones zones = new DataCenterUpdateAction.Zones(new DataCenterStatus(), nodes, statefulSets);
+
+        // b is full, d has no statefulset yet
+        assertEquals(3, zones.rackCount());
+        assertEquals("c,a", zones.nextToScaleUp(3).stream().map(DataCenterUpdateAction.Zone::getName).collect(Collectors.joining(",")));
+        assertEquals("c", zones.nextToScaleUp(1).stream().map(DataCenterUpdateAction.Zone::getName).collect(Collectors.joining(",")));
+    }
+}